@@ -1,40 +1,91 @@
 package com.bankingapp;
 
+import com.bankingapp.auth.Authenticator;
+import com.bankingapp.auth.PasswordHasher;
+import com.bankingapp.auth.Session;
+import com.bankingapp.auth.SessionCache;
 import com.bankingapp.dao.AccountDAO;
 import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.CachingTransactionDAO;
+import com.bankingapp.dao.FilteredAccountDAO;
+import com.bankingapp.dao.FilteredUserDAO;
+import com.bankingapp.dao.ForwardingAccountDAO;
+import com.bankingapp.dao.IndexedAccountDAO;
+import com.bankingapp.dao.OutboxDAO;
+import com.bankingapp.dao.OutboxDAOImpl;
 import com.bankingapp.dao.TransactionDAO;
 import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.dao.TieredTransactionDAO;
 import com.bankingapp.dao.UserDAO;
 import com.bankingapp.dao.UserDAOImpl;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.dao.sharding.ShardedAccountDAO;
+import com.bankingapp.dao.sharding.ShardedTransactionDAO;
+import com.bankingapp.archive.TransactionArchive;
+import com.bankingapp.events.EventBus;
+import com.bankingapp.events.LowBalanceAlertConsumer;
+import com.bankingapp.events.OutboxRelay;
 import com.bankingapp.model.User;
-import com.bankingapp.util.PasswordUtil;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.search.OwnerSearchPage;
+import com.bankingapp.util.AppConfig;
 import com.bankingapp.exceptions.AccountNotFoundException;
 import com.bankingapp.exceptions.InsufficientFundsException;
+import com.bankingapp.exceptions.OverloadedException;
+import com.bankingapp.exceptions.TransferPendingException;
+import com.bankingapp.exceptions.VelocityLimitExceededException;
+import com.bankingapp.fraud.VelocityChecker;
 import com.bankingapp.manager.AccountManager;
 import com.bankingapp.model.Account;
 import com.bankingapp.model.AccountType;
 import com.bankingapp.email.ConsoleEmailService;
 import com.bankingapp.model.Transaction;
+import com.bankingapp.reporting.ReportGenerator;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Main {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final AccountDAO accountDAO = new AccountDAOImpl();
-    private static final TransactionDAO transactionDAO = new TransactionDAOImpl();
-    private static final AccountManager accountManager = new AccountManager(accountDAO, transactionDAO);
-    private static final UserDAO userDAO = new UserDAOImpl();
+    private static final ShardRouter shardRouter = AppConfig.getInt("shard.count", 0) > 0 ? ShardRouter.fromConfig() : null;
+    private static final AccountDAO accountDAO = decorate(shardRouter != null ? new ShardedAccountDAO(shardRouter) : new AccountDAOImpl());
+    private static final TransactionDAO transactionDAO = withArchive(shardRouter != null ? new ShardedTransactionDAO(shardRouter) : new TransactionDAOImpl());
+    // Outbox events are written to the database the operation ran on, so they are only enabled unsharded
+    private static final OutboxDAO outboxDAO = shardRouter == null && AppConfig.getBoolean("outbox.enabled", true) ? new OutboxDAOImpl() : null;
+    private static final AccountManager accountManager = new AccountManager(accountDAO, transactionDAO, outboxDAO);
+    private static final LowBalanceAlertConsumer lowBalanceAlerts = new LowBalanceAlertConsumer(
+            new BigDecimal(AppConfig.get("alerts.minBalance", "1000.00")), new ConsoleEmailService());
+    private static final UserDAO userDAO = AppConfig.getBoolean("filters.users.enabled", true) ? new FilteredUserDAO(new UserDAOImpl()) : new UserDAOImpl();
+    private static final ReportGenerator reportGenerator = new ReportGenerator(transactionDAO);
+    private static final Authenticator authenticator = new Authenticator(userDAO, new PasswordHasher(), new SessionCache());
     private static User currentUser = null;
+    private static Session currentSession = null;
 
     public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        if (ForwardingAccountDAO.unwrap(accountDAO) instanceof ShardedAccountDAO sharded) {
+            sharded.getTransferCoordinator().start();
+        }
+        accountManager.setVelocityChecker(new VelocityChecker());
+        startLowBalanceAlerts();
         System.out.println("Welcome to the Banking Application!");
 
         boolean exitApp = false;
         while (!exitApp) {
+            if (currentSession != null && authenticator.authenticate(currentSession.getToken()) == null) {
+                currentUser = null;
+                currentSession = null;
+                System.out.println("Your session has expired. Please sign in again.");
+            }
             if (currentUser == null) {
                 int choice = showAuthMenuAndReadChoice();
                 switch (choice) {
@@ -59,15 +110,20 @@ public class Main {
                         case 7 -> sendReportFlow();
                         case 8 -> {
                             // logout
+                            authenticator.signOut(currentSession.getToken());
+                            currentSession = null;
                             currentUser = null;
                             System.out.println("You have been logged out.");
                         }
                         case 9 -> checkMinimumBalancesFlow();
-                        default -> System.out.println("Invalid option. Please enter a number between 1 and 8.");
+                        case 10 -> searchByOwnerFlow();
+                        default -> System.out.println("Invalid option. Please enter a number between 1 and 10.");
                     }
+                } catch (TransferPendingException e) {
+                    System.out.println(e.getMessage() + ".");
                 } catch (SQLException e) {
                     System.err.println("Database error: " + e.getMessage());
-                } catch (AccountNotFoundException | InsufficientFundsException | IllegalArgumentException e) {
+                } catch (AccountNotFoundException | InsufficientFundsException | IllegalArgumentException | OverloadedException | VelocityLimitExceededException e) {
                     System.err.println("Error: " + e.getMessage());
                 }
             }
@@ -96,7 +152,8 @@ public class Main {
         System.out.println("6) Transaction History");
         System.out.println("7) Generate & Email Account Report");
         System.out.println("8) Logout");
-        System.out.println("9) Check Minimum Balances (threshold = 1000)");
+        System.out.println("9) Check Minimum Balances (threshold = " + lowBalanceAlerts.getThreshold() + ")");
+        System.out.println("10) Search Accounts by Owner");
         System.out.println("-------------------------------------------------");
     }
 
@@ -163,6 +220,26 @@ public class Main {
         }
     }
 
+    private static void searchByOwnerFlow() throws SQLException {
+        System.out.println("== Search Accounts by Owner ==");
+        IndexedAccountDAO search = ForwardingAccountDAO.find(accountDAO, IndexedAccountDAO.class);
+        if (search == null) {
+            System.out.println("Owner search is disabled (search.owner.enabled).");
+            return;
+        }
+        String prefix = readStringInput("Owner name starts with: ");
+        String cursor = null;
+        do {
+            OwnerSearchPage page = search.searchByOwnerPrefix(prefix, cursor, 20);
+            if (page.getMatches().isEmpty() && cursor == null) {
+                System.out.println("No accounts found.");
+                return;
+            }
+            page.getMatches().forEach(m -> System.out.println(m.getAccountId() + "\t" + m.getOwnerName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && readStringInput("More? (y/n): ").trim().equalsIgnoreCase("y"));
+    }
+
     private static int readIntInput(String prompt) {
         while (true) {
             System.out.print(prompt);
@@ -223,12 +300,26 @@ public class Main {
 
     
 
+    /**
+     * History reads also cover the cold archive when archive.enabled is set, and recent history of active accounts is
+     * kept in memory when history.cache.enabled is set.
+     */
+    private static AccountDAO decorate(AccountDAO dao) {
+        if (AppConfig.getBoolean("search.owner.enabled", true)) dao = new IndexedAccountDAO(dao);
+        if (!AppConfig.getBoolean("filters.accounts.enabled", true)) return dao;
+        return new FilteredAccountDAO(dao, shardRouter != null ? shardRouter.getShards().size() : 1);
+    }
+
+    private static TransactionDAO withArchive(TransactionDAO hot) {
+        TransactionDAO dao = AppConfig.getBoolean("archive.enabled", false) ? new TieredTransactionDAO(hot, TransactionArchive.fromConfig()) : hot;
+        return AppConfig.getBoolean("history.cache.enabled", true) ? new CachingTransactionDAO(dao) : dao;
+    }
+
     private static void sendReportFlow() {
         System.out.println("== Generate & Email Account Report ==");
         try {
             int accountId = readIntInput("Enter account ID to generate report for: ");
-            var reportGen = new com.bankingapp.reporting.ReportGenerator(transactionDAO);
-            String report = reportGen.generateAccountStatement(accountId);
+            String report = reportGenerator.generateAccountStatement(accountId);
             // send via console email service to current user's username
             var emailSvc = new com.bankingapp.email.ConsoleEmailService();
             String to = currentUser != null ? currentUser.getUsername() : "unknown@local";
@@ -242,12 +333,15 @@ public class Main {
     private static void transactionHistoryFlow() throws SQLException {
         System.out.println("== Transaction History ==");
         int accountId = readIntInput("Enter account ID to view transactions for: ");
-        java.util.List<Transaction> txs = transactionDAO.getTransactionsByAccountId(accountId);
+        // Bounded to the depth the history cache keeps, so active accounts are answered from memory
+        int limit = AppConfig.getInt("history.cache.depth", 50);
+        java.util.List<Transaction> txs = transactionDAO.getRecentTransactions(accountId, limit);
         if (txs.isEmpty()) {
             System.out.println("No transactions found for account " + accountId);
             return;
         }
-        System.out.println("Transactions for account " + accountId + ":");
+        System.out.println(txs.size() < limit ? "Transactions for account " + accountId + ":"
+                : "Latest " + limit + " transactions for account " + accountId + " (the full history is in the account report):");
         txs.forEach(t -> {
             String extra = "";
             if (t instanceof com.bankingapp.model.TransferTransaction) {
@@ -258,31 +352,67 @@ public class Main {
         });
     }
 
+    /**
+     * Seed the low-balance alerts with one scan of the current balances, then keep them current from the outbox
+     * event stream, so checking minimum balances no longer rescans every account.
+     */
+    private static void startLowBalanceAlerts() {
+        if (outboxDAO == null) return;
+        try {
+            accountDAO.scanAllAccounts(a -> lowBalanceAlerts.check(a.getId(), a.getBalance()));
+        } catch (SQLException e) {
+            System.err.println("Warning: could not seed low-balance alerts: " + e.getMessage());
+        }
+        EventBus eventBus = new EventBus(AppConfig.getInt("eventbus.capacity", 65536));
+        eventBus.subscribe("low-balance-alerts", lowBalanceAlerts);
+        new OutboxRelay(outboxDAO, eventBus, AppConfig.get("outbox.relay.consumer.console", "console")).start();
+    }
+
     private static void checkMinimumBalancesFlow() throws SQLException {
-        final java.math.BigDecimal MIN = new java.math.BigDecimal("1000.00");
+        BigDecimal min = lowBalanceAlerts.getThreshold();
         System.out.println("== Check Minimum Balances ==");
-        List<Account> accounts = accountManager.getAllAccounts();
-        if (accounts.isEmpty()) {
+        if (outboxDAO != null) {
+            // Alerts were sent as balances dropped; only the accounts still below are read
+            boolean anyBelow = false;
+            for (int id : lowBalanceAlerts.getBelowThreshold()) {
+                Account a = accountDAO.getAccountById(id);
+                if (a != null && a.getBalance().compareTo(min) < 0) {
+                    anyBelow = true;
+                    System.out.println(String.format("Account id=%d owner='%s' has low balance: %s (minimum %s)", a.getId(), a.getOwnerName(), a.getBalance(), min));
+                }
+            }
+            if (!anyBelow) {
+                System.out.println("All accounts meet the minimum balance of " + min);
+            }
+            return;
+        }
+        // Without the outbox (sharded, or outbox.enabled=false) there is no event stream: parallel range scan, where
+        // only the accounts below the minimum are collected
+        LongAdder scanned = new LongAdder();
+        Queue<Account> below = new ConcurrentLinkedQueue<>();
+        accountDAO.scanAllAccounts(a -> {
+            scanned.increment();
+            if (a.getBalance().compareTo(min) < 0) below.add(a);
+        });
+        if (scanned.sum() == 0) {
             System.out.println("No accounts found.");
             return;
         }
+        List<Account> accounts = new ArrayList<>(below);
+        accounts.sort(Comparator.comparingInt(Account::getId));
         ConsoleEmailService emailSvc = new ConsoleEmailService();
-        boolean anyBelow = false;
         for (Account a : accounts) {
-            if (a.getBalance().compareTo(MIN) < 0) {
-                anyBelow = true;
-                String msg = String.format("ALERT: Account id=%d owner='%s' has low balance: %s (minimum %s)", a.getId(), a.getOwnerName(), a.getBalance(), MIN);
-                System.out.println(msg);
-                // send console alert to owner (owner name used as 'to' address placeholder)
-                try {
-                    emailSvc.sendEmail(a.getOwnerName(), "Low balance alert for account " + a.getId(), msg);
-                } catch (Exception e) {
-                    System.err.println("Failed to send alert for account " + a.getId() + ": " + e.getMessage());
-                }
+            String msg = String.format("ALERT: Account id=%d owner='%s' has low balance: %s (minimum %s)", a.getId(), a.getOwnerName(), a.getBalance(), min);
+            System.out.println(msg);
+            // send console alert to owner (owner name used as 'to' address placeholder)
+            try {
+                emailSvc.sendEmail(a.getOwnerName(), "Low balance alert for account " + a.getId(), msg);
+            } catch (Exception e) {
+                System.err.println("Failed to send alert for account " + a.getId() + ": " + e.getMessage());
             }
         }
-        if (!anyBelow) {
-            System.out.println("All accounts meet the minimum balance of " + MIN);
+        if (accounts.isEmpty()) {
+            System.out.println("All accounts meet the minimum balance of " + min);
         }
     }
 
@@ -296,10 +426,11 @@ public class Main {
                 System.out.println("Username already exists. Please choose another.");
                 return;
             }
-            String hash = PasswordUtil.hash(password);
-            var user = new com.bankingapp.model.User(username, hash, fullName);
-            userDAO.createUser(user);
+            authenticator.signUp(username, password, fullName);
             System.out.println("Sign up successful. You can now sign in.");
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Registered concurrently, or elsewhere since the username filter was last rebuilt
+            System.out.println("Username already exists. Please choose another.");
         } catch (SQLException e) {
             System.err.println("Database error: " + e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -312,17 +443,13 @@ public class Main {
         try {
             String username = readStringInput("Username: ");
             String password = readPasswordHidden("Password: ");
-            User user = userDAO.getUserByUsername(username);
-            if (user == null) {
-                System.out.println("Invalid username or password.");
-                return;
-            }
-            String hash = PasswordUtil.hash(password);
-            if (!hash.equals(user.getPasswordHash())) {
+            Session session = authenticator.signIn(username, password);
+            if (session == null) {
                 System.out.println("Invalid username or password.");
                 return;
             }
-            currentUser = user;
+            currentSession = session;
+            currentUser = session.getUser();
             System.out.println("Sign in successful. Welcome, " + currentUser.getFullName() + "!");
         } catch (SQLException e) {
             System.err.println("Database error: " + e.getMessage());
@@ -5,12 +5,14 @@ import com.bankingapp.dao.TransactionDAOImpl;
 import com.bankingapp.manager.AccountManager;
 import com.bankingapp.model.Account;
 import com.bankingapp.model.AccountType;
+import com.bankingapp.schema.SchemaManager;
 
 import java.math.BigDecimal;
 
 public class Runner {
 
     public static void main(String[] args) {
+        SchemaManager.bootstrap();
         var accountDAO = new AccountDAOImpl();
         var transactionDAO = new TransactionDAOImpl();
         var manager = new AccountManager(accountDAO, transactionDAO);
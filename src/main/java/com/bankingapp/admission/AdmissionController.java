@@ -0,0 +1,158 @@
+package com.bankingapp.admission;
+
+import com.bankingapp.exceptions.OverloadedException;
+import com.bankingapp.model.AccountType;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.VirtualThreads;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the database: a global token bucket, a per-account token bucket whose rate depends
+ * on the AccountType, and a bounded number of concurrently executing operations with a queue timeout. Anything over
+ * a limit is rejected fast with {@link OverloadedException} so one noisy client cannot collapse everyone's latency.
+ */
+public class AdmissionController {
+
+    /**
+     * Held for the duration of one admitted operation; closing it frees the concurrency slot.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static final Permit NO_OP_PERMIT = () -> { };
+
+    private final TokenBucket globalBucket;
+    private final Semaphore concurrency;
+    private final int maxConcurrent;
+    private final long queueTimeoutMillis;
+    private final Map<AccountType, double[]> accountLimits;
+    private final Map<Integer, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shedGlobalRate = new LongAdder();
+    private final LongAdder shedAccountRate = new LongAdder();
+    private final LongAdder shedConcurrency = new LongAdder();
+
+    /**
+     * Configured from admission.* keys in config.properties.
+     */
+    public AdmissionController() {
+        this(AppConfig.getInt("admission.global.ratePerSecond", 2000),
+                AppConfig.getInt("admission.global.burst", 4000),
+                AppConfig.getInt("admission.maxConcurrent", 20),
+                AppConfig.getLong("admission.queueTimeoutMs", 200),
+                limitsFromConfig(),
+                AppConfig.getLong("admission.account.evictIntervalMs", 60_000));
+    }
+
+    /**
+     * @param accountLimits       per AccountType {ratePerSecond, burst}
+     * @param evictIntervalMillis how often idle accounts' buckets are dropped, off the admission path
+     */
+    public AdmissionController(double globalRatePerSecond, int globalBurst, int maxConcurrent, long queueTimeoutMillis,
+                               Map<AccountType, double[]> accountLimits, long evictIntervalMillis) {
+        if (evictIntervalMillis <= 0) throw new IllegalArgumentException("evictIntervalMillis must be positive");
+        this.globalBucket = new TokenBucket(globalRatePerSecond, globalBurst);
+        this.concurrency = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.accountLimits = new EnumMap<>(accountLimits);
+        // Full buckets carry no state, so idle accounts are dropped by a background sweep
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("admission-evictor"));
+        evictor.scheduleWithFixedDelay(() -> accountBuckets.values().removeIf(TokenBucket::isFull),
+                evictIntervalMillis, evictIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Admit one operation against the global limits. The caller must close the returned permit when done.
+     */
+    public Permit acquire() {
+        if (!globalBucket.tryAcquire()) {
+            shedGlobalRate.increment();
+            throw new OverloadedException("Service is overloaded, please retry later.");
+        }
+        boolean acquired;
+        try {
+            acquired = concurrency.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            shedConcurrency.increment();
+            throw new OverloadedException("Too many operations in progress, please retry later.");
+        }
+        admitted.increment();
+        return concurrency::release;
+    }
+
+    /**
+     * Charge one token to the account's bucket if it has one, without knowing its type. Returns false when it has none
+     * (first use, or idle long enough to be dropped); the caller then looks the type up and calls
+     * {@link #checkAccount(int, AccountType)}.
+     */
+    public boolean checkKnownAccount(int accountId) {
+        TokenBucket bucket = accountBuckets.get(accountId);
+        if (bucket == null) return false;
+        charge(accountId, bucket);
+        return true;
+    }
+
+    /**
+     * Charge one token to the account's own bucket, sized by its account type.
+     */
+    public void checkAccount(int accountId, AccountType type) {
+        double[] limit = accountLimits.get(type);
+        if (limit == null) return;
+        charge(accountId, accountBuckets.computeIfAbsent(accountId, id -> new TokenBucket(limit[0], (int) limit[1])));
+    }
+
+    private void charge(int accountId, TokenBucket bucket) {
+        if (!bucket.tryAcquire()) {
+            shedAccountRate.increment();
+            throw new OverloadedException("Too many operations on account ID " + accountId + ", please retry later.");
+        }
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getShedCount() {
+        return shedGlobalRate.sum() + shedAccountRate.sum() + shedConcurrency.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionController{" +
+                "admitted=" + admitted.sum() +
+                ", shedGlobalRate=" + shedGlobalRate.sum() +
+                ", shedAccountRate=" + shedAccountRate.sum() +
+                ", shedConcurrency=" + shedConcurrency.sum() +
+                ", inFlight=" + (maxConcurrent - concurrency.availablePermits()) +
+                ", queued=" + concurrency.getQueueLength() +
+                '}';
+    }
+
+    private static Map<AccountType, double[]> limitsFromConfig() {
+        Map<AccountType, double[]> limits = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            String prefix = "admission.account." + type.name() + ".";
+            int rate = AppConfig.getInt(prefix + "ratePerSecond", 0);
+            if (rate > 0) {
+                limits.put(type, new double[] {rate, AppConfig.getInt(prefix + "burst", rate)});
+            }
+        }
+        return limits;
+    }
+}
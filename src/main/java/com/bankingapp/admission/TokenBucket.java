@@ -0,0 +1,46 @@
+package com.bankingapp.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as GCRA: the only state is the theoretical arrival time of the next request,
+ * so acquiring a token is a single CAS and refill needs no background thread.
+ */
+public class TokenBucket {
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param ratePerSecond sustained tokens per second
+     * @param burst         tokens that may be taken at once from a full bucket
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        if (burst <= 0) throw new IllegalArgumentException("burst must be positive");
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstToleranceNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            if (next - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * True when the bucket has refilled completely, i.e. dropping it loses no state.
+     */
+    boolean isFull() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+}
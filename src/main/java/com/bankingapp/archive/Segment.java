@@ -0,0 +1,368 @@
+package com.bankingapp.archive;
+
+import com.bankingapp.model.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read side of a monthly archive segment. Layout (big-endian):
+ * <pre>
+ * header   magic, version, yyyymm, rowCount, maxId, groupSize
+ * index    accountCount, then (accountId, firstRow, rows) sorted by account id
+ * incoming destinationCount, then (accountId, firstEntry, entries) sorted by account id, then entryCount and the row
+ *          numbers of the transfers into each destination, in id order
+ * groups   groupCount, then per group and column (offset, length)
+ * data     deflated columns: id, account_id, destination_account_id, type, amount (cents), timestamp (epoch micros),
+ *          encoded as in {@link TransactionBatch}, then balance_after and destination_balance_after (cents, with
+ *          Long.MIN_VALUE for none)
+ * </pre>
+ * Rows are stored ordered by account id, then id, so one account's history is a contiguous row range and reading it
+ * only inflates the row groups that range touches. Transfers are stored under their source account; the incoming
+ * index finds them from the destination side. Only the header and the two indexes, without the incoming row numbers,
+ * are kept in memory. Version 1 segments, written before balances were archived, lack the two balance columns and
+ * their rows read with no balance after; version 1 and 2 segments have no incoming index.
+ */
+public class Segment {
+
+    static final int MAGIC = 0x54585347; // "TXSG"
+    static final int VERSION = 3;
+    static final int COLUMNS = 8;
+    private static final int V1_COLUMNS = 6;
+    static final long NO_BALANCE = Long.MIN_VALUE;
+
+    private final Path path;
+    private final YearMonth month;
+    private final int rowCount;
+    private final int maxId;
+    private final int groupSize;
+    private final int columns;
+    private final int[] accountIds;
+    private final int[] firstRows;
+    private final int[] rowCounts;
+    private final int[] incomingAccountIds;
+    private final int[] incomingFirstEntries;
+    private final int[] incomingEntryCounts;
+    private final long incomingEntriesOffset;
+    private final long[] chunkOffsets;
+    private final int[] chunkLengths;
+
+    private Segment(Path path, YearMonth month, int rowCount, int maxId, int groupSize, int columns, int[] accountIds,
+                    int[] firstRows, int[] rowCounts, int[] incomingAccountIds, int[] incomingFirstEntries,
+                    int[] incomingEntryCounts, long incomingEntriesOffset, long[] chunkOffsets, int[] chunkLengths) {
+        this.path = path;
+        this.month = month;
+        this.rowCount = rowCount;
+        this.maxId = maxId;
+        this.groupSize = groupSize;
+        this.columns = columns;
+        this.accountIds = accountIds;
+        this.firstRows = firstRows;
+        this.rowCounts = rowCounts;
+        this.incomingAccountIds = incomingAccountIds;
+        this.incomingFirstEntries = incomingFirstEntries;
+        this.incomingEntryCounts = incomingEntryCounts;
+        this.incomingEntriesOffset = incomingEntriesOffset;
+        this.chunkOffsets = chunkOffsets;
+        this.chunkLengths = chunkLengths;
+    }
+
+    public static Segment open(Path path) throws IOException {
+        try (InputStream raw = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a transaction segment: " + path);
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported segment version " + version + ": " + path);
+            int yyyymm = in.readInt();
+            int rowCount = in.readInt();
+            int maxId = in.readInt();
+            int groupSize = in.readInt();
+            int accounts = in.readInt();
+            int[] accountIds = new int[accounts];
+            int[] firstRows = new int[accounts];
+            int[] rowCounts = new int[accounts];
+            for (int i = 0; i < accounts; i++) {
+                accountIds[i] = in.readInt();
+                firstRows[i] = in.readInt();
+                rowCounts[i] = in.readInt();
+            }
+            int destinations = version >= 3 ? in.readInt() : 0;
+            int[] incomingAccountIds = new int[destinations];
+            int[] incomingFirstEntries = new int[destinations];
+            int[] incomingEntryCounts = new int[destinations];
+            for (int i = 0; i < destinations; i++) {
+                incomingAccountIds[i] = in.readInt();
+                incomingFirstEntries[i] = in.readInt();
+                incomingEntryCounts[i] = in.readInt();
+            }
+            long incomingEntriesOffset = 0;
+            if (version >= 3) {
+                int entries = in.readInt();
+                incomingEntriesOffset = 7 * 4L + accounts * 12L + 4 + destinations * 12L + 4;
+                in.skipNBytes(entries * 4L);
+            }
+            int columns = version == 1 ? V1_COLUMNS : COLUMNS;
+            int chunks = in.readInt() * columns;
+            long[] chunkOffsets = new long[chunks];
+            int[] chunkLengths = new int[chunks];
+            for (int i = 0; i < chunks; i++) {
+                chunkOffsets[i] = in.readLong();
+                chunkLengths[i] = in.readInt();
+            }
+            return new Segment(path, YearMonth.of(yyyymm / 100, yyyymm % 100), rowCount, maxId, groupSize,
+                    columns, accountIds, firstRows, rowCounts, incomingAccountIds, incomingFirstEntries,
+                    incomingEntryCounts, incomingEntriesOffset, chunkOffsets, chunkLengths);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getMaxId() {
+        return maxId;
+    }
+
+    public boolean containsAccount(int accountId) {
+        return Arrays.binarySearch(accountIds, accountId) >= 0;
+    }
+
+    /**
+     * The archived rows of one account, oldest id first.
+     */
+    public List<Transaction> read(int accountId) throws IOException {
+        int pos = Arrays.binarySearch(accountIds, accountId);
+        if (pos < 0) return new ArrayList<>();
+        return readRows(firstRows[pos], rowCounts[pos]);
+    }
+
+    /**
+     * The archived transfers into one account, oldest id first. Empty for segments older than version 3.
+     */
+    public List<Transaction> readIncoming(int accountId) throws IOException {
+        int pos = Arrays.binarySearch(incomingAccountIds, accountId);
+        if (pos < 0) return new ArrayList<>();
+        int count = incomingEntryCounts[pos];
+        ByteBuffer entries = ByteBuffer.allocate(count * 4);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = incomingEntriesOffset + incomingFirstEntries[pos] * 4L;
+            while (entries.hasRemaining()) {
+                if (channel.read(entries, position + entries.position()) < 0) {
+                    throw new IOException("Truncated segment: " + path);
+                }
+            }
+        }
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = entries.getInt(i * 4);
+        }
+        // Rows are ordered by source account, so id order needs a sort once they are read
+        List<Transaction> transfers = new ArrayList<>(count);
+        scanRows(rows, transfers::add);
+        transfers.sort(Comparator.comparingInt(Transaction::getId));
+        return transfers;
+    }
+
+    /**
+     * The rows of one account and the transfers into it, by id.
+     */
+    public List<Transaction> readInvolving(int accountId) throws IOException {
+        List<Transaction> rows = read(accountId);
+        List<Transaction> incoming = readIncoming(accountId);
+        if (incoming.isEmpty()) return rows;
+        rows.addAll(incoming);
+        rows.sort(Comparator.comparingInt(Transaction::getId));
+        return rows;
+    }
+
+    /**
+     * Every row in the segment, ordered by account id, then id.
+     */
+    public List<Transaction> readAll() throws IOException {
+        return readRows(0, rowCount);
+    }
+
+    /**
+     * Stream every row in the segment, ordered by account id, then id, inflating one row group at a time.
+     */
+    public void forEach(Consumer<Transaction> sink) throws IOException {
+        scan(0, rowCount, sink);
+    }
+
+    private List<Transaction> readRows(int from, int count) throws IOException {
+        List<Transaction> rows = new ArrayList<>(count);
+        scan(from, count, rows::add);
+        return rows;
+    }
+
+    private void scan(int from, int count, Consumer<Transaction> sink) throws IOException {
+        if (count == 0) return;
+        int end = from + count;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Inflater inflater = new Inflater();
+            try {
+                for (int group = from / groupSize; group <= (end - 1) / groupSize; group++) {
+                    int groupStart = group * groupSize;
+                    RowGroup rows = new RowGroup(channel, inflater, group);
+                    for (int i = Math.max(from, groupStart) - groupStart; i < Math.min(end, groupStart + rows.n) - groupStart; i++) {
+                        sink.accept(rows.get(i));
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Scattered rows, by ascending row number; each row group they touch is inflated once.
+     */
+    private void scanRows(int[] rows, Consumer<Transaction> sink) throws IOException {
+        if (rows.length == 0) return;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Inflater inflater = new Inflater();
+            try {
+                RowGroup group = null;
+                for (int row : rows) {
+                    if (row < 0 || row >= rowCount) throw new IOException("Corrupt incoming index in " + path);
+                    if (group == null || group.index != row / groupSize) {
+                        group = new RowGroup(channel, inflater, row / groupSize);
+                    }
+                    sink.accept(group.get(row - group.index * groupSize));
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * The inflated columns of one row group.
+     */
+    private final class RowGroup {
+        final int index;
+        final int n;
+        private final ByteBuffer ids;
+        private final ByteBuffer accounts;
+        private final ByteBuffer destinations;
+        private final ByteBuffer types;
+        private final ByteBuffer amounts;
+        private final ByteBuffer timestamps;
+        private final ByteBuffer balances;
+        private final ByteBuffer destinationBalances;
+
+        RowGroup(FileChannel channel, Inflater inflater, int group) throws IOException {
+            this.index = group;
+            this.n = Math.min(groupSize, rowCount - group * groupSize);
+            this.ids = column(channel, inflater, group, 0, n * 4);
+            this.accounts = column(channel, inflater, group, 1, n * 4);
+            this.destinations = column(channel, inflater, group, 2, n * 4);
+            this.types = column(channel, inflater, group, 3, n);
+            this.amounts = column(channel, inflater, group, 4, n * 8);
+            this.timestamps = column(channel, inflater, group, 5, n * 8);
+            this.balances = columns > V1_COLUMNS ? column(channel, inflater, group, 6, n * 8) : null;
+            this.destinationBalances = columns > V1_COLUMNS ? column(channel, inflater, group, 7, n * 8) : null;
+        }
+
+        Transaction get(int i) {
+            Transaction t = toTransaction(ids.getInt(i * 4), accounts.getInt(i * 4), destinations.getInt(i * 4),
+                    types.get(i), amounts.getLong(i * 8), timestamps.getLong(i * 8));
+            if (balances != null) {
+                t.setBalanceAfter(fromStored(balances.getLong(i * 8)));
+                if (t instanceof TransferTransaction tr) {
+                    tr.setDestinationBalanceAfter(fromStored(destinationBalances.getLong(i * 8)));
+                }
+            }
+            return t;
+        }
+    }
+
+    private ByteBuffer column(FileChannel channel, Inflater inflater, int group, int column, int rawLength) throws IOException {
+        int chunk = group * columns + column;
+        ByteBuffer compressed = ByteBuffer.allocate(chunkLengths[chunk]);
+        long position = chunkOffsets[chunk];
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, position + compressed.position()) < 0) {
+                throw new IOException("Truncated segment: " + path);
+            }
+        }
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            int len = 0;
+            while (len < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, len, rawLength - len);
+                if (n == 0 && inflater.needsInput()) break;
+                len += n;
+            }
+            if (len != rawLength) throw new IOException("Corrupt column chunk " + chunk + " in " + path);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk " + chunk + " in " + path, e);
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    static long headerSize(int accounts, int destinations, int incomingEntries, int groups) {
+        return 7 * 4L + accounts * 12L + 4 + destinations * 12L + 4 + incomingEntries * 4L + 4 + (long) groups * COLUMNS * 12;
+    }
+
+    static int destinationOf(Transaction t) {
+        return t instanceof TransferTransaction ? ((TransferTransaction) t).getDestinationAccountId() : 0;
+    }
+
+    /**
+     * A balance in cents as stored in a balance column.
+     */
+    static long toStored(BigDecimal balance) {
+        return balance == null ? NO_BALANCE : TransactionBatch.toMinorUnits(balance);
+    }
+
+    private static BigDecimal fromStored(long cents) {
+        return cents == NO_BALANCE ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    private static Transaction toTransaction(int id, int accountId, int destinationId, byte type, long cents, long micros) {
+        BigDecimal amount = BigDecimal.valueOf(cents, 2);
+        LocalDateTime timestamp = TransactionBatch.fromEpochMicros(micros);
+        switch (type) {
+            case TransactionBatch.DEPOSIT:
+                return new DepositTransaction(id, accountId, amount, timestamp);
+            case TransactionBatch.WITHDRAWAL:
+                return new WithdrawalTransaction(id, accountId, amount, timestamp);
+            case TransactionBatch.TRANSFER:
+                return new TransferTransaction(id, accountId, destinationId, amount, timestamp);
+            case TransactionBatch.TRANSFER_OUT:
+                return new TransferOutTransaction(id, accountId, amount, timestamp);
+            case TransactionBatch.TRANSFER_IN:
+                return new TransferInTransaction(id, accountId, amount, timestamp);
+            default:
+                return new InterestTransaction(id, accountId, amount, timestamp);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.bankingapp.archive;
+
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.model.TransferTransaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Builds one monthly segment file. Rows must be added ordered by account id, then id; they are buffered into row
+ * groups whose columns are deflated as soon as the group is full, so only the compressed month, plus one long per
+ * transfer for the incoming index, is held in memory.
+ */
+public class SegmentWriter {
+
+    private final YearMonth month;
+    private final int groupSize;
+    private final List<byte[][]> groups = new ArrayList<>();
+    private final List<int[]> index = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private final int[] ids;
+    private final int[] accountIds;
+    private final int[] destinationIds;
+    private final byte[] types;
+    private final long[] amounts;
+    private final long[] timestamps;
+    private final long[] balances;
+    private final long[] destinationBalances;
+    // (destination << 32 | row) per transfer, sorted into the incoming index on write
+    private long[] incoming = new long[64];
+    private int incomingCount;
+    private int buffered;
+    private int rowCount;
+    private int maxId;
+    private int lastAccountId;
+    private int lastId;
+
+    public SegmentWriter(YearMonth month, int groupSize) {
+        if (groupSize <= 0) throw new IllegalArgumentException("groupSize must be positive");
+        this.month = month;
+        this.groupSize = groupSize;
+        this.ids = new int[groupSize];
+        this.accountIds = new int[groupSize];
+        this.destinationIds = new int[groupSize];
+        this.types = new byte[groupSize];
+        this.amounts = new long[groupSize];
+        this.timestamps = new long[groupSize];
+        this.balances = new long[groupSize];
+        this.destinationBalances = new long[groupSize];
+    }
+
+    public void add(Transaction t) {
+        if (!YearMonth.from(t.getTimestamp()).equals(month)) {
+            throw new IllegalArgumentException("Transaction " + t.getId() + " does not belong to " + month);
+        }
+        if (t.getAccountId() < lastAccountId || (t.getAccountId() == lastAccountId && t.getId() <= lastId)) {
+            throw new IllegalArgumentException("Rows must be added ordered by account id, then id");
+        }
+        if (rowCount == 0 || t.getAccountId() != lastAccountId) {
+            index.add(new int[] {t.getAccountId(), rowCount, 0});
+        }
+        index.get(index.size() - 1)[2]++;
+        lastAccountId = t.getAccountId();
+        lastId = t.getId();
+
+        ids[buffered] = t.getId();
+        accountIds[buffered] = t.getAccountId();
+        destinationIds[buffered] = Segment.destinationOf(t);
+        if (destinationIds[buffered] > 0) {
+            if (incomingCount == incoming.length) incoming = Arrays.copyOf(incoming, incomingCount * 2);
+            incoming[incomingCount++] = (long) destinationIds[buffered] << 32 | rowCount;
+        }
+        types[buffered] = TransactionBatch.typeCode(t.getType());
+        amounts[buffered] = TransactionBatch.toMinorUnits(t.getAmount());
+        timestamps[buffered] = TransactionBatch.toEpochMicros(t.getTimestamp());
+        balances[buffered] = Segment.toStored(t.getBalanceAfter());
+        destinationBalances[buffered] = t instanceof TransferTransaction tr
+                ? Segment.toStored(tr.getDestinationBalanceAfter()) : Segment.NO_BALANCE;
+        buffered++;
+        rowCount++;
+        maxId = Math.max(maxId, t.getId());
+        if (buffered == groupSize) flushGroup();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Write the segment next to {@code target} and atomically move it into place, replacing any older version.
+     */
+    public void writeTo(Path target) throws IOException {
+        if (buffered > 0) flushGroup();
+        deflater.end();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new UnclosableChannelStream(channel), 1 << 16));
+            out.writeInt(Segment.MAGIC);
+            out.writeInt(Segment.VERSION);
+            out.writeInt(month.getYear() * 100 + month.getMonthValue());
+            out.writeInt(rowCount);
+            out.writeInt(maxId);
+            out.writeInt(groupSize);
+            out.writeInt(index.size());
+            for (int[] entry : index) {
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+            }
+            Arrays.sort(incoming, 0, incomingCount);
+            List<int[]> destinations = new ArrayList<>();
+            for (int i = 0; i < incomingCount; i++) {
+                int destination = (int) (incoming[i] >>> 32);
+                if (destinations.isEmpty() || destinations.get(destinations.size() - 1)[0] != destination) {
+                    destinations.add(new int[] {destination, i, 0});
+                }
+                destinations.get(destinations.size() - 1)[2]++;
+            }
+            out.writeInt(destinations.size());
+            for (int[] entry : destinations) {
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+            }
+            out.writeInt(incomingCount);
+            for (int i = 0; i < incomingCount; i++) {
+                out.writeInt((int) incoming[i]);
+            }
+            out.writeInt(groups.size());
+            long offset = Segment.headerSize(index.size(), destinations.size(), incomingCount, groups.size());
+            for (byte[][] group : groups) {
+                for (byte[] column : group) {
+                    out.writeLong(offset);
+                    out.writeInt(column.length);
+                    offset += column.length;
+                }
+            }
+            for (byte[][] group : groups) {
+                for (byte[] column : group) {
+                    out.write(column);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void flushGroup() {
+        int n = buffered;
+        ByteBuffer idCol = ByteBuffer.allocate(n * 4);
+        ByteBuffer accountCol = ByteBuffer.allocate(n * 4);
+        ByteBuffer destinationCol = ByteBuffer.allocate(n * 4);
+        ByteBuffer amountCol = ByteBuffer.allocate(n * 8);
+        ByteBuffer timestampCol = ByteBuffer.allocate(n * 8);
+        ByteBuffer balanceCol = ByteBuffer.allocate(n * 8);
+        ByteBuffer destinationBalanceCol = ByteBuffer.allocate(n * 8);
+        for (int i = 0; i < n; i++) {
+            idCol.putInt(ids[i]);
+            accountCol.putInt(accountIds[i]);
+            destinationCol.putInt(destinationIds[i]);
+            amountCol.putLong(amounts[i]);
+            timestampCol.putLong(timestamps[i]);
+            balanceCol.putLong(balances[i]);
+            destinationBalanceCol.putLong(destinationBalances[i]);
+        }
+        byte[] typeCol = new byte[n];
+        System.arraycopy(types, 0, typeCol, 0, n);
+        groups.add(new byte[][] {
+                deflate(idCol.array()), deflate(accountCol.array()), deflate(destinationCol.array()),
+                deflate(typeCol), deflate(amountCol.array()), deflate(timestampCol.array()),
+                deflate(balanceCol.array()), deflate(destinationBalanceCol.array())});
+        buffered = 0;
+    }
+
+    private byte[] deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buf = new byte[Math.max(64, raw.length / 2)];
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            len += deflater.deflate(buf, len, buf.length - len);
+        }
+        return Arrays.copyOf(buf, len);
+    }
+
+    /**
+     * Lets the DataOutputStream be flushed without closing the channel before it is forced to disk.
+     */
+    private static final class UnclosableChannelStream extends OutputStream {
+        private final FileChannel channel;
+
+        UnclosableChannelStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.bankingapp.archive;
+
+import com.bankingapp.model.Transaction;
+import com.bankingapp.util.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cold tier: a directory of monthly {@link Segment} files named transactions-yyyy-MM.seg. The set of segments is
+ * re-listed at most every refreshMs, so segments written by the archival job in another process show up without a
+ * restart; a replaced file is reopened when its size or modification time changes.
+ */
+public class TransactionArchive {
+
+    private static final String PREFIX = "transactions-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long refreshNanos;
+    private final Map<Path, Opened> opened = new HashMap<>();
+    private volatile List<Segment> segments = List.of();
+    private volatile long lastRefresh;
+    private volatile boolean loaded;
+
+    public TransactionArchive(Path directory, long refreshMillis) {
+        this.directory = directory;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+    }
+
+    /**
+     * The archive at archive.dir, re-listed every archive.refreshMs.
+     */
+    public static TransactionArchive fromConfig() {
+        return new TransactionArchive(Paths.get(AppConfig.get("archive.dir", "archive")),
+                AppConfig.getLong("archive.refreshMs", 5000));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Path segmentPath(YearMonth month) {
+        return directory.resolve(PREFIX + month + SUFFIX);
+    }
+
+    /**
+     * Segments in month order.
+     */
+    public List<Segment> getSegments() throws IOException {
+        if (!loaded || System.nanoTime() - lastRefresh >= refreshNanos) refresh();
+        return segments;
+    }
+
+    public Segment getSegment(YearMonth month) throws IOException {
+        for (Segment s : getSegments()) {
+            if (s.getMonth().equals(month)) return s;
+        }
+        return null;
+    }
+
+    /**
+     * Archived rows of one account, oldest month first and by id within a month.
+     */
+    public List<Transaction> read(int accountId) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        for (Segment s : getSegments()) {
+            rows.addAll(s.read(accountId));
+        }
+        return rows;
+    }
+
+    /**
+     * Archived rows of one account plus the archived transfers into it, oldest month first and by id within a month.
+     */
+    public List<Transaction> readInvolving(int accountId) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        for (Segment s : getSegments()) {
+            rows.addAll(s.readInvolving(accountId));
+        }
+        return rows;
+    }
+
+    /**
+     * Archived rows of one account with an id greater than {@code afterId}; segments entirely at or below it are skipped.
+     */
+    public List<Transaction> readAfter(int accountId, int afterId) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        for (Segment s : getSegments()) {
+            if (s.getMaxId() <= afterId) continue;
+            for (Transaction t : s.read(accountId)) {
+                if (t.getId() > afterId) rows.add(t);
+            }
+        }
+        return rows;
+    }
+
+    public List<Transaction> readAll() throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        for (Segment s : getSegments()) {
+            rows.addAll(s.readAll());
+        }
+        return rows;
+    }
+
+    /**
+     * Re-list the directory now.
+     */
+    public synchronized void refresh() throws IOException {
+        Map<Path, Opened> current = new HashMap<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    Opened known = opened.get(file);
+                    if (known != null && known.size == attrs.size() && known.modified == attrs.lastModifiedTime().toMillis()) {
+                        current.put(file, known);
+                    } else {
+                        current.put(file, new Opened(Segment.open(file), attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                }
+            }
+        }
+        opened.clear();
+        opened.putAll(current);
+        List<Segment> sorted = new ArrayList<>();
+        current.values().forEach(o -> sorted.add(o.segment));
+        sorted.sort(Comparator.comparing(Segment::getMonth));
+        segments = List.copyOf(sorted);
+        lastRefresh = System.nanoTime();
+        loaded = true;
+    }
+
+    private static final class Opened {
+        final Segment segment;
+        final long size;
+        final long modified;
+
+        Opened(Segment segment, long size, long modified) {
+            this.segment = segment;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bankingapp.auth;
+
+import com.bankingapp.dao.UserDAO;
+import com.bankingapp.model.User;
+
+import java.sql.SQLException;
+
+/**
+ * Signs users in against UserDAO and hands out {@link Session}s, so requests that carry a session token are
+ * authenticated from memory without re-hashing the password or looking the user up again. A successful sign-in
+ * upgrades a legacy or under-iterated stored hash to the current format.
+ */
+public class Authenticator {
+
+    private final UserDAO userDAO;
+    private final PasswordHasher hasher;
+    private final SessionCache sessions;
+
+    public Authenticator(UserDAO userDAO, PasswordHasher hasher, SessionCache sessions) {
+        this.userDAO = userDAO;
+        this.hasher = hasher;
+        this.sessions = sessions;
+    }
+
+    public User signUp(String username, String password, String fullName) throws SQLException {
+        if (username == null || username.trim().isEmpty()) throw new IllegalArgumentException("Username cannot be empty");
+        return userDAO.createUser(new User(username, hasher.hash(password), fullName));
+    }
+
+    /**
+     * A new session when the credentials match, otherwise null.
+     */
+    public Session signIn(String username, String password) throws SQLException {
+        User user = userDAO.getUserByUsername(username);
+        if (user == null || !hasher.verify(password, user.getPasswordHash())) return null;
+        if (hasher.needsRehash(user.getPasswordHash())) {
+            try {
+                userDAO.updatePasswordHash(user.getId(), hasher.hash(password));
+            } catch (SQLException e) {
+                System.err.println("Warning: could not upgrade password hash of user " + user.getId() + ": " + e.getMessage());
+            }
+        }
+        return sessions.create(user);
+    }
+
+    /**
+     * The live session behind the token, or null.
+     */
+    public Session authenticate(String token) {
+        return sessions.get(token);
+    }
+
+    public void signOut(String token) {
+        sessions.invalidate(token);
+    }
+}
@@ -0,0 +1,147 @@
+package com.bankingapp.auth;
+
+import com.bankingapp.dao.UserDAO;
+import com.bankingapp.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Login throughput without a database: users live in an in-memory UserDAO, so the numbers show hashing and session
+ * costs only. Measures, for the same threads and duration:
+ * <pre>
+ * legacy-hash     the original per-call MessageDigest.getInstance and String.format hex (unsalted SHA-256)
+ * sign-in         Authenticator.signIn at auth.hash.iterations, including the session it creates
+ * session         Authenticator.authenticate of an existing token, what an authenticated request costs
+ * </pre>
+ * Usage: LoginBenchmark [threads] [secondsPerCase] [users]
+ */
+public class LoginBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        PasswordHasher hasher = new PasswordHasher();
+        InMemoryUserDAO userDAO = new InMemoryUserDAO();
+        Authenticator authenticator = new Authenticator(userDAO, hasher, new SessionCache());
+        for (int i = 0; i < userCount; i++) {
+            authenticator.signUp("user" + i, "password" + i, "User " + i);
+        }
+        String[] tokens = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            tokens[i] = authenticator.signIn("user" + i, "password" + i).getToken();
+        }
+        System.out.printf("%d users, %d threads, %d s per case, %d iterations per hash%n",
+                userCount, threads, seconds, hasher.getIterations());
+
+        run("legacy-hash", threads, seconds, i -> legacyHash("password" + i), userCount);
+        run("sign-in", threads, seconds, i -> {
+            try {
+                if (authenticator.signIn("user" + i, "password" + i) == null) throw new IllegalStateException("sign-in failed");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }, userCount);
+        run("session", threads, seconds, i -> {
+            if (authenticator.authenticate(tokens[i]) == null) throw new IllegalStateException("session lost");
+        }, userCount);
+    }
+
+    private static void run(String name, int threads, int seconds, Consumer<Integer> op, int userCount) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        LongAdder ops = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger failures = new AtomicInteger();
+        Future<?>[] futures = new Future<?>[threads];
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures[t] = pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    try {
+                        op.accept(random.nextInt(userCount));
+                        ops.increment();
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-12s %12.0f ops/s %10.2f us/op%s%n", name, ops.sum() / elapsed,
+                elapsed * 1e6 * threads / Math.max(1, ops.sum()),
+                failures.get() > 0 ? "  (" + failures.get() + " failures)" : "");
+    }
+
+    /**
+     * The hash as PasswordUtil computed it before digests were reused.
+     */
+    private static String legacyHash(String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = md.digest(password.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hashed) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class InMemoryUserDAO implements UserDAO {
+        private final Map<String, User> users = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        @Override
+        public User createUser(User user) {
+            user.setId(nextId.incrementAndGet());
+            users.put(user.getUsername(), user);
+            return user;
+        }
+
+        @Override
+        public User getUserByUsername(String username) {
+            User user = users.get(username);
+            return user == null ? null : new User(user.getId(), user.getUsername(), user.getPasswordHash(), user.getFullName());
+        }
+
+        @Override
+        public boolean updatePasswordHash(int userId, String passwordHash) {
+            for (User user : users.values()) {
+                if (user.getId() == userId) {
+                    users.put(user.getUsername(), new User(userId, user.getUsername(), passwordHash, user.getFullName()));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int getMaxUserId() {
+            return nextId.get();
+        }
+
+        @Override
+        public void scanAllUsers(Consumer<? super User> consumer) {
+            users.values().forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankingapp.auth;
+
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.Hex;
+import com.bankingapp.util.PasswordUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as {@code pbkdf2-sha256$<iterations>$<salt hex>$<hash hex>}.
+ * The iteration count is the cost knob (auth.hash.iterations) and is recorded per hash, so raising it leaves old
+ * hashes verifiable; {@link #needsRehash(String)} tells the caller to re-hash on the next successful sign-in. Hashes in
+ * the legacy unsalted format of {@link PasswordUtil} are still accepted.
+ * <p>
+ * Each thread keeps its own Mac, re-keyed per password, and the iteration loop works in place, so a verification
+ * allocates a handful of small arrays regardless of the iteration count. Comparisons take the same time however
+ * many leading bytes match.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int HASH_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Mac> HMAC_SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("HmacSHA256 not available", e);
+        }
+    });
+
+    private final int iterations;
+    private final int saltBytes;
+
+    /**
+     * Configured from auth.hash.* keys in config.properties.
+     */
+    public PasswordHasher() {
+        this(AppConfig.getInt("auth.hash.iterations", 100_000), AppConfig.getInt("auth.hash.saltBytes", 16));
+    }
+
+    public PasswordHasher(int iterations, int saltBytes) {
+        if (iterations <= 0) throw new IllegalArgumentException("iterations must be positive");
+        if (saltBytes <= 0) throw new IllegalArgumentException("saltBytes must be positive");
+        this.iterations = iterations;
+        this.saltBytes = saltBytes;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public String hash(String password) {
+        if (password == null) throw new IllegalArgumentException("Password cannot be null");
+        byte[] salt = new byte[saltBytes];
+        RANDOM.nextBytes(salt);
+        return PREFIX + iterations + '$' + Hex.encode(salt) + '$' + Hex.encode(derive(password, salt, iterations));
+    }
+
+    /**
+     * True when the password matches the stored hash, in either the current or the legacy format.
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!stored.startsWith(PREFIX)) {
+            byte[] expected = Hex.decode(stored);
+            return expected != null && constantTimeEquals(PasswordUtil.digest(password), expected);
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) return false;
+        int storedIterations;
+        try {
+            storedIterations = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        byte[] salt = Hex.decode(parts[1]);
+        byte[] expected = Hex.decode(parts[2]);
+        if (storedIterations <= 0 || salt == null || expected == null) return false;
+        return constantTimeEquals(derive(password, salt, storedIterations), expected);
+    }
+
+    /**
+     * True when the stored hash is in the legacy format or uses fewer iterations than configured.
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) return true;
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * PBKDF2 (RFC 8018) with HMAC-SHA256, one 32-byte block.
+     */
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        Mac mac = HMAC_SHA_256.get();
+        byte[] key = password.getBytes(StandardCharsets.UTF_8);
+        try {
+            // HMAC zero-pads short keys, so an empty password is the same key as a single zero byte
+            mac.init(new SecretKeySpec(key.length == 0 ? new byte[1] : key, "HmacSHA256"));
+            mac.update(salt);
+            mac.update(new byte[] {0, 0, 0, 1});
+            byte[] u = mac.doFinal();
+            byte[] result = u.clone();
+            for (int i = 1; i < iterations; i++) {
+                mac.update(u);
+                mac.doFinal(u, 0);
+                for (int j = 0; j < HASH_BYTES; j++) result[j] ^= u[j];
+            }
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing failed", e);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b) {
+        if (a.length != b.length) return false;
+        int diff = 0;
+        for (int i = 0; i < a.length; i++) diff |= a[i] ^ b[i];
+        return diff == 0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bankingapp.auth;
+
+import com.bankingapp.model.User;
+
+/**
+ * A signed-in user behind a bearer token. The user is held without its password hash.
+ */
+public class Session {
+
+    private final String token;
+    private final User user;
+    private final long expiresAtMillis;
+
+    public Session(String token, User user, long expiresAtMillis) {
+        this.token = token;
+        this.user = user;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" +
+                "userId=" + user.getId() +
+                ", username='" + user.getUsername() + '\'' +
+                ", expiresAtMillis=" + expiresAtMillis +
+                '}';
+    }
+}
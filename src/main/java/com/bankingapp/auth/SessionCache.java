@@ -0,0 +1,75 @@
+package com.bankingapp.auth;
+
+import com.bankingapp.model.User;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.Hex;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sessions of verified sign-ins, keyed by a random 256-bit token, each valid for auth.session.ttlMs from sign-in.
+ * Expired sessions are dropped when looked up, and all of them are swept out at most once per TTL as new sessions
+ * are created. Sessions live in this process only; a restart signs everyone out.
+ */
+public class SessionCache {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    /**
+     * Configured from auth.session.ttlMs in config.properties.
+     */
+    public SessionCache() {
+        this(AppConfig.getLong("auth.session.ttlMs", 1_800_000));
+    }
+
+    public SessionCache(long ttlMillis) {
+        if (ttlMillis <= 0) throw new IllegalArgumentException("ttlMillis must be positive");
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Session create(User user) {
+        long now = System.currentTimeMillis();
+        sweep(now);
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        User holder = new User(user.getId(), user.getUsername(), null, user.getFullName());
+        Session session = new Session(Hex.encode(bytes), holder, now + ttlMillis);
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+
+    /**
+     * The live session for the token, or null when it is unknown or expired.
+     */
+    public Session get(String token) {
+        if (token == null) return null;
+        Session session = sessions.get(token);
+        if (session == null) return null;
+        if (session.isExpired(System.currentTimeMillis())) {
+            sessions.remove(token, session);
+            return null;
+        }
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweep(long now) {
+        long next = nextSweepMillis.get();
+        if (now < next || !nextSweepMillis.compareAndSet(next, now + ttlMillis)) return;
+        sessions.values().removeIf(s -> s.isExpired(now));
+    }
+}
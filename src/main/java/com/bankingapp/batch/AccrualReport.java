@@ -0,0 +1,50 @@
+package com.bankingapp.batch;
+
+/**
+ * Summary of one interest accrual run.
+ */
+public class AccrualReport {
+    private final String period;
+    private final int chunksProcessed;
+    private final int chunksSkipped;
+    private final long rowsPosted;
+    private final long elapsedMillis;
+
+    public AccrualReport(String period, int chunksProcessed, int chunksSkipped, long rowsPosted, long elapsedMillis) {
+        this.period = period;
+        this.chunksProcessed = chunksProcessed;
+        this.chunksSkipped = chunksSkipped;
+        this.rowsPosted = rowsPosted;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public int getChunksProcessed() {
+        return chunksProcessed;
+    }
+
+    public int getChunksSkipped() {
+        return chunksSkipped;
+    }
+
+    public long getRowsPosted() {
+        return rowsPosted;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsPosted : rowsPosted * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AccrualReport{period=%s, chunksProcessed=%d, chunksSkipped=%d, rowsPosted=%d, elapsedMillis=%d, rowsPerSecond=%.1f}",
+                period, chunksProcessed, chunksSkipped, rowsPosted, elapsedMillis, getRowsPerSecond());
+    }
+}
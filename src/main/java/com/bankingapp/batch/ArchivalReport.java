@@ -0,0 +1,40 @@
+package com.bankingapp.batch;
+
+/**
+ * Summary of one transaction archival run.
+ */
+public class ArchivalReport {
+    private final int monthsArchived;
+    private final long rowsArchived;
+    private final long rowsDeleted;
+    private final long elapsedMillis;
+
+    public ArchivalReport(int monthsArchived, long rowsArchived, long rowsDeleted, long elapsedMillis) {
+        this.monthsArchived = monthsArchived;
+        this.rowsArchived = rowsArchived;
+        this.rowsDeleted = rowsDeleted;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getMonthsArchived() {
+        return monthsArchived;
+    }
+
+    public long getRowsArchived() {
+        return rowsArchived;
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArchivalReport{monthsArchived=%d, rowsArchived=%d, rowsDeleted=%d, elapsedMillis=%d}",
+                monthsArchived, rowsArchived, rowsDeleted, elapsedMillis);
+    }
+}
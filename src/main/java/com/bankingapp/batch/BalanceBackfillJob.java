@@ -0,0 +1,268 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.IntLongHashMap;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Fills balance_after and destination_balance_after on existing ledger rows. The account id space is cut into aligned
+ * chunks that run on parallel workers. A chunk locks its accounts on every store, reads every row that moves money in
+ * or out of them (own rows and incoming transfers, from all stores), and replays them in (timestamp, id) order.
+ * <p>
+ * Each account's opening balance is its current balance minus the effect of every row still in the table, so rows
+ * the archival job has removed are accounted for without reading the archive. Replaying in timestamp order also
+ * rewrites rows that were inserted back-dated (e.g. by an import) with the balance as of their own timestamp.
+ * Re-running is harmless: every row is simply recomputed.
+ */
+public class BalanceBackfillJob {
+
+    private static final String SELECT_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM accounts";
+    private static final String LOCK_CHUNK_SQL = "SELECT id, balance FROM accounts WHERE id BETWEEN ? AND ? ORDER BY id FOR UPDATE";
+    private static final String SELECT_CHUNK_ROWS_SQL =
+            "SELECT id, account_id, type, amount, timestamp, destination_account_id FROM transactions " +
+            "WHERE account_id BETWEEN ? AND ? OR destination_account_id BETWEEN ? AND ? ORDER BY timestamp, id";
+    private static final String UPDATE_BALANCE_SQL = "UPDATE transactions SET balance_after = ? WHERE id = ?";
+    private static final String UPDATE_DESTINATION_BALANCE_SQL = "UPDATE transactions SET destination_balance_after = ? WHERE id = ?";
+
+    private final List<ConnectionProvider> stores;
+    private final int chunkSize;
+    private final int workers;
+
+    /**
+     * Configured from balances.* keys in config.properties.
+     *
+     * @param stores the primary, or every shard
+     */
+    public BalanceBackfillJob(List<ConnectionProvider> stores) {
+        this(stores, AppConfig.getInt("balances.chunkSize", 1000), AppConfig.getInt("balances.workers", 4));
+    }
+
+    public BalanceBackfillJob(List<ConnectionProvider> stores, int chunkSize, int workers) {
+        if (stores.isEmpty()) throw new IllegalArgumentException("At least one store is required");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive");
+        this.stores = List.copyOf(stores);
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    public BalanceBackfillReport run() throws SQLException {
+        long started = System.currentTimeMillis();
+        int minId = Integer.MAX_VALUE;
+        int maxId = 0;
+        for (ConnectionProvider store : stores) {
+            try (Connection conn = store.getConnection();
+                 Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery(SELECT_ID_RANGE_SQL)) {
+                rs.next();
+                int lo = rs.getInt(1);
+                if (!rs.wasNull()) {
+                    minId = Math.min(minId, lo);
+                    maxId = Math.max(maxId, rs.getInt(2));
+                }
+            }
+        }
+        if (maxId == 0) {
+            return new BalanceBackfillReport(0, 0, 0, System.currentTimeMillis() - started);
+        }
+
+        int firstChunk = (minId - 1) / chunkSize;
+        int lastChunk = (maxId - 1) / chunkSize;
+        ExecutorService pool = Executors.newFixedThreadPool(workers, VirtualThreads.daemonFactory("balance-backfill"));
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+                int start = chunk * chunkSize + 1;
+                int end = start + chunkSize - 1;
+                results.add(pool.submit(() -> backfillChunk(start, end)));
+            }
+            int chunks = 0;
+            long accounts = 0;
+            long rows = 0;
+            SQLException failure = null;
+            for (Future<long[]> f : results) {
+                try {
+                    long[] counts = f.get();
+                    chunks++;
+                    accounts += counts[0];
+                    rows += counts[1];
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Balance backfill interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new BalanceBackfillReport(chunks, accounts, rows, System.currentTimeMillis() - started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return accounts found in the chunk and balance columns written
+     */
+    private long[] backfillChunk(int start, int end) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            // Locks first on every store, so no same-store writer adds a row to the chunk while it is read
+            IntLongHashMap balances = new IntLongHashMap(chunkSize);
+            for (ConnectionProvider store : stores) {
+                Connection conn = store.getConnection();
+                connections.add(conn);
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(LOCK_CHUNK_SQL)) {
+                    ps.setInt(1, start);
+                    ps.setInt(2, end);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            balances.put(rs.getInt(1), TransactionBatch.toMinorUnits(rs.getBigDecimal(2)));
+                        }
+                    }
+                }
+            }
+            List<TransactionBatch> rows = new ArrayList<>(connections.size());
+            for (Connection conn : connections) {
+                try (PreparedStatement ps = conn.prepareStatement(SELECT_CHUNK_ROWS_SQL)) {
+                    ps.setInt(1, start);
+                    ps.setInt(2, end);
+                    ps.setInt(3, start);
+                    ps.setInt(4, end);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rows.add(TransactionBatch.fromResultSet(rs));
+                    }
+                }
+            }
+
+            // Opening balance: the current balance with every row still in the table taken back out
+            IntLongHashMap running = new IntLongHashMap(balances.size());
+            balances.forEach(running::put);
+            for (TransactionBatch batch : rows) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (balances.containsKey(batch.accountId(i))) running.addTo(batch.accountId(i), -ownEffect(batch, i));
+                    int destination = incomingTo(batch, i);
+                    if (destination > 0 && balances.containsKey(destination)) running.addTo(destination, -batch.amountMinor(i));
+                }
+            }
+
+            long written = 0;
+            List<PreparedStatement[]> updates = new ArrayList<>(connections.size());
+            try {
+                for (Connection conn : connections) {
+                    updates.add(new PreparedStatement[] {
+                            conn.prepareStatement(UPDATE_BALANCE_SQL), conn.prepareStatement(UPDATE_DESTINATION_BALANCE_SQL)});
+                }
+                // Merge the stores' rows, each already in (timestamp, id) order
+                int[] next = new int[rows.size()];
+                while (true) {
+                    int store = -1;
+                    for (int s = 0; s < rows.size(); s++) {
+                        if (next[s] < rows.get(s).size() && (store < 0 || before(rows.get(s), next[s], rows.get(store), next[store]))) {
+                            store = s;
+                        }
+                    }
+                    if (store < 0) break;
+                    TransactionBatch batch = rows.get(store);
+                    int i = next[store]++;
+                    int account = batch.accountId(i);
+                    if (balances.containsKey(account)) {
+                        running.addTo(account, ownEffect(batch, i));
+                        addUpdate(updates.get(store)[0], running.get(account, 0), batch.id(i));
+                        written++;
+                    }
+                    int destination = incomingTo(batch, i);
+                    if (destination > 0 && balances.containsKey(destination)) {
+                        running.addTo(destination, batch.amountMinor(i));
+                        addUpdate(updates.get(store)[1], running.get(destination, 0), batch.id(i));
+                        written++;
+                    }
+                }
+                for (PreparedStatement[] ps : updates) {
+                    ps[0].executeBatch();
+                    ps[1].executeBatch();
+                }
+            } finally {
+                for (PreparedStatement[] ps : updates) {
+                    ps[0].close();
+                    ps[1].close();
+                }
+            }
+            for (Connection conn : connections) {
+                conn.commit();
+            }
+            return new long[] {balances.size(), written};
+        } catch (SQLException | RuntimeException e) {
+            for (Connection conn : connections) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        } finally {
+            for (Connection conn : connections) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Warning: could not close balance backfill connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long ownEffect(TransactionBatch batch, int i) {
+        return TransactionBatch.sign(batch.type(i)) * batch.amountMinor(i);
+    }
+
+    /**
+     * Destination credited by the row, or 0.
+     */
+    private static int incomingTo(TransactionBatch batch, int i) {
+        return batch.type(i) == TransactionBatch.TRANSFER ? batch.destinationAccountId(i) : 0;
+    }
+
+    private static boolean before(TransactionBatch a, int i, TransactionBatch b, int j) {
+        long ta = a.timestampMicros(i);
+        long tb = b.timestampMicros(j);
+        return ta < tb || (ta == tb && a.id(i) < b.id(j));
+    }
+
+    private static void addUpdate(PreparedStatement ps, long balanceMinor, int id) throws SQLException {
+        ps.setBigDecimal(1, BigDecimal.valueOf(balanceMinor, 2));
+        ps.setInt(2, id);
+        ps.addBatch();
+    }
+
+    public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        List<ConnectionProvider> stores = new ArrayList<>();
+        if (AppConfig.getInt("shard.count", 0) > 0) {
+            ShardRouter.fromConfig().getShards().forEach(shard -> stores.add(shard.getConnections()));
+        } else {
+            stores.add(DBConnectionUtil::getConnection);
+        }
+        try {
+            System.out.println(new BalanceBackfillJob(stores).run());
+        } catch (SQLException e) {
+            System.err.println("Balance backfill failed: " + e.getMessage());
+        }
+    }
+}
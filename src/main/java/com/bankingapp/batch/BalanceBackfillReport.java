@@ -0,0 +1,43 @@
+package com.bankingapp.batch;
+
+/**
+ * Summary of one balance backfill run.
+ */
+public class BalanceBackfillReport {
+    private final int chunks;
+    private final long accounts;
+    private final long balancesWritten;
+    private final long elapsedMillis;
+
+    public BalanceBackfillReport(int chunks, long accounts, long balancesWritten, long elapsedMillis) {
+        this.chunks = chunks;
+        this.accounts = accounts;
+        this.balancesWritten = balancesWritten;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * balance_after and destination_balance_after values written; a transfer between two accounts counts twice.
+     */
+    public long getBalancesWritten() {
+        return balancesWritten;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BalanceBackfillReport{chunks=%d, accounts=%d, balancesWritten=%d, elapsedMillis=%d}",
+                chunks, accounts, balancesWritten, elapsedMillis);
+    }
+}
@@ -0,0 +1,323 @@
+package com.bankingapp.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Parses transaction CSV lines straight out of a reused byte buffer:
+ * <pre>
+ * account_id,type,amount,timestamp[,destination_account_id]
+ * </pre>
+ * with the amount in major units (at most two decimals) and an ISO-8601 local timestamp ({@code 2024-03-01T09:30:00},
+ * optional fraction, 'T' or space). Fields are decoded from bytes without building Strings; only rejected lines are
+ * turned into text. A first line that does not start with a digit is taken as a header.
+ */
+class CsvTransactionParser {
+
+    private static final byte[][] TYPE_NAMES = {
+            "DEPOSIT".getBytes(StandardCharsets.US_ASCII),
+            "WITHDRAWAL".getBytes(StandardCharsets.US_ASCII),
+            "TRANSFER".getBytes(StandardCharsets.US_ASCII),
+            "INTEREST".getBytes(StandardCharsets.US_ASCII)};
+    private static final int MAX_FIELDS = 5;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int[] fieldStarts = new int[MAX_FIELDS + 1];
+    private final int[] fieldEnds = new int[MAX_FIELDS + 1];
+    // File offset of buffer index 0
+    private long bufferOffset;
+    private long lineNumber;
+    private boolean eof;
+    private boolean skippingLongLine;
+    // Offset and line count just past the last complete line; a resume point
+    private long boundaryOffset;
+    private long boundaryLine;
+
+    // Result of the last parsed field or error
+    private long value;
+    private String error;
+
+    /**
+     * @param offset byte offset of the first line to read (0, or a checkpoint at a line boundary)
+     * @param lineNumber number of lines before that offset
+     */
+    CsvTransactionParser(FileChannel channel, int bufferBytes, long offset, long lineNumber) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferBytes);
+        this.bufferOffset = offset;
+        this.lineNumber = lineNumber;
+        this.boundaryOffset = offset;
+        this.boundaryLine = lineNumber;
+        channel.position(offset);
+        buffer.flip();
+    }
+
+    /**
+     * Parse lines into the chunk until it holds maxRows rows or the file ends, and record in it the line boundary
+     * reached. Returns false once nothing was left.
+     */
+    boolean fill(ImportChunk chunk, int maxRows) throws IOException {
+        boolean any = fillLines(chunk, maxRows);
+        chunk.endOffset = boundaryOffset;
+        chunk.endLine = boundaryLine;
+        return any;
+    }
+
+    private boolean fillLines(ImportChunk chunk, int maxRows) throws IOException {
+        boolean any = false;
+        while (chunk.rows.size() < maxRows) {
+            byte[] a = buffer.array();
+            int start = buffer.position();
+            int nl = -1;
+            for (int i = start; i < buffer.limit(); i++) {
+                if (a[i] == '\n') {
+                    nl = i;
+                    break;
+                }
+            }
+            if (nl < 0) {
+                if (eof) {
+                    if (skippingLongLine) {
+                        skippingLongLine = false;
+                        boundary(bufferOffset + buffer.limit());
+                        buffer.position(buffer.limit());
+                    } else if (start < buffer.limit()) {
+                        // Last line without a trailing newline
+                        any = true;
+                        line(chunk, a, start, buffer.limit(), bufferOffset + buffer.limit());
+                        buffer.position(buffer.limit());
+                    }
+                    break;
+                }
+                if (start == 0 && buffer.limit() == buffer.capacity()) {
+                    // No newline in a full buffer: reject the line and drop bytes until its end
+                    if (!skippingLongLine) {
+                        lineNumber++;
+                        chunk.reject(lineNumber, "Line longer than " + buffer.capacity() + " bytes",
+                                new String(a, 0, Math.min(80, buffer.limit()), StandardCharsets.UTF_8) + "...");
+                        skippingLongLine = true;
+                        any = true;
+                    }
+                    buffer.position(buffer.limit());
+                }
+                refill();
+                continue;
+            }
+            buffer.position(nl + 1);
+            any = true;
+            if (skippingLongLine) {
+                skippingLongLine = false;
+                boundary(bufferOffset + nl + 1);
+                continue;
+            }
+            line(chunk, a, start, nl, bufferOffset + nl + 1);
+        }
+        return any;
+    }
+
+    private void refill() throws IOException {
+        bufferOffset += buffer.position();
+        buffer.compact();
+        int n = channel.read(buffer);
+        if (n < 0) eof = true;
+        buffer.flip();
+    }
+
+    private void line(ImportChunk chunk, byte[] a, int from, int to, long endOffset) {
+        lineNumber++;
+        boundary(endOffset);
+        int end = to;
+        if (end > from && a[end - 1] == '\r') end--;
+        if (end == from) return;
+        if (lineNumber == 1 && !(a[from] >= '0' && a[from] <= '9')) return;
+
+        int fields = 0;
+        int fieldStart = from;
+        for (int i = from; i <= end && fields <= MAX_FIELDS; i++) {
+            if (i == end || a[i] == ',') {
+                fieldStarts[fields] = fieldStart;
+                fieldEnds[fields] = i;
+                fields++;
+                fieldStart = i + 1;
+            }
+        }
+        if (fields < 4 || fields > MAX_FIELDS) {
+            chunk.reject(lineNumber, "Expected 4 or 5 fields", text(a, from, end));
+            return;
+        }
+        if (!parseInt(a, 0)) {
+            chunk.reject(lineNumber, "account_id: " + error, text(a, from, end));
+            return;
+        }
+        int accountId = (int) value;
+        byte type = typeCode(a, fieldStarts[1], fieldEnds[1]);
+        if (type < 0) {
+            chunk.reject(lineNumber, "Unknown transaction type", text(a, from, end));
+            return;
+        }
+        if (!parseAmount(a, 2)) {
+            chunk.reject(lineNumber, "amount: " + error, text(a, from, end));
+            return;
+        }
+        long amount = value;
+        if (!parseTimestamp(a, 3)) {
+            chunk.reject(lineNumber, "timestamp: " + error, text(a, from, end));
+            return;
+        }
+        long timestamp = value;
+        int destination = 0;
+        if (fields == 5 && trimmedLength(a, 4) > 0) {
+            if (!parseInt(a, 4)) {
+                chunk.reject(lineNumber, "destination_account_id: " + error, text(a, from, end));
+                return;
+            }
+            destination = (int) value;
+        }
+        chunk.add(lineNumber, endOffset, accountId, destination, type, amount, timestamp);
+    }
+
+    private void boundary(long offset) {
+        boundaryOffset = offset;
+        boundaryLine = lineNumber;
+    }
+
+    private boolean parseInt(byte[] a, int field) {
+        int s = trimStart(a, field);
+        int e = trimEnd(a, field);
+        if (s == e) return fail("missing");
+        long v = 0;
+        for (int i = s; i < e; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) return fail("not a number");
+            v = v * 10 + d;
+            if (v > Integer.MAX_VALUE) return fail("out of range");
+        }
+        value = v;
+        return true;
+    }
+
+    /**
+     * Decimal amount to minor units, without BigDecimal.
+     */
+    private boolean parseAmount(byte[] a, int field) {
+        int s = trimStart(a, field);
+        int e = trimEnd(a, field);
+        boolean negative = s < e && a[s] == '-';
+        if (negative) s++;
+        if (s == e) return fail("missing");
+        long v = 0;
+        int decimals = -1;
+        for (int i = s; i < e; i++) {
+            byte c = a[i];
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) return fail("not a number");
+            if (decimals >= 2) {
+                if (d != 0) return fail("more than two decimal places");
+                continue;
+            }
+            if (decimals >= 0) decimals++;
+            v = v * 10 + d;
+            if (v > 1_000_000_000_000_000L) return fail("out of range");
+        }
+        for (int k = Math.max(decimals, 0); k < 2; k++) v *= 10;
+        value = negative ? -v : v;
+        return true;
+    }
+
+    /**
+     * yyyy-MM-dd[T ]HH:mm:ss[.fraction] to epoch microseconds of the local time read as UTC, like TransactionBatch.
+     */
+    private boolean parseTimestamp(byte[] a, int field) {
+        int s = trimStart(a, field);
+        int e = trimEnd(a, field);
+        if (e - s < 19 || a[s + 4] != '-' || a[s + 7] != '-' || (a[s + 10] != 'T' && a[s + 10] != ' ')
+                || a[s + 13] != ':' || a[s + 16] != ':') {
+            return fail("expected yyyy-MM-ddTHH:mm:ss");
+        }
+        int year = digits(a, s, 4);
+        int month = digits(a, s + 5, 2);
+        int day = digits(a, s + 8, 2);
+        int hour = digits(a, s + 11, 2);
+        int minute = digits(a, s + 14, 2);
+        int second = digits(a, s + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) {
+            return fail("invalid date or time");
+        }
+        long micros = 0;
+        if (e > s + 19) {
+            if (a[s + 19] != '.' || e - s - 20 > 9 || e == s + 20) return fail("invalid fraction");
+            int scale = 100_000;
+            for (int i = s + 20; i < e; i++) {
+                int d = a[i] - '0';
+                if (d < 0 || d > 9) return fail("invalid fraction");
+                micros += (long) d * scale;
+                scale /= 10;
+            }
+        }
+        long epochDay;
+        try {
+            epochDay = LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException ex) {
+            return fail("invalid date");
+        }
+        value = ((epochDay * 86_400 + hour * 3_600L + minute * 60L + second) * 1_000_000) + micros;
+        return true;
+    }
+
+    private static int digits(byte[] a, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static byte typeCode(byte[] a, int from, int to) {
+        while (from < to && a[from] == ' ') from++;
+        while (to > from && a[to - 1] == ' ') to--;
+        for (byte code = 0; code < TYPE_NAMES.length; code++) {
+            byte[] name = TYPE_NAMES[code];
+            if (name.length != to - from) continue;
+            int i = 0;
+            while (i < name.length && (a[from + i] & 0xDF) == name[i]) i++;
+            if (i == name.length) return code;
+        }
+        return -1;
+    }
+
+    private int trimStart(byte[] a, int field) {
+        int s = fieldStarts[field];
+        while (s < fieldEnds[field] && a[s] == ' ') s++;
+        return s;
+    }
+
+    private int trimEnd(byte[] a, int field) {
+        int e = fieldEnds[field];
+        while (e > fieldStarts[field] && a[e - 1] == ' ') e--;
+        return e;
+    }
+
+    private int trimmedLength(byte[] a, int field) {
+        return Math.max(0, trimEnd(a, field) - trimStart(a, field));
+    }
+
+    private boolean fail(String message) {
+        error = message;
+        return false;
+    }
+
+    private static String text(byte[] a, int from, int to) {
+        return new String(a, from, to - from, StandardCharsets.UTF_8);
+    }
+}
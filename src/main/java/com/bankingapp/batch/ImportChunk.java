@@ -0,0 +1,72 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.model.TransactionBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A run of consecutive CSV lines travelling through the import pipeline: the parsed rows in columnar form, each row's
+ * line number and end offset (for row-level checkpoints), the reason each row was rejected, and the byte offset just
+ * past the last line the chunk covers.
+ */
+class ImportChunk {
+
+    /**
+     * One rejected line, as written to the rejected-rows file.
+     */
+    static final class Rejection {
+        final long line;
+        final String reason;
+        final String record;
+
+        Rejection(long line, String reason, String record) {
+            this.line = line;
+            this.reason = reason;
+            this.record = record;
+        }
+    }
+
+    final TransactionBatch rows;
+    long[] lines;
+    long[] endOffsets;
+    // Validation failure per row; null if the row may be applied
+    String[] invalid;
+    final List<Rejection> rejected = new ArrayList<>();
+    long endOffset;
+    long endLine;
+    // Set instead of rows when an earlier stage failed
+    Exception failure;
+
+    ImportChunk(int capacity) {
+        rows = new TransactionBatch(capacity);
+        lines = new long[capacity];
+        endOffsets = new long[capacity];
+        invalid = new String[capacity];
+    }
+
+    void add(long line, long endOffset, int accountId, int destinationId, byte type, long amountMinor, long timestampMicros) {
+        int i = rows.size();
+        if (i == lines.length) {
+            lines = Arrays.copyOf(lines, i * 2);
+            endOffsets = Arrays.copyOf(endOffsets, i * 2);
+            invalid = Arrays.copyOf(invalid, i * 2);
+        }
+        rows.add(0, accountId, destinationId, type, amountMinor, timestampMicros);
+        lines[i] = line;
+        endOffsets[i] = endOffset;
+    }
+
+    void reject(long line, String reason, String record) {
+        rejected.add(new Rejection(line, reason, record));
+    }
+
+    /**
+     * The CSV form of row i, for the rejected-rows file.
+     */
+    String record(int i) {
+        String record = rows.accountId(i) + "," + rows.typeName(i) + "," + rows.amount(i) + "," + rows.timestamp(i);
+        return rows.destinationAccountId(i) != 0 ? record + "," + rows.destinationAccountId(i) : record;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankingapp.batch;
+
+/**
+ * Summary of one transaction import run.
+ */
+public class ImportReport {
+    private final String fileName;
+    private final long linesRead;
+    private final long resumedFromLine;
+    private final long rowsApplied;
+    private final long rowsRejected;
+    private final long elapsedMillis;
+
+    public ImportReport(String fileName, long linesRead, long resumedFromLine, long rowsApplied, long rowsRejected,
+                        long elapsedMillis) {
+        this.fileName = fileName;
+        this.linesRead = linesRead;
+        this.resumedFromLine = resumedFromLine;
+        this.rowsApplied = rowsApplied;
+        this.rowsRejected = rowsRejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Lines read by this run; a resumed run starts after line {@link #getResumedFromLine()}.
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getResumedFromLine() {
+        return resumedFromLine;
+    }
+
+    /**
+     * Rows applied over the whole file, including earlier interrupted runs.
+     */
+    public long getRowsApplied() {
+        return rowsApplied;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportReport{fileName=%s, linesRead=%d, resumedFromLine=%d, rowsApplied=%d, rowsRejected=%d, elapsedMillis=%d}",
+                fileName, linesRead, resumedFromLine, rowsApplied, rowsRejected, elapsedMillis);
+    }
+}
@@ -0,0 +1,280 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.OutboxDAO;
+import com.bankingapp.dao.OutboxDAOImpl;
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.dao.sharding.ShardedAccountDAO;
+import com.bankingapp.dao.sharding.ShardedTransactionDAO;
+import com.bankingapp.manager.AccountManager;
+import com.bankingapp.model.AccountType;
+import com.bankingapp.model.InterestTransaction;
+import com.bankingapp.model.LedgerEvent;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Posts periodic interest to SAVINGS accounts. The account id space is cut into fixed-size chunks that run on parallel
+ * workers; each chunk is one DB transaction containing a set-based balance update, a batched insert of INTEREST
+ * ledger rows and a checkpoint row. The checkpoint is keyed by (period, chunk_start), so re-running a period skips
+ * finished chunks: an interrupted run resumes where it stopped and a period is never credited twice.
+ * <p>
+ * Like settlement, each chunk appends a ledger event per posting to the AccountManager's outbox in the same DB
+ * transaction and hands the postings to its ledger listeners once committed, so caches and leaderboards see interest.
+ * A job runs against one database; with sharding, run one per shard (as {@link #main(String[])} does).
+ */
+public class InterestAccrualJob {
+
+    private static final String SELECT_ID_RANGE_SQL =
+            "SELECT MIN(id), MAX(id) FROM accounts WHERE account_type = ?";
+    private static final String SELECT_CHUNK_SIZE_SQL =
+            "SELECT DISTINCT chunk_size FROM interest_accrual_checkpoints WHERE period = ?";
+    private static final String INSERT_CHECKPOINT_SQL =
+            "INSERT INTO interest_accrual_checkpoints (period, chunk_start, chunk_end, chunk_size, accounts, completed_at) " +
+            "VALUES (?, ?, ?, ?, 0, NULL)";
+    private static final String COMPLETE_CHECKPOINT_SQL =
+            "UPDATE interest_accrual_checkpoints SET accounts = ?, completed_at = ? WHERE period = ? AND chunk_start = ?";
+    private static final String LOCK_CHUNK_SQL =
+            "SELECT id, balance FROM accounts WHERE account_type = ? AND id BETWEEN ? AND ? AND balance > 0 " +
+            "ORDER BY id FOR UPDATE";
+    // ROUND on an exact DECIMAL product rounds half away from zero, i.e. HALF_UP for the positive balances selected
+    private static final String ACCRUE_CHUNK_SQL =
+            "UPDATE accounts SET balance = balance + ROUND(balance * ?, 2) " +
+            "WHERE account_type = ? AND id BETWEEN ? AND ? AND balance > 0";
+
+    // MySQL duplicate-key error code
+    private static final int ER_DUP_ENTRY = 1062;
+
+    private final AccountManager accountManager;
+    private final TransactionDAO transactionDAO;
+    private final ConnectionProvider connections;
+    private final BigDecimal periodRate;
+    private final int chunkSize;
+    private final int workers;
+
+    /**
+     * Configured from interest.* keys in config.properties.
+     */
+    public InterestAccrualJob(AccountManager accountManager, TransactionDAO transactionDAO, ConnectionProvider connections) {
+        this(accountManager, transactionDAO, connections,
+                new BigDecimal(AppConfig.get("interest.savings.monthlyRate", "0.0025")),
+                AppConfig.getInt("interest.chunkSize", 1000),
+                AppConfig.getInt("interest.workers", 4));
+    }
+
+    /**
+     * @param transactionDAO writes the ledger rows of the database {@code connections} leads to
+     */
+    public InterestAccrualJob(AccountManager accountManager, TransactionDAO transactionDAO, ConnectionProvider connections,
+                              BigDecimal periodRate, int chunkSize, int workers) {
+        if (periodRate == null || periodRate.signum() <= 0) throw new IllegalArgumentException("Interest rate must be positive");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive");
+        this.accountManager = accountManager;
+        this.transactionDAO = transactionDAO;
+        this.connections = connections;
+        this.periodRate = periodRate;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    /**
+     * Accrue interest for the given period. Safe to call again for the same period after a failure or a crash.
+     */
+    public AccrualReport run(YearMonth period) throws SQLException {
+        String periodKey = period.toString();
+        long started = System.currentTimeMillis();
+        int minId;
+        int maxId;
+        try (Connection conn = connections.getConnection()) {
+            checkChunkSize(conn, periodKey);
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_ID_RANGE_SQL)) {
+                ps.setString(1, AccountType.SAVINGS.name());
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    minId = rs.getInt(1);
+                    maxId = rs.getInt(2);
+                    if (rs.wasNull()) {
+                        return new AccrualReport(periodKey, 0, 0, 0, System.currentTimeMillis() - started);
+                    }
+                }
+            }
+        }
+
+        // Chunk boundaries are aligned to multiples of chunkSize so every run of a period sees the same chunks
+        int firstChunk = (minId - 1) / chunkSize;
+        int lastChunk = (maxId - 1) / chunkSize;
+        ExecutorService pool = Executors.newFixedThreadPool(workers, VirtualThreads.daemonFactory("interest-accrual"));
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+                int start = chunk * chunkSize + 1;
+                int end = start + chunkSize - 1;
+                results.add(pool.submit(() -> accrueChunk(periodKey, start, end)));
+            }
+            int processed = 0;
+            int skipped = 0;
+            long rows = 0;
+            SQLException failure = null;
+            for (Future<Integer> f : results) {
+                try {
+                    int posted = f.get();
+                    if (posted < 0) {
+                        skipped++;
+                    } else {
+                        processed++;
+                        rows += posted;
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interest accrual interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new AccrualReport(periodKey, processed, skipped, rows, System.currentTimeMillis() - started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of interest rows posted, or -1 if the chunk was already done for this period
+     */
+    private int accrueChunk(String periodKey, int start, int end) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_CHECKPOINT_SQL)) {
+                    ps.setString(1, periodKey);
+                    ps.setInt(2, start);
+                    ps.setInt(3, end);
+                    ps.setInt(4, chunkSize);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == ER_DUP_ENTRY) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    throw e;
+                }
+
+                LocalDateTime now = LocalDateTime.now();
+                List<Transaction> postings = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(LOCK_CHUNK_SQL)) {
+                    ps.setString(1, AccountType.SAVINGS.name());
+                    ps.setInt(2, start);
+                    ps.setInt(3, end);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            BigDecimal balance = rs.getBigDecimal("balance");
+                            BigDecimal interest = balance.multiply(periodRate).setScale(2, RoundingMode.HALF_UP);
+                            if (interest.signum() > 0) {
+                                InterestTransaction posting = new InterestTransaction(rs.getInt("id"), interest, now);
+                                posting.setBalanceAfter(balance.add(interest));
+                                postings.add(posting);
+                            }
+                        }
+                    }
+                }
+                if (!postings.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(ACCRUE_CHUNK_SQL)) {
+                        ps.setBigDecimal(1, periodRate);
+                        ps.setString(2, AccountType.SAVINGS.name());
+                        ps.setInt(3, start);
+                        ps.setInt(4, end);
+                        ps.executeUpdate();
+                    }
+                    transactionDAO.createTransactions(conn, postings);
+                    OutboxDAO outboxDAO = accountManager.getOutboxDAO();
+                    if (outboxDAO != null) {
+                        outboxDAO.append(conn, accrualEvents(postings));
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(COMPLETE_CHECKPOINT_SQL)) {
+                    ps.setInt(1, postings.size());
+                    ps.setTimestamp(2, Timestamp.valueOf(now));
+                    ps.setString(3, periodKey);
+                    ps.setInt(4, start);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                accountManager.publishCommitted(postings);
+                return postings.size();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static List<LedgerEvent> accrualEvents(List<Transaction> postings) {
+        List<LedgerEvent> events = new ArrayList<>(postings.size());
+        for (Transaction t : postings) {
+            events.add(new LedgerEvent(t.getType(), t.getAccountId(), 0, t.getId(), t.getAmount(),
+                    t.getBalanceAfter(), null, t.getTimestamp()));
+        }
+        return events;
+    }
+
+    private void checkChunkSize(Connection conn, String periodKey) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_CHUNK_SIZE_SQL)) {
+            ps.setString(1, periodKey);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getInt(1) != chunkSize) {
+                        throw new IllegalStateException("Period " + periodKey + " was started with chunk size "
+                                + rs.getInt(1) + "; resume it with the same chunk size.");
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        YearMonth period = args.length > 0 ? YearMonth.parse(args[0]) : YearMonth.now();
+        try {
+            if (AppConfig.getInt("shard.count", 0) > 0) {
+                // Each shard holds its own accounts and checkpoints; outbox events are only enabled unsharded
+                ShardRouter router = ShardRouter.fromConfig();
+                AccountManager accountManager = new AccountManager(new ShardedAccountDAO(router), new ShardedTransactionDAO(router));
+                for (ShardRouter.Shard shard : router.getShards()) {
+                    System.out.println(new InterestAccrualJob(accountManager, shard.getTransactionDAO(), shard.getConnections())
+                            .run(period));
+                }
+                return;
+            }
+            TransactionDAO transactionDAO = new TransactionDAOImpl();
+            OutboxDAO outboxDAO = AppConfig.getBoolean("outbox.enabled", true) ? new OutboxDAOImpl() : null;
+            AccountManager accountManager = new AccountManager(new AccountDAOImpl(), transactionDAO, outboxDAO);
+            AccrualReport report = new InterestAccrualJob(accountManager, transactionDAO, DBConnectionUtil::getConnection).run(period);
+            System.out.println(report);
+        } catch (SQLException e) {
+            System.err.println("Interest accrual failed: " + e.getMessage());
+        }
+    }
+}
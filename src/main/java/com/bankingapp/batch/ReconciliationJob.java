@@ -0,0 +1,370 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.archive.Segment;
+import com.bankingapp.archive.TransactionArchive;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferTransaction;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.IntLongHashMap;
+import com.bankingapp.util.VirtualThreads;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Checks that every account's balance equals the sum of its ledger: deposits and interest in, withdrawals and
+ * outgoing transfers out, incoming transfers in. The account id space is cut into aligned ranges that run on parallel
+ * workers. Each range reads accounts and transactions inside one consistent snapshot per store, streaming the rows
+ * and aggregating in cents into primitive maps, so no table is ever loaded as objects.
+ * <p>
+ * Before streaming a range the worker computes a fingerprint of it on the server (row counts and BIT_XOR of row
+ * CRCs). The fingerprint is stored in reconciliation_ranges together with the discrepancy count, and a later run
+ * skips every range whose fingerprint has not changed.
+ */
+public class ReconciliationJob {
+
+    private static final String SELECT_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM accounts";
+    private static final String SELECT_FINGERPRINTS_SQL =
+            "SELECT range_start, fingerprint, discrepancies FROM reconciliation_ranges WHERE range_size = ?";
+    private static final String UPSERT_FINGERPRINT_SQL =
+            "INSERT INTO reconciliation_ranges (range_size, range_start, range_end, fingerprint, accounts, discrepancies, checked_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NOW()) ON DUPLICATE KEY UPDATE fingerprint = VALUES(fingerprint), " +
+            "accounts = VALUES(accounts), discrepancies = VALUES(discrepancies), checked_at = VALUES(checked_at)";
+
+    private static final String FINGERPRINT_ACCOUNTS_SQL =
+            "SELECT COUNT(*), COALESCE(BIT_XOR(CRC32(CONCAT_WS(',', id, balance))), 0) FROM accounts WHERE id BETWEEN ? AND ?";
+    private static final String FINGERPRINT_LEDGER_SQL =
+            "SELECT COUNT(*), COALESCE(BIT_XOR(CRC32(CONCAT_WS(',', id, account_id, type, amount))), 0) " +
+            "FROM transactions WHERE account_id BETWEEN ? AND ?";
+    private static final String FINGERPRINT_INCOMING_SQL =
+            "SELECT COUNT(*), COALESCE(BIT_XOR(CRC32(CONCAT_WS(',', id, destination_account_id, amount))), 0) " +
+            "FROM transactions WHERE type = 'TRANSFER' AND destination_account_id BETWEEN ? AND ?";
+
+    private static final String STREAM_ACCOUNTS_SQL = "SELECT id, balance FROM accounts WHERE id BETWEEN ? AND ?";
+    private static final String STREAM_LEDGER_SQL = "SELECT account_id, type, amount FROM transactions WHERE account_id BETWEEN ? AND ?";
+    private static final String STREAM_INCOMING_SQL =
+            "SELECT destination_account_id, amount FROM transactions WHERE type = 'TRANSFER' AND destination_account_id BETWEEN ? AND ?";
+
+    private final List<ConnectionProvider> stores;
+    private final TransactionArchive archive;
+    private final int rangeSize;
+    private final int workers;
+    private final int maxReported;
+
+    /**
+     * Configured from reconcile.* keys in config.properties.
+     *
+     * @param stores  the primary, or every shard; the first one also holds reconciliation_ranges
+     * @param archive cold tier whose rows count towards the ledger, or null
+     */
+    public ReconciliationJob(List<ConnectionProvider> stores, TransactionArchive archive) {
+        this(stores, archive,
+                AppConfig.getInt("reconcile.rangeSize", 10_000),
+                AppConfig.getInt("reconcile.workers", 4),
+                AppConfig.getInt("reconcile.maxReported", 1000));
+    }
+
+    public ReconciliationJob(List<ConnectionProvider> stores, TransactionArchive archive, int rangeSize, int workers, int maxReported) {
+        if (stores.isEmpty()) throw new IllegalArgumentException("At least one store is required");
+        if (rangeSize <= 0) throw new IllegalArgumentException("rangeSize must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive");
+        this.stores = List.copyOf(stores);
+        this.archive = archive;
+        this.rangeSize = rangeSize;
+        this.workers = workers;
+        this.maxReported = maxReported;
+    }
+
+    public ReconciliationReport run() throws SQLException {
+        long started = System.currentTimeMillis();
+        boolean incomingTracked = true;
+        int minId = Integer.MAX_VALUE;
+        int maxId = 0;
+        for (ConnectionProvider store : stores) {
+            try (Connection conn = store.getConnection()) {
+                incomingTracked &= hasDestinationColumn(conn);
+                try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(SELECT_ID_RANGE_SQL)) {
+                    if (rs.next() && rs.getObject(1) != null) {
+                        minId = Math.min(minId, rs.getInt(1));
+                        maxId = Math.max(maxId, rs.getInt(2));
+                    }
+                }
+            }
+        }
+        if (maxId == 0) {
+            return new ReconciliationReport(0, 0, 0, 0, 0, 0, List.of(), incomingTracked, System.currentTimeMillis() - started);
+        }
+        Map<Integer, long[]> previous = loadFingerprints();
+        IntLongHashMap archivedNet = archivedNet();
+
+        // Range boundaries are aligned to multiples of rangeSize so fingerprints line up between runs
+        boolean trackIncoming = incomingTracked;
+        ExecutorService pool = Executors.newFixedThreadPool(workers, VirtualThreads.daemonFactory("reconciliation"));
+        List<Future<RangeResult>> futures = new ArrayList<>();
+        try {
+            for (int range = (minId - 1) / rangeSize; range <= (maxId - 1) / rangeSize; range++) {
+                int start = range * rangeSize + 1;
+                int end = start + rangeSize - 1;
+                futures.add(pool.submit(() -> reconcileRange(start, end, trackIncoming, previous.get(start), archivedNet)));
+            }
+            int checked = 0;
+            int skipped = 0;
+            long accounts = 0;
+            long rows = 0;
+            long found = 0;
+            long unchanged = 0;
+            List<ReconciliationReport.Discrepancy> reported = new ArrayList<>();
+            SQLException failure = null;
+            for (Future<RangeResult> f : futures) {
+                try {
+                    RangeResult r = f.get();
+                    if (r.skipped) {
+                        skipped++;
+                        unchanged += r.discrepancyCount;
+                        continue;
+                    }
+                    checked++;
+                    accounts += r.accounts;
+                    rows += r.rows;
+                    found += r.discrepancyCount;
+                    for (ReconciliationReport.Discrepancy d : r.discrepancies) {
+                        if (reported.size() < maxReported) reported.add(d);
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Reconciliation interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new ReconciliationReport(checked, skipped, accounts, rows, found, unchanged, reported,
+                    incomingTracked, System.currentTimeMillis() - started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private RangeResult reconcileRange(int start, int end, boolean trackIncoming, long[] previous, IntLongHashMap archivedNet)
+            throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            // One snapshot per store: the fingerprint, the balances and the ledger are read at the same point in time
+            long fingerprint = 17;
+            for (ConnectionProvider store : stores) {
+                Connection conn = store.getConnection();
+                connections.add(conn);
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                fingerprint = fingerprint(conn, fingerprint, FINGERPRINT_ACCOUNTS_SQL, start, end);
+                fingerprint = fingerprint(conn, fingerprint, FINGERPRINT_LEDGER_SQL, start, end);
+                if (trackIncoming) fingerprint = fingerprint(conn, fingerprint, FINGERPRINT_INCOMING_SQL, start, end);
+            }
+            if (previous != null && previous[0] == fingerprint) {
+                return RangeResult.skipped((int) previous[1]);
+            }
+
+            IntLongHashMap balances = new IntLongHashMap(rangeSize);
+            IntLongHashMap ledger = new IntLongHashMap(rangeSize);
+            long rows = 0;
+            for (Connection conn : connections) {
+                try (PreparedStatement ps = streaming(conn, STREAM_ACCOUNTS_SQL, start, end); ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        balances.put(rs.getInt(1), cents(rs.getBigDecimal(2)));
+                    }
+                }
+                try (PreparedStatement ps = streaming(conn, STREAM_LEDGER_SQL, start, end); ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long amount = cents(rs.getBigDecimal(3));
+                        String type = rs.getString(2);
+                        boolean debit = "WITHDRAWAL".equalsIgnoreCase(type) || "TRANSFER".equalsIgnoreCase(type)
+                                || "TRANSFER_OUT".equalsIgnoreCase(type);
+                        ledger.addTo(rs.getInt(1), debit ? -amount : amount);
+                        rows++;
+                    }
+                }
+                if (trackIncoming) {
+                    try (PreparedStatement ps = streaming(conn, STREAM_INCOMING_SQL, start, end); ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ledger.addTo(rs.getInt(1), cents(rs.getBigDecimal(2)));
+                            rows++;
+                        }
+                    }
+                }
+                conn.commit();
+            }
+
+            List<ReconciliationReport.Discrepancy> discrepancies = new ArrayList<>();
+            int[] count = new int[1];
+            balances.forEach((accountId, balance) -> {
+                long expected = ledger.get(accountId, 0) + archivedNet.get(accountId, 0);
+                if (expected != balance) {
+                    count[0]++;
+                    if (discrepancies.size() < maxReported) {
+                        discrepancies.add(new ReconciliationReport.Discrepancy(accountId,
+                                BigDecimal.valueOf(balance, 2), BigDecimal.valueOf(expected, 2)));
+                    }
+                }
+            });
+            saveFingerprint(start, end, fingerprint, balances.size(), count[0]);
+            return new RangeResult(balances.size(), rows, count[0], discrepancies);
+        } finally {
+            for (Connection conn : connections) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Warning: could not close reconciliation connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Net ledger effect of archived rows per account, aggregated once per run with one segment inflated at a time.
+     */
+    private IntLongHashMap archivedNet() throws SQLException {
+        IntLongHashMap net = new IntLongHashMap();
+        if (archive == null) return net;
+        try {
+            for (Segment segment : archive.getSegments()) {
+                segment.forEach(t -> addArchived(net, t));
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+        return net;
+    }
+
+    private static void addArchived(IntLongHashMap net, Transaction t) {
+        long amount = cents(t.getAmount());
+        switch (t.getType()) {
+            case "WITHDRAWAL":
+            case "TRANSFER_OUT":
+                net.addTo(t.getAccountId(), -amount);
+                break;
+            case "TRANSFER":
+                net.addTo(t.getAccountId(), -amount);
+                int destination = ((TransferTransaction) t).getDestinationAccountId();
+                if (destination > 0) net.addTo(destination, amount);
+                break;
+            default:
+                net.addTo(t.getAccountId(), amount);
+        }
+    }
+
+    private static long fingerprint(Connection conn, long seed, String sql, int start, int end) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, start);
+            ps.setInt(2, end);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return (seed * 0x9E3779B97F4A7C15L + rs.getLong(1)) * 0x9E3779B97F4A7C15L + rs.getLong(2);
+            }
+        }
+    }
+
+    private static PreparedStatement streaming(Connection conn, String sql, int start, int end) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // Row-by-row streaming in Connector/J
+        ps.setFetchSize(Integer.MIN_VALUE);
+        ps.setInt(1, start);
+        ps.setInt(2, end);
+        return ps;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static boolean hasDestinationColumn(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "transactions", "destination_account_id")) {
+            return rs.next();
+        }
+    }
+
+    private Map<Integer, long[]> loadFingerprints() throws SQLException {
+        Map<Integer, long[]> fingerprints = new HashMap<>();
+        try (Connection conn = stores.get(0).getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_FINGERPRINTS_SQL)) {
+            ps.setInt(1, rangeSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    fingerprints.put(rs.getInt(1), new long[] {rs.getLong(2), rs.getInt(3)});
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private void saveFingerprint(int start, int end, long fingerprint, int accounts, int discrepancies) throws SQLException {
+        try (Connection conn = stores.get(0).getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPSERT_FINGERPRINT_SQL)) {
+            ps.setInt(1, rangeSize);
+            ps.setInt(2, start);
+            ps.setInt(3, end);
+            ps.setLong(4, fingerprint);
+            ps.setInt(5, accounts);
+            ps.setInt(6, discrepancies);
+            ps.executeUpdate();
+        }
+    }
+
+    private static final class RangeResult {
+        final boolean skipped;
+        final int accounts;
+        final long rows;
+        final int discrepancyCount;
+        final List<ReconciliationReport.Discrepancy> discrepancies;
+
+        RangeResult(int accounts, long rows, int discrepancyCount, List<ReconciliationReport.Discrepancy> discrepancies) {
+            this(false, accounts, rows, discrepancyCount, discrepancies);
+        }
+
+        private RangeResult(boolean skipped, int accounts, long rows, int discrepancyCount,
+                            List<ReconciliationReport.Discrepancy> discrepancies) {
+            this.skipped = skipped;
+            this.accounts = accounts;
+            this.rows = rows;
+            this.discrepancyCount = discrepancyCount;
+            this.discrepancies = discrepancies;
+        }
+
+        static RangeResult skipped(int previousDiscrepancies) {
+            return new RangeResult(true, 0, 0, previousDiscrepancies, List.of());
+        }
+    }
+
+    public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        ShardRouter shardRouter = AppConfig.getInt("shard.count", 0) > 0 ? ShardRouter.fromConfig() : null;
+        List<ConnectionProvider> stores = new ArrayList<>();
+        if (shardRouter != null) {
+            shardRouter.getShards().forEach(shard -> stores.add(shard.getConnections()));
+        } else {
+            stores.add(DBConnectionUtil::getConnection);
+        }
+        TransactionArchive archive = AppConfig.getBoolean("archive.enabled", false) ? TransactionArchive.fromConfig() : null;
+        try {
+            ReconciliationReport report = new ReconciliationJob(stores, archive).run();
+            System.out.println(report);
+            report.getDiscrepancies().forEach(d -> System.out.println("  " + d));
+            if (!report.isIncomingTransfersTracked()) {
+                System.out.println("Note: transactions.destination_account_id is missing; incoming transfers were not counted.");
+            }
+        } catch (SQLException e) {
+            System.err.println("Reconciliation failed: " + e.getMessage());
+        }
+    }
+}
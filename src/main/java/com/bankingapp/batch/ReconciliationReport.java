@@ -0,0 +1,124 @@
+package com.bankingapp.batch;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Summary of one ledger-vs-balance reconciliation run.
+ */
+public class ReconciliationReport {
+
+    /**
+     * An account whose stored balance differs from the sum of its ledger rows.
+     */
+    public static class Discrepancy {
+        private final int accountId;
+        private final BigDecimal balance;
+        private final BigDecimal ledgerBalance;
+
+        public Discrepancy(int accountId, BigDecimal balance, BigDecimal ledgerBalance) {
+            this.accountId = accountId;
+            this.balance = balance;
+            this.ledgerBalance = ledgerBalance;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public BigDecimal getLedgerBalance() {
+            return ledgerBalance;
+        }
+
+        @Override
+        public String toString() {
+            return "account " + accountId + ": balance " + balance + ", ledger " + ledgerBalance
+                    + " (difference " + balance.subtract(ledgerBalance) + ")";
+        }
+    }
+
+    private final int rangesChecked;
+    private final int rangesSkipped;
+    private final long accountsChecked;
+    private final long rowsScanned;
+    private final long discrepancyCount;
+    private final long unchangedDiscrepancyCount;
+    private final List<Discrepancy> discrepancies;
+    private final boolean incomingTransfersTracked;
+    private final long elapsedMillis;
+
+    public ReconciliationReport(int rangesChecked, int rangesSkipped, long accountsChecked, long rowsScanned,
+                                long discrepancyCount, long unchangedDiscrepancyCount, List<Discrepancy> discrepancies,
+                                boolean incomingTransfersTracked, long elapsedMillis) {
+        this.rangesChecked = rangesChecked;
+        this.rangesSkipped = rangesSkipped;
+        this.accountsChecked = accountsChecked;
+        this.rowsScanned = rowsScanned;
+        this.discrepancyCount = discrepancyCount;
+        this.unchangedDiscrepancyCount = unchangedDiscrepancyCount;
+        this.discrepancies = List.copyOf(discrepancies);
+        this.incomingTransfersTracked = incomingTransfersTracked;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRangesChecked() {
+        return rangesChecked;
+    }
+
+    public int getRangesSkipped() {
+        return rangesSkipped;
+    }
+
+    public long getAccountsChecked() {
+        return accountsChecked;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * Discrepancies found in the ranges checked by this run.
+     */
+    public long getDiscrepancyCount() {
+        return discrepancyCount;
+    }
+
+    /**
+     * Discrepancies recorded by an earlier run in ranges skipped as unchanged.
+     */
+    public long getUnchangedDiscrepancyCount() {
+        return unchangedDiscrepancyCount;
+    }
+
+    /**
+     * The first discrepancies found, up to reconcile.maxReported.
+     */
+    public List<Discrepancy> getDiscrepancies() {
+        return discrepancies;
+    }
+
+    /**
+     * False when the transactions table has no destination_account_id column, so incoming transfers could not be
+     * credited to their destination and every account that received one shows up as a discrepancy.
+     */
+    public boolean isIncomingTransfersTracked() {
+        return incomingTransfersTracked;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReconciliationReport{rangesChecked=%d, rangesSkipped=%d, accountsChecked=%d, rowsScanned=%d, "
+                        + "discrepancies=%d, unchangedDiscrepancies=%d, incomingTransfersTracked=%b, elapsedMillis=%d}",
+                rangesChecked, rangesSkipped, accountsChecked, rowsScanned, discrepancyCount, unchangedDiscrepancyCount,
+                incomingTransfersTracked, elapsedMillis);
+    }
+}
@@ -0,0 +1,220 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Rebuilds account_daily_rollups from the transactions table, for ledgers written before the rollups existed or after
+ * rows were changed behind the DAO. The account id space is cut into aligned chunks that run on parallel workers;
+ * each chunk is one DB transaction per store that locks the chunk's accounts, deletes their rollups from the first
+ * rebuilt day on and recomputes them with two grouped INSERT ... SELECTs (own rows, then incoming transfers).
+ * <p>
+ * Rows the archival job has already moved out of the table cannot be recounted, so by default each store is rebuilt
+ * from the earliest day still in its table and older rollups are kept. Locking the accounts keeps same-store writers
+ * out of a chunk while it is rebuilt; a cross-shard transfer into the chunk is credited on the source shard without
+ * that lock and may be picked as a deadlock victim, which rolls it back for the caller to retry.
+ */
+public class RollupBackfillJob {
+
+    private static final String SELECT_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM accounts";
+    private static final String SELECT_FIRST_DAY_SQL = "SELECT DATE(MIN(timestamp)) FROM transactions";
+    private static final String LOCK_CHUNK_SQL = "SELECT id FROM accounts WHERE id BETWEEN ? AND ? ORDER BY id FOR UPDATE";
+    private static final String DELETE_ROLLUPS_SQL = "DELETE FROM account_daily_rollups WHERE account_id BETWEEN ? AND ? AND day >= ?";
+    private static final String INSERT_OWN_ROWS_SQL =
+            "INSERT INTO account_daily_rollups (account_id, day, deposit_count, deposit_total, withdrawal_count, " +
+            "withdrawal_total, transfer_out_count, transfer_out_total, interest_count, interest_total) " +
+            "SELECT account_id, DATE(timestamp), " +
+            "SUM(type = 'DEPOSIT'), SUM(CASE WHEN type = 'DEPOSIT' THEN amount ELSE 0 END), " +
+            "SUM(type = 'WITHDRAWAL'), SUM(CASE WHEN type = 'WITHDRAWAL' THEN amount ELSE 0 END), " +
+            "SUM(type = 'TRANSFER'), SUM(CASE WHEN type = 'TRANSFER' THEN amount ELSE 0 END), " +
+            "SUM(type = 'INTEREST'), SUM(CASE WHEN type = 'INTEREST' THEN amount ELSE 0 END) " +
+            "FROM transactions WHERE account_id BETWEEN ? AND ? AND timestamp >= ? " +
+            "GROUP BY account_id, DATE(timestamp)";
+    // Legacy transfer rows without a destination cannot be credited to anyone and are left out
+    private static final String UPSERT_INCOMING_SQL =
+            "INSERT INTO account_daily_rollups (account_id, day, transfer_in_count, transfer_in_total) " +
+            "SELECT destination_account_id, DATE(timestamp), COUNT(*), SUM(amount) " +
+            "FROM transactions WHERE type = 'TRANSFER' AND destination_account_id BETWEEN ? AND ? AND timestamp >= ? " +
+            "GROUP BY destination_account_id, DATE(timestamp) " +
+            "ON DUPLICATE KEY UPDATE transfer_in_count = transfer_in_count + VALUES(transfer_in_count), " +
+            "transfer_in_total = transfer_in_total + VALUES(transfer_in_total)";
+
+    private static final String COUNT_ROLLUPS_SQL =
+            "SELECT COUNT(*) FROM account_daily_rollups WHERE account_id BETWEEN ? AND ? AND day >= ?";
+
+    private final List<ConnectionProvider> stores;
+    private final int chunkSize;
+    private final int workers;
+
+    /**
+     * Configured from rollup.* keys in config.properties.
+     *
+     * @param stores the primary, or every shard
+     */
+    public RollupBackfillJob(List<ConnectionProvider> stores) {
+        this(stores, AppConfig.getInt("rollup.chunkSize", 1000), AppConfig.getInt("rollup.workers", 4));
+    }
+
+    public RollupBackfillJob(List<ConnectionProvider> stores, int chunkSize, int workers) {
+        if (stores.isEmpty()) throw new IllegalArgumentException("At least one store is required");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive");
+        this.stores = List.copyOf(stores);
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    /**
+     * Rebuild every rollup dated {@code from} or later; null rebuilds each store from the earliest day in its table.
+     */
+    public RollupBackfillReport run(LocalDate from) throws SQLException {
+        long started = System.currentTimeMillis();
+        int minId = Integer.MAX_VALUE;
+        int maxId = 0;
+        List<LocalDate> firstDays = new ArrayList<>();
+        for (ConnectionProvider store : stores) {
+            try (Connection conn = store.getConnection(); Statement st = conn.createStatement()) {
+                try (ResultSet rs = st.executeQuery(SELECT_ID_RANGE_SQL)) {
+                    rs.next();
+                    int lo = rs.getInt(1);
+                    if (!rs.wasNull()) {
+                        minId = Math.min(minId, lo);
+                        maxId = Math.max(maxId, rs.getInt(2));
+                    }
+                }
+                LocalDate first = from;
+                if (first == null) {
+                    try (ResultSet rs = st.executeQuery(SELECT_FIRST_DAY_SQL)) {
+                        rs.next();
+                        Date day = rs.getDate(1);
+                        first = day == null ? null : day.toLocalDate();
+                    }
+                }
+                firstDays.add(first);
+            }
+        }
+        if (maxId == 0) {
+            return new RollupBackfillReport(0, 0, System.currentTimeMillis() - started);
+        }
+
+        // Chunks span the ids of every store: a shard may hold incoming-transfer rollups of accounts it does not own
+        int firstChunk = (minId - 1) / chunkSize;
+        int lastChunk = (maxId - 1) / chunkSize;
+        ExecutorService pool = Executors.newFixedThreadPool(workers, VirtualThreads.daemonFactory("rollup-backfill"));
+        List<Future<Long>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < stores.size(); i++) {
+                ConnectionProvider store = stores.get(i);
+                LocalDate first = firstDays.get(i);
+                if (first == null) continue;
+                for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+                    int start = chunk * chunkSize + 1;
+                    int end = start + chunkSize - 1;
+                    results.add(pool.submit(() -> rebuildChunk(store, start, end, first)));
+                }
+            }
+            int chunks = 0;
+            long rows = 0;
+            SQLException failure = null;
+            for (Future<Long> f : results) {
+                try {
+                    rows += f.get();
+                    chunks++;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Rollup backfill interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new RollupBackfillReport(chunks, rows, System.currentTimeMillis() - started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of rollup rows written for the chunk
+     */
+    private long rebuildChunk(ConnectionProvider store, int start, int end, LocalDate from) throws SQLException {
+        try (Connection conn = store.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(LOCK_CHUNK_SQL)) {
+                    ps.setInt(1, start);
+                    ps.setInt(2, end);
+                    ps.executeQuery().close();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(DELETE_ROLLUPS_SQL)) {
+                    ps.setInt(1, start);
+                    ps.setInt(2, end);
+                    ps.setDate(3, Date.valueOf(from));
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_OWN_ROWS_SQL)) {
+                    bindChunk(ps, start, end, from);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(UPSERT_INCOMING_SQL)) {
+                    bindChunk(ps, start, end, from);
+                    ps.executeUpdate();
+                }
+                long rows;
+                try (PreparedStatement ps = conn.prepareStatement(COUNT_ROLLUPS_SQL)) {
+                    ps.setInt(1, start);
+                    ps.setInt(2, end);
+                    ps.setDate(3, Date.valueOf(from));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        rows = rs.getLong(1);
+                    }
+                }
+                conn.commit();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bindChunk(PreparedStatement ps, int start, int end, LocalDate from) throws SQLException {
+        ps.setInt(1, start);
+        ps.setInt(2, end);
+        ps.setTimestamp(3, Timestamp.valueOf(from.atStartOfDay()));
+    }
+
+    public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        LocalDate from = args.length > 0 ? LocalDate.parse(args[0]) : null;
+        List<ConnectionProvider> stores = new ArrayList<>();
+        if (AppConfig.getInt("shard.count", 0) > 0) {
+            ShardRouter.fromConfig().getShards().forEach(shard -> stores.add(shard.getConnections()));
+        } else {
+            stores.add(DBConnectionUtil::getConnection);
+        }
+        try {
+            System.out.println(new RollupBackfillJob(stores).run(from));
+        } catch (SQLException e) {
+            System.err.println("Rollup backfill failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bankingapp.batch;
+
+/**
+ * Summary of one rollup backfill run.
+ */
+public class RollupBackfillReport {
+    private final int chunksRebuilt;
+    private final long rollupRows;
+    private final long elapsedMillis;
+
+    public RollupBackfillReport(int chunksRebuilt, long rollupRows, long elapsedMillis) {
+        this.chunksRebuilt = chunksRebuilt;
+        this.rollupRows = rollupRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunksRebuilt() {
+        return chunksRebuilt;
+    }
+
+    /**
+     * Rollup rows (account days) present in the rebuilt period afterwards.
+     */
+    public long getRollupRows() {
+        return rollupRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RollupBackfillReport{chunksRebuilt=%d, rollupRows=%d, elapsedMillis=%d}",
+                chunksRebuilt, rollupRows, elapsedMillis);
+    }
+}
@@ -0,0 +1,258 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.archive.Segment;
+import com.bankingapp.archive.SegmentWriter;
+import com.bankingapp.archive.TransactionArchive;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Moves transactions older than the retention window out of the hot table into monthly segments of the
+ * {@link TransactionArchive}. For every month before the cutoff the rows of all stores (the primary, or every shard)
+ * are streamed in (account_id, id) order, merged with the month's existing segment and written as a new segment,
+ * which replaces the old one atomically. Only then, and after a grace period that lets readers pick the segment up,
+ * are the archived ids deleted from the hot table. A crash at any point leaves each row in the table, the archive or
+ * both, and re-running the job converges.
+ */
+public class TransactionArchivalJob {
+
+    private static final String SELECT_OLDEST_SQL = "SELECT MIN(timestamp) FROM transactions WHERE timestamp < ?";
+    private static final String SELECT_MONTH_SQL =
+            "SELECT * FROM transactions WHERE timestamp >= ? AND timestamp < ? ORDER BY account_id, id";
+    private static final int DELETE_BATCH = 1000;
+
+    private final List<ConnectionProvider> stores;
+    private final TransactionArchive archive;
+    private final int retentionMonths;
+    private final int groupSize;
+    private final long deleteGraceMillis;
+
+    /**
+     * Configured from archive.* keys in config.properties.
+     */
+    public TransactionArchivalJob(List<ConnectionProvider> stores, TransactionArchive archive) {
+        this(stores, archive,
+                AppConfig.getInt("archive.retentionMonths", 12),
+                AppConfig.getInt("archive.groupSize", 4096),
+                AppConfig.getLong("archive.deleteGraceMs", 10_000));
+    }
+
+    public TransactionArchivalJob(List<ConnectionProvider> stores, TransactionArchive archive, int retentionMonths,
+                                  int groupSize, long deleteGraceMillis) {
+        if (retentionMonths < 0) throw new IllegalArgumentException("retentionMonths must not be negative");
+        if (groupSize <= 0) throw new IllegalArgumentException("groupSize must be positive");
+        this.stores = List.copyOf(stores);
+        this.archive = archive;
+        this.retentionMonths = retentionMonths;
+        this.groupSize = groupSize;
+        this.deleteGraceMillis = deleteGraceMillis;
+    }
+
+    /**
+     * Archive every month that lies entirely before the retention window.
+     */
+    public ArchivalReport run() throws SQLException, IOException {
+        long started = System.currentTimeMillis();
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        Files.createDirectories(archive.getDirectory());
+        archive.refresh();
+
+        List<int[]> archivedIds = new ArrayList<>();
+        int[] archivedCounts = new int[stores.size()];
+        for (int i = 0; i < stores.size(); i++) {
+            archivedIds.add(new int[1024]);
+        }
+        int months = 0;
+        long rows = 0;
+        YearMonth oldest = oldestMonth(cutoff);
+        for (YearMonth month = oldest; month != null && month.isBefore(cutoff); month = month.plusMonths(1)) {
+            long archived = archiveMonth(month, archivedIds, archivedCounts);
+            if (archived > 0) {
+                months++;
+                rows += archived;
+            }
+        }
+        if (rows == 0) {
+            return new ArchivalReport(0, 0, 0, System.currentTimeMillis() - started);
+        }
+
+        // Readers re-list the archive every archive.refreshMs; keep the rows hot until they have seen the new segments
+        try {
+            Thread.sleep(deleteGraceMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Archival interrupted before deleting archived rows", e);
+        }
+        long deleted = 0;
+        for (int s = 0; s < stores.size(); s++) {
+            deleted += deleteArchived(stores.get(s), archivedIds.get(s), archivedCounts[s]);
+        }
+        return new ArchivalReport(months, rows, deleted, System.currentTimeMillis() - started);
+    }
+
+    private YearMonth oldestMonth(YearMonth cutoff) throws SQLException {
+        YearMonth oldest = null;
+        for (ConnectionProvider store : stores) {
+            try (Connection conn = store.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SELECT_OLDEST_SQL)) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff.atDay(1).atStartOfDay()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getTimestamp(1) != null) {
+                        YearMonth month = YearMonth.from(rs.getTimestamp(1).toLocalDateTime());
+                        if (oldest == null || month.isBefore(oldest)) oldest = month;
+                    }
+                }
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * @return number of rows taken from the hot stores for this month
+     */
+    private long archiveMonth(YearMonth month, List<int[]> archivedIds, int[] archivedCounts) throws SQLException, IOException {
+        Segment existing = archive.getSegment(month);
+        List<Connection> connections = new ArrayList<>();
+        List<RowSource> sources = new ArrayList<>();
+        try {
+            for (ConnectionProvider store : stores) {
+                Connection conn = store.getConnection();
+                connections.add(conn);
+                PreparedStatement ps = conn.prepareStatement(SELECT_MONTH_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Row-by-row streaming in Connector/J, so a month is never materialised in memory
+                ps.setFetchSize(Integer.MIN_VALUE);
+                ps.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+                sources.add(new RowSource(ps.executeQuery()));
+            }
+            // Existing rows go last so that, for an id in both, the copy still in the table wins
+            sources.add(new RowSource(existing == null ? Collections.emptyIterator() : existing.readAll().iterator()));
+
+            SegmentWriter writer = new SegmentWriter(month, groupSize);
+            long fromStores = 0;
+            int lastAccount = 0;
+            int lastId = 0;
+            while (true) {
+                int pick = -1;
+                for (int s = 0; s < sources.size(); s++) {
+                    Transaction t = sources.get(s).peek();
+                    if (t != null && (pick < 0 || before(t, sources.get(pick).peek()))) pick = s;
+                }
+                if (pick < 0) break;
+                Transaction t = sources.get(pick).next();
+                if (pick < stores.size()) {
+                    archivedIds.set(pick, append(archivedIds.get(pick), archivedCounts[pick]++, t.getId()));
+                    fromStores++;
+                }
+                if (t.getAccountId() == lastAccount && t.getId() == lastId) continue;
+                writer.add(t);
+                lastAccount = t.getAccountId();
+                lastId = t.getId();
+            }
+            if (fromStores > 0) {
+                writer.writeTo(archive.segmentPath(month));
+            }
+            return fromStores;
+        } finally {
+            for (Connection conn : connections) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Warning: could not close archival connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean before(Transaction a, Transaction b) {
+        return a.getAccountId() != b.getAccountId() ? a.getAccountId() < b.getAccountId() : a.getId() < b.getId();
+    }
+
+    private static int[] append(int[] ids, int at, int id) {
+        if (at == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+        ids[at] = id;
+        return ids;
+    }
+
+    private static long deleteArchived(ConnectionProvider store, int[] ids, int count) throws SQLException {
+        long deleted = 0;
+        try (Connection conn = store.getConnection()) {
+            for (int from = 0; from < count; from += DELETE_BATCH) {
+                int n = Math.min(DELETE_BATCH, count - from);
+                String placeholders = String.join(",", Collections.nCopies(n, "?"));
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM transactions WHERE id IN (" + placeholders + ")")) {
+                    for (int i = 0; i < n; i++) {
+                        ps.setInt(i + 1, ids[from + i]);
+                    }
+                    deleted += ps.executeUpdate();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * A sorted stream of rows from a result set or an archived segment, with one row of look-ahead.
+     */
+    private static final class RowSource {
+        private final ResultSet rs;
+        private final Iterator<Transaction> rows;
+        private Transaction head;
+        private boolean done;
+
+        RowSource(ResultSet rs) {
+            this.rs = rs;
+            this.rows = null;
+        }
+
+        RowSource(Iterator<Transaction> rows) {
+            this.rs = null;
+            this.rows = rows;
+        }
+
+        Transaction peek() throws SQLException {
+            if (head == null && !done) {
+                if (rs != null) {
+                    if (rs.next()) head = TransactionDAOImpl.mapResultSetToTransaction(rs);
+                } else if (rows.hasNext()) {
+                    head = rows.next();
+                }
+                done = head == null;
+            }
+            return head;
+        }
+
+        Transaction next() throws SQLException {
+            Transaction t = peek();
+            head = null;
+            return t;
+        }
+    }
+
+    public static void main(String[] args) {
+        SchemaManager.bootstrap();
+        ShardRouter shardRouter = AppConfig.getInt("shard.count", 0) > 0 ? ShardRouter.fromConfig() : null;
+        List<ConnectionProvider> stores = new ArrayList<>();
+        if (shardRouter != null) {
+            shardRouter.getShards().forEach(shard -> stores.add(shard.getConnections()));
+        } else {
+            stores.add(DBConnectionUtil::getConnection);
+        }
+        try {
+            System.out.println(new TransactionArchivalJob(stores, TransactionArchive.fromConfig()).run());
+        } catch (SQLException | IOException e) {
+            System.err.println("Transaction archival failed: " + e.getMessage());
+        }
+    }
+}
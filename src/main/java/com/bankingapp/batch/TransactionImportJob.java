@@ -0,0 +1,395 @@
+package com.bankingapp.batch;
+
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.manager.AccountManager;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.processor.SettlementResult;
+import com.bankingapp.processor.TransactionProcessor;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.VirtualThreads;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports a transaction CSV file (format in {@link CsvTransactionParser}) through a three-stage pipeline: a parser
+ * thread reading the file with NIO into chunks of rows, a validation thread, and the calling thread settling each chunk
+ * with {@link TransactionProcessor#settleTransactions(Connection, List)}. Stages are joined by bounded queues, so a
+ * slow database blocks the parser instead of letting parsed rows pile up; memory stays at a few chunks whatever the
+ * file size.
+ * <p>
+ * Each chunk commits together with a checkpoint row holding the byte offset just past its last line, so a failed or
+ * interrupted import re-run on the same file resumes after the last committed chunk. When a chunk's net position would
+ * overdraw an account, the chunk is settled row by row instead and only the offending rows are rejected. Rejected lines
+ * go to a CSV file next to the input; lines rejected just before a crash may appear there twice after the resume.
+ */
+public class TransactionImportJob {
+
+    private static final String SELECT_CHECKPOINT_SQL =
+            "SELECT file_size, byte_offset, line_number, rows_applied, rows_rejected " +
+            "FROM transaction_import_checkpoints WHERE file_name = ?";
+    private static final String UPSERT_CHECKPOINT_SQL =
+            "INSERT INTO transaction_import_checkpoints " +
+            "(file_name, file_size, byte_offset, line_number, rows_applied, rows_rejected, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NOW()) ON DUPLICATE KEY UPDATE file_size = VALUES(file_size), " +
+            "byte_offset = VALUES(byte_offset), line_number = VALUES(line_number), rows_applied = VALUES(rows_applied), " +
+            "rows_rejected = VALUES(rows_rejected), updated_at = VALUES(updated_at)";
+
+    private static final ImportChunk END = new ImportChunk(1);
+
+    private final TransactionProcessor processor;
+    private final int chunkRows;
+    private final int queueChunks;
+    private final int bufferBytes;
+    private final long progressMillis;
+
+    /**
+     * Configured from import.* keys in config.properties.
+     */
+    public TransactionImportJob(TransactionProcessor processor) {
+        this(processor,
+                AppConfig.getInt("import.chunkRows", 1000),
+                AppConfig.getInt("import.queueChunks", 4),
+                AppConfig.getInt("import.bufferBytes", 1 << 20),
+                AppConfig.getLong("import.progressMs", 5000));
+    }
+
+    public TransactionImportJob(TransactionProcessor processor, int chunkRows, int queueChunks, int bufferBytes,
+                                long progressMillis) {
+        if (chunkRows <= 0) throw new IllegalArgumentException("chunkRows must be positive");
+        if (queueChunks <= 0) throw new IllegalArgumentException("queueChunks must be positive");
+        if (bufferBytes < 1024) throw new IllegalArgumentException("bufferBytes must be at least 1024");
+        this.processor = processor;
+        this.chunkRows = chunkRows;
+        this.queueChunks = queueChunks;
+        this.bufferBytes = bufferBytes;
+        this.progressMillis = progressMillis;
+    }
+
+    /**
+     * Import the file, writing rejected lines to {@code <file>.rejected.csv}.
+     */
+    public ImportReport run(Path file) throws IOException, SQLException {
+        return run(file, file.resolveSibling(file.getFileName() + ".rejected.csv"));
+    }
+
+    /**
+     * Import the file, or resume it from its checkpoint. Files are identified by name; a file whose size changed
+     * since its checkpoint is refused rather than imported twice.
+     */
+    public ImportReport run(Path file, Path rejectedFile) throws IOException, SQLException {
+        long started = System.currentTimeMillis();
+        String key = file.getFileName().toString();
+        long size = Files.size(file);
+        Progress progress = new Progress(key, size);
+        try (Connection conn = DBConnectionUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_CHECKPOINT_SQL)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    if (rs.getLong(1) != size) {
+                        throw new IOException("Import file " + key + " changed since its checkpoint (" + rs.getLong(1) +
+                                " bytes, now " + size + "); delete its transaction_import_checkpoints row to import it again");
+                    }
+                    progress.resume(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5));
+                }
+            }
+        }
+        long resumedFromLine = progress.line;
+        if (progress.offset < size) {
+            pipeline(file, rejectedFile, progress);
+        }
+        progress.print();
+        return new ImportReport(key, progress.line - resumedFromLine, resumedFromLine, progress.applied,
+                progress.rejected, System.currentTimeMillis() - started);
+    }
+
+    private void pipeline(Path file, Path rejectedFile, Progress progress) throws IOException, SQLException {
+        BlockingQueue<ImportChunk> parsed = new ArrayBlockingQueue<>(queueChunks);
+        BlockingQueue<ImportChunk> validated = new ArrayBlockingQueue<>(queueChunks);
+        ExecutorService pool = Executors.newFixedThreadPool(2, VirtualThreads.daemonFactory("transaction-import"));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedWriter rejects = openRejected(rejectedFile)) {
+            long offset = progress.offset;
+            long line = progress.line;
+            pool.submit(() -> parse(channel, offset, line, parsed));
+            pool.submit(() -> validate(parsed, validated));
+            while (true) {
+                ImportChunk chunk;
+                try {
+                    chunk = validated.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Import interrupted", e);
+                }
+                if (chunk == END) break;
+                if (chunk.failure instanceof IOException) throw (IOException) chunk.failure;
+                if (chunk.failure != null) throw new IOException("Import of " + file + " failed", chunk.failure);
+                apply(chunk, progress, rejects);
+                progress.maybePrint(progressMillis);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ---- stage 1: parse ----
+
+    private void parse(FileChannel channel, long offset, long line, BlockingQueue<ImportChunk> out) {
+        try {
+            CsvTransactionParser parser = new CsvTransactionParser(channel, bufferBytes, offset, line);
+            while (true) {
+                ImportChunk chunk = new ImportChunk(chunkRows);
+                if (!parser.fill(chunk, chunkRows)) break;
+                out.put(chunk);
+            }
+            out.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            fail(out, e);
+        }
+    }
+
+    // ---- stage 2: validate ----
+
+    private void validate(BlockingQueue<ImportChunk> in, BlockingQueue<ImportChunk> out) {
+        try {
+            while (true) {
+                ImportChunk chunk = in.take();
+                if (chunk != END && chunk.failure == null) {
+                    TransactionBatch rows = chunk.rows;
+                    for (int i = 0; i < rows.size(); i++) {
+                        chunk.invalid[i] = check(rows, i);
+                    }
+                }
+                out.put(chunk);
+                if (chunk == END || chunk.failure != null) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            fail(out, e);
+        }
+    }
+
+    /**
+     * The row-level rules of settlement, checked on the columns before any row object exists.
+     */
+    private static String check(TransactionBatch rows, int i) {
+        if (rows.accountId(i) <= 0) return "account_id must be positive";
+        if (rows.amountMinor(i) <= 0) return "Amount must be positive";
+        switch (rows.type(i)) {
+            case TransactionBatch.TRANSFER:
+                if (rows.destinationAccountId(i) <= 0) return "Transfer needs a destination_account_id";
+                if (rows.destinationAccountId(i) == rows.accountId(i)) return "Cannot transfer to the same account";
+                return null;
+            case TransactionBatch.INTEREST:
+                return "INTEREST rows are posted by the interest job and cannot be imported";
+            default:
+                return rows.destinationAccountId(i) != 0 ? "destination_account_id is only allowed for transfers" : null;
+        }
+    }
+
+    private static void fail(BlockingQueue<ImportChunk> out, Exception e) {
+        ImportChunk failed = new ImportChunk(1);
+        failed.failure = e;
+        try {
+            out.put(failed);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- stage 3: apply ----
+
+    private void apply(ImportChunk chunk, Progress progress, BufferedWriter rejects) throws SQLException, IOException {
+        TransactionBatch rows = chunk.rows;
+        List<Transaction> valid = new ArrayList<>(rows.size());
+        int[] rowOf = new int[rows.size()];
+        List<ImportChunk.Rejection> pending = new ArrayList<>(chunk.rejected);
+        for (int i = 0; i < rows.size(); i++) {
+            if (chunk.invalid[i] != null) {
+                pending.add(new ImportChunk.Rejection(chunk.lines[i], chunk.invalid[i], chunk.record(i)));
+            } else {
+                rowOf[valid.size()] = i;
+                valid.add(rows.get(i));
+            }
+        }
+        long applied = progress.applied;
+        long rejected = progress.rejected + pending.size();
+
+        try (Connection conn = DBConnectionUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                SettlementResult result = valid.isEmpty() ? null : processor.settleTransactions(conn, valid);
+                if (result != null && !result.isCommitted()) {
+                    conn.rollback();
+                    // A net position overdraws: settle row by row so only the offending rows are rejected
+                    for (int k = 0; k < valid.size(); k++) {
+                        Transaction t = valid.get(k);
+                        int i = rowOf[k];
+                        SettlementResult one = processor.settleTransactions(conn, List.of(t));
+                        if (!one.isCommitted()) conn.rollback();
+                        if (one.isCommitted() && one.getSettledCount() == 1) {
+                            applied++;
+                        } else {
+                            rejected++;
+                            pending.add(new ImportChunk.Rejection(chunk.lines[i],
+                                    one.getFailures().getOrDefault(t, "Not settled"), chunk.record(i)));
+                        }
+                        saveCheckpoint(conn, progress, chunk.endOffsets[i], chunk.lines[i], applied, rejected);
+                        writeRejections(rejects, pending);
+                        conn.commit();
+                    }
+                } else if (result != null) {
+                    applied += result.getSettledCount();
+                    for (int k = 0; k < valid.size(); k++) {
+                        String reason = result.getFailures().get(valid.get(k));
+                        if (reason != null) {
+                            int i = rowOf[k];
+                            rejected++;
+                            pending.add(new ImportChunk.Rejection(chunk.lines[i], reason, chunk.record(i)));
+                        }
+                    }
+                }
+                saveCheckpoint(conn, progress, chunk.endOffset, chunk.endLine, applied, rejected);
+                // Rejections are flushed before the commit: after a crash they may repeat, but are never lost
+                writeRejections(rejects, pending);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        progress.advance(chunk.endOffset, chunk.endLine, applied, rejected);
+    }
+
+    private static void saveCheckpoint(Connection conn, Progress progress, long offset, long line, long applied,
+                                       long rejected) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_CHECKPOINT_SQL)) {
+            ps.setString(1, progress.file);
+            ps.setLong(2, progress.size);
+            ps.setLong(3, offset);
+            ps.setLong(4, line);
+            ps.setLong(5, applied);
+            ps.setLong(6, rejected);
+            ps.executeUpdate();
+        }
+    }
+
+    private static BufferedWriter openRejected(Path rejectedFile) throws IOException {
+        boolean fresh = !Files.exists(rejectedFile) || Files.size(rejectedFile) == 0;
+        BufferedWriter writer = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (fresh) {
+            writer.write("line,reason,record");
+            writer.newLine();
+        }
+        return writer;
+    }
+
+    private static void writeRejections(BufferedWriter rejects, List<ImportChunk.Rejection> pending) throws IOException {
+        if (pending.isEmpty()) return;
+        pending.sort(Comparator.comparingLong(r -> r.line));
+        for (ImportChunk.Rejection r : pending) {
+            rejects.write(r.line + "," + r.reason.replace(',', ';').replace('\n', ' ') + "," + r.record);
+            rejects.newLine();
+        }
+        rejects.flush();
+        pending.clear();
+    }
+
+    /**
+     * Position and counters of the import; only touched by the apply stage.
+     */
+    private static final class Progress {
+        final String file;
+        final long size;
+        final long startedNanos = System.nanoTime();
+        long offset;
+        long line;
+        long applied;
+        long rejected;
+        long rowsThisRun;
+        long lastPrinted = System.currentTimeMillis();
+
+        Progress(String file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        void resume(long offset, long line, long applied, long rejected) {
+            this.offset = offset;
+            this.line = line;
+            this.applied = applied;
+            this.rejected = rejected;
+        }
+
+        void advance(long offset, long line, long applied, long rejected) {
+            rowsThisRun += (applied - this.applied) + (rejected - this.rejected);
+            this.offset = offset;
+            this.line = line;
+            this.applied = applied;
+            this.rejected = rejected;
+        }
+
+        void maybePrint(long everyMillis) {
+            long now = System.currentTimeMillis();
+            if (now - lastPrinted >= everyMillis) {
+                lastPrinted = now;
+                print();
+            }
+        }
+
+        void print() {
+            double seconds = Math.max(1e-3, (System.nanoTime() - startedNanos) / 1e9);
+            System.out.printf("Import %s: %.1f%% (%d lines, %d applied, %d rejected, %.0f rows/s)%n",
+                    file, size == 0 ? 100.0 : offset * 100.0 / size, line, applied, rejected, rowsThisRun / seconds);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: TransactionImportJob <file.csv> [rejected.csv]");
+            return;
+        }
+        // Settlement and the checkpoint share one connection, so the import runs against one database: the primary
+        if (AppConfig.getInt("shard.count", 0) > 0) {
+            System.err.println("Transaction import does not support sharding: with shard.count set, the primary's "
+                    + "accounts are not the live ones, and one import transaction cannot span shards.");
+            return;
+        }
+        SchemaManager.bootstrap();
+        AccountDAO accountDAO = new AccountDAOImpl();
+        TransactionDAO transactionDAO = new TransactionDAOImpl();
+        TransactionProcessor processor = new TransactionProcessor(new AccountManager(accountDAO, transactionDAO),
+                transactionDAO, accountDAO);
+        Path file = Path.of(args[0]);
+        try {
+            TransactionImportJob job = new TransactionImportJob(processor);
+            System.out.println(args.length > 1 ? job.run(file, Path.of(args[1])) : job.run(file));
+        } catch (SQLException | IOException e) {
+            System.err.println("Transaction import failed: " + e.getMessage());
+        }
+    }
+}
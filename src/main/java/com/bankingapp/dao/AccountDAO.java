@@ -2,8 +2,13 @@ package com.bankingapp.dao;
 
 import com.bankingapp.model.Account;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AccountDAO {
     Account createAccount(Account account) throws SQLException;
@@ -12,7 +17,39 @@ public interface AccountDAO {
 
     List<Account> getAllAccounts() throws SQLException;
 
+    /**
+     * Feed every account to the consumer through a parallel range scan; the consumer must be thread-safe.
+     */
+    void scanAllAccounts(Consumer<? super Account> consumer) throws SQLException;
+
+    /**
+     * The accounts with the largest balances, largest first (ties by id), read from the primary.
+     */
+    List<Account> getTopAccountsByBalance(int limit) throws SQLException;
+
     boolean updateAccount(Account account) throws SQLException;
 
     boolean deleteAccount(int id) throws SQLException;
+
+    /**
+     * Connection to the database that owns the given account, or that new accounts are created in when id is 0.
+     * Used by callers that run several DAO calls in one DB transaction.
+     */
+    Connection getConnection(int accountId) throws SQLException;
+
+    /**
+     * Insert the account on the caller's connection and assign its generated id.
+     */
+    Account createAccount(Connection connection, Account account) throws SQLException;
+
+    /**
+     * Lock the given accounts (SELECT ... FOR UPDATE) on the caller's connection, which must have auto-commit off.
+     * Accounts that do not exist are simply absent from the returned map.
+     */
+    Map<Integer, Account> getAccountsForUpdate(Connection connection, Collection<Integer> ids) throws SQLException;
+
+    /**
+     * Add each delta to the matching account balance in one JDBC batch on the caller's connection.
+     */
+    void applyBalanceDeltas(Connection connection, Map<Integer, BigDecimal> deltas) throws SQLException;
 }
@@ -2,12 +2,13 @@ package com.bankingapp.dao;
 
 import com.bankingapp.model.Account;
 import com.bankingapp.model.AccountType;
+import com.bankingapp.util.ConnectionProvider;
 import com.bankingapp.util.DBConnectionUtil;
 
 import java.math.BigDecimal;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class AccountDAOImpl implements AccountDAO {
 
@@ -17,20 +18,53 @@ public class AccountDAOImpl implements AccountDAO {
             "SELECT id, owner_name, account_type, balance FROM accounts WHERE id = ?";
     private static final String SELECT_ALL_ACCOUNTS_SQL =
             "SELECT id, owner_name, account_type, balance FROM accounts";
+    // Backward scan of idx_accounts_balance
+    private static final String SELECT_TOP_BY_BALANCE_SQL =
+            "SELECT id, owner_name, account_type, balance FROM accounts ORDER BY balance DESC, id LIMIT ?";
     private static final String UPDATE_ACCOUNT_SQL =
             "UPDATE accounts SET owner_name = ?, account_type = ?, balance = ? WHERE id = ?";
     private static final String DELETE_ACCOUNT_SQL =
             "DELETE FROM accounts WHERE id = ?";
+    private static final String ADJUST_BALANCE_SQL =
+            "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    // Upper bound on ids per IN (...) list when locking accounts for settlement
+    private static final int LOCK_CHUNK_SIZE = 500;
+
+    private final ConnectionProvider connections;
+    private final ConnectionProvider readConnections;
+    private final RangeScanner<Account> scanner;
+
+    public AccountDAOImpl() {
+        this(DBConnectionUtil::getConnection, DBConnectionUtil::getReadConnection);
+    }
+
+    /**
+     * @param connections     used for writes and for reads that feed a read-modify-write
+     * @param readConnections used for query-heavy reads that tolerate replication lag
+     */
+    public AccountDAOImpl(ConnectionProvider connections, ConnectionProvider readConnections) {
+        this.connections = connections;
+        this.readConnections = readConnections;
+        this.scanner = new RangeScanner<>(readConnections, "accounts", "id, owner_name, account_type, balance",
+                this::mapResultSetToAccount);
+    }
 
     @Override
     public Account createAccount(Account account) throws SQLException {
+        try (Connection connection = connections.getConnection()) {
+            return createAccount(connection, account);
+        }
+    }
+
+    @Override
+    public Account createAccount(Connection connection, Account account) throws SQLException {
         if (account == null) throw new IllegalArgumentException("Account cannot be null");
-        try (Connection connection = DBConnectionUtil.getConnection();
-             PreparedStatement ps = connection.prepareStatement(INSERT_ACCOUNT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_ACCOUNT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, account.getOwnerName());
             ps.setString(2, account.getAccountType().name());
             ps.setBigDecimal(3, account.getBalance());
             int affectedRows = ps.executeUpdate();
+            DBConnectionUtil.markWrite();
             if (affectedRows == 0) {
                 throw new SQLException("Creating account failed, no rows affected.");
             }
@@ -48,7 +82,7 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public Account getAccountById(int id) throws SQLException {
         if (id <= 0) throw new IllegalArgumentException("Account id must be positive");
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = connections.getConnection();
              PreparedStatement ps = connection.prepareStatement(SELECT_ACCOUNT_BY_ID_SQL)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -64,7 +98,7 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public List<Account> getAllAccounts() throws SQLException {
         List<Account> accounts = new ArrayList<>();
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = readConnections.getConnection();
              PreparedStatement ps = connection.prepareStatement(SELECT_ALL_ACCOUNTS_SQL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -74,17 +108,39 @@ public class AccountDAOImpl implements AccountDAO {
         return accounts;
     }
 
+    @Override
+    public void scanAllAccounts(Consumer<? super Account> consumer) throws SQLException {
+        scanner.forEach(consumer);
+    }
+
+    @Override
+    public List<Account> getTopAccountsByBalance(int limit) throws SQLException {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+        List<Account> accounts = new ArrayList<>(limit);
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TOP_BY_BALANCE_SQL)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    accounts.add(mapResultSetToAccount(rs));
+                }
+            }
+        }
+        return accounts;
+    }
+
     @Override
     public boolean updateAccount(Account account) throws SQLException {
         if (account == null) throw new IllegalArgumentException("Account cannot be null");
         if (account.getId() <= 0) throw new IllegalArgumentException("Account id must be positive");
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = connections.getConnection();
              PreparedStatement ps = connection.prepareStatement(UPDATE_ACCOUNT_SQL)) {
             ps.setString(1, account.getOwnerName());
             ps.setString(2, account.getAccountType().name());
             ps.setBigDecimal(3, account.getBalance());
             ps.setInt(4, account.getId());
             int affectedRows = ps.executeUpdate();
+            DBConnectionUtil.markWrite();
             return affectedRows > 0;
         }
     }
@@ -92,14 +148,64 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public boolean deleteAccount(int id) throws SQLException {
         if (id <= 0) throw new IllegalArgumentException("Account id must be positive");
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = connections.getConnection();
              PreparedStatement ps = connection.prepareStatement(DELETE_ACCOUNT_SQL)) {
             ps.setInt(1, id);
             int affectedRows = ps.executeUpdate();
+            DBConnectionUtil.markWrite();
             return affectedRows > 0;
         }
     }
 
+    @Override
+    public Connection getConnection(int accountId) throws SQLException {
+        return connections.getConnection();
+    }
+
+    @Override
+    public Map<Integer, Account> getAccountsForUpdate(Connection connection, Collection<Integer> ids) throws SQLException {
+        Map<Integer, Account> accounts = new HashMap<>();
+        // Lock in ascending id order so concurrent settlements cannot deadlock each other
+        List<Integer> sorted = new ArrayList<>(new TreeSet<>(ids));
+        for (int from = 0; from < sorted.size(); from += LOCK_CHUNK_SIZE) {
+            List<Integer> chunk = sorted.subList(from, Math.min(from + LOCK_CHUNK_SIZE, sorted.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT id, owner_name, account_type, balance FROM accounts WHERE id IN (" + placeholders
+                    + ") ORDER BY id FOR UPDATE";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Account account = mapResultSetToAccount(rs);
+                        accounts.put(account.getId(), account);
+                    }
+                }
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public void applyBalanceDeltas(Connection connection, Map<Integer, BigDecimal> deltas) throws SQLException {
+        if (deltas.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(ADJUST_BALANCE_SQL)) {
+            for (Map.Entry<Integer, BigDecimal> e : deltas.entrySet()) {
+                ps.setBigDecimal(1, e.getValue());
+                ps.setInt(2, e.getKey());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            DBConnectionUtil.markWrite();
+            for (int count : counts) {
+                if (count == 0) {
+                    throw new SQLException("Applying balance deltas failed, an account row was not updated.");
+                }
+            }
+        }
+    }
+
     private Account mapResultSetToAccount(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String ownerName = rs.getString("owner_name");
@@ -0,0 +1,242 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.DailyRollup;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.util.AppConfig;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * TransactionDAO that keeps the newest rows of recently used accounts in memory, as a {@link RecentHistory} ring per
+ * account with an LRU bound on the number of accounts. Recent-history reads, and full-history reads of accounts whose
+ * whole history fits in the ring, are answered without a query.
+ * <p>
+ * {@link #createTransaction(Transaction)} commits on its own and is written through. Rows written with
+ * {@link #createTransactions(Connection, List)} belong to the caller's transaction, which may still roll back, so
+ * they only mark the account pending: its next reads fetch rows above the cached high-water id until the written ids
+ * show up (or history.cache.refreshMs passes). Every entry is also topped up that way once per refreshMs, which picks
+ * up rows written by other processes. Rows of one account are inserted while its row is locked, so their ids commit
+ * in order and nothing can appear below the mark later.
+ */
+public class CachingTransactionDAO implements TransactionDAO {
+
+    private final TransactionDAO delegate;
+    private final int depth;
+    private final long refreshMs;
+    private final Map<Integer, RecentHistory> histories;
+
+    /**
+     * Configured from history.cache.* keys in config.properties.
+     */
+    public CachingTransactionDAO(TransactionDAO delegate) {
+        this(delegate,
+                AppConfig.getInt("history.cache.depth", 50),
+                AppConfig.getInt("history.cache.maxAccounts", 100_000),
+                AppConfig.getLong("history.cache.refreshMs", 5000));
+    }
+
+    /**
+     * @param depth       rows kept per account
+     * @param maxAccounts accounts kept; least recently used are dropped
+     * @param refreshMs   longest time a cached history is served without checking for newer rows
+     */
+    public CachingTransactionDAO(TransactionDAO delegate, int depth, int maxAccounts, long refreshMs) {
+        if (depth <= 0) throw new IllegalArgumentException("depth must be positive");
+        if (maxAccounts <= 0) throw new IllegalArgumentException("maxAccounts must be positive");
+        this.delegate = delegate;
+        this.depth = depth;
+        this.refreshMs = refreshMs;
+        this.histories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RecentHistory> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) throws SQLException {
+        delegate.createTransaction(transaction);
+        RecentHistory history = peek(transaction.getAccountId());
+        if (history != null) {
+            synchronized (history) {
+                if (history.isLoaded() && history.pendingId == 0 && transaction.getId() > history.lastId()
+                        && history.accepts(transaction)) {
+                    history.add(transaction);
+                } else {
+                    markPending(history, transaction.getId());
+                }
+            }
+        }
+        return transaction;
+    }
+
+    @Override
+    public void createTransactions(Connection connection, List<Transaction> transactions) throws SQLException {
+        delegate.createTransactions(connection, transactions);
+        for (Transaction t : transactions) {
+            RecentHistory history = peek(t.getAccountId());
+            if (history != null) {
+                synchronized (history) {
+                    markPending(history, t.getId());
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(int accountId, int limit) throws SQLException {
+        if (limit > depth) return delegate.getRecentTransactions(accountId, limit);
+        RecentHistory history = entry(accountId);
+        synchronized (history) {
+            if (history.isLoaded()) {
+                refreshIfStale(history);
+            } else {
+                List<Transaction> rows = delegate.getRecentTransactions(accountId, depth);
+                // Fewer rows than asked for means the account has no more
+                history.load(rows, rows.size() < depth, System.currentTimeMillis());
+            }
+            return history.newest(limit);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByAccountId(int accountId) throws SQLException {
+        RecentHistory history = entry(accountId);
+        synchronized (history) {
+            if (history.isLoaded()) {
+                refreshIfStale(history);
+                if (history.isComplete()) return history.newest(history.size());
+            }
+            List<Transaction> transactions = delegate.getTransactionsByAccountId(accountId);
+            history.load(transactions, true, System.currentTimeMillis());
+            return transactions;
+        }
+    }
+
+    @Override
+    public TransactionBatch getTransactionBatchByAccountId(int accountId) throws SQLException {
+        RecentHistory history = peek(accountId);
+        if (history != null) {
+            synchronized (history) {
+                if (history.isLoaded()) {
+                    refreshIfStale(history);
+                    if (history.isComplete()) return TransactionBatch.of(history.newest(history.size()));
+                }
+            }
+        }
+        return delegate.getTransactionBatchByAccountId(accountId);
+    }
+
+    /**
+     * The first page comes from the in-memory history; later pages go to the delegate.
+     */
+    @Override
+    public List<Transaction> getTransactionsBefore(int accountId, Transaction before, int limit) throws SQLException {
+        if (before == null) return getRecentTransactions(accountId, limit);
+        return delegate.getTransactionsBefore(accountId, before, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsAfter(int accountId, int afterId) throws SQLException {
+        return delegate.getTransactionsAfter(accountId, afterId);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsInvolving(int accountId, LocalDateTime since) throws SQLException {
+        return delegate.getTransactionsInvolving(accountId, since);
+    }
+
+    @Override
+    public void scanTransactionsSince(LocalDateTime since, Consumer<? super Transaction> consumer) throws SQLException {
+        delegate.scanTransactionsSince(since, consumer);
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() throws SQLException {
+        return delegate.getAllTransactions();
+    }
+
+    @Override
+    public void scanAllTransactions(Consumer<? super Transaction> consumer) throws SQLException {
+        delegate.scanAllTransactions(consumer);
+    }
+
+    @Override
+    public List<DailyRollup> getDailyRollups(int accountId, LocalDate from, LocalDate to) throws SQLException {
+        return delegate.getDailyRollups(accountId, from, to);
+    }
+
+    @Override
+    public Transaction getLastTransactionAsOf(int accountId, LocalDateTime at) throws SQLException {
+        return delegate.getLastTransactionAsOf(accountId, at);
+    }
+
+    @Override
+    public BigDecimal balanceAsOf(int accountId, LocalDateTime at) throws SQLException {
+        return delegate.balanceAsOf(accountId, at);
+    }
+
+    /**
+     * Drop the cached history of an account, e.g. after its rows were rewritten outside the DAO.
+     */
+    public void invalidate(int accountId) {
+        synchronized (histories) {
+            histories.remove(accountId);
+        }
+    }
+
+    private RecentHistory peek(int accountId) {
+        synchronized (histories) {
+            return histories.get(accountId);
+        }
+    }
+
+    private RecentHistory entry(int accountId) {
+        synchronized (histories) {
+            return histories.computeIfAbsent(accountId, id -> new RecentHistory(id, depth));
+        }
+    }
+
+    private static void markPending(RecentHistory history, int id) {
+        if (history.pendingId == 0) history.pendingSince = System.currentTimeMillis();
+        history.pendingId = Math.max(history.pendingId, id);
+    }
+
+    /**
+     * Append rows committed above the high-water id when the entry is pending or due; reload it if one of them is
+     * dated before the newest cached row.
+     */
+    private void refreshIfStale(RecentHistory history) throws SQLException {
+        long now = System.currentTimeMillis();
+        boolean pending = history.pendingId > history.lastId() && now - history.pendingSince < refreshMs;
+        if (!pending && now - history.refreshedAt < refreshMs) {
+            history.pendingId = 0;
+            return;
+        }
+        int accountId = history.accountId();
+        List<Transaction> newer = delegate.getTransactionsAfter(accountId, history.lastId());
+        for (Transaction t : newer) {
+            if (!history.accepts(t)) {
+                if (history.isComplete()) {
+                    history.load(delegate.getTransactionsByAccountId(accountId), true, now);
+                } else {
+                    history.load(delegate.getRecentTransactions(accountId, depth), false, now);
+                }
+                return;
+            }
+            history.add(t);
+        }
+        history.refreshedAt = now;
+        if (history.lastId() >= history.pendingId) history.pendingId = 0;
+    }
+}
@@ -0,0 +1,215 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.Account;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.CountingBloomFilter;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * AccountDAO that answers lookups of ids that definitely do not exist without a query, from a
+ * {@link CountingBloomFilter} over every existing account id. The filter is rebuilt from a streaming scan at startup
+ * and every filters.rebuildMs, and accounts created or deleted through this DAO update it in between.
+ * <p>
+ * Only ids up to a covered high-water mark are answered from the filter; anything above goes to the database, so
+ * accounts created by other processes since the last scan are never missed. The mark of a build is the highest id the
+ * <em>previous</em> scan saw: an id at or below it was allocated before the previous scan, so its row had committed
+ * (and replicated) by the time this one ran. The startup build therefore scans twice. With sharding, ids are
+ * interleaved over the shards (see ShardRouter), and one mark is kept per shard.
+ */
+public class FilteredAccountDAO extends ForwardingAccountDAO {
+
+    private final int stride;
+    private final long expectedAccounts;
+    private final double falsePositiveRate;
+    private final LongAdder skippedLookups = new LongAdder();
+
+    // Filter plus the per-residue marks it covers, swapped together on rebuild
+    private volatile Build build;
+    // Ids created while a rebuild scans, added to its filter before the swap; guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private List<Integer> pending;
+    private int[] lastScanMax;
+    private long lastScanCount;
+
+    private static final class Build {
+        final CountingBloomFilter filter;
+        final int[] coverage;
+
+        Build(CountingBloomFilter filter, int[] coverage) {
+            this.filter = filter;
+            this.coverage = coverage;
+        }
+    }
+
+    /**
+     * Configured from filters.* keys in config.properties.
+     *
+     * @param stride number of shards ids are interleaved over, 1 when unsharded
+     */
+    public FilteredAccountDAO(AccountDAO delegate, int stride) {
+        this(delegate, stride,
+                AppConfig.getLong("filters.accounts.expected", 1_000_000),
+                Double.parseDouble(AppConfig.get("filters.falsePositiveRate", "0.01")),
+                AppConfig.getLong("filters.rebuildMs", 300_000));
+    }
+
+    /**
+     * @param expectedAccounts  accounts the filter is sized for; a rebuild sizes for twice the scanned count if larger
+     * @param falsePositiveRate share of absent ids that still cost a query, e.g. 0.01
+     * @param rebuildMs         interval between rebuilds, 0 to build once
+     */
+    public FilteredAccountDAO(AccountDAO delegate, int stride, long expectedAccounts, double falsePositiveRate, long rebuildMs) {
+        super(delegate);
+        if (stride <= 0) throw new IllegalArgumentException("stride must be positive");
+        this.stride = stride;
+        this.expectedAccounts = expectedAccounts;
+        this.falsePositiveRate = falsePositiveRate;
+        ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("account-filter"));
+        Runnable task = () -> {
+            try {
+                rebuild();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Warning: could not rebuild account filter: " + e.getMessage());
+            }
+        };
+        if (rebuildMs > 0) {
+            rebuilder.scheduleWithFixedDelay(task, 0, rebuildMs, TimeUnit.MILLISECONDS);
+        } else {
+            rebuilder.execute(task);
+            rebuilder.shutdown();
+        }
+    }
+
+    /**
+     * Scan every account into a fresh filter and swap it in. Ids created through this DAO while the scan runs are
+     * added to the new filter before the swap.
+     */
+    public synchronized void rebuild() throws SQLException {
+        if (lastScanMax == null) {
+            LongAdder count = new LongAdder();
+            lastScanMax = scan(id -> count.increment());
+            lastScanCount = count.sum();
+        }
+        synchronized (pendingLock) {
+            pending = new ArrayList<>();
+        }
+        CountingBloomFilter fresh = new CountingBloomFilter(Math.max(expectedAccounts, 2 * lastScanCount), falsePositiveRate);
+        LongAdder count = new LongAdder();
+        int[] scanMax;
+        try {
+            scanMax = scan(id -> {
+                fresh.add(id);
+                count.increment();
+            });
+        } catch (SQLException | RuntimeException e) {
+            synchronized (pendingLock) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (pendingLock) {
+            for (int id : pending) fresh.add(id);
+            pending = null;
+            build = new Build(fresh, lastScanMax);
+        }
+        lastScanMax = scanMax;
+        lastScanCount = count.sum();
+    }
+
+    /**
+     * Lookups answered from the filter since this DAO was created.
+     */
+    public long getSkippedLookups() {
+        return skippedLookups.sum();
+    }
+
+    @Override
+    public Account createAccount(Account account) throws SQLException {
+        delegate.createAccount(account);
+        added(account.getId());
+        return account;
+    }
+
+    @Override
+    public Account createAccount(Connection connection, Account account) throws SQLException {
+        delegate.createAccount(connection, account);
+        // Added before the caller commits: a rollback leaves a false positive, never a false negative
+        added(account.getId());
+        return account;
+    }
+
+    @Override
+    public Account getAccountById(int id) throws SQLException {
+        if (definitelyAbsent(id)) {
+            skippedLookups.increment();
+            return null;
+        }
+        return delegate.getAccountById(id);
+    }
+
+    @Override
+    public boolean deleteAccount(int id) throws SQLException {
+        boolean deleted = delegate.deleteAccount(id);
+        Build current = build;
+        // Ids above the mark may never have been added; removing them could clear other ids' counters
+        if (deleted && current != null && id <= current.coverage[residue(id)]) current.filter.remove(id);
+        return deleted;
+    }
+
+    @Override
+    public Map<Integer, Account> getAccountsForUpdate(Connection connection, Collection<Integer> ids) throws SQLException {
+        List<Integer> candidates = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            if (definitelyAbsent(id)) {
+                skippedLookups.increment();
+            } else {
+                candidates.add(id);
+            }
+        }
+        if (candidates.isEmpty()) return new HashMap<>();
+        return delegate.getAccountsForUpdate(connection, candidates);
+    }
+
+    private boolean definitelyAbsent(int id) {
+        Build current = build;
+        return current != null && id > 0 && id <= current.coverage[residue(id)] && !current.filter.mightContain(id);
+    }
+
+    private void added(int id) {
+        if (id <= 0) return;
+        synchronized (pendingLock) {
+            Build current = build;
+            if (current != null) current.filter.add(id);
+            if (pending != null) pending.add(id);
+        }
+    }
+
+    /**
+     * Stream every account id to the sink (which must be thread-safe) and return the highest id seen per residue.
+     */
+    private int[] scan(IntConsumer sink) throws SQLException {
+        AtomicIntegerArray max = new AtomicIntegerArray(stride);
+        delegate.scanAllAccounts(account -> {
+            int id = account.getId();
+            sink.accept(id);
+            max.accumulateAndGet(residue(id), id, Math::max);
+        });
+        int[] result = new int[stride];
+        for (int i = 0; i < stride; i++) result[i] = max.get(i);
+        return result;
+    }
+
+    private int residue(int id) {
+        return (id - 1) % stride;
+    }
+}
@@ -0,0 +1,197 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.User;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.CountingBloomFilter;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * UserDAO that answers lookups of usernames that definitely do not exist (sign-up availability checks, sign-ins with
+ * an unknown name) without looking the name up, from a {@link CountingBloomFilter} over every existing username. The filter is
+ * rebuilt from a streaming scan at startup and every filters.rebuildMs; users created through this DAO are added in
+ * between.
+ * <p>
+ * A filter only covers users up to a high-water id, the highest id the <em>previous</em> scan saw (so every user at or
+ * below it had committed when this one ran; the startup build scans twice). A filter miss is only final while
+ * {@code SELECT MAX(id)} is still at or below that mark; once a user has been registered above it (by any process),
+ * misses go to the database until the next rebuild. The miss still costs a query, but an index-only one that is the same for
+ * every name.
+ * <p>
+ * Keys follow the column's case- and trailing-space-insensitive comparison for ASCII names only. Names with other
+ * characters may compare equal to differently spelled ones (accents, expansions such as the German sharp s), so their lookups always
+ * go to the database.
+ */
+public class FilteredUserDAO implements UserDAO {
+
+    private final UserDAO delegate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final LongAdder skippedLookups = new LongAdder();
+
+    // Filter plus the id it covers, swapped together on rebuild
+    private volatile Build build;
+    // Usernames created while a rebuild scans, added to its filter before the swap; guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private List<Long> pending;
+    private int lastScanMax = -1;
+    private long lastScanCount;
+
+    private static final class Build {
+        final CountingBloomFilter filter;
+        final int coverage;
+
+        Build(CountingBloomFilter filter, int coverage) {
+            this.filter = filter;
+            this.coverage = coverage;
+        }
+    }
+
+    /**
+     * Configured from filters.* keys in config.properties.
+     */
+    public FilteredUserDAO(UserDAO delegate) {
+        this(delegate,
+                AppConfig.getLong("filters.users.expected", 1_000_000),
+                Double.parseDouble(AppConfig.get("filters.falsePositiveRate", "0.01")),
+                AppConfig.getLong("filters.rebuildMs", 300_000));
+    }
+
+    /**
+     * @param expectedUsers     users the filter is sized for; a rebuild sizes for twice the scanned count if larger
+     * @param falsePositiveRate share of unknown usernames that still cost a query, e.g. 0.01
+     * @param rebuildMs         interval between rebuilds, 0 to build once
+     */
+    public FilteredUserDAO(UserDAO delegate, long expectedUsers, double falsePositiveRate, long rebuildMs) {
+        this.delegate = delegate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("user-filter"));
+        Runnable task = () -> {
+            try {
+                rebuild();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Warning: could not rebuild username filter: " + e.getMessage());
+            }
+        };
+        if (rebuildMs > 0) {
+            rebuilder.scheduleWithFixedDelay(task, 0, rebuildMs, TimeUnit.MILLISECONDS);
+        } else {
+            rebuilder.execute(task);
+            rebuilder.shutdown();
+        }
+    }
+
+    /**
+     * Scan every user into a fresh filter and swap it in.
+     */
+    public synchronized void rebuild() throws SQLException {
+        if (lastScanMax < 0) {
+            AtomicInteger max = new AtomicInteger();
+            LongAdder count = new LongAdder();
+            delegate.scanAllUsers(user -> {
+                max.accumulateAndGet(user.getId(), Math::max);
+                count.increment();
+            });
+            lastScanMax = max.get();
+            lastScanCount = count.sum();
+        }
+        synchronized (pendingLock) {
+            pending = new ArrayList<>();
+        }
+        CountingBloomFilter fresh = new CountingBloomFilter(Math.max(expectedUsers, 2 * lastScanCount), falsePositiveRate);
+        AtomicInteger scanMax = new AtomicInteger();
+        LongAdder count = new LongAdder();
+        try {
+            delegate.scanAllUsers(user -> {
+                long key = key(user.getUsername());
+                if (key != 0) fresh.add(key);
+                scanMax.accumulateAndGet(user.getId(), Math::max);
+                count.increment();
+            });
+        } catch (SQLException | RuntimeException e) {
+            synchronized (pendingLock) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (pendingLock) {
+            for (long key : pending) fresh.add(key);
+            pending = null;
+            build = new Build(fresh, lastScanMax);
+        }
+        lastScanMax = scanMax.get();
+        lastScanCount = count.sum();
+    }
+
+    /**
+     * Lookups answered from the filter since this DAO was created.
+     */
+    public long getSkippedLookups() {
+        return skippedLookups.sum();
+    }
+
+    @Override
+    public User createUser(User user) throws SQLException {
+        delegate.createUser(user);
+        long key = key(user.getUsername());
+        if (key != 0) {
+            synchronized (pendingLock) {
+                Build current = build;
+                if (current != null) current.filter.add(key);
+                if (pending != null) pending.add(key);
+            }
+        }
+        return user;
+    }
+
+    @Override
+    public User getUserByUsername(String username) throws SQLException {
+        Build current = build;
+        long key = username == null ? 0 : key(username);
+        if (current != null && key != 0 && !current.filter.mightContain(key)
+                && delegate.getMaxUserId() <= current.coverage) {
+            skippedLookups.increment();
+            return null;
+        }
+        return delegate.getUserByUsername(username);
+    }
+
+    @Override
+    public boolean updatePasswordHash(int userId, String passwordHash) throws SQLException {
+        return delegate.updatePasswordHash(userId, passwordHash);
+    }
+
+    @Override
+    public int getMaxUserId() throws SQLException {
+        return delegate.getMaxUserId();
+    }
+
+    @Override
+    public void scanAllUsers(Consumer<? super User> consumer) throws SQLException {
+        delegate.scanAllUsers(consumer);
+    }
+
+    /**
+     * Filter key of a username, or 0 when the name is not plain ASCII and cannot be keyed safely.
+     */
+    private static long key(String username) {
+        int end = username.length();
+        while (end > 0 && username.charAt(end - 1) == ' ') end--;
+        for (int i = 0; i < end; i++) {
+            if (username.charAt(i) > 0x7f) return 0;
+        }
+        long key = CountingBloomFilter.key(username.substring(0, end).toLowerCase(Locale.ROOT));
+        return key == 0 ? 1 : key;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.Account;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Base for AccountDAO decorators: forwards every call to the wrapped DAO, so a decorator only overrides what it
+ * changes. Callers that need the underlying DAO (e.g. to check for sharding) follow {@link #getDelegate()}.
+ */
+public abstract class ForwardingAccountDAO implements AccountDAO {
+
+    protected final AccountDAO delegate;
+
+    protected ForwardingAccountDAO(AccountDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    public AccountDAO getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * The innermost DAO under any number of decorators.
+     */
+    public static AccountDAO unwrap(AccountDAO dao) {
+        while (dao instanceof ForwardingAccountDAO forwarding) {
+            dao = forwarding.getDelegate();
+        }
+        return dao;
+    }
+
+    /**
+     * The first DAO of the given type in the decorator chain starting at dao, or null.
+     */
+    public static <T extends AccountDAO> T find(AccountDAO dao, Class<T> type) {
+        while (dao != null) {
+            if (type.isInstance(dao)) return type.cast(dao);
+            dao = dao instanceof ForwardingAccountDAO forwarding ? forwarding.getDelegate() : null;
+        }
+        return null;
+    }
+
+    @Override
+    public Account createAccount(Account account) throws SQLException {
+        return delegate.createAccount(account);
+    }
+
+    @Override
+    public Account getAccountById(int id) throws SQLException {
+        return delegate.getAccountById(id);
+    }
+
+    @Override
+    public List<Account> getAllAccounts() throws SQLException {
+        return delegate.getAllAccounts();
+    }
+
+    @Override
+    public void scanAllAccounts(Consumer<? super Account> consumer) throws SQLException {
+        delegate.scanAllAccounts(consumer);
+    }
+
+    @Override
+    public List<Account> getTopAccountsByBalance(int limit) throws SQLException {
+        return delegate.getTopAccountsByBalance(limit);
+    }
+
+    @Override
+    public boolean updateAccount(Account account) throws SQLException {
+        return delegate.updateAccount(account);
+    }
+
+    @Override
+    public boolean deleteAccount(int id) throws SQLException {
+        return delegate.deleteAccount(id);
+    }
+
+    @Override
+    public Connection getConnection(int accountId) throws SQLException {
+        return delegate.getConnection(accountId);
+    }
+
+    @Override
+    public Account createAccount(Connection connection, Account account) throws SQLException {
+        return delegate.createAccount(connection, account);
+    }
+
+    @Override
+    public Map<Integer, Account> getAccountsForUpdate(Connection connection, Collection<Integer> ids) throws SQLException {
+        return delegate.getAccountsForUpdate(connection, ids);
+    }
+
+    @Override
+    public void applyBalanceDeltas(Connection connection, Map<Integer, BigDecimal> deltas) throws SQLException {
+        delegate.applyBalanceDeltas(connection, deltas);
+    }
+}
@@ -0,0 +1,136 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.Account;
+import com.bankingapp.search.OwnerNameIndex;
+import com.bankingapp.search.OwnerSearchPage;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * AccountDAO that keeps an in-memory {@link OwnerNameIndex} for type-ahead search by owner name. The index is built
+ * from a streaming scan at startup and every search.owner.rebuildMs, which picks up accounts changed by other
+ * processes; accounts created, renamed or deleted through this DAO are applied to it straight away. Until the first
+ * build completes, searches fall back to filtering every account.
+ */
+public class IndexedAccountDAO extends ForwardingAccountDAO {
+
+    private volatile OwnerNameIndex index;
+    // Changes made while a rebuild scans, replayed onto its index before the swap; guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private List<Consumer<OwnerNameIndex>> pending;
+
+    /**
+     * Rebuilt every search.owner.rebuildMs from config.properties.
+     */
+    public IndexedAccountDAO(AccountDAO delegate) {
+        this(delegate, AppConfig.getLong("search.owner.rebuildMs", 300_000));
+    }
+
+    /**
+     * @param rebuildMs interval between rebuilds, 0 to build once
+     */
+    public IndexedAccountDAO(AccountDAO delegate, long rebuildMs) {
+        super(delegate);
+        ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("owner-index"));
+        Runnable task = () -> {
+            try {
+                rebuild();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Warning: could not rebuild owner name index: " + e.getMessage());
+            }
+        };
+        if (rebuildMs > 0) {
+            rebuilder.scheduleWithFixedDelay(task, 0, rebuildMs, TimeUnit.MILLISECONDS);
+        } else {
+            rebuilder.execute(task);
+            rebuilder.shutdown();
+        }
+    }
+
+    /**
+     * Scan every account into a fresh index and swap it in.
+     */
+    public synchronized void rebuild() throws SQLException {
+        synchronized (pendingLock) {
+            pending = new ArrayList<>();
+        }
+        OwnerNameIndex fresh = new OwnerNameIndex();
+        try {
+            delegate.scanAllAccounts(account -> fresh.put(account.getId(), account.getOwnerName()));
+        } catch (SQLException | RuntimeException e) {
+            synchronized (pendingLock) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (pendingLock) {
+            for (Consumer<OwnerNameIndex> change : pending) change.accept(fresh);
+            pending = null;
+            index = fresh;
+        }
+    }
+
+    /**
+     * Accounts whose owner name starts with the prefix, ignoring case, a page at a time.
+     *
+     * @param cursor null for the first page, otherwise the previous page's next cursor
+     */
+    public OwnerSearchPage searchByOwnerPrefix(String prefix, String cursor, int limit) throws SQLException {
+        OwnerNameIndex current = index;
+        if (current == null) {
+            current = new OwnerNameIndex();
+            for (Account account : delegate.getAllAccounts()) current.put(account.getId(), account.getOwnerName());
+        }
+        return current.search(prefix, cursor, limit);
+    }
+
+    @Override
+    public Account createAccount(Account account) throws SQLException {
+        delegate.createAccount(account);
+        indexed(account.getId(), account.getOwnerName());
+        return account;
+    }
+
+    @Override
+    public Account createAccount(Connection connection, Account account) throws SQLException {
+        delegate.createAccount(connection, account);
+        // Indexed before the caller commits; a rolled-back account is searchable until the next rebuild
+        indexed(account.getId(), account.getOwnerName());
+        return account;
+    }
+
+    @Override
+    public boolean updateAccount(Account account) throws SQLException {
+        boolean updated = delegate.updateAccount(account);
+        if (updated) indexed(account.getId(), account.getOwnerName());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteAccount(int id) throws SQLException {
+        boolean deleted = delegate.deleteAccount(id);
+        if (deleted) apply(target -> target.remove(id));
+        return deleted;
+    }
+
+    private void indexed(int id, String ownerName) {
+        apply(target -> target.put(id, ownerName));
+    }
+
+    private void apply(Consumer<OwnerNameIndex> change) {
+        synchronized (pendingLock) {
+            OwnerNameIndex current = index;
+            if (current != null) change.accept(current);
+            if (pending != null) pending.add(change);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.LedgerEvent;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxDAO {
+    /**
+     * Append events on the caller's connection, inside the same DB transaction as the ledger change they describe.
+     */
+    void append(Connection connection, List<LedgerEvent> events) throws SQLException;
+
+    /**
+     * Oldest events not yet delivered to the named consumer, in id order. Each consumer keeps its own position, so
+     * every relay process sees every event.
+     */
+    List<LedgerEvent> fetchUndelivered(String consumer, int limit) throws SQLException;
+
+    /**
+     * Record that the consumer has handled the events.
+     */
+    void markDelivered(String consumer, List<LedgerEvent> events) throws SQLException;
+
+    /**
+     * Move the consumer's low-water mark over the events it has handled that occurred before {@code settledBefore},
+     * by when every event with a lower id is assumed to have committed, and forget the deliveries below it.
+     */
+    void advanceLowWater(String consumer, LocalDateTime settledBefore) throws SQLException;
+
+    /**
+     * Delete events that occurred before the given time and that every consumer active since then has moved past.
+     * Returns the number of rows removed.
+     */
+    int purgeDelivered(LocalDateTime before) throws SQLException;
+}
@@ -0,0 +1,201 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.LedgerEvent;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OutboxDAOImpl implements OutboxDAO {
+
+    private static final String INSERT_EVENT_SQL = "INSERT INTO ledger_outbox (event_type, account_id, counterparty_account_id, " +
+            "transaction_id, amount, balance_after, counterparty_balance_after, occurred_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // A consumer's position is a low-water id plus the ids delivered above it: auto-increment ids can commit out of
+    // order, so a plain id offset could skip an event that commits below it
+    private static final String SELECT_UNDELIVERED_SQL = "SELECT * FROM ledger_outbox o " +
+            "WHERE o.id > COALESCE((SELECT low_water FROM ledger_outbox_consumers WHERE consumer = ?), 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM ledger_outbox_deliveries d WHERE d.consumer = ? AND d.event_id = o.id) " +
+            "ORDER BY o.id LIMIT ?";
+    private static final String INSERT_DELIVERY_SQL = "INSERT IGNORE INTO ledger_outbox_deliveries (consumer, event_id) VALUES (?, ?)";
+    private static final String TOUCH_CONSUMER_SQL = "INSERT INTO ledger_outbox_consumers (consumer, low_water, updated_at) " +
+            "VALUES (?, 0, ?) ON DUPLICATE KEY UPDATE updated_at = VALUES(updated_at)";
+    private static final String SELECT_LOW_WATER_SQL = "SELECT low_water FROM ledger_outbox_consumers WHERE consumer = ? FOR UPDATE";
+    // First event above the mark the consumer has not handled, or that is too recent to rule out a lower id committing
+    private static final String SELECT_FIRST_OPEN_SQL = "SELECT MIN(o.id) FROM ledger_outbox o WHERE o.id > ? AND (o.occurred_at >= ? " +
+            "OR NOT EXISTS (SELECT 1 FROM ledger_outbox_deliveries d WHERE d.consumer = ? AND d.event_id = o.id))";
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM ledger_outbox";
+    private static final String UPDATE_LOW_WATER_SQL = "UPDATE ledger_outbox_consumers SET low_water = ? WHERE consumer = ?";
+    private static final String DELETE_DELIVERIES_SQL = "DELETE FROM ledger_outbox_deliveries WHERE consumer = ? AND event_id <= ?";
+    // Consumers idle since the cut-off no longer hold events back
+    private static final String PURGE_DELIVERED_SQL = "DELETE FROM ledger_outbox WHERE occurred_at < ? AND id <= " +
+            "(SELECT COALESCE(MIN(low_water), 0) FROM ledger_outbox_consumers WHERE updated_at >= ?)";
+
+    private final ConnectionProvider connections;
+
+    public OutboxDAOImpl() {
+        this(DBConnectionUtil::getConnection);
+    }
+
+    public OutboxDAOImpl(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public void append(Connection connection, List<LedgerEvent> events) throws SQLException {
+        if (events.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_EVENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (LedgerEvent e : events) {
+                ps.setString(1, e.getEventType());
+                ps.setInt(2, e.getAccountId());
+                setNullableInt(ps, 3, e.getCounterpartyAccountId());
+                setNullableInt(ps, 4, e.getTransactionId());
+                ps.setBigDecimal(5, e.getAmount());
+                ps.setBigDecimal(6, e.getBalanceAfter());
+                ps.setBigDecimal(7, e.getCounterpartyBalanceAfter());
+                ps.setTimestamp(8, Timestamp.valueOf(e.getOccurredAt()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (LedgerEvent e : events) {
+                    if (keys.next()) e.setId(keys.getLong(1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<LedgerEvent> fetchUndelivered(String consumer, int limit) throws SQLException {
+        List<LedgerEvent> events = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_UNDELIVERED_SQL)) {
+            ps.setString(1, consumer);
+            ps.setString(2, consumer);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    events.add(mapResultSetToEvent(rs));
+                }
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void markDelivered(String consumer, List<LedgerEvent> events) throws SQLException {
+        if (events.isEmpty()) return;
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_DELIVERY_SQL)) {
+                    for (LedgerEvent e : events) {
+                        ps.setString(1, consumer);
+                        ps.setLong(2, e.getId());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                touch(conn, consumer);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public void advanceLowWater(String consumer, LocalDateTime settledBefore) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                touch(conn, consumer);
+                long lowWater;
+                try (PreparedStatement ps = conn.prepareStatement(SELECT_LOW_WATER_SQL)) {
+                    ps.setString(1, consumer);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        lowWater = rs.getLong(1);
+                    }
+                }
+                long mark;
+                try (PreparedStatement ps = conn.prepareStatement(SELECT_FIRST_OPEN_SQL)) {
+                    ps.setLong(1, lowWater);
+                    ps.setTimestamp(2, Timestamp.valueOf(settledBefore));
+                    ps.setString(3, consumer);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        long firstOpen = rs.getLong(1);
+                        mark = rs.wasNull() ? -1 : firstOpen - 1;
+                    }
+                }
+                if (mark < 0) {
+                    // Everything above the mark is handled and settled
+                    try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(SELECT_MAX_ID_SQL)) {
+                        rs.next();
+                        mark = rs.getLong(1);
+                    }
+                }
+                if (mark > lowWater) {
+                    try (PreparedStatement ps = conn.prepareStatement(UPDATE_LOW_WATER_SQL)) {
+                        ps.setLong(1, mark);
+                        ps.setString(2, consumer);
+                        ps.executeUpdate();
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(DELETE_DELIVERIES_SQL)) {
+                        ps.setString(1, consumer);
+                        ps.setLong(2, mark);
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public int purgeDelivered(LocalDateTime before) throws SQLException {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(PURGE_DELIVERED_SQL)) {
+            ps.setTimestamp(1, Timestamp.valueOf(before));
+            ps.setTimestamp(2, Timestamp.valueOf(before));
+            return ps.executeUpdate();
+        }
+    }
+
+    private static void touch(Connection conn, String consumer) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(TOUCH_CONSUMER_SQL)) {
+            ps.setString(1, consumer);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.executeUpdate();
+        }
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, int value) throws SQLException {
+        if (value > 0) ps.setInt(index, value);
+        else ps.setNull(index, Types.INTEGER);
+    }
+
+    private LedgerEvent mapResultSetToEvent(ResultSet rs) throws SQLException {
+        return new LedgerEvent(
+                rs.getLong("id"),
+                rs.getString("event_type"),
+                rs.getInt("account_id"),
+                rs.getInt("counterparty_account_id"),
+                rs.getInt("transaction_id"),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("balance_after"),
+                rs.getBigDecimal("counterparty_balance_after"),
+                rs.getTimestamp("occurred_at").toLocalDateTime());
+    }
+}
@@ -0,0 +1,192 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parallel scan of a table keyed by an integer id. The id space between MIN(id) and MAX(id) is cut into ranges of
+ * scan.rangeSize ids; up to scan.parallelism workers each hold one connection and pull ranges off a shared counter,
+ * reading every range with a streaming result set, so a whole-bank scan is neither materialised nor limited to one
+ * connection.
+ */
+public class RangeScanner<T> {
+
+    /**
+     * Maps the current row of the scan.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private final ConnectionProvider connections;
+    private final String boundsSql;
+    private final String rangeSql;
+    private final RowMapper<T> mapper;
+    private final int rangeSize;
+    private final int parallelism;
+
+    public RangeScanner(ConnectionProvider connections, String table, String columns, RowMapper<T> mapper) {
+        this(connections, table, columns, mapper, AppConfig.getInt("scan.rangeSize", 10_000), AppConfig.getInt("scan.parallelism", 8));
+    }
+
+    public RangeScanner(ConnectionProvider connections, String table, String columns, RowMapper<T> mapper,
+                        int rangeSize, int parallelism) {
+        if (rangeSize <= 0) throw new IllegalArgumentException("rangeSize must be positive");
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+        this.connections = connections;
+        this.boundsSql = "SELECT MIN(id), MAX(id) FROM " + table;
+        this.rangeSql = "SELECT " + columns + " FROM " + table + " WHERE id BETWEEN ? AND ? ORDER BY id";
+        this.mapper = mapper;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Feed every row to the consumer. The consumer is called concurrently from several workers and must be thread-safe;
+     * rows arrive in id order within a range but ranges interleave.
+     */
+    public void forEach(Consumer<? super T> consumer) throws SQLException {
+        int[] bounds = bounds();
+        if (bounds == null) return;
+        int firstRange = (bounds[0] - 1) / rangeSize;
+        int ranges = (bounds[1] - 1) / rangeSize - firstRange + 1;
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(parallelism, ranges);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, VirtualThreads.daemonFactory("range-scan"));
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    try (Connection conn = connections.getConnection()) {
+                        for (int r = next.getAndIncrement(); r < ranges; r = next.getAndIncrement()) {
+                            int start = (firstRange + r) * rangeSize + 1;
+                            scanRange(conn, start, start + rangeSize - 1, consumer);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            SQLException failure = null;
+            for (Future<Void> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    // Stop handing out ranges to the remaining workers
+                    next.set(ranges);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    next.set(ranges);
+                    throw new SQLException("Range scan interrupted", e);
+                }
+            }
+            if (failure != null) throw failure;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The rows as a parallel stream. Each split covers whole ranges and loads one range at a time on its own
+     * connection, so memory is bounded by one range per worker of the stream's pool. A database error surfaces as an
+     * IllegalStateException from the terminal operation.
+     */
+    public Stream<T> stream() throws SQLException {
+        int[] bounds = bounds();
+        if (bounds == null) return Stream.empty();
+        int firstRange = (bounds[0] - 1) / rangeSize;
+        int lastRange = (bounds[1] - 1) / rangeSize;
+        return StreamSupport.stream(new RangeSpliterator(firstRange, lastRange + 1), true);
+    }
+
+    private int[] bounds() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(boundsSql)) {
+            if (!rs.next() || rs.getObject(1) == null) return null;
+            return new int[] {rs.getInt(1), rs.getInt(2)};
+        }
+    }
+
+    private void scanRange(Connection conn, int start, int end, Consumer<? super T> consumer) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(rangeSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Row-by-row streaming in Connector/J
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setInt(1, start);
+            ps.setInt(2, end);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapper.map(rs));
+                }
+            }
+        }
+    }
+
+    private final class RangeSpliterator implements Spliterator<T> {
+        private int range;
+        private final int endRange;
+        private final List<T> buffer = new ArrayList<>();
+        private int position;
+
+        RangeSpliterator(int range, int endRange) {
+            this.range = range;
+            this.endRange = endRange;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (position == buffer.size()) {
+                if (range == endRange) return false;
+                buffer.clear();
+                position = 0;
+                int start = range++ * rangeSize + 1;
+                try (Connection conn = connections.getConnection()) {
+                    scanRange(conn, start, start + rangeSize - 1, buffer::add);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Range scan failed for ids " + start + ".." + (start + rangeSize - 1), e);
+                }
+            }
+            action.accept(buffer.get(position++));
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // Only split before this spliterator has started buffering rows
+            if (position != buffer.size() || endRange - range < 2) return null;
+            int mid = range + (endRange - range) / 2;
+            RangeSpliterator prefix = new RangeSpliterator(range, mid);
+            range = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) (endRange - range) * rangeSize + (buffer.size() - position);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The newest ledger rows of one account in a fixed-size ring of primitive columns, oldest overwritten first. Rows are
+ * kept in (timestamp, id) order, the order of {@link TransactionDAO#getTransactionsByAccountId(int)} reversed. Guarded
+ * by the owning {@link CachingTransactionDAO}, which synchronizes on the instance.
+ */
+final class RecentHistory {
+
+    private static final long NO_BALANCE = Long.MIN_VALUE;
+
+    private final int accountId;
+    private final int[] ids;
+    private final int[] destinationIds;
+    private final byte[] types;
+    private final long[] amounts;
+    private final long[] timestamps;
+    private final long[] balances;
+    private final long[] destinationBalances;
+    private int head;
+    private int size;
+    // Highest id ever added; rows of one account commit in id order, so newer rows are those above it
+    private int lastId;
+    // The ring holds every row the account has, not just the newest ones
+    private boolean complete;
+    private boolean loaded;
+    long refreshedAt;
+    // Highest id written through the cache that has not been seen committed yet, 0 if none
+    int pendingId;
+    long pendingSince;
+
+    RecentHistory(int accountId, int capacity) {
+        this.accountId = accountId;
+        ids = new int[capacity];
+        destinationIds = new int[capacity];
+        types = new byte[capacity];
+        amounts = new long[capacity];
+        timestamps = new long[capacity];
+        balances = new long[capacity];
+        destinationBalances = new long[capacity];
+    }
+
+    int accountId() {
+        return accountId;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Replace the contents with rows given newest first, as read from the DAO.
+     */
+    void load(List<Transaction> newestFirst, boolean complete, long now) {
+        head = 0;
+        size = 0;
+        lastId = 0;
+        for (int i = Math.min(newestFirst.size(), ids.length) - 1; i >= 0; i--) {
+            add(newestFirst.get(i));
+        }
+        this.complete = complete && newestFirst.size() <= ids.length;
+        loaded = true;
+        refreshedAt = now;
+        pendingId = 0;
+    }
+
+    int lastId() {
+        return lastId;
+    }
+
+    /**
+     * Whether the row can be appended without breaking (timestamp, id) order.
+     */
+    boolean accepts(Transaction t) {
+        if (size == 0) return true;
+        int newest = slot(0);
+        long ts = TransactionBatch.toEpochMicros(t.getTimestamp());
+        return ts > timestamps[newest] || (ts == timestamps[newest] && t.getId() > ids[newest]);
+    }
+
+    void add(Transaction t) {
+        int i = head;
+        ids[i] = t.getId();
+        types[i] = TransactionBatch.typeCode(t.getType());
+        amounts[i] = TransactionBatch.toMinorUnits(t.getAmount());
+        timestamps[i] = TransactionBatch.toEpochMicros(t.getTimestamp());
+        balances[i] = minorOrNone(t.getBalanceAfter());
+        if (t instanceof TransferTransaction tr) {
+            destinationIds[i] = tr.getDestinationAccountId();
+            destinationBalances[i] = minorOrNone(tr.getDestinationBalanceAfter());
+        } else {
+            destinationIds[i] = 0;
+            destinationBalances[i] = NO_BALANCE;
+        }
+        lastId = Math.max(lastId, t.getId());
+        head = (head + 1) % ids.length;
+        if (size < ids.length) size++;
+        else complete = false;
+    }
+
+    /**
+     * Up to {@code limit} rows, newest first, as fresh model objects.
+     */
+    List<Transaction> newest(int limit) {
+        int n = Math.min(limit, size);
+        List<Transaction> rows = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            rows.add(get(slot(k)));
+        }
+        return rows;
+    }
+
+    /**
+     * Ring index of the k-th newest row.
+     */
+    private int slot(int k) {
+        return Math.floorMod(head - 1 - k, ids.length);
+    }
+
+    private Transaction get(int i) {
+        BigDecimal amount = BigDecimal.valueOf(amounts[i], 2);
+        LocalDateTime timestamp = TransactionBatch.fromEpochMicros(timestamps[i]);
+        Transaction t;
+        switch (types[i]) {
+            case TransactionBatch.DEPOSIT:
+                t = new DepositTransaction(ids[i], accountId, amount, timestamp);
+                break;
+            case TransactionBatch.WITHDRAWAL:
+                t = new WithdrawalTransaction(ids[i], accountId, amount, timestamp);
+                break;
+            case TransactionBatch.TRANSFER:
+                TransferTransaction transfer = new TransferTransaction(ids[i], accountId, destinationIds[i], amount, timestamp);
+                transfer.setDestinationBalanceAfter(decimalOrNull(destinationBalances[i]));
+                t = transfer;
+                break;
+            default:
+                t = new InterestTransaction(ids[i], accountId, amount, timestamp);
+        }
+        t.setBalanceAfter(decimalOrNull(balances[i]));
+        return t;
+    }
+
+    private static long minorOrNone(BigDecimal value) {
+        return value == null ? NO_BALANCE : TransactionBatch.toMinorUnits(value);
+    }
+
+    private static BigDecimal decimalOrNull(long minor) {
+        return minor == NO_BALANCE ? null : BigDecimal.valueOf(minor, 2);
+    }
+}
@@ -0,0 +1,40 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.StandingOrder;
+import com.bankingapp.model.StandingOrderRun;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface StandingOrderDAO {
+    StandingOrder createOrder(StandingOrder order) throws SQLException;
+
+    StandingOrder getOrderById(int id) throws SQLException;
+
+    List<StandingOrder> getOrdersByAccountId(int accountId) throws SQLException;
+
+    /**
+     * Stop all future runs. Returns false when the order does not exist or was already cancelled.
+     */
+    boolean cancelOrder(int id) throws SQLException;
+
+    /**
+     * Stream active orders whose next run is before the given time, in next-run order.
+     */
+    void scanDueBefore(LocalDateTime before, Consumer<? super StandingOrder> consumer) throws SQLException;
+
+    /**
+     * Claim the next run of each order on the caller's connection: move its next run on, provided it is still the
+     * one given, and record the run as started. Returns the orders claimed; the rest were cancelled, rescheduled or
+     * already run by another instance. The claim only holds if the caller commits.
+     */
+    List<StandingOrder> claimRuns(Connection connection, List<StandingOrder> due) throws SQLException;
+
+    /**
+     * Record the outcome of claimed runs on the caller's connection.
+     */
+    void completeRuns(Connection connection, List<StandingOrderRun> runs) throws SQLException;
+}
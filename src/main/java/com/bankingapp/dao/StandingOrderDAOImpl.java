@@ -0,0 +1,187 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.model.StandingOrder;
+import com.bankingapp.model.StandingOrderRun;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StandingOrderDAOImpl implements StandingOrderDAO {
+
+    private static final String INSERT_ORDER_SQL = "INSERT INTO standing_orders (account_id, destination_account_id, " +
+            "amount, frequency, first_run_at, next_run_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ORDER_BY_ID_SQL = "SELECT * FROM standing_orders WHERE id = ?";
+    private static final String SELECT_ORDERS_BY_ACCOUNT_SQL =
+            "SELECT * FROM standing_orders WHERE account_id = ? OR destination_account_id = ? ORDER BY id";
+    private static final String CANCEL_ORDER_SQL = "UPDATE standing_orders SET next_run_at = NULL WHERE id = ? AND next_run_at IS NOT NULL";
+    private static final String SELECT_DUE_SQL =
+            "SELECT * FROM standing_orders WHERE next_run_at IS NOT NULL AND next_run_at < ? ORDER BY next_run_at, id";
+    // Only moves a run that is still the one scheduled, so concurrent schedulers claim each run once
+    private static final String ADVANCE_ORDER_SQL = "UPDATE standing_orders SET next_run_at = ? WHERE id = ? AND next_run_at = ?";
+    private static final String INSERT_RUN_SQL = "INSERT IGNORE INTO standing_order_runs " +
+            "(order_id, scheduled_at, status, executed_at) VALUES (?, ?, 'STARTED', ?)";
+    private static final String COMPLETE_RUN_SQL = "UPDATE standing_order_runs SET status = ?, transaction_id = ?, detail = ? " +
+            "WHERE order_id = ? AND scheduled_at = ?";
+    private static final int DETAIL_LENGTH = 255;
+
+    private final ConnectionProvider connections;
+
+    public StandingOrderDAOImpl() {
+        this(DBConnectionUtil::getConnection);
+    }
+
+    public StandingOrderDAOImpl(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public StandingOrder createOrder(StandingOrder order) throws SQLException {
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, order.getAccountId());
+            if (order.getDestinationAccountId() > 0) ps.setInt(2, order.getDestinationAccountId());
+            else ps.setNull(2, Types.INTEGER);
+            ps.setBigDecimal(3, order.getAmount());
+            ps.setString(4, order.getFrequency().name());
+            ps.setTimestamp(5, Timestamp.valueOf(order.getFirstRunAt()));
+            ps.setTimestamp(6, Timestamp.valueOf(order.getNextRunAt()));
+            ps.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+            ps.executeUpdate();
+            DBConnectionUtil.markWrite();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("Creating standing order failed, no ID obtained.");
+                order.setId(keys.getInt(1));
+            }
+        }
+        return order;
+    }
+
+    @Override
+    public StandingOrder getOrderById(int id) throws SQLException {
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_ORDER_BY_ID_SQL)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapResultSetToOrder(rs) : null;
+            }
+        }
+    }
+
+    @Override
+    public List<StandingOrder> getOrdersByAccountId(int accountId) throws SQLException {
+        List<StandingOrder> orders = new ArrayList<>();
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_ORDERS_BY_ACCOUNT_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setInt(2, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapResultSetToOrder(rs));
+                }
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public boolean cancelOrder(int id) throws SQLException {
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(CANCEL_ORDER_SQL)) {
+            ps.setInt(1, id);
+            boolean cancelled = ps.executeUpdate() > 0;
+            DBConnectionUtil.markWrite();
+            return cancelled;
+        }
+    }
+
+    @Override
+    public void scanDueBefore(LocalDateTime before, Consumer<? super StandingOrder> consumer) throws SQLException {
+        try (Connection connection = connections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_DUE_SQL)) {
+            // Stream rows instead of buffering the whole result set
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(before));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapResultSetToOrder(rs));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<StandingOrder> claimRuns(Connection connection, List<StandingOrder> due) throws SQLException {
+        if (due.isEmpty()) return List.of();
+        // Lock order rows in ascending id order so concurrent schedulers cannot deadlock each other
+        List<StandingOrder> sorted = new ArrayList<>(due);
+        sorted.sort(Comparator.comparingInt(StandingOrder::getId));
+        List<StandingOrder> advanced = new ArrayList<>(sorted.size());
+        try (PreparedStatement ps = connection.prepareStatement(ADVANCE_ORDER_SQL)) {
+            for (StandingOrder order : sorted) {
+                ps.setTimestamp(1, Timestamp.valueOf(order.advanced().getNextRunAt()));
+                ps.setInt(2, order.getId());
+                ps.setTimestamp(3, Timestamp.valueOf(order.getNextRunAt()));
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) advanced.add(sorted.get(i));
+            }
+        }
+        if (advanced.isEmpty()) return advanced;
+        List<StandingOrder> claimed = new ArrayList<>(advanced.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_RUN_SQL)) {
+            for (StandingOrder order : advanced) {
+                ps.setInt(1, order.getId());
+                ps.setTimestamp(2, Timestamp.valueOf(order.getNextRunAt()));
+                ps.setTimestamp(3, now);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                // An existing row means this instant already ran (the order was moved back by hand)
+                if (counts[i] > 0) claimed.add(advanced.get(i));
+            }
+        }
+        DBConnectionUtil.markWrite();
+        return claimed;
+    }
+
+    @Override
+    public void completeRuns(Connection connection, List<StandingOrderRun> runs) throws SQLException {
+        if (runs.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(COMPLETE_RUN_SQL)) {
+            for (StandingOrderRun run : runs) {
+                ps.setString(1, run.getStatus());
+                if (run.getTransactionId() > 0) ps.setInt(2, run.getTransactionId());
+                else ps.setNull(2, Types.INTEGER);
+                String detail = run.getDetail();
+                ps.setString(3, detail == null || detail.length() <= DETAIL_LENGTH ? detail : detail.substring(0, DETAIL_LENGTH));
+                ps.setInt(4, run.getOrderId());
+                ps.setTimestamp(5, Timestamp.valueOf(run.getScheduledAt()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        DBConnectionUtil.markWrite();
+    }
+
+    private StandingOrder mapResultSetToOrder(ResultSet rs) throws SQLException {
+        Timestamp nextRunAt = rs.getTimestamp("next_run_at");
+        return new StandingOrder(
+                rs.getInt("id"),
+                rs.getInt("account_id"),
+                rs.getInt("destination_account_id"),
+                rs.getBigDecimal("amount"),
+                StandingOrder.Frequency.valueOf(rs.getString("frequency")),
+                rs.getTimestamp("first_run_at").toLocalDateTime(),
+                nextRunAt == null ? null : nextRunAt.toLocalDateTime());
+    }
+}
@@ -0,0 +1,270 @@
+package com.bankingapp.dao;
+
+import com.bankingapp.archive.Segment;
+import com.bankingapp.archive.TransactionArchive;
+import com.bankingapp.model.DailyRollup;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * TransactionDAO over the hot transactions table and the cold {@link TransactionArchive}. Writes go to the hot table;
+ * history reads merge both tiers. A row the archival job has written to a segment but not yet deleted from the table
+ * is seen in both tiers, so merged reads drop archived copies of ids still present in the hot result.
+ */
+public class TieredTransactionDAO implements TransactionDAO {
+
+    private static final Comparator<Transaction> OLDEST_FIRST =
+            Comparator.comparing(Transaction::getTimestamp).thenComparingInt(Transaction::getId);
+    private static final Comparator<Transaction> NEWEST_FIRST = OLDEST_FIRST.reversed();
+
+    private final TransactionDAO hot;
+    private final TransactionArchive archive;
+
+    public TieredTransactionDAO(TransactionDAO hot, TransactionArchive archive) {
+        this.hot = hot;
+        this.archive = archive;
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) throws SQLException {
+        return hot.createTransaction(transaction);
+    }
+
+    @Override
+    public void createTransactions(Connection connection, List<Transaction> transactions) throws SQLException {
+        hot.createTransactions(connection, transactions);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByAccountId(int accountId) throws SQLException {
+        List<Transaction> transactions = hot.getTransactionsByAccountId(accountId);
+        List<Transaction> archived;
+        try {
+            archived = archive.read(accountId);
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        return merge(transactions, archived, NEWEST_FIRST);
+    }
+
+    @Override
+    public TransactionBatch getTransactionBatchByAccountId(int accountId) throws SQLException {
+        List<Transaction> archived;
+        try {
+            archived = archive.read(accountId);
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        if (archived.isEmpty()) return hot.getTransactionBatchByAccountId(accountId);
+        return TransactionBatch.of(merge(hot.getTransactionsByAccountId(accountId), archived, NEWEST_FIRST));
+    }
+
+    /**
+     * The archive is only read when the hot table holds fewer than {@code limit} rows of the account.
+     */
+    @Override
+    public List<Transaction> getRecentTransactions(int accountId, int limit) throws SQLException {
+        List<Transaction> transactions = hot.getRecentTransactions(accountId, limit);
+        if (transactions.size() >= limit) return transactions;
+        List<Transaction> archived;
+        try {
+            archived = archive.read(accountId);
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        List<Transaction> merged = merge(transactions, archived, NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Like {@link #getRecentTransactions(int, int)}, the archive is only read once the hot table runs out of rows.
+     */
+    @Override
+    public List<Transaction> getTransactionsBefore(int accountId, Transaction before, int limit) throws SQLException {
+        List<Transaction> transactions = hot.getTransactionsBefore(accountId, before, limit);
+        if (transactions.size() >= limit) return transactions;
+        List<Transaction> archived = new ArrayList<>();
+        try {
+            for (Transaction t : archive.read(accountId)) {
+                if (before == null || NEWEST_FIRST.compare(t, before) > 0) archived.add(t);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        List<Transaction> merged = merge(transactions, archived, NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    @Override
+    public List<Transaction> getTransactionsAfter(int accountId, int afterId) throws SQLException {
+        List<Transaction> transactions = hot.getTransactionsAfter(accountId, afterId);
+        List<Transaction> archived;
+        try {
+            archived = archive.readAfter(accountId, afterId);
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        return merge(transactions, archived, Comparator.comparingInt(Transaction::getId));
+    }
+
+    /**
+     * Archived transfers into the account come from each segment's incoming index; segments written before it existed
+     * (version 1 and 2) contribute only the account's own rows.
+     */
+    @Override
+    public List<Transaction> getTransactionsInvolving(int accountId, LocalDateTime since) throws SQLException {
+        List<Transaction> transactions = hot.getTransactionsInvolving(accountId, since);
+        List<Transaction> archived = new ArrayList<>();
+        try {
+            for (Transaction t : archive.readInvolving(accountId)) {
+                if (since == null || !t.getTimestamp().isBefore(since)) archived.add(t);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read archived transactions of account " + accountId, e);
+        }
+        return merge(transactions, archived, OLDEST_FIRST);
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() throws SQLException {
+        List<Transaction> transactions = hot.getAllTransactions();
+        List<Transaction> archived;
+        try {
+            archived = archive.readAll();
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+        return merge(transactions, archived, NEWEST_FIRST);
+    }
+
+    /**
+     * Scans the hot table first, remembering ids of rows dated in an archived month (rows caught between segment write
+     * and delete), then streams the segments one at a time and skips those ids.
+     */
+    @Override
+    public void scanAllTransactions(Consumer<? super Transaction> consumer) throws SQLException {
+        List<Segment> segments;
+        try {
+            segments = archive.getSegments();
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+        Set<YearMonth> archivedMonths = new HashSet<>();
+        segments.forEach(s -> archivedMonths.add(s.getMonth()));
+        Set<Integer> stillHot = ConcurrentHashMap.newKeySet();
+        hot.scanAllTransactions(t -> {
+            if (!archivedMonths.isEmpty() && archivedMonths.contains(YearMonth.from(t.getTimestamp()))) stillHot.add(t.getId());
+            consumer.accept(t);
+        });
+        try {
+            for (Segment segment : segments) {
+                segment.forEach(t -> {
+                    if (!stillHot.contains(t.getId())) consumer.accept(t);
+                });
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+    }
+
+    /**
+     * Hot rows, then rows of archived months from the month of {@code since} on that the hot table no longer holds.
+     */
+    @Override
+    public void scanTransactionsSince(LocalDateTime since, Consumer<? super Transaction> consumer) throws SQLException {
+        YearMonth fromMonth = YearMonth.from(since);
+        List<Segment> segments = new ArrayList<>();
+        try {
+            for (Segment segment : archive.getSegments()) {
+                if (!segment.getMonth().isBefore(fromMonth)) segments.add(segment);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+        Set<YearMonth> archivedMonths = new HashSet<>();
+        segments.forEach(s -> archivedMonths.add(s.getMonth()));
+        Set<Integer> stillHot = ConcurrentHashMap.newKeySet();
+        hot.scanTransactionsSince(since, t -> {
+            if (archivedMonths.contains(YearMonth.from(t.getTimestamp()))) stillHot.add(t.getId());
+            consumer.accept(t);
+        });
+        try {
+            for (Segment segment : segments) {
+                segment.forEach(t -> {
+                    if (!t.getTimestamp().isBefore(since) && !stillHot.contains(t.getId())) consumer.accept(t);
+                });
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+    }
+
+    /**
+     * Rollups are never archived, so the hot store answers for every day.
+     */
+    @Override
+    public List<DailyRollup> getDailyRollups(int accountId, LocalDate from, LocalDate to) throws SQLException {
+        return hot.getDailyRollups(accountId, from, to);
+    }
+
+    /**
+     * Only the hot table is searched: archived rows are older than anything left there.
+     */
+    @Override
+    public Transaction getLastTransactionAsOf(int accountId, LocalDateTime at) throws SQLException {
+        return hot.getLastTransactionAsOf(accountId, at);
+    }
+
+    /**
+     * When the hot table has no row at or before {@code at}, the newest archived row up to then answers, searching the
+     * segments from the month of {@code at} backwards. Null if that row carries no balance (a version 1 segment, or a
+     * row archived before the balance backfill ran).
+     */
+    @Override
+    public BigDecimal balanceAsOf(int accountId, LocalDateTime at) throws SQLException {
+        Transaction last = hot.getLastTransactionAsOf(accountId, at);
+        if (last != null) return last.getBalanceAfter(accountId);
+        try {
+            List<Segment> segments = archive.getSegments();
+            YearMonth month = YearMonth.from(at);
+            for (int s = segments.size() - 1; s >= 0; s--) {
+                Segment segment = segments.get(s);
+                if (segment.getMonth().isAfter(month)) continue;
+                Transaction newest = null;
+                for (Transaction t : segment.readInvolving(accountId)) {
+                    if (!t.getTimestamp().isAfter(at) && (newest == null || OLDEST_FIRST.compare(t, newest) > 0)) newest = t;
+                }
+                if (newest != null) return newest.getBalanceAfter(accountId);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read transaction archive", e);
+        }
+        return BigDecimal.ZERO;
+    }
+
+    private static List<Transaction> merge(List<Transaction> hotRows, List<Transaction> archived, Comparator<Transaction> order) {
+        if (archived.isEmpty()) return hotRows;
+        Set<Integer> hotIds = new HashSet<>(hotRows.size() * 2);
+        for (Transaction t : hotRows) {
+            hotIds.add(t.getId());
+        }
+        List<Transaction> merged = new ArrayList<>(hotRows.size() + archived.size());
+        merged.addAll(hotRows);
+        for (Transaction t : archived) {
+            if (!hotIds.contains(t.getId())) merged.add(t);
+        }
+        merged.sort(order);
+        return merged;
+    }
+}
@@ -1,14 +1,84 @@
 package com.bankingapp.dao;
 
+import com.bankingapp.model.DailyRollup;
 import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionDAO {
     Transaction createTransaction(Transaction transaction) throws SQLException;
 
     List<Transaction> getTransactionsByAccountId(int accountId) throws SQLException;
 
+    /**
+     * Same rows and order as {@link #getTransactionsByAccountId(int)}, read into columns without per-row objects.
+     */
+    TransactionBatch getTransactionBatchByAccountId(int accountId) throws SQLException;
+
+    /**
+     * The account's newest {@code limit} ledger rows, in the order of {@link #getTransactionsByAccountId(int)}.
+     */
+    List<Transaction> getRecentTransactions(int accountId, int limit) throws SQLException;
+
+    /**
+     * Keyset page of the account's ledger rows, newest first by timestamp, then id: the {@code limit} rows that come
+     * after {@code before}, the last row of the previous page, or the newest rows when it is null. Paging through a
+     * history holds neither a connection nor the whole history between pages.
+     */
+    List<Transaction> getTransactionsBefore(int accountId, Transaction before, int limit) throws SQLException;
+
     List<Transaction> getAllTransactions() throws SQLException;
+
+    /**
+     * Feed every ledger row to the consumer through a parallel range scan; the consumer must be thread-safe.
+     */
+    void scanAllTransactions(Consumer<? super Transaction> consumer) throws SQLException;
+
+    /**
+     * Ledger rows of the account with an id greater than {@code afterId}, oldest id first.
+     */
+    List<Transaction> getTransactionsAfter(int accountId, int afterId) throws SQLException;
+
+    /**
+     * Ledger rows the account is on either side of (its own rows and transfers into it) stamped at or after
+     * {@code since}, or its whole history when null; oldest first by timestamp, then id.
+     */
+    List<Transaction> getTransactionsInvolving(int accountId, LocalDateTime since) throws SQLException;
+
+    /**
+     * Stream every row stamped at or after {@code since}, across all accounts; the consumer must be thread-safe.
+     */
+    void scanTransactionsSince(LocalDateTime since, Consumer<? super Transaction> consumer) throws SQLException;
+
+    /**
+     * Insert all ledger rows in one JDBC batch on the caller's connection and assign their generated ids. The
+     * account_daily_rollups rows they touch are updated in the same transaction.
+     */
+    void createTransactions(Connection connection, List<Transaction> transactions) throws SQLException;
+
+    /**
+     * The account's daily rollups for days {@code from} to {@code to} inclusive, oldest first; days without activity
+     * are absent.
+     */
+    List<DailyRollup> getDailyRollups(int accountId, LocalDate from, LocalDate to) throws SQLException;
+
+    /**
+     * The latest ledger row dated at or before {@code at} that moved the account's balance: one of its own rows or a
+     * transfer into it. Null if there is none.
+     */
+    Transaction getLastTransactionAsOf(int accountId, LocalDateTime at) throws SQLException;
+
+    /**
+     * Balance of the account after every ledger row dated at or before {@code at}, read from the balance recorded on
+     * the latest such row: zero before the first row, null when that row carries no balance (written before balances
+     * were recorded and not yet backfilled, or the credit side of a cross-shard transfer).
+     */
+    BigDecimal balanceAsOf(int accountId, LocalDateTime at) throws SQLException;
 }
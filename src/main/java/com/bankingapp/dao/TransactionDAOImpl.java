@@ -1,45 +1,85 @@
 package com.bankingapp.dao;
 
 import com.bankingapp.model.*;
+import com.bankingapp.util.ConnectionProvider;
 import com.bankingapp.util.DBConnectionUtil;
 
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class TransactionDAOImpl implements TransactionDAO {
 
-    // destination_account_id column is optional in some DB schemas. Avoid referencing it directly
-    // to prevent errors when the column is not present. If you rely on storing destination
-    // account for transfers, update the DB schema accordingly.
-    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO transactions (account_id, type, amount, timestamp) VALUES (?, ?, ?, ?)";
+    // destination_account_id is provisioned by SchemaManager (migration 2); it is NULL for everything but transfers.
+    // The balance columns (migration 6) are NULL when the writer did not know the balance.
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (account_id, type, amount, timestamp, destination_account_id, balance_after, " +
+            "destination_balance_after) VALUES (?, ?, ?, ?, ?, ?, ?)";
     // Use wildcard select and map columns defensively to support varying DB schemas
     private static final String SELECT_TRANSACTIONS_BY_ACCOUNT_SQL = "SELECT * FROM transactions WHERE account_id = ? ORDER BY timestamp DESC";
+    private static final String SELECT_RECENT_TRANSACTIONS_SQL =
+            "SELECT * FROM transactions WHERE account_id = ? ORDER BY timestamp DESC, id DESC LIMIT ?";
+    private static final String SELECT_TRANSACTIONS_BEFORE_SQL = "SELECT * FROM transactions WHERE account_id = ? " +
+            "AND (timestamp < ? OR (timestamp = ? AND id < ?)) ORDER BY timestamp DESC, id DESC LIMIT ?";
+    private static final String SELECT_TRANSACTIONS_AFTER_SQL = "SELECT * FROM transactions WHERE account_id = ? AND id > ? ORDER BY id";
+    // Index range scans on idx_transactions_account_ts and idx_transactions_destination_ts
+    private static final String SELECT_TRANSACTIONS_INVOLVING_SQL =
+            "SELECT * FROM transactions WHERE account_id = ? AND timestamp >= ? UNION ALL " +
+            "SELECT * FROM transactions WHERE destination_account_id = ? AND timestamp >= ? ORDER BY timestamp, id";
+    // Earliest DATETIME value, for a range over the whole history
+    private static final Timestamp BEGINNING = Timestamp.valueOf(LocalDateTime.of(1000, 1, 1, 0, 0));
     private static final String SELECT_ALL_TRANSACTIONS_SQL = "SELECT * FROM transactions ORDER BY timestamp DESC";
+    // Range scan of idx_transactions_ts
+    private static final String SELECT_TRANSACTIONS_SINCE_SQL = "SELECT * FROM transactions WHERE timestamp >= ? ORDER BY timestamp, id";
+    // Index seeks on idx_transactions_account_ts and idx_transactions_destination_ts
+    private static final String SELECT_LAST_OWN_SQL =
+            "SELECT * FROM transactions WHERE account_id = ? AND timestamp <= ? ORDER BY timestamp DESC, id DESC LIMIT 1";
+    private static final String SELECT_LAST_INCOMING_SQL =
+            "SELECT * FROM transactions WHERE destination_account_id = ? AND timestamp <= ? ORDER BY timestamp DESC, id DESC LIMIT 1";
+    // account_daily_rollups is provisioned by SchemaManager (migration 5) and kept in step with every insert here
+    private static final String UPSERT_ROLLUP_SQL = rollupUpsertSql();
+    private static final String SELECT_ROLLUPS_SQL =
+            "SELECT * FROM account_daily_rollups WHERE account_id = ? AND day BETWEEN ? AND ? ORDER BY day";
+
+    private final ConnectionProvider connections;
+    private final ConnectionProvider readConnections;
+    private final RangeScanner<Transaction> scanner;
+
+    public TransactionDAOImpl() {
+        this(DBConnectionUtil::getConnection, DBConnectionUtil::getReadConnection);
+    }
+
+    /**
+     * @param connections     used for writes and for reads that feed a read-modify-write
+     * @param readConnections used for query-heavy reads that tolerate replication lag
+     */
+    public TransactionDAOImpl(ConnectionProvider connections, ConnectionProvider readConnections) {
+        this.connections = connections;
+        this.readConnections = readConnections;
+        this.scanner = new RangeScanner<>(readConnections, "transactions", "*", TransactionDAOImpl::mapResultSetToTransaction);
+    }
 
     @Override
     public Transaction createTransaction(Transaction transaction) throws SQLException {
         if (transaction == null) throw new IllegalArgumentException("Transaction cannot be null");
 
-        try (Connection connection = DBConnectionUtil.getConnection();
-             PreparedStatement ps = connection.prepareStatement(INSERT_TRANSACTION_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, transaction.getAccountId());
-            ps.setString(2, transaction.getType());
-            ps.setBigDecimal(3, transaction.getAmount());
-            ps.setTimestamp(4, Timestamp.valueOf(transaction.getTimestamp()));
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating transaction failed, no rows affected.");
-            }
-            try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    transaction.setId(generatedKeys.getInt(1));
-                } else {
-                    throw new SQLException("Creating transaction failed, no ID obtained.");
-                }
+        // The ledger row and its rollup increments commit together
+        try (Connection connection = connections.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                createTransactions(connection, List.of(transaction));
+                connection.commit();
+                return transaction;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
-            return transaction;
         }
     }
 
@@ -47,9 +87,38 @@ public class TransactionDAOImpl implements TransactionDAO {
     public List<Transaction> getTransactionsByAccountId(int accountId) throws SQLException {
         if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
         List<Transaction> transactions = new ArrayList<>();
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_BY_ACCOUNT_SQL)) {
+            ps.setInt(1, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public TransactionBatch getTransactionBatchByAccountId(int accountId) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        try (Connection connection = readConnections.getConnection();
              PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_BY_ACCOUNT_SQL)) {
             ps.setInt(1, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return TransactionBatch.fromResultSet(rs);
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(int accountId, int limit) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        List<Transaction> transactions = new ArrayList<>(Math.min(limit, 1024));
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_RECENT_TRANSACTIONS_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setInt(2, limit);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     transactions.add(mapResultSetToTransaction(rs));
@@ -59,10 +128,84 @@ public class TransactionDAOImpl implements TransactionDAO {
         return transactions;
     }
 
+    @Override
+    public List<Transaction> getTransactionsBefore(int accountId, Transaction before, int limit) throws SQLException {
+        if (before == null) return getRecentTransactions(accountId, limit);
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        List<Transaction> transactions = new ArrayList<>(Math.min(limit, 1024));
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_BEFORE_SQL)) {
+            Timestamp ts = Timestamp.valueOf(before.getTimestamp());
+            ps.setInt(1, accountId);
+            ps.setTimestamp(2, ts);
+            ps.setTimestamp(3, ts);
+            ps.setInt(4, before.getId());
+            ps.setInt(5, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public List<Transaction> getTransactionsAfter(int accountId, int afterId) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        List<Transaction> transactions = new ArrayList<>();
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_AFTER_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setInt(2, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public List<Transaction> getTransactionsInvolving(int accountId, LocalDateTime since) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        List<Transaction> transactions = new ArrayList<>();
+        Timestamp from = since == null ? BEGINNING : Timestamp.valueOf(since);
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_INVOLVING_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setTimestamp(2, from);
+            ps.setInt(3, accountId);
+            ps.setTimestamp(4, from);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public void scanTransactionsSince(LocalDateTime since, Consumer<? super Transaction> consumer) throws SQLException {
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTIONS_SINCE_SQL)) {
+            // Stream rows instead of buffering the whole result set
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapResultSetToTransaction(rs));
+                }
+            }
+        }
+    }
+
     @Override
     public List<Transaction> getAllTransactions() throws SQLException {
         List<Transaction> transactions = new ArrayList<>();
-        try (Connection connection = DBConnectionUtil.getConnection();
+        try (Connection connection = readConnections.getConnection();
              PreparedStatement ps = connection.prepareStatement(SELECT_ALL_TRANSACTIONS_SQL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -72,7 +215,152 @@ public class TransactionDAOImpl implements TransactionDAO {
         return transactions;
     }
 
-    private Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
+    @Override
+    public void scanAllTransactions(Consumer<? super Transaction> consumer) throws SQLException {
+        scanner.forEach(consumer);
+    }
+
+    @Override
+    public void createTransactions(Connection connection, List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_TRANSACTION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Transaction t : transactions) {
+                ps.setInt(1, t.getAccountId());
+                ps.setString(2, t.getType());
+                ps.setBigDecimal(3, t.getAmount());
+                ps.setTimestamp(4, Timestamp.valueOf(t.getTimestamp()));
+                setDestination(ps, 5, t);
+                setBalances(ps, 6, t);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            DBConnectionUtil.markWrite();
+            try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                for (Transaction t : transactions) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Creating transactions failed, not all IDs obtained.");
+                    }
+                    t.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+        applyRollups(connection, DailyRollup.summarize(transactions));
+    }
+
+    @Override
+    public Transaction getLastTransactionAsOf(int accountId, LocalDateTime at) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        Transaction last = null;
+        try (Connection connection = readConnections.getConnection()) {
+            for (String sql : new String[] {SELECT_LAST_OWN_SQL, SELECT_LAST_INCOMING_SQL}) {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setInt(1, accountId);
+                    ps.setTimestamp(2, Timestamp.valueOf(at));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) last = later(last, mapResultSetToTransaction(rs));
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public BigDecimal balanceAsOf(int accountId, LocalDateTime at) throws SQLException {
+        Transaction last = getLastTransactionAsOf(accountId, at);
+        return last == null ? BigDecimal.ZERO : last.getBalanceAfter(accountId);
+    }
+
+    /**
+     * The later of two ledger rows by (timestamp, id); either may be null.
+     */
+    public static Transaction later(Transaction a, Transaction b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        int c = a.getTimestamp().compareTo(b.getTimestamp());
+        return c > 0 || (c == 0 && a.getId() > b.getId()) ? a : b;
+    }
+
+    /**
+     * Add the rollups to account_daily_rollups on the caller's connection. Rows arrive ordered by (account_id, day), so
+     * concurrent writers take the row locks in the same order.
+     */
+    static void applyRollups(Connection connection, List<DailyRollup> rollups) throws SQLException {
+        if (rollups.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_ROLLUP_SQL)) {
+            for (DailyRollup r : rollups) {
+                int i = 1;
+                ps.setInt(i++, r.getAccountId());
+                ps.setDate(i++, Date.valueOf(r.getDay()));
+                for (DailyRollup.Kind kind : DailyRollup.Kind.values()) {
+                    ps.setLong(i++, r.getCount(kind));
+                    ps.setBigDecimal(i++, r.getTotal(kind));
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public List<DailyRollup> getDailyRollups(int accountId, LocalDate from, LocalDate to) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("Account id must be positive");
+        List<DailyRollup> rollups = new ArrayList<>();
+        try (Connection connection = readConnections.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_ROLLUPS_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setDate(2, Date.valueOf(from));
+            ps.setDate(3, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    DailyRollup r = new DailyRollup(accountId, rs.getDate("day").toLocalDate());
+                    for (DailyRollup.Kind kind : DailyRollup.Kind.values()) {
+                        r.add(kind, rs.getLong(kind.column() + "_count"), rs.getBigDecimal(kind.column() + "_total"));
+                    }
+                    rollups.add(r);
+                }
+            }
+        }
+        return rollups;
+    }
+
+    private static String rollupUpsertSql() {
+        StringBuilder columns = new StringBuilder("account_id, day");
+        StringBuilder values = new StringBuilder("?, ?");
+        StringBuilder updates = new StringBuilder();
+        for (DailyRollup.Kind kind : DailyRollup.Kind.values()) {
+            for (String suffix : new String[] {"_count", "_total"}) {
+                String column = kind.column() + suffix;
+                columns.append(", ").append(column);
+                values.append(", ?");
+                if (updates.length() > 0) updates.append(", ");
+                updates.append(column).append(" = ").append(column).append(" + VALUES(").append(column).append(')');
+            }
+        }
+        return "INSERT INTO account_daily_rollups (" + columns + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    private static void setDestination(PreparedStatement ps, int index, Transaction t) throws SQLException {
+        if (t instanceof TransferTransaction) {
+            ps.setInt(index, ((TransferTransaction) t).getDestinationAccountId());
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static void setBalances(PreparedStatement ps, int index, Transaction t) throws SQLException {
+        BigDecimal destinationBalance = t instanceof TransferTransaction ? ((TransferTransaction) t).getDestinationBalanceAfter() : null;
+        BigDecimal[] balances = {t.getBalanceAfter(), destinationBalance};
+        for (int i = 0; i < balances.length; i++) {
+            if (balances[i] != null) ps.setBigDecimal(index + i, balances[i]);
+            else ps.setNull(index + i, Types.DECIMAL);
+        }
+    }
+
+    /**
+     * Map the current row of a transactions result set; also used by batch jobs that stream the table directly.
+     */
+    public static Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
         ResultSetMetaData md = rs.getMetaData();
 
         // helper to check presence
@@ -127,15 +415,34 @@ public class TransactionDAOImpl implements TransactionDAO {
 
         int destAccountId = getIntFrom.apply(new String[] {"destination_account_id", "dest_account_id", "to_account_id"});
 
+        Transaction t;
         switch (type.toUpperCase()) {
             case "DEPOSIT":
-                return new DepositTransaction(id, accountId, amount, timestamp);
+                t = new DepositTransaction(id, accountId, amount, timestamp);
+                break;
             case "WITHDRAWAL":
-                return new WithdrawalTransaction(id, accountId, amount, timestamp);
+                t = new WithdrawalTransaction(id, accountId, amount, timestamp);
+                break;
             case "TRANSFER":
-                return new TransferTransaction(id, accountId, destAccountId, amount, timestamp);
+                TransferTransaction transfer = new TransferTransaction(id, accountId, destAccountId, amount, timestamp);
+                if (hasColumn.test("destination_balance_after")) {
+                    transfer.setDestinationBalanceAfter(rs.getBigDecimal("destination_balance_after"));
+                }
+                t = transfer;
+                break;
+            case "INTEREST":
+                t = new InterestTransaction(id, accountId, amount, timestamp);
+                break;
+            case "TRANSFER_OUT":
+                t = new TransferOutTransaction(id, accountId, amount, timestamp);
+                break;
+            case "TRANSFER_IN":
+                t = new TransferInTransaction(id, accountId, amount, timestamp);
+                break;
             default:
                 throw new SQLException("Unknown transaction type: " + type);
         }
+        if (hasColumn.test("balance_after")) t.setBalanceAfter(rs.getBigDecimal("balance_after"));
+        return t;
     }
 }
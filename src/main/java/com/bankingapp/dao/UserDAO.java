@@ -3,9 +3,22 @@ package com.bankingapp.dao;
 import com.bankingapp.model.User;
 
 import java.sql.SQLException;
+import java.util.function.Consumer;
 
 public interface UserDAO {
     User createUser(User user) throws SQLException;
 
     User getUserByUsername(String username) throws SQLException;
+
+    boolean updatePasswordHash(int userId, String passwordHash) throws SQLException;
+
+    /**
+     * Highest committed user id, 0 when there are no users.
+     */
+    int getMaxUserId() throws SQLException;
+
+    /**
+     * Feed every user to the consumer through a parallel range scan; the consumer must be thread-safe.
+     */
+    void scanAllUsers(Consumer<? super User> consumer) throws SQLException;
 }
@@ -4,29 +4,18 @@ import com.bankingapp.model.User;
 import com.bankingapp.util.DBConnectionUtil;
 
 import java.sql.*;
+import java.util.function.Consumer;
 
 public class UserDAOImpl implements UserDAO {
 
-    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS users (" +
-            "id INT AUTO_INCREMENT PRIMARY KEY, " +
-            "username VARCHAR(100) NOT NULL UNIQUE, " +
-            "password_hash VARCHAR(256) NOT NULL, " +
-            "full_name VARCHAR(200)" +
-            ")";
-
     private static final String INSERT_USER_SQL = "INSERT INTO users (username, password_hash, full_name) VALUES (?, ?, ?)";
     private static final String SELECT_BY_USERNAME_SQL = "SELECT id, username, password_hash, full_name FROM users WHERE username = ?";
+    private static final String UPDATE_PASSWORD_HASH_SQL = "UPDATE users SET password_hash = ? WHERE id = ?";
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM users";
 
-    public UserDAOImpl() {
-        // Ensure users table exists. Best effort: if DB permissions don't allow, operations will fail later.
-        try (Connection conn = DBConnectionUtil.getConnection();
-             Statement st = conn.createStatement()) {
-            st.executeUpdate(CREATE_TABLE_SQL);
-        } catch (SQLException e) {
-            // Log/ignore here; higher-level calls will surface DB errors when needed.
-            System.err.println("Warning: could not ensure users table exists: " + e.getMessage());
-        }
-    }
+    // Scans the primary: callers such as FilteredUserDAO rely on seeing every committed user
+    private final RangeScanner<User> scanner = new RangeScanner<>(DBConnectionUtil::getConnection, "users",
+            "id, username, password_hash, full_name", UserDAOImpl::mapResultSetToUser);
 
     @Override
     public User createUser(User user) throws SQLException {
@@ -37,6 +26,7 @@ public class UserDAOImpl implements UserDAO {
             ps.setString(2, user.getPasswordHash());
             ps.setString(3, user.getFullName());
             int affected = ps.executeUpdate();
+            DBConnectionUtil.markWrite();
             if (affected == 0) throw new SQLException("Creating user failed, no rows affected.");
             try (ResultSet keys = ps.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -54,14 +44,46 @@ public class UserDAOImpl implements UserDAO {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    int id = rs.getInt("id");
-                    String user = rs.getString("username");
-                    String hash = rs.getString("password_hash");
-                    String full = rs.getString("full_name");
-                    return new User(id, user, hash, full);
+                    return mapResultSetToUser(rs);
                 }
             }
         }
         return null;
     }
+
+    @Override
+    public boolean updatePasswordHash(int userId, String passwordHash) throws SQLException {
+        if (userId <= 0) throw new IllegalArgumentException("User id must be positive");
+        try (Connection conn = DBConnectionUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_PASSWORD_HASH_SQL)) {
+            ps.setString(1, passwordHash);
+            ps.setInt(2, userId);
+            int affected = ps.executeUpdate();
+            DBConnectionUtil.markWrite();
+            return affected > 0;
+        }
+    }
+
+    @Override
+    public int getMaxUserId() throws SQLException {
+        // Primary, like the scan: FilteredUserDAO compares it with what its scans saw
+        try (Connection conn = DBConnectionUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_MAX_ID_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public void scanAllUsers(Consumer<? super User> consumer) throws SQLException {
+        scanner.forEach(consumer);
+    }
+
+    private static User mapResultSetToUser(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id");
+        String user = rs.getString("username");
+        String hash = rs.getString("password_hash");
+        String full = rs.getString("full_name");
+        return new User(id, user, hash, full);
+    }
 }
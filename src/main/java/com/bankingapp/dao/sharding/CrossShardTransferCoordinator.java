@@ -0,0 +1,282 @@
+package com.bankingapp.dao.sharding;
+
+import com.bankingapp.exceptions.AccountNotFoundException;
+import com.bankingapp.exceptions.InsufficientFundsException;
+import com.bankingapp.exceptions.TransferPendingException;
+import com.bankingapp.model.Account;
+import com.bankingapp.model.DepositTransaction;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferInTransaction;
+import com.bankingapp.model.TransferOutTransaction;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between accounts on different shards as a durable saga:
+ * <ol>
+ *   <li>source shard, one local transaction: debit the source, write its TRANSFER_OUT ledger row and a DEBITED saga
+ *       row;</li>
+ *   <li>destination shard, one local transaction: credit the destination, write its TRANSFER_IN ledger row and record
+ *       the saga id in transfer_saga_credits, whose primary key makes the credit idempotent;</li>
+ *   <li>source shard: mark the saga COMPLETED.</li>
+ * </ol>
+ * If the destination account has disappeared the source is refunded and the saga marked COMPENSATED, or
+ * FAILED_COMPENSATION when the source is gone too (left for an operator). A failure after the debit is retried in
+ * place shard.saga.creditAttempts times; if the credit still cannot be confirmed the caller gets a
+ * {@link TransferPendingException} rather than a failure. A crash or such a failure leaves a DEBITED saga that
+ * {@link #recoverInDoubt()} drives forward; recovery runs on a background schedule once {@link #start()} is called.
+ * <p>
+ * Each leg is booked on the shard of its own account, so every shard's ledger adds up to its balances on its own;
+ * the saga row is what links the two legs.
+ */
+public class CrossShardTransferCoordinator {
+
+    private static final String INSERT_SAGA_SQL =
+            "INSERT INTO transfer_saga (saga_id, from_account_id, to_account_id, amount, state, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, 'DEBITED', ?, ?)";
+    private static final String UPDATE_SAGA_STATE_SQL =
+            "UPDATE transfer_saga SET state = ?, updated_at = ? WHERE saga_id = ? AND state = 'DEBITED'";
+    private static final String SELECT_IN_DOUBT_SQL =
+            "SELECT saga_id, from_account_id, to_account_id, amount FROM transfer_saga " +
+            "WHERE state = 'DEBITED' AND created_at < ? ORDER BY created_at";
+    private static final String INSERT_CREDIT_SQL =
+            "INSERT INTO transfer_saga_credits (saga_id, to_account_id, amount, applied_at) VALUES (?, ?, ?, ?)";
+
+    private static final int ER_DUP_ENTRY = 1062;
+
+    private enum CreditOutcome { APPLIED, ACCOUNT_MISSING }
+
+    private final ShardRouter router;
+    private final long inDoubtAfterMillis;
+    private final long recoveryMillis;
+    private final int creditAttempts;
+    private ScheduledExecutorService recovery;
+
+    public CrossShardTransferCoordinator(ShardRouter router) {
+        this.router = router;
+        this.inDoubtAfterMillis = AppConfig.getLong("shard.saga.inDoubtAfterMs", 30_000);
+        this.recoveryMillis = AppConfig.getLong("shard.saga.recoveryMs", 60_000);
+        this.creditAttempts = Math.max(1, AppConfig.getInt("shard.saga.creditAttempts", 3));
+    }
+
+    /**
+     * Start recovering in-doubt sagas every shard.saga.recoveryMs. Call once the shard schemas exist, i.e. after
+     * SchemaManager.bootstrap(); a second call does nothing.
+     */
+    public synchronized void start() {
+        if (recovery != null || recoveryMillis <= 0) return;
+        recovery = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("saga-recovery"));
+        recovery.scheduleWithFixedDelay(() -> {
+            try {
+                recoverInDoubt();
+            } catch (SQLException e) {
+                System.err.println("Saga recovery failed: " + e.getMessage());
+            }
+        }, 0, recoveryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a transfer to completion or compensation.
+     *
+     * @return the ledger rows committed, with their ids and balances after
+     * @throws TransferPendingException if the source was debited but the rest could not be confirmed
+     */
+    public List<Transaction> transfer(int fromAccountId, int toAccountId, BigDecimal amount)
+            throws SQLException, AccountNotFoundException, InsufficientFundsException {
+        String sagaId = UUID.randomUUID().toString();
+        List<Transaction> committed = new ArrayList<>(2);
+        committed.add(debitSource(sagaId, fromAccountId, toAccountId, amount));
+        // The money has left the source: from here on the caller must not be told the transfer failed
+        for (int attempt = 1; ; attempt++) {
+            try {
+                finish(sagaId, fromAccountId, toAccountId, amount, committed);
+                return committed;
+            } catch (SQLException | RuntimeException e) {
+                SQLException cause = e instanceof SQLException sql ? sql : new SQLException(e);
+                if (attempt >= creditAttempts) throw new TransferPendingException(sagaId, committed, cause);
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new TransferPendingException(sagaId, committed, cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drive every saga that has been DEBITED for longer than shard.saga.inDoubtAfterMs to COMPLETED or COMPENSATED.
+     *
+     * @return number of sagas resolved
+     */
+    public int recoverInDoubt() throws SQLException {
+        int resolved = 0;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusNanos(inDoubtAfterMillis * 1_000_000));
+        for (ShardRouter.Shard shard : router.getShards()) {
+            try (Connection conn = shard.getConnections().getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SELECT_IN_DOUBT_SQL)) {
+                ps.setTimestamp(1, cutoff);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        finish(rs.getString("saga_id"), rs.getInt("from_account_id"), rs.getInt("to_account_id"),
+                                rs.getBigDecimal("amount"), new ArrayList<>());
+                        resolved++;
+                    }
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private Transaction debitSource(String sagaId, int fromAccountId, int toAccountId, BigDecimal amount)
+            throws SQLException, AccountNotFoundException, InsufficientFundsException {
+        ShardRouter.Shard source = router.shardFor(fromAccountId);
+        try (Connection conn = source.getConnections().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Map<Integer, Account> locked = source.getAccountDAO().getAccountsForUpdate(conn, List.of(fromAccountId));
+                Account from = locked.get(fromAccountId);
+                if (from == null) {
+                    throw new AccountNotFoundException("Source account with ID " + fromAccountId + " not found.");
+                }
+                if (from.getBalance().compareTo(amount) < 0) {
+                    throw new InsufficientFundsException("Insufficient funds in account ID " + fromAccountId);
+                }
+                source.getAccountDAO().applyBalanceDeltas(conn, Map.of(fromAccountId, amount.negate()));
+                LocalDateTime now = LocalDateTime.now();
+                TransferOutTransaction debit = new TransferOutTransaction(fromAccountId, amount, now);
+                debit.setBalanceAfter(from.getBalance().subtract(amount));
+                source.getTransactionDAO().createTransactions(conn, List.of(debit));
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_SAGA_SQL)) {
+                    ps.setString(1, sagaId);
+                    ps.setInt(2, fromAccountId);
+                    ps.setInt(3, toAccountId);
+                    ps.setBigDecimal(4, amount);
+                    ps.setTimestamp(5, Timestamp.valueOf(now));
+                    ps.setTimestamp(6, Timestamp.valueOf(now));
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                return debit;
+            } catch (SQLException | AccountNotFoundException | InsufficientFundsException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * @param committed receives the ledger rows this call commits
+     */
+    private void finish(String sagaId, int fromAccountId, int toAccountId, BigDecimal amount, List<Transaction> committed)
+            throws SQLException {
+        CreditOutcome outcome = creditDestination(sagaId, toAccountId, amount, committed);
+        if (outcome == CreditOutcome.APPLIED) {
+            markSaga(sagaId, fromAccountId, "COMPLETED");
+        } else {
+            compensate(sagaId, fromAccountId, amount, committed);
+        }
+    }
+
+    private CreditOutcome creditDestination(String sagaId, int toAccountId, BigDecimal amount, List<Transaction> committed)
+            throws SQLException {
+        ShardRouter.Shard destination = router.shardFor(toAccountId);
+        try (Connection conn = destination.getConnections().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_CREDIT_SQL)) {
+                    ps.setString(1, sagaId);
+                    ps.setInt(2, toAccountId);
+                    ps.setBigDecimal(3, amount);
+                    ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == ER_DUP_ENTRY) {
+                        // Credited by an earlier attempt; only the saga state was left behind
+                        conn.rollback();
+                        return CreditOutcome.APPLIED;
+                    }
+                    throw e;
+                }
+                Account to = destination.getAccountDAO().getAccountsForUpdate(conn, List.of(toAccountId)).get(toAccountId);
+                if (to == null) {
+                    conn.rollback();
+                    return CreditOutcome.ACCOUNT_MISSING;
+                }
+                destination.getAccountDAO().applyBalanceDeltas(conn, Map.of(toAccountId, amount));
+                TransferInTransaction credit = new TransferInTransaction(toAccountId, amount, LocalDateTime.now());
+                credit.setBalanceAfter(to.getBalance().add(amount));
+                destination.getTransactionDAO().createTransactions(conn, List.of(credit));
+                conn.commit();
+                committed.add(credit);
+                return CreditOutcome.APPLIED;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void compensate(String sagaId, int fromAccountId, BigDecimal amount, List<Transaction> committed) throws SQLException {
+        ShardRouter.Shard source = router.shardFor(fromAccountId);
+        try (Connection conn = source.getConnections().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Account from = source.getAccountDAO().getAccountsForUpdate(conn, List.of(fromAccountId)).get(fromAccountId);
+                if (updateSagaState(conn, sagaId, from == null ? "FAILED_COMPENSATION" : "COMPENSATED") == 0) {
+                    // Already resolved by a concurrent recovery pass
+                    conn.rollback();
+                    return;
+                }
+                if (from == null) {
+                    // Nowhere to refund to; parked rather than retried by every recovery pass
+                    conn.commit();
+                    System.err.println("Warning: transfer saga " + sagaId + " cannot be refunded: source account ID "
+                            + fromAccountId + " no longer exists");
+                    return;
+                }
+                source.getAccountDAO().applyBalanceDeltas(conn, Map.of(fromAccountId, amount));
+                DepositTransaction refund = new DepositTransaction(fromAccountId, amount, LocalDateTime.now());
+                refund.setBalanceAfter(from.getBalance().add(amount));
+                source.getTransactionDAO().createTransactions(conn, List.of(refund));
+                conn.commit();
+                committed.add(refund);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void markSaga(String sagaId, int fromAccountId, String state) throws SQLException {
+        try (Connection conn = router.shardFor(fromAccountId).getConnections().getConnection()) {
+            updateSagaState(conn, sagaId, state);
+        }
+    }
+
+    private static int updateSagaState(Connection conn, String sagaId, String state) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SAGA_STATE_SQL)) {
+            ps.setString(1, state);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setString(3, sagaId);
+            return ps.executeUpdate();
+        }
+    }
+}
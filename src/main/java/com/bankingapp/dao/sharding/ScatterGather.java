@@ -0,0 +1,46 @@
+package com.bankingapp.dao.sharding;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one query per shard in parallel and collects the per-shard results in shard order.
+ */
+final class ScatterGather {
+
+    @FunctionalInterface
+    interface ShardQuery<T> {
+        T run(ShardRouter.Shard shard) throws SQLException;
+    }
+
+    private ScatterGather() {
+    }
+
+    static <T> List<T> query(ShardRouter router, ShardQuery<T> query) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (ShardRouter.Shard shard : router.getShards()) {
+            futures.add(router.scatterExecutor().submit(() -> query.run(shard)));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        SQLException failure = null;
+        for (Future<T> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                SQLException ex = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+                if (failure == null) failure = ex;
+                else failure.addSuppressed(ex);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(other -> other.cancel(true));
+                throw new SQLException("Interrupted while querying shards", e);
+            }
+        }
+        if (failure != null) throw failure;
+        return results;
+    }
+}
@@ -0,0 +1,123 @@
+package com.bankingapp.dao.sharding;
+
+import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps account ids to N databases. Every shard runs with auto_increment_increment = N and
+ * auto_increment_offset = shard + 1, so generated ids are globally unique and the owning shard of any id is simply
+ * (id - 1) % N; no directory lookup is needed. New accounts are spread round-robin.
+ */
+public class ShardRouter {
+
+    /**
+     * One database in the shard set, with plain DAOs bound to it.
+     */
+    public static final class Shard {
+        private final int index;
+        private final ConnectionProvider connections;
+        private final AccountDAOImpl accountDAO;
+        private final TransactionDAOImpl transactionDAO;
+
+        Shard(int index, ConnectionProvider connections) {
+            this.index = index;
+            this.connections = connections;
+            this.accountDAO = new AccountDAOImpl(connections, connections);
+            this.transactionDAO = new TransactionDAOImpl(connections, connections);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public ConnectionProvider getConnections() {
+            return connections;
+        }
+
+        public AccountDAOImpl getAccountDAO() {
+            return accountDAO;
+        }
+
+        public TransactionDAOImpl getTransactionDAO() {
+            return transactionDAO;
+        }
+    }
+
+    private final List<Shard> shards;
+    private final AtomicInteger nextForCreate = new AtomicInteger();
+    private final ExecutorService scatterExecutor;
+
+    public ShardRouter(List<ConnectionProvider> shardConnections) {
+        if (shardConnections.isEmpty()) throw new IllegalArgumentException("At least one shard is required");
+        List<Shard> list = new ArrayList<>();
+        for (int i = 0; i < shardConnections.size(); i++) {
+            list.add(new Shard(i, shardConnections.get(i)));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        this.scatterExecutor = VirtualThreads.newExecutor("shard-scatter", Math.max(2, shards.size() * 2), true);
+    }
+
+    /**
+     * Builds the shard set from shard.count and shard.N.url/username/password in config.properties.
+     */
+    public static ShardRouter fromConfig() {
+        int count = AppConfig.getInt("shard.count", 0);
+        if (count <= 0) throw new IllegalStateException("shard.count must be configured to use sharding");
+        List<ConnectionProvider> providers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String prefix = "shard." + i + ".";
+            String baseUrl = AppConfig.get(prefix + "url");
+            if (baseUrl == null || baseUrl.trim().isEmpty()) {
+                throw new IllegalStateException("Missing " + prefix + "url");
+            }
+            String url = withIdInterleaving(baseUrl.trim(), count, i);
+            String user = AppConfig.get(prefix + "username", AppConfig.get("jdbc.username"));
+            String password = AppConfig.get(prefix + "password", AppConfig.get("jdbc.password"));
+            providers.add(() -> DriverManager.getConnection(url, user, password));
+        }
+        return new ShardRouter(providers);
+    }
+
+    /**
+     * Appends Connector/J sessionVariables so the interleaving is set during the connection handshake.
+     */
+    static String withIdInterleaving(String url, int shardCount, int shardIndex) {
+        String vars = "sessionVariables=auto_increment_increment=" + shardCount + ",auto_increment_offset=" + (shardIndex + 1);
+        return url + (url.contains("?") ? "&" : "?") + vars;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public Shard shardFor(int id) {
+        if (id <= 0) throw new IllegalArgumentException("Account id must be positive");
+        return shards.get((id - 1) % shards.size());
+    }
+
+    public Shard shardForNewAccount() {
+        return shards.get(Math.floorMod(nextForCreate.getAndIncrement(), shards.size()));
+    }
+
+    public boolean sameShard(int firstId, int secondId) {
+        return shardFor(firstId) == shardFor(secondId);
+    }
+
+    ExecutorService scatterExecutor() {
+        return scatterExecutor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.bankingapp.dao.sharding;
+
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.model.Account;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * AccountDAO over a set of shards. Single-account calls go straight to the owning shard and getAllAccounts queries
+ * every shard in parallel. Cross-shard transfers go through {@link CrossShardTransferCoordinator}.
+ */
+public class ShardedAccountDAO implements AccountDAO {
+
+    private final ShardRouter router;
+    private final CrossShardTransferCoordinator transferCoordinator;
+
+    public ShardedAccountDAO(ShardRouter router) {
+        this.router = router;
+        this.transferCoordinator = new CrossShardTransferCoordinator(router);
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    public CrossShardTransferCoordinator getTransferCoordinator() {
+        return transferCoordinator;
+    }
+
+    public boolean isSameShard(int firstId, int secondId) {
+        return router.sameShard(firstId, secondId);
+    }
+
+    @Override
+    public Account createAccount(Account account) throws SQLException {
+        return router.shardForNewAccount().getAccountDAO().createAccount(account);
+    }
+
+    @Override
+    public Account getAccountById(int id) throws SQLException {
+        return router.shardFor(id).getAccountDAO().getAccountById(id);
+    }
+
+    @Override
+    public List<Account> getAllAccounts() throws SQLException {
+        List<List<Account>> perShard = ScatterGather.query(router, shard -> shard.getAccountDAO().getAllAccounts());
+        List<Account> accounts = new ArrayList<>();
+        perShard.forEach(accounts::addAll);
+        accounts.sort(Comparator.comparingInt(Account::getId));
+        return accounts;
+    }
+
+    @Override
+    public void scanAllAccounts(Consumer<? super Account> consumer) throws SQLException {
+        ScatterGather.query(router, shard -> {
+            shard.getAccountDAO().scanAllAccounts(consumer);
+            return null;
+        });
+    }
+
+    /**
+     * Each shard's top rows, merged: the global top N is among the union of every shard's top N.
+     */
+    @Override
+    public List<Account> getTopAccountsByBalance(int limit) throws SQLException {
+        List<List<Account>> perShard = ScatterGather.query(router, shard -> shard.getAccountDAO().getTopAccountsByBalance(limit));
+        List<Account> accounts = new ArrayList<>();
+        perShard.forEach(accounts::addAll);
+        accounts.sort(Comparator.comparing(Account::getBalance).reversed().thenComparingInt(Account::getId));
+        return accounts.size() > limit ? new ArrayList<>(accounts.subList(0, limit)) : accounts;
+    }
+
+    @Override
+    public boolean updateAccount(Account account) throws SQLException {
+        if (account == null) throw new IllegalArgumentException("Account cannot be null");
+        return router.shardFor(account.getId()).getAccountDAO().updateAccount(account);
+    }
+
+    @Override
+    public boolean deleteAccount(int id) throws SQLException {
+        return router.shardFor(id).getAccountDAO().deleteAccount(id);
+    }
+
+    @Override
+    public Connection getConnection(int accountId) throws SQLException {
+        ShardRouter.Shard shard = accountId == 0 ? router.shardForNewAccount() : router.shardFor(accountId);
+        return shard.getConnections().getConnection();
+    }
+
+    /**
+     * The id is generated by whichever shard the connection belongs to (see {@link #getConnection(int)}).
+     */
+    @Override
+    public Account createAccount(Connection connection, Account account) throws SQLException {
+        return router.getShards().get(0).getAccountDAO().createAccount(connection, account);
+    }
+
+    /**
+     * Connection-scoped calls run on a single database, so every id must live on the shard of the first one.
+     */
+    @Override
+    public Map<Integer, Account> getAccountsForUpdate(Connection connection, Collection<Integer> ids) throws SQLException {
+        return singleShard(ids).getAccountDAO().getAccountsForUpdate(connection, ids);
+    }
+
+    @Override
+    public void applyBalanceDeltas(Connection connection, Map<Integer, BigDecimal> deltas) throws SQLException {
+        if (deltas.isEmpty()) return;
+        singleShard(deltas.keySet()).getAccountDAO().applyBalanceDeltas(connection, deltas);
+    }
+
+    private ShardRouter.Shard singleShard(Collection<Integer> ids) throws SQLException {
+        ShardRouter.Shard shard = null;
+        for (int id : ids) {
+            ShardRouter.Shard owner = router.shardFor(id);
+            if (shard == null) shard = owner;
+            else if (shard != owner) {
+                throw new SQLException("Accounts " + ids + " live on different shards and cannot share one connection; "
+                        + "cross-shard transfers run through CrossShardTransferCoordinator");
+            }
+        }
+        return shard != null ? shard : router.getShards().get(0);
+    }
+}
@@ -0,0 +1,151 @@
+package com.bankingapp.dao.sharding;
+
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.model.DailyRollup;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * TransactionDAO over a set of shards. Ledger rows live on the shard of their account_id.
+ */
+public class ShardedTransactionDAO implements TransactionDAO {
+
+    private static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(Transaction::getTimestamp).thenComparingInt(Transaction::getId).reversed();
+
+    private final ShardRouter router;
+
+    public ShardedTransactionDAO(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) throws SQLException {
+        if (transaction == null) throw new IllegalArgumentException("Transaction cannot be null");
+        return router.shardFor(transaction.getAccountId()).getTransactionDAO().createTransaction(transaction);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByAccountId(int accountId) throws SQLException {
+        return router.shardFor(accountId).getTransactionDAO().getTransactionsByAccountId(accountId);
+    }
+
+    @Override
+    public TransactionBatch getTransactionBatchByAccountId(int accountId) throws SQLException {
+        return router.shardFor(accountId).getTransactionDAO().getTransactionBatchByAccountId(accountId);
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(int accountId, int limit) throws SQLException {
+        return router.shardFor(accountId).getTransactionDAO().getRecentTransactions(accountId, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsBefore(int accountId, Transaction before, int limit) throws SQLException {
+        return router.shardFor(accountId).getTransactionDAO().getTransactionsBefore(accountId, before, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsAfter(int accountId, int afterId) throws SQLException {
+        return router.shardFor(accountId).getTransactionDAO().getTransactionsAfter(accountId, afterId);
+    }
+
+    /**
+     * A transfer between shards is booked as a TRANSFER_IN row on the destination's own shard, but older ones left the
+     * only incoming row on the source's shard, so every shard is asked.
+     */
+    @Override
+    public List<Transaction> getTransactionsInvolving(int accountId, LocalDateTime since) throws SQLException {
+        List<List<Transaction>> perShard = ScatterGather.query(router, shard -> shard.getTransactionDAO().getTransactionsInvolving(accountId, since));
+        List<Transaction> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        merged.sort(NEWEST_FIRST.reversed());
+        return merged;
+    }
+
+    @Override
+    public void scanTransactionsSince(LocalDateTime since, Consumer<? super Transaction> consumer) throws SQLException {
+        ScatterGather.query(router, shard -> {
+            shard.getTransactionDAO().scanTransactionsSince(since, consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() throws SQLException {
+        List<List<Transaction>> perShard = ScatterGather.query(router, shard -> shard.getTransactionDAO().getAllTransactions());
+        List<Transaction> transactions = new ArrayList<>();
+        perShard.forEach(transactions::addAll);
+        transactions.sort(NEWEST_FIRST);
+        return transactions;
+    }
+
+    @Override
+    public void scanAllTransactions(Consumer<? super Transaction> consumer) throws SQLException {
+        ScatterGather.query(router, shard -> {
+            shard.getTransactionDAO().scanAllTransactions(consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public void createTransactions(Connection connection, List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) return;
+        ShardRouter.Shard shard = router.shardFor(transactions.get(0).getAccountId());
+        for (Transaction t : transactions) {
+            if (router.shardFor(t.getAccountId()) != shard) {
+                throw new SQLException("Ledger rows of accounts " + transactions.get(0).getAccountId() + " and "
+                        + t.getAccountId() + " live on different shards and cannot share one connection");
+            }
+        }
+        shard.getTransactionDAO().createTransactions(connection, transactions);
+    }
+
+    /**
+     * A transfer's TRANSFER_IN rollup is kept on the shard of its source account, so every shard may hold a partial
+     * row for the day; the partials are merged.
+     */
+    @Override
+    public List<DailyRollup> getDailyRollups(int accountId, LocalDate from, LocalDate to) throws SQLException {
+        List<List<DailyRollup>> perShard = ScatterGather.query(router, shard -> shard.getTransactionDAO().getDailyRollups(accountId, from, to));
+        TreeMap<LocalDate, DailyRollup> byDay = new TreeMap<>();
+        for (List<DailyRollup> rollups : perShard) {
+            for (DailyRollup r : rollups) {
+                byDay.computeIfAbsent(r.getDay(), day -> new DailyRollup(accountId, day)).merge(r);
+            }
+        }
+        return new ArrayList<>(byDay.values());
+    }
+
+    /**
+     * Transfers booked before cross-shard sagas wrote a TRANSFER_IN leg left the only incoming row on the source's
+     * shard, so every shard is asked for its latest row.
+     */
+    @Override
+    public Transaction getLastTransactionAsOf(int accountId, LocalDateTime at) throws SQLException {
+        List<Transaction> perShard = ScatterGather.query(router, shard -> shard.getTransactionDAO().getLastTransactionAsOf(accountId, at));
+        Transaction last = null;
+        for (Transaction t : perShard) {
+            last = TransactionDAOImpl.later(last, t);
+        }
+        return last;
+    }
+
+    @Override
+    public BigDecimal balanceAsOf(int accountId, LocalDateTime at) throws SQLException {
+        Transaction last = getLastTransactionAsOf(accountId, at);
+        return last == null ? BigDecimal.ZERO : last.getBalanceAfter(accountId);
+    }
+}
@@ -0,0 +1,209 @@
+package com.bankingapp.events;
+
+import com.bankingapp.model.LedgerEvent;
+import com.bankingapp.util.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process, multi-consumer event log. Published events are appended to a bounded ring; every subscriber has its
+ * own offset into the log and its own delivery thread, so a slow consumer never delays a fast one. When the slowest
+ * subscriber is a full ring behind, publish blocks, which pushes back on the outbox relay while the events stay
+ * safely in the outbox table.
+ */
+public class EventBus implements AutoCloseable {
+
+    private final LedgerEvent[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final Condition consumed = lock.newCondition();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private long head;
+    private volatile boolean closed;
+
+    public EventBus(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.ring = new LedgerEvent[capacity];
+    }
+
+    /**
+     * Append events to the log, waiting for the slowest subscriber if the ring is full.
+     *
+     * @return offset one past the last appended event
+     */
+    public long publish(List<LedgerEvent> events) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            for (LedgerEvent event : events) {
+                while (!closed && head - slowestOffset() >= ring.length) {
+                    consumed.await();
+                }
+                if (closed) throw new IllegalStateException("Event bus is closed");
+                ring[(int) (head % ring.length)] = event;
+                head++;
+            }
+            published.signalAll();
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start delivering events to the handler on a dedicated thread, beginning with the next event published.
+     * Handler exceptions are logged and do not stop delivery.
+     */
+    public Subscription subscribe(String name, Consumer<LedgerEvent> handler) {
+        lock.lock();
+        try {
+            if (subscriptions.containsKey(name)) {
+                throw new IllegalArgumentException("Subscription already exists: " + name);
+            }
+            Subscription subscription = new Subscription(name, handler, head);
+            subscriptions.put(name, subscription);
+            subscription.thread.start();
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every subscriber has handled the events before {@code offset}, whether or not its handler threw.
+     *
+     * @throws IllegalStateException if the bus is closed first
+     */
+    public void awaitDelivered(long offset) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!closed && slowestOffset() < offset) {
+                consumed.await();
+            }
+            if (closed) throw new IllegalStateException("Event bus is closed");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHeadOffset() {
+        lock.lock();
+        try {
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            published.signalAll();
+            consumed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        subscriptions.values().forEach(s -> s.thread.interrupt());
+    }
+
+    private long slowestOffset() {
+        long min = head;
+        for (Subscription s : subscriptions.values()) {
+            min = Math.min(min, s.offset);
+        }
+        return min;
+    }
+
+    private List<LedgerEvent> await(Subscription s, int max) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!closed && !s.cancelled && s.offset >= head) {
+                published.await(1, TimeUnit.SECONDS);
+            }
+            List<LedgerEvent> batch = new ArrayList<>();
+            for (long o = s.offset; o < head && batch.size() < max; o++) {
+                batch.add(ring[(int) (o % ring.length)]);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void advance(Subscription s, int delivered) {
+        lock.lock();
+        try {
+            s.offset += delivered;
+            consumed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One consumer's position in the log.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final Thread thread;
+        private volatile long offset;
+        private volatile boolean cancelled;
+
+        private Subscription(String name, Consumer<LedgerEvent> handler, long startOffset) {
+            this.name = name;
+            this.offset = startOffset;
+            this.thread = VirtualThreads.daemonFactory("event-bus-" + name).newThread(() -> deliver(handler));
+        }
+
+        private void deliver(Consumer<LedgerEvent> handler) {
+            try {
+                while (!closed && !cancelled) {
+                    List<LedgerEvent> batch = await(this, 256);
+                    for (LedgerEvent event : batch) {
+                        try {
+                            handler.accept(event);
+                        } catch (RuntimeException e) {
+                            System.err.println("Event consumer " + name + " failed on event " + event.getId() + ": " + e.getMessage());
+                        }
+                    }
+                    if (!batch.isEmpty()) advance(this, batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLag() {
+            return getHeadOffset() - offset;
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            lock.lock();
+            try {
+                subscriptions.remove(name);
+                consumed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            thread.interrupt();
+        }
+    }
+}
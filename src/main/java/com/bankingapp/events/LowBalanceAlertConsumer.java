@@ -0,0 +1,71 @@
+package com.bankingapp.events;
+
+import com.bankingapp.email.EmailService;
+import com.bankingapp.model.LedgerEvent;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Incremental replacement for rescanning every account for low balances: reacts to each ledger event's resulting
+ * balance and alerts once when an account drops below the threshold (again only after it has recovered).
+ */
+public class LowBalanceAlertConsumer implements Consumer<LedgerEvent> {
+
+    private final BigDecimal threshold;
+    private final EmailService emailService;
+    private final Set<Integer> belowThreshold = ConcurrentHashMap.newKeySet();
+
+    public LowBalanceAlertConsumer(BigDecimal threshold, EmailService emailService) {
+        this.threshold = threshold;
+        this.emailService = emailService;
+    }
+
+    @Override
+    public void accept(LedgerEvent event) {
+        check(event.getAccountId(), event.getBalanceAfter());
+        if (event.getCounterpartyAccountId() > 0) {
+            check(event.getCounterpartyAccountId(), event.getCounterpartyBalanceAfter());
+        }
+    }
+
+    public boolean isBelowThreshold(int accountId) {
+        return belowThreshold.contains(accountId);
+    }
+
+    /**
+     * Accounts currently below the threshold, in id order.
+     */
+    public List<Integer> getBelowThreshold() {
+        List<Integer> ids = new ArrayList<>(belowThreshold);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public BigDecimal getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Check a balance read outside the event stream, such as a startup scan, to seed the accounts that were already
+     * low before any event arrived.
+     */
+    public void check(int accountId, BigDecimal balance) {
+        if (balance == null) return;
+        if (balance.compareTo(threshold) >= 0) {
+            belowThreshold.remove(accountId);
+        } else if (belowThreshold.add(accountId)) {
+            String msg = String.format("ALERT: Account id=%d has low balance: %s (minimum %s)", accountId, balance, threshold);
+            try {
+                emailService.sendEmail("account-" + accountId, "Low balance alert for account " + accountId, msg);
+            } catch (Exception e) {
+                System.err.println("Failed to send alert for account " + accountId + ": " + e.getMessage());
+            }
+        }
+    }
+}
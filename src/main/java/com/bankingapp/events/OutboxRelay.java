@@ -0,0 +1,129 @@
+package com.bankingapp.events;
+
+import com.bankingapp.dao.OutboxDAO;
+import com.bankingapp.model.LedgerEvent;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.VirtualThreads;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves committed events from the outbox table onto the {@link EventBus} in batches. Each relay reads the outbox under
+ * its own consumer name, with its position kept in the database, so every process running a relay (the console app,
+ * the HTTP service) receives every event; two relays must not share a name. A batch is recorded as delivered only
+ * after every subscriber has handled it: a crash re-delivers rather than loses, and consumers should tolerate
+ * duplicates. One batch is in flight at a time, so the relay runs at the pace of the slowest consumer.
+ * <p>
+ * The relay also moves its low-water mark over settled events about once a second, which keeps each fetch from
+ * re-reading what it already delivered, and every outbox.purgeIntervalMs deletes events older than outbox.retentionMs
+ * that every active relay has passed.
+ */
+public class OutboxRelay implements AutoCloseable {
+
+    private static final long ADVANCE_EVERY_MILLIS = 1000;
+
+    private final OutboxDAO outboxDAO;
+    private final EventBus eventBus;
+    private final String consumer;
+    private final int batchSize;
+    private final long idlePollMillis;
+    private final long settleMillis;
+    private final long retentionMillis;
+    private final long purgeIntervalMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long lastAdvance;
+    private long lastPurge;
+
+    /**
+     * Configured from outbox.* keys in config.properties.
+     */
+    public OutboxRelay(OutboxDAO outboxDAO, EventBus eventBus, String consumer) {
+        this(outboxDAO, eventBus, consumer,
+                AppConfig.getInt("outbox.relay.batchSize", 500),
+                AppConfig.getLong("outbox.relay.pollMs", 200),
+                AppConfig.getLong("outbox.relay.settleMs", 60_000),
+                AppConfig.getLong("outbox.retentionMs", 86_400_000),
+                AppConfig.getLong("outbox.purgeIntervalMs", 3_600_000));
+    }
+
+    /**
+     * @param consumer        name this relay's position is kept under, unique per process
+     * @param settleMillis    age after which an event's id is assumed final, i.e. no lower id can still commit
+     * @param retentionMillis how long events are kept; a relay idle for longer no longer holds events back
+     */
+    public OutboxRelay(OutboxDAO outboxDAO, EventBus eventBus, String consumer, int batchSize, long idlePollMillis,
+                       long settleMillis, long retentionMillis, long purgeIntervalMillis) {
+        if (retentionMillis < settleMillis) throw new IllegalArgumentException("retentionMillis must be at least settleMillis");
+        this.outboxDAO = outboxDAO;
+        this.eventBus = eventBus;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.idlePollMillis = idlePollMillis;
+        this.settleMillis = settleMillis;
+        this.retentionMillis = retentionMillis;
+        this.purgeIntervalMillis = purgeIntervalMillis;
+        this.thread = VirtualThreads.daemonFactory("outbox-relay").newThread(this::run);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Relay one batch. Returns the number of events published.
+     */
+    public int relayOnce() throws SQLException, InterruptedException {
+        List<LedgerEvent> batch = outboxDAO.fetchUndelivered(consumer, batchSize);
+        if (batch.isEmpty()) return 0;
+        eventBus.awaitDelivered(eventBus.publish(batch));
+        outboxDAO.markDelivered(consumer, batch);
+        return batch.size();
+    }
+
+    /**
+     * Move the low-water mark and purge old events when they are due.
+     */
+    void maintain() throws SQLException {
+        long now = System.currentTimeMillis();
+        // The first pass also registers the relay, so the purge waits for it from the start
+        if (lastAdvance == 0 || now - lastAdvance >= ADVANCE_EVERY_MILLIS) {
+            outboxDAO.advanceLowWater(consumer, LocalDateTime.now().minusNanos(settleMillis * 1_000_000));
+            lastAdvance = now;
+        }
+        if (purgeIntervalMillis > 0 && now - lastPurge >= purgeIntervalMillis) {
+            outboxDAO.purgeDelivered(LocalDateTime.now().minusNanos(retentionMillis * 1_000_000));
+            lastPurge = now;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                maintain();
+                // Keep draining while batches come back full; only sleep once the outbox is caught up
+                if (relayOnce() < batchSize) {
+                    Thread.sleep(idlePollMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Outbox relay error: " + e.getMessage());
+                try {
+                    Thread.sleep(idlePollMillis);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
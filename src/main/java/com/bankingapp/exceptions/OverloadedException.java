@@ -0,0 +1,11 @@
+package com.bankingapp.exceptions;
+
+/**
+ * Thrown when admission control sheds an operation instead of letting it reach the database.
+ * Unchecked so it can surface from any AccountManager call; callers should back off and retry.
+ */
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
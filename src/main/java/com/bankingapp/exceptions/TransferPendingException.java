@@ -0,0 +1,32 @@
+package com.bankingapp.exceptions;
+
+import com.bankingapp.model.Transaction;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Thrown when a cross-shard transfer has debited the source but its credit could not be confirmed. The transfer is
+ * not failed: saga recovery completes (or refunds) it in the background, so callers must not retry it.
+ */
+public class TransferPendingException extends SQLException {
+    private final String sagaId;
+    private final transient List<Transaction> committed;
+
+    public TransferPendingException(String sagaId, List<Transaction> committed, SQLException cause) {
+        super("Transfer " + sagaId + " is in progress and will complete in the background; do not retry it", cause);
+        this.sagaId = sagaId;
+        this.committed = List.copyOf(committed);
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+
+    /**
+     * Ledger rows already committed, i.e. the source debit.
+     */
+    public List<Transaction> getCommitted() {
+        return committed;
+    }
+}
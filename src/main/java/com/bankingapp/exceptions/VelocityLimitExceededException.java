@@ -0,0 +1,10 @@
+package com.bankingapp.exceptions;
+
+/**
+ * Thrown when a withdrawal or transfer breaks a velocity rule configured to reject.
+ */
+public class VelocityLimitExceededException extends RuntimeException {
+    public VelocityLimitExceededException(String message) {
+        super(message);
+    }
+}
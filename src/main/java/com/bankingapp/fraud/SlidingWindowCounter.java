@@ -0,0 +1,74 @@
+package com.bankingapp.fraud;
+
+/**
+ * Fixed-memory sliding window over a ring of time buckets. Each bucket remembers which bucket epoch it holds, so
+ * stale buckets expire lazily on read or overwrite and no background sweeping is needed. Not thread-safe; the
+ * owning {@link VelocityChecker} serializes access per account.
+ */
+final class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final long[] epochs;
+    private final long[] counts;
+    private final long[] amounts;
+
+    SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.epochs = new long[buckets];
+        this.counts = new long[buckets];
+        this.amounts = new long[buckets];
+        java.util.Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    void add(long nowMillis, long amountMinor) {
+        long epoch = nowMillis / bucketMillis;
+        int i = (int) Math.floorMod(epoch, (long) epochs.length);
+        if (epochs[i] != epoch) {
+            epochs[i] = epoch;
+            counts[i] = 0;
+            amounts[i] = 0;
+        }
+        counts[i]++;
+        amounts[i] += amountMinor;
+    }
+
+    /**
+     * Take back an {@link #add} made at {@code atMillis}; a no-op once its bucket has been reused.
+     */
+    void remove(long atMillis, long amountMinor) {
+        long epoch = atMillis / bucketMillis;
+        int i = (int) Math.floorMod(epoch, (long) epochs.length);
+        if (epochs[i] == epoch) {
+            counts[i]--;
+            amounts[i] -= amountMinor;
+        }
+    }
+
+    long count(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - epochs.length + 1;
+        long sum = 0;
+        for (int i = 0; i < epochs.length; i++) {
+            if (epochs[i] >= oldest) sum += counts[i];
+        }
+        return sum;
+    }
+
+    long amount(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - epochs.length + 1;
+        long sum = 0;
+        for (int i = 0; i < epochs.length; i++) {
+            if (epochs[i] >= oldest) sum += amounts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * True once every bucket has fallen out of the window.
+     */
+    boolean isIdle(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - epochs.length + 1;
+        for (long epoch : epochs) {
+            if (epoch >= oldest) return false;
+        }
+        return true;
+    }
+}
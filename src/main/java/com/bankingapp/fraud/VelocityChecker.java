@@ -0,0 +1,188 @@
+package com.bankingapp.fraud;
+
+import com.bankingapp.exceptions.VelocityLimitExceededException;
+import com.bankingapp.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Inline velocity checks for the transaction path. Every account gets one {@link SlidingWindowCounter} per distinct
+ * (operations, window) pair used by the rules, so memory per active account is bounded and a check is a handful of
+ * array scans with no database access. An operation is counted when it is checked, so concurrent operations see each
+ * other, and taken back through {@link Attempt#release()} if it then fails: only operations that went through count
+ * against the limits. FLAG rules still report at check time.
+ */
+public class VelocityChecker {
+
+    /**
+     * A rule that fired, delivered to the flag listener for FLAG rules.
+     */
+    public static final class Violation {
+        private final VelocityRule rule;
+        private final int accountId;
+        private final String operation;
+        private final long observed;
+
+        Violation(VelocityRule rule, int accountId, String operation, long observed) {
+            this.rule = rule;
+            this.accountId = accountId;
+            this.operation = operation;
+            this.observed = observed;
+        }
+
+        public VelocityRule getRule() {
+            return rule;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getObserved() {
+            return observed;
+        }
+
+        @Override
+        public String toString() {
+            return "Velocity rule " + rule.getName() + " hit by " + operation + " on account " + accountId
+                    + " (observed " + observed + ", limit " + rule.getThreshold() + ")";
+        }
+    }
+
+    /**
+     * An operation counted by {@link #check}; release it if the operation does not go through.
+     */
+    public interface Attempt {
+        Attempt NONE = () -> { };
+
+        void release();
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityChecker.class);
+    private static final int BUCKETS_PER_WINDOW = 60;
+    private static final int EVICT_EVERY = 4096;
+
+    private final List<VelocityRule> rules;
+    // Distinct (operations, window) pairs; a rule reads the counter of its track
+    private final List<Set<String>> trackOperations = new ArrayList<>();
+    private final List<Long> trackWindows = new ArrayList<>();
+    private final int[] ruleTrack;
+    private final Map<Integer, SlidingWindowCounter[]> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong evictionCountdown = new AtomicLong(EVICT_EVERY);
+    private final Consumer<Violation> flagListener;
+
+    /**
+     * Rules from velocity.rule.1, velocity.rule.2, ... in config.properties; flags are logged as warnings.
+     */
+    public VelocityChecker() {
+        this(rulesFromConfig(), v -> log.warn("Velocity flag: {}", v));
+    }
+
+    public VelocityChecker(List<VelocityRule> rules, Consumer<Violation> flagListener) {
+        this.rules = List.copyOf(rules);
+        this.flagListener = flagListener;
+        this.ruleTrack = new int[this.rules.size()];
+        for (int r = 0; r < this.rules.size(); r++) {
+            VelocityRule rule = this.rules.get(r);
+            int track = -1;
+            for (int t = 0; t < trackOperations.size(); t++) {
+                if (trackOperations.get(t).equals(rule.getOperations()) && trackWindows.get(t) == rule.getWindowMillis()) {
+                    track = t;
+                }
+            }
+            if (track < 0) {
+                trackOperations.add(rule.getOperations());
+                trackWindows.add(rule.getWindowMillis());
+                track = trackOperations.size() - 1;
+            }
+            ruleTrack[r] = track;
+        }
+    }
+
+    /**
+     * Evaluate the rules for one operation and record it. Throws before anything is recorded if a REJECT rule would
+     * be exceeded; FLAG rules only notify the listener.
+     */
+    public Attempt check(int accountId, String operation, BigDecimal amount) {
+        if (rules.isEmpty()) return Attempt.NONE;
+        long now = System.nanoTime() / 1_000_000;
+        long amountMinor = amount.movePointRight(2).setScale(0, java.math.RoundingMode.HALF_UP).longValue();
+        maybeEvict(now);
+        SlidingWindowCounter[] counters = accounts.computeIfAbsent(accountId, id -> newCounters());
+        List<Violation> flagged = null;
+        synchronized (counters) {
+            for (int r = 0; r < rules.size(); r++) {
+                VelocityRule rule = rules.get(r);
+                if (!rule.getOperations().contains(operation)) continue;
+                SlidingWindowCounter counter = counters[ruleTrack[r]];
+                long observed = rule.getMetric() == VelocityRule.Metric.COUNT
+                        ? counter.count(now) + 1
+                        : counter.amount(now) + amountMinor;
+                if (observed > rule.getThreshold()) {
+                    Violation v = new Violation(rule, accountId, operation, observed);
+                    if (rule.getAction() == VelocityRule.Action.REJECT) {
+                        throw new VelocityLimitExceededException(v.toString());
+                    }
+                    if (flagged == null) flagged = new ArrayList<>(1);
+                    flagged.add(v);
+                }
+            }
+            for (int t = 0; t < counters.length; t++) {
+                if (trackOperations.get(t).contains(operation)) counters[t].add(now, amountMinor);
+            }
+        }
+        if (flagged != null) flagged.forEach(flagListener);
+        return () -> {
+            synchronized (counters) {
+                for (int t = 0; t < counters.length; t++) {
+                    if (trackOperations.get(t).contains(operation)) counters[t].remove(now, amountMinor);
+                }
+            }
+        };
+    }
+
+    public int getTrackedAccounts() {
+        return accounts.size();
+    }
+
+    private SlidingWindowCounter[] newCounters() {
+        SlidingWindowCounter[] counters = new SlidingWindowCounter[trackWindows.size()];
+        for (int t = 0; t < counters.length; t++) {
+            counters[t] = new SlidingWindowCounter(trackWindows.get(t), BUCKETS_PER_WINDOW);
+        }
+        return counters;
+    }
+
+    private void maybeEvict(long now) {
+        if (evictionCountdown.decrementAndGet() > 0) return;
+        evictionCountdown.set(EVICT_EVERY);
+        accounts.values().removeIf(counters -> {
+            synchronized (counters) {
+                for (SlidingWindowCounter c : counters) {
+                    if (!c.isIdle(now)) return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    private static List<VelocityRule> rulesFromConfig() {
+        List<VelocityRule> rules = new ArrayList<>();
+        for (int i = 1; ; i++) {
+            String spec = AppConfig.get("velocity.rule." + i);
+            if (spec == null || spec.trim().isEmpty()) break;
+            rules.add(VelocityRule.parse(spec));
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankingapp.fraud;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Declarative velocity rule, e.g. "more than 5 WITHDRAWALs per account in a minute" or "more than 10000.00 leaving an
+ * account by WITHDRAWAL or TRANSFER in an hour". Parsed from {@code name|OPS|METRIC|WINDOW|THRESHOLD|ACTION}, for
+ * example {@code burst|WITHDRAWAL|COUNT|1m|5|REJECT} or {@code outflow|WITHDRAWAL,TRANSFER|AMOUNT|1h|10000.00|FLAG}.
+ */
+public class VelocityRule {
+
+    public enum Metric { COUNT, AMOUNT }
+
+    public enum Action { REJECT, FLAG }
+
+    private final String name;
+    private final Set<String> operations;
+    private final Metric metric;
+    private final long windowMillis;
+    private final long threshold;
+    private final Action action;
+
+    /**
+     * @param threshold a count, or an amount in minor units (cents) for AMOUNT rules
+     */
+    public VelocityRule(String name, Set<String> operations, Metric metric, long windowMillis, long threshold, Action action) {
+        if (operations.isEmpty()) throw new IllegalArgumentException("Rule " + name + " must name at least one operation");
+        if (windowMillis <= 0) throw new IllegalArgumentException("Rule " + name + " window must be positive");
+        this.name = name;
+        this.operations = Collections.unmodifiableSet(new TreeSet<>(operations));
+        this.metric = metric;
+        this.windowMillis = windowMillis;
+        this.threshold = threshold;
+        this.action = action;
+    }
+
+    public static VelocityRule parse(String spec) {
+        String[] parts = spec.trim().split("\\|");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Velocity rule must be name|OPS|METRIC|WINDOW|THRESHOLD|ACTION: " + spec);
+        }
+        Set<String> ops = new TreeSet<>();
+        Arrays.stream(parts[1].split(",")).map(String::trim).map(String::toUpperCase).forEach(ops::add);
+        Metric metric = Metric.valueOf(parts[2].trim().toUpperCase());
+        long threshold = metric == Metric.COUNT
+                ? Long.parseLong(parts[4].trim())
+                : new BigDecimal(parts[4].trim()).movePointRight(2).longValueExact();
+        return new VelocityRule(parts[0].trim(), ops, metric, parseWindow(parts[3].trim()), threshold,
+                Action.valueOf(parts[5].trim().toUpperCase()));
+    }
+
+    static long parseWindow(String window) {
+        long n = Long.parseLong(window.substring(0, window.length() - 1));
+        switch (Character.toLowerCase(window.charAt(window.length() - 1))) {
+            case 's': return n * 1_000L;
+            case 'm': return n * 60_000L;
+            case 'h': return n * 3_600_000L;
+            default: throw new IllegalArgumentException("Window must end in s, m or h: " + window);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getOperations() {
+        return operations;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{" + operations + " " + metric + " > " + threshold + " per " + windowMillis + "ms -> " + action + "}";
+    }
+}
@@ -0,0 +1,562 @@
+package com.bankingapp.http;
+
+import com.bankingapp.admission.AdmissionController;
+import com.bankingapp.archive.TransactionArchive;
+import com.bankingapp.auth.Authenticator;
+import com.bankingapp.auth.PasswordHasher;
+import com.bankingapp.auth.Session;
+import com.bankingapp.auth.SessionCache;
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.CachingTransactionDAO;
+import com.bankingapp.dao.FilteredAccountDAO;
+import com.bankingapp.dao.FilteredUserDAO;
+import com.bankingapp.dao.ForwardingAccountDAO;
+import com.bankingapp.dao.IndexedAccountDAO;
+import com.bankingapp.dao.OutboxDAO;
+import com.bankingapp.dao.OutboxDAOImpl;
+import com.bankingapp.dao.StandingOrderDAOImpl;
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.dao.TieredTransactionDAO;
+import com.bankingapp.dao.UserDAO;
+import com.bankingapp.dao.UserDAOImpl;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.dao.sharding.ShardedAccountDAO;
+import com.bankingapp.dao.sharding.ShardedTransactionDAO;
+import com.bankingapp.email.ConsoleEmailService;
+import com.bankingapp.events.EventBus;
+import com.bankingapp.events.LowBalanceAlertConsumer;
+import com.bankingapp.events.OutboxRelay;
+import com.bankingapp.exceptions.AccountNotFoundException;
+import com.bankingapp.exceptions.InsufficientFundsException;
+import com.bankingapp.exceptions.OverloadedException;
+import com.bankingapp.exceptions.TransferPendingException;
+import com.bankingapp.exceptions.VelocityLimitExceededException;
+import com.bankingapp.fraud.VelocityChecker;
+import com.bankingapp.leaderboard.ActivityLeaderboard;
+import com.bankingapp.leaderboard.BalanceLeaderboard;
+import com.bankingapp.manager.AccountManager;
+import com.bankingapp.model.Account;
+import com.bankingapp.model.AccountType;
+import com.bankingapp.model.StandingOrder;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.processor.TransactionProcessor;
+import com.bankingapp.reporting.ReportGenerator;
+import com.bankingapp.scheduling.StandingOrderScheduler;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.search.OwnerSearchPage;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded HTTP/JSON front end over AccountManager, TransactionDAO and ReportGenerator, built on the JDK HttpServer.
+ * Each request runs on its own virtual thread (Java 21+) or on a platform pool, and connections are kept alive
+ * between requests.
+ *
+ * <pre>
+ * GET  /accounts                      list accounts
+ * POST /accounts                      {"ownerName": "...", "accountType": "SAVINGS"}
+ * GET  /accounts/{id}                 one account
+ * GET  /accounts/search?owner=prefix&limit=n&cursor=c
+ *                                     accounts by owner-name prefix, a page at a time
+ * POST /accounts/{id}/deposit         {"amount": 10.00}
+ * POST /accounts/{id}/withdraw        {"amount": 10.00}
+ * POST /transfers                     {"fromAccountId": 1, "toAccountId": 2, "amount": 10.00}; 202 with a saga id
+ *                                     when a cross-shard transfer is debited but still completing (do not retry)
+ * GET  /accounts/{id}/transactions    history, newest first, streamed as a chunked JSON array a page at a time
+ * GET  /accounts/{id}/recent?limit=n  newest rows, from the in-memory history cache
+ * GET  /accounts/{id}/statement       CSV statement
+ * POST   /standing-orders             {"accountId": 1, "destinationAccountId": 2, "amount": 10.00,
+ *                                     "frequency": "MONTHLY", "firstRunAt": "2026-11-01T09:00:00"}; without a
+ *                                     destination, a recurring deposit
+ * DELETE /standing-orders/{id}        cancel future runs
+ * GET  /accounts/{id}/standing-orders orders paying from or into the account
+ * GET  /leaderboards/balances?limit=n largest balances
+ * GET  /leaderboards/activity?limit=n most transactions over the activity window
+ * GET  /metrics                       per-route request latency and admission counters
+ * POST   /sessions                    {"username": "...", "password": "..."}, returns a bearer token
+ * DELETE /sessions                    sign out the bearer token
+ * </pre>
+ * Unless http.auth.required is turned off, every other route except /metrics needs an
+ * {@code Authorization: Bearer <token>} header, checked against the in-memory session cache. Accounts are not linked
+ * to users in the schema, so any signed-in user can read and move money on any account; keep the service behind a
+ * gateway that enforces ownership, and never run it with authentication off outside a trusted network.
+ */
+public class BankingHttpServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AccountManager accountManager;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final ReportGenerator reportGenerator;
+    private final Authenticator authenticator;
+    private final boolean authRequired;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private volatile BalanceLeaderboard balanceLeaderboard;
+    private volatile ActivityLeaderboard activityLeaderboard;
+    private volatile StandingOrderScheduler standingOrders;
+
+    public BankingHttpServer(InetSocketAddress address, AccountManager accountManager, AccountDAO accountDAO,
+                             TransactionDAO transactionDAO, ReportGenerator reportGenerator,
+                             Authenticator authenticator) throws IOException {
+        this.authenticator = authenticator;
+        this.authRequired = AppConfig.getBoolean("http.auth.required", true);
+        this.accountManager = accountManager;
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.reportGenerator = reportGenerator;
+        this.server = HttpServer.create(address, AppConfig.getInt("http.backlog", 1024));
+        this.executor = VirtualThreads.newExecutor("http",
+                AppConfig.getInt("http.platformThreads", 200),
+                !"platform".equalsIgnoreCase(AppConfig.get("http.executor", "virtual")));
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Manage standing orders through this scheduler; without it those routes answer 404.
+     */
+    public void setStandingOrderScheduler(StandingOrderScheduler standingOrders) {
+        this.standingOrders = standingOrders;
+    }
+
+    /**
+     * Serve /leaderboards from these boards; without them those routes answer 404.
+     */
+    public void setLeaderboards(BalanceLeaderboard balances, ActivityLeaderboard activity) {
+        this.balanceLeaderboard = balances;
+        this.activityLeaderboard = activity;
+    }
+
+    private void handle(HttpExchange exchange) {
+        long start = System.nanoTime();
+        String route = "unmatched";
+        int status;
+        // Requests of one client run on fresh threads; reads after its own writes must still see them
+        String token = bearerToken(exchange);
+        DBConnectionUtil.SessionBinding session =
+                DBConnectionUtil.bindSession(token != null ? token : exchange.getRemoteAddress().getAddress());
+        try (exchange; session) {
+            String[] segments = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            String method = exchange.getRequestMethod();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                route = routeOf(method, segments);
+                if (authRequired && needsSession(route) && authenticator.authenticate(token) == null) {
+                    exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                    status = sendJson(exchange, 401, Json.error("Sign in required"));
+                } else {
+                    status = dispatch(route, exchange, segments, body);
+                }
+            } catch (IllegalArgumentException e) {
+                status = sendJson(exchange, 400, Json.error(e.getMessage()));
+            } catch (AccountNotFoundException e) {
+                status = sendJson(exchange, 404, Json.error(e.getMessage()));
+            } catch (InsufficientFundsException e) {
+                status = sendJson(exchange, 409, Json.error(e.getMessage()));
+            } catch (VelocityLimitExceededException e) {
+                status = sendJson(exchange, 403, Json.error(e.getMessage()));
+            } catch (OverloadedException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                status = sendJson(exchange, 429, Json.error(e.getMessage()));
+            } catch (TransferPendingException e) {
+                // Debited and completing in the background: accepted, not failed, so clients do not pay twice
+                status = sendJson(exchange, 202, "{\"status\":\"PENDING\",\"sagaId\":" + Json.quote(e.getSagaId())
+                        + ",\"message\":" + Json.quote(e.getMessage()) + "}");
+            } catch (SQLException e) {
+                status = sendJson(exchange, 500, Json.error("Database error: " + e.getMessage()));
+            }
+        } catch (IOException e) {
+            // Client went away mid-response; nothing left to send
+            status = 499;
+        } catch (RuntimeException e) {
+            System.err.println("Unhandled error serving " + route + ": " + e);
+            status = 500;
+        }
+        metrics.record(route, status, System.nanoTime() - start);
+    }
+
+    private static String routeOf(String method, String[] s) {
+        if (s.length == 1 && s[0].equals("accounts")) return method + " /accounts";
+        if (s.length == 1 && s[0].equals("transfers")) return method + " /transfers";
+        if (s.length == 1 && s[0].equals("metrics")) return method + " /metrics";
+        if (s.length == 1 && s[0].equals("sessions")) return method + " /sessions";
+        if (s.length == 1 && s[0].equals("standing-orders")) return method + " /standing-orders";
+        if (s.length == 2 && s[0].equals("standing-orders")) return method + " /standing-orders/{id}";
+        if (s.length == 2 && s[0].equals("accounts") && s[1].equals("search")) return method + " /accounts/search";
+        if (s.length == 2 && s[0].equals("leaderboards")) return method + " /leaderboards/" + s[1];
+        if (s.length == 2 && s[0].equals("accounts")) return method + " /accounts/{id}";
+        if (s.length == 3 && s[0].equals("accounts")) return method + " /accounts/{id}/" + s[2];
+        return "unmatched";
+    }
+
+    private int dispatch(String route, HttpExchange ex, String[] s, String body)
+            throws IOException, SQLException, AccountNotFoundException, InsufficientFundsException {
+        switch (route) {
+            case "GET /accounts" -> {
+                List<Account> accounts = accountManager.getAllAccounts();
+                StringBuilder sb = new StringBuilder("[");
+                for (int i = 0; i < accounts.size(); i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(Json.account(accounts.get(i)));
+                }
+                return sendJson(ex, 200, sb.append(']').toString());
+            }
+            case "POST /accounts" -> {
+                Map<String, String> req = Json.parseObject(body);
+                AccountType type = AccountType.valueOf(required(req, "accountType").trim().toUpperCase());
+                Account created = accountManager.createAccount(required(req, "ownerName"), type);
+                return sendJson(ex, 201, Json.account(created));
+            }
+            case "GET /accounts/search" -> {
+                IndexedAccountDAO search = ForwardingAccountDAO.find(accountDAO, IndexedAccountDAO.class);
+                if (search == null) return sendJson(ex, 404, Json.error("Owner search is disabled"));
+                int limit = Math.min(limitParam(ex, 20), AppConfig.getInt("search.owner.maxPageSize", 100));
+                OwnerSearchPage page = search.searchByOwnerPrefix(queryParam(ex, "owner"), queryParam(ex, "cursor"), limit);
+                return sendJson(ex, 200, Json.ownerSearchPage(page));
+            }
+            case "GET /accounts/{id}" -> {
+                return sendJson(ex, 200, Json.account(requireAccount(parseId(s[1]))));
+            }
+            case "POST /accounts/{id}/deposit" -> {
+                int id = parseId(s[1]);
+                accountManager.deposit(id, amount(Json.parseObject(body)));
+                return sendJson(ex, 200, Json.account(requireAccount(id)));
+            }
+            case "POST /accounts/{id}/withdraw" -> {
+                int id = parseId(s[1]);
+                accountManager.withdraw(id, amount(Json.parseObject(body)));
+                return sendJson(ex, 200, Json.account(requireAccount(id)));
+            }
+            case "POST /transfers" -> {
+                Map<String, String> req = Json.parseObject(body);
+                int from = parseId(required(req, "fromAccountId"));
+                int to = parseId(required(req, "toAccountId"));
+                accountManager.transfer(from, to, amount(req));
+                return sendJson(ex, 200, "{\"from\":" + Json.account(requireAccount(from))
+                        + ",\"to\":" + Json.account(requireAccount(to)) + "}");
+            }
+            case "GET /accounts/{id}/transactions" -> {
+                return streamHistory(ex, parseId(s[1]));
+            }
+            case "GET /accounts/{id}/recent" -> {
+                int limit = limitParam(ex, AppConfig.getInt("history.cache.depth", 50));
+                return streamTransactions(ex, transactionDAO.getRecentTransactions(parseId(s[1]), limit));
+            }
+            case "GET /accounts/{id}/statement" -> {
+                String statement = reportGenerator.generateAccountStatement(parseId(s[1]));
+                return send(ex, 200, "text/csv; charset=utf-8", statement);
+            }
+            case "POST /sessions" -> {
+                Map<String, String> req = Json.parseObject(body);
+                Session session = authenticator.signIn(required(req, "username"), required(req, "password"));
+                if (session == null) return sendJson(ex, 401, Json.error("Invalid username or password"));
+                return sendJson(ex, 201, Json.session(session));
+            }
+            case "DELETE /sessions" -> {
+                authenticator.signOut(bearerToken(ex));
+                return send(ex, 204, "application/json; charset=utf-8", "");
+            }
+            case "POST /standing-orders" -> {
+                StandingOrderScheduler scheduler = standingOrders;
+                if (scheduler == null) return sendJson(ex, 404, Json.error("Standing orders are disabled"));
+                Map<String, String> req = Json.parseObject(body);
+                int from = requireAccount(parseId(required(req, "accountId"))).getId();
+                String destination = req.get("destinationAccountId");
+                int to = destination == null ? 0 : requireAccount(parseId(destination)).getId();
+                StandingOrder.Frequency frequency;
+                try {
+                    frequency = StandingOrder.Frequency.valueOf(required(req, "frequency").trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid frequency, expected DAILY, WEEKLY or MONTHLY");
+                }
+                LocalDateTime firstRunAt;
+                try {
+                    firstRunAt = LocalDateTime.parse(required(req, "firstRunAt").trim());
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid firstRunAt, expected e.g. 2026-11-01T09:00:00");
+                }
+                StandingOrder created = scheduler.createOrder(new StandingOrder(from, to, amount(req), frequency, firstRunAt));
+                return sendJson(ex, 201, Json.standingOrder(created));
+            }
+            case "DELETE /standing-orders/{id}" -> {
+                StandingOrderScheduler scheduler = standingOrders;
+                if (scheduler == null) return sendJson(ex, 404, Json.error("Standing orders are disabled"));
+                if (!scheduler.cancelOrder(parseId(s[1]))) {
+                    return sendJson(ex, 404, Json.error("No active standing order with ID " + s[1]));
+                }
+                return send(ex, 204, "application/json; charset=utf-8", "");
+            }
+            case "GET /accounts/{id}/standing-orders" -> {
+                StandingOrderScheduler scheduler = standingOrders;
+                if (scheduler == null) return sendJson(ex, 404, Json.error("Standing orders are disabled"));
+                List<StandingOrder> orders = scheduler.getOrdersByAccountId(parseId(s[1]));
+                StringBuilder sb = new StringBuilder("[");
+                for (int i = 0; i < orders.size(); i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(Json.standingOrder(orders.get(i)));
+                }
+                return sendJson(ex, 200, sb.append(']').toString());
+            }
+            case "GET /leaderboards/balances" -> {
+                BalanceLeaderboard board = balanceLeaderboard;
+                if (board == null) return sendJson(ex, 404, Json.error("Leaderboards are disabled"));
+                return sendJson(ex, 200, Json.balanceLeaderboard(board.top(limitParam(ex, 10))));
+            }
+            case "GET /leaderboards/activity" -> {
+                ActivityLeaderboard board = activityLeaderboard;
+                if (board == null) return sendJson(ex, 404, Json.error("Leaderboards are disabled"));
+                return sendJson(ex, 200, Json.activityLeaderboard(board.top(limitParam(ex, 10))));
+            }
+            case "GET /metrics" -> {
+                AdmissionController ac = accountManager.getAdmissionController();
+                String admission = ac == null ? "null"
+                        : "{\"admitted\":" + ac.getAdmittedCount() + ",\"shed\":" + ac.getShedCount() + "}";
+                return sendJson(ex, 200, "{\"routes\":" + metrics.toJson() + ",\"admission\":" + admission + "}");
+            }
+            default -> {
+                return sendJson(ex, 404, Json.error("No route for " + ex.getRequestMethod() + " " + ex.getRequestURI().getPath()));
+            }
+        }
+    }
+
+    /**
+     * Writes the account's history as a chunked JSON array, reading it in keyset pages of http.history.pageSize rows,
+     * so memory stays bounded by one page however long the history and no connection is held while the client reads.
+     * A read failing after the first page truncates the array.
+     */
+    private int streamHistory(HttpExchange ex, int accountId) throws IOException, SQLException {
+        int pageSize = AppConfig.getInt("http.history.pageSize", 500);
+        // The first page is read before the headers go out, so a failure there still gets an error status
+        List<Transaction> page = transactionDAO.getTransactionsBefore(accountId, null, pageSize);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 8192)) {
+            out.write('[');
+            boolean first = true;
+            while (true) {
+                for (Transaction t : page) {
+                    if (!first) out.write(',');
+                    out.write(Json.transaction(t));
+                    first = false;
+                }
+                if (page.size() < pageSize) break;
+                out.flush();
+                page = transactionDAO.getTransactionsBefore(accountId, page.get(page.size() - 1), pageSize);
+            }
+            out.write(']');
+        }
+        return 200;
+    }
+
+    /**
+     * Writes the rows as a chunked JSON array so the client starts receiving rows before the last one is encoded.
+     */
+    private static int streamTransactions(HttpExchange ex, List<Transaction> transactions) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 8192)) {
+            out.write('[');
+            for (int i = 0; i < transactions.size(); i++) {
+                if (i > 0) out.write(',');
+                out.write(Json.transaction(transactions.get(i)));
+            }
+            out.write(']');
+        }
+        return 200;
+    }
+
+    private static boolean needsSession(String route) {
+        return !route.equals("POST /sessions") && !route.equals("GET /metrics");
+    }
+
+    /**
+     * Token of an {@code Authorization: Bearer} header, or null.
+     */
+    private static String bearerToken(HttpExchange ex) {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    private Account requireAccount(int id) throws SQLException, AccountNotFoundException {
+        Account account = accountDAO.getAccountById(id);
+        if (account == null) {
+            throw new AccountNotFoundException("Account with ID " + id + " not found.");
+        }
+        return account;
+    }
+
+    private static String required(Map<String, String> req, String field) {
+        String value = req.get(field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value;
+    }
+
+    private static BigDecimal amount(Map<String, String> req) {
+        try {
+            return new BigDecimal(required(req, "amount").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+    }
+
+    /**
+     * The positive {@code limit} query parameter, or the default when absent.
+     */
+    private static int limitParam(HttpExchange ex, int defaultLimit) {
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null) return defaultLimit;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith("limit=")) {
+                try {
+                    int limit = Integer.parseInt(pair.substring("limit=".length()));
+                    if (limit > 0) return limit;
+                } catch (NumberFormatException ignored) {
+                }
+                throw new IllegalArgumentException("Invalid limit: " + pair.substring("limit=".length()));
+            }
+        }
+        return defaultLimit;
+    }
+
+    /**
+     * The decoded value of a query parameter, or null when absent.
+     */
+    private static String queryParam(HttpExchange ex, String name) {
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + value);
+        }
+    }
+
+    private static int sendJson(HttpExchange ex, int status, String json) throws IOException {
+        return send(ex, status, "application/json; charset=utf-8", json);
+    }
+
+    private static int send(HttpExchange ex, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+        return status;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SchemaManager.bootstrap();
+        ShardRouter shardRouter = AppConfig.getInt("shard.count", 0) > 0 ? ShardRouter.fromConfig() : null;
+        AccountDAO accountDAO = shardRouter != null ? new ShardedAccountDAO(shardRouter) : new AccountDAOImpl();
+        if (accountDAO instanceof ShardedAccountDAO sharded) {
+            sharded.getTransferCoordinator().start();
+        }
+        if (AppConfig.getBoolean("search.owner.enabled", true)) {
+            accountDAO = new IndexedAccountDAO(accountDAO);
+        }
+        if (AppConfig.getBoolean("filters.accounts.enabled", true)) {
+            accountDAO = new FilteredAccountDAO(accountDAO, shardRouter != null ? shardRouter.getShards().size() : 1);
+        }
+        TransactionDAO transactionDAO = shardRouter != null ? new ShardedTransactionDAO(shardRouter) : new TransactionDAOImpl();
+        if (AppConfig.getBoolean("archive.enabled", false)) {
+            transactionDAO = new TieredTransactionDAO(transactionDAO, TransactionArchive.fromConfig());
+        }
+        if (AppConfig.getBoolean("history.cache.enabled", true)) {
+            transactionDAO = new CachingTransactionDAO(transactionDAO);
+        }
+        // Outbox events are written to the database the operation ran on, so they are only enabled unsharded
+        OutboxDAO outboxDAO = shardRouter == null && AppConfig.getBoolean("outbox.enabled", true) ? new OutboxDAOImpl() : null;
+        AccountManager accountManager = new AccountManager(accountDAO, transactionDAO, outboxDAO);
+        if (outboxDAO != null) {
+            EventBus eventBus = new EventBus(AppConfig.getInt("eventbus.capacity", 65536));
+            eventBus.subscribe("low-balance-alerts", new LowBalanceAlertConsumer(
+                    new BigDecimal(AppConfig.get("alerts.minBalance", "1000.00")), new ConsoleEmailService()));
+            new OutboxRelay(outboxDAO, eventBus, AppConfig.get("outbox.relay.consumer.http", "http")).start();
+        }
+        accountManager.setVelocityChecker(new VelocityChecker());
+        if (AppConfig.getBoolean("admission.enabled", true)) {
+            accountManager.setAdmissionController(new AdmissionController());
+        }
+        ReportGenerator reportGenerator = new ReportGenerator(transactionDAO);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : AppConfig.getInt("http.port", 8080);
+
+        UserDAO userDAO = AppConfig.getBoolean("filters.users.enabled", true) ? new FilteredUserDAO(new UserDAOImpl()) : new UserDAOImpl();
+        Authenticator authenticator = new Authenticator(userDAO, new PasswordHasher(), new SessionCache());
+
+        BankingHttpServer server = new BankingHttpServer(new InetSocketAddress(port), accountManager, accountDAO,
+                transactionDAO, reportGenerator, authenticator);
+        if (AppConfig.getBoolean("leaderboard.enabled", true)) {
+            BalanceLeaderboard balances = new BalanceLeaderboard(accountDAO);
+            ActivityLeaderboard activity = new ActivityLeaderboard();
+            accountManager.addLedgerListener(balances);
+            accountManager.addLedgerListener(activity);
+            try {
+                activity.warmUp(transactionDAO);
+            } catch (SQLException e) {
+                System.err.println("Warning: could not load recent activity for the leaderboard: " + e.getMessage());
+            }
+            server.setLeaderboards(balances, activity);
+        }
+        // Settlement runs on the primary, so standing orders are only enabled unsharded
+        if (shardRouter == null && AppConfig.getBoolean("standing.enabled", true)) {
+            StandingOrderScheduler scheduler = new StandingOrderScheduler(new StandingOrderDAOImpl(),
+                    new TransactionProcessor(accountManager, transactionDAO, accountDAO), accountManager);
+            scheduler.start();
+            server.setStandingOrderScheduler(scheduler);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+        System.out.println("Banking HTTP service listening on port " + server.getAddress().getPort()
+                + (VirtualThreads.isAvailable() ? " (virtual threads)" : " (platform threads)"));
+    }
+}
@@ -0,0 +1,224 @@
+package com.bankingapp.http;
+
+import com.bankingapp.auth.Session;
+import com.bankingapp.leaderboard.ActivityLeaderboard;
+import com.bankingapp.leaderboard.BalanceLeaderboard;
+import com.bankingapp.model.Account;
+import com.bankingapp.model.StandingOrder;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferTransaction;
+import com.bankingapp.search.OwnerSearchPage;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the HTTP front end: writing accounts/transactions and reading flat request objects.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String quote(String value) {
+        if (value == null) return "null";
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String account(Account a) {
+        return "{\"id\":" + a.getId()
+                + ",\"ownerName\":" + quote(a.getOwnerName())
+                + ",\"accountType\":" + quote(a.getAccountType().name())
+                + ",\"balance\":" + a.getBalance().toPlainString() + "}";
+    }
+
+    static String transaction(Transaction t) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"id\":").append(t.getId())
+                .append(",\"type\":").append(quote(t.getType()))
+                .append(",\"accountId\":").append(t.getAccountId());
+        if (t instanceof TransferTransaction tr) {
+            sb.append(",\"destinationAccountId\":").append(tr.getDestinationAccountId());
+        }
+        sb.append(",\"amount\":").append(t.getAmount().toPlainString())
+                .append(",\"timestamp\":").append(quote(t.getTimestamp().toString()))
+                .append('}');
+        return sb.toString();
+    }
+
+    static String session(Session s) {
+        return "{\"token\":" + quote(s.getToken())
+                + ",\"userId\":" + s.getUser().getId()
+                + ",\"username\":" + quote(s.getUser().getUsername())
+                + ",\"expiresAt\":" + quote(Instant.ofEpochMilli(s.getExpiresAtMillis()).toString()) + "}";
+    }
+
+    static String ownerSearchPage(OwnerSearchPage page) {
+        StringBuilder sb = new StringBuilder(64 + 48 * page.getMatches().size()).append("{\"matches\":[");
+        for (int i = 0; i < page.getMatches().size(); i++) {
+            OwnerSearchPage.Match m = page.getMatches().get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(m.getAccountId()).append(",\"ownerName\":").append(quote(m.getOwnerName())).append('}');
+        }
+        return sb.append("],\"nextCursor\":").append(quote(page.getNextCursor())).append('}').toString();
+    }
+
+    static String standingOrder(StandingOrder o) {
+        StringBuilder sb = new StringBuilder(192);
+        sb.append("{\"id\":").append(o.getId())
+                .append(",\"type\":").append(quote(o.getType()))
+                .append(",\"accountId\":").append(o.getAccountId());
+        if (o.getDestinationAccountId() > 0) {
+            sb.append(",\"destinationAccountId\":").append(o.getDestinationAccountId());
+        }
+        sb.append(",\"amount\":").append(o.getAmount().toPlainString())
+                .append(",\"frequency\":").append(quote(o.getFrequency().name()))
+                .append(",\"firstRunAt\":").append(quote(o.getFirstRunAt().toString()))
+                .append(",\"nextRunAt\":").append(quote(o.getNextRunAt() == null ? null : o.getNextRunAt().toString()))
+                .append('}');
+        return sb.toString();
+    }
+
+    static String balanceLeaderboard(List<BalanceLeaderboard.Entry> entries) {
+        StringBuilder sb = new StringBuilder(2 + 40 * entries.size()).append('[');
+        for (int i = 0; i < entries.size(); i++) {
+            BalanceLeaderboard.Entry e = entries.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"rank\":").append(i + 1).append(",\"id\":").append(e.getAccountId())
+                    .append(",\"balance\":").append(e.getBalance().toPlainString()).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    static String activityLeaderboard(List<ActivityLeaderboard.Entry> entries) {
+        StringBuilder sb = new StringBuilder(2 + 40 * entries.size()).append('[');
+        for (int i = 0; i < entries.size(); i++) {
+            ActivityLeaderboard.Entry e = entries.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"rank\":").append(i + 1).append(",\"id\":").append(e.getAccountId())
+                    .append(",\"transactions\":").append(e.getTransactions()).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /**
+     * Parse a flat JSON object. Nested objects and arrays are rejected; values come back as their string form.
+     */
+    static Map<String, String> parseObject(String json) {
+        Parser p = new Parser(json);
+        Map<String, String> result = p.object();
+        p.skipWhitespace();
+        if (p.pos != json.length()) throw new IllegalArgumentException("Trailing characters in JSON body");
+        return result;
+    }
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> map = new LinkedHashMap<>();
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                map.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') return map;
+                if (c != ',') throw new IllegalArgumentException("Expected ',' or '}' in JSON body");
+            }
+        }
+
+        String value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("Nested JSON values are not supported");
+            int start = pos;
+            while (pos < s.length() && ",} \t\r\n".indexOf(s.charAt(pos)) < 0) pos++;
+            String literal = s.substring(start, pos);
+            if (literal.isEmpty()) throw new IllegalArgumentException("Missing JSON value");
+            return "null".equals(literal) ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    char e = next();
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'u' -> {
+                            if (pos + 4 > s.length()) throw new IllegalArgumentException("Bad unicode escape in JSON body");
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        char peek() {
+            if (pos >= s.length()) throw new IllegalArgumentException("Unexpected end of JSON body");
+            return s.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char c) {
+            if (next() != c) throw new IllegalArgumentException("Expected '" + c + "' in JSON body");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.bankingapp.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free request latency metrics per route. Latencies go into power-of-two microsecond buckets, which is precise
+ * enough for percentiles under load testing and costs a couple of atomic adds per request.
+ */
+public class RequestMetrics {
+
+    private static final int BUCKETS = 32;
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public void record(String route, int status, long elapsedNanos) {
+        routes.computeIfAbsent(route, r -> new RouteStats()).record(status, elapsedNanos);
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, RouteStats> e : new java.util.TreeMap<>(routes).entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append(Json.quote(e.getKey())).append(':').append(e.getValue().toJson());
+        }
+        return sb.append('}').toString();
+    }
+
+    private static final class RouteStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void record(int status, long elapsedNanos) {
+            count.increment();
+            if (status >= 500) errors.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            long micros = Math.max(1, elapsedNanos / 1_000);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            histogram.incrementAndGet(bucket);
+        }
+
+        /**
+         * Upper bound (in microseconds) of the bucket containing the given percentile.
+         */
+        long percentileMicros(double p) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = histogram.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long target = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= target) return 1L << (i + 1);
+            }
+            return 1L << BUCKETS;
+        }
+
+        String toJson() {
+            long n = count.sum();
+            long avgMicros = n == 0 ? 0 : totalNanos.sum() / n / 1_000;
+            return "{\"count\":" + n
+                    + ",\"serverErrors\":" + errors.sum()
+                    + ",\"avgMicros\":" + avgMicros
+                    + ",\"p50Micros\":" + percentileMicros(0.50)
+                    + ",\"p99Micros\":" + percentileMicros(0.99)
+                    + ",\"maxMicros\":" + maxNanos.get() / 1_000 + "}";
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.bankingapp.leaderboard;
+
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.manager.LedgerListener;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferTransaction;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.IntLongHashMap;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts with the most transactions over a sliding window (leaderboard.activity.windowMinutes), counted from
+ * committed ledger rows as a {@link LedgerListener} on AccountManager. Both sides of a transfer count.
+ * <p>
+ * Counts are kept per minute in a ring of buckets tagged with the minute they hold, plus running totals per account
+ * and an ordered set over those totals, so {@link #top(int)} costs O(K). A bucket leaving the window is subtracted
+ * from the totals when the clock passes it. Rows timestamped outside the window are ignored. Activity from other
+ * processes is not seen; {@link #warmUp(TransactionDAO)} loads the window from the database at startup.
+ */
+public class ActivityLeaderboard implements LedgerListener {
+
+    /**
+     * An account and its transaction count over the window.
+     */
+    public static class Entry {
+        private final int accountId;
+        private final long transactions;
+
+        public Entry(int accountId, long transactions) {
+            this.accountId = accountId;
+            this.transactions = transactions;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        @Override
+        public String toString() {
+            return accountId + "=" + transactions;
+        }
+    }
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int size;
+    private final int windowMinutes;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // All guarded by this
+    private final long[] bucketMinutes;
+    private final IntLongHashMap[] buckets;
+    private final Map<Integer, Long> totals = new HashMap<>();
+    // Accounts by count descending then id, packed as (Integer.MAX_VALUE - count) << 32 | id
+    private final TreeSet<Long> ranked = new TreeSet<>();
+    private long advancedTo = Long.MIN_VALUE;
+    // While warming up: rows stamped before warmCut are counted once, by whichever of scan and listener sees them first
+    private LocalDateTime warmCut;
+    private Set<Integer> warmSeen;
+
+    /**
+     * Configured from leaderboard.* keys in config.properties.
+     */
+    public ActivityLeaderboard() {
+        this(AppConfig.getInt("leaderboard.size", 100), AppConfig.getInt("leaderboard.activity.windowMinutes", 60));
+    }
+
+    public ActivityLeaderboard(int size, int windowMinutes) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if (windowMinutes <= 0) throw new IllegalArgumentException("windowMinutes must be positive");
+        this.size = size;
+        this.windowMinutes = windowMinutes;
+        this.bucketMinutes = new long[windowMinutes];
+        this.buckets = new IntLongHashMap[windowMinutes];
+        Arrays.fill(bucketMinutes, Long.MIN_VALUE);
+    }
+
+    /**
+     * Count the rows already in the window. Call once, after registering as a listener, so rows committed during the
+     * scan are neither lost nor counted twice.
+     */
+    public void warmUp(TransactionDAO transactionDAO) throws SQLException {
+        LocalDateTime cut = LocalDateTime.now(zone);
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        synchronized (this) {
+            warmCut = cut;
+            warmSeen = seen;
+        }
+        try {
+            transactionDAO.scanTransactionsSince(cut.minusMinutes(windowMinutes), t -> {
+                if (!t.getTimestamp().isBefore(cut)) return;
+                synchronized (this) {
+                    if (seen.add(t.getId())) record(t);
+                }
+            });
+        } finally {
+            synchronized (this) {
+                warmCut = null;
+                warmSeen = null;
+            }
+        }
+    }
+
+    /**
+     * The k (at most size) most active accounts over the window, most active first.
+     */
+    public synchronized List<Entry> top(int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive");
+        advance(System.currentTimeMillis() / MINUTE_MILLIS);
+        int limit = Math.min(k, size);
+        List<Entry> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (long packed : ranked) {
+            if (result.size() == limit) break;
+            result.add(new Entry((int) packed, Integer.MAX_VALUE - (packed >>> 32)));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void committed(List<? extends Transaction> transactions) {
+        for (Transaction t : transactions) {
+            if (warmSeen != null && t.getId() > 0 && t.getTimestamp().isBefore(warmCut) && !warmSeen.add(t.getId())) {
+                continue;
+            }
+            record(t);
+        }
+    }
+
+    private void record(Transaction t) {
+        long minute = t.getTimestamp().atZone(zone).toInstant().toEpochMilli() / MINUTE_MILLIS;
+        long now = System.currentTimeMillis() / MINUTE_MILLIS;
+        advance(now);
+        if (minute <= now - windowMinutes) return;
+        // Rows stamped slightly ahead of this clock count in the current minute
+        minute = Math.min(minute, now);
+        count(t.getAccountId(), minute);
+        if (t instanceof TransferTransaction tr) count(tr.getDestinationAccountId(), minute);
+    }
+
+    private void count(int accountId, long minute) {
+        int i = (int) Math.floorMod(minute, (long) windowMinutes);
+        if (bucketMinutes[i] != minute) {
+            bucketMinutes[i] = minute;
+            buckets[i] = new IntLongHashMap();
+        }
+        buckets[i].addTo(accountId, 1);
+        adjust(accountId, 1);
+    }
+
+    /**
+     * Subtract buckets that have left the window ending at the given minute.
+     */
+    private void advance(long now) {
+        if (now <= advancedTo) return;
+        advancedTo = now;
+        long oldest = now - windowMinutes + 1;
+        for (int i = 0; i < windowMinutes; i++) {
+            if (buckets[i] != null && bucketMinutes[i] < oldest) {
+                buckets[i].forEach((accountId, count) -> adjust(accountId, -count));
+                buckets[i] = null;
+                bucketMinutes[i] = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private void adjust(int accountId, long delta) {
+        Long old = totals.get(accountId);
+        long previous = old == null ? 0 : old;
+        if (previous > 0) ranked.remove(pack(accountId, previous));
+        long updated = previous + delta;
+        if (updated > 0) {
+            totals.put(accountId, updated);
+            ranked.add(pack(accountId, updated));
+        } else {
+            totals.remove(accountId);
+        }
+    }
+
+    private static long pack(int accountId, long count) {
+        return (Integer.MAX_VALUE - Math.min(count, Integer.MAX_VALUE)) << 32 | accountId;
+    }
+}
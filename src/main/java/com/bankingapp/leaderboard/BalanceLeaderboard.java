@@ -0,0 +1,232 @@
+package com.bankingapp.leaderboard;
+
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.manager.LedgerListener;
+import com.bankingapp.model.Account;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferTransaction;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Accounts with the largest balances, kept current from committed ledger rows (as a {@link LedgerListener} on
+ * AccountManager) so {@link #top(int)} costs O(K) and no query.
+ * <p>
+ * It tracks the top size + slack accounts, ordered by balance then id, under one invariant: every account it does not
+ * track ranks below every account it does. A tracked account whose balance drops below the lowest other tracked one
+ * is let go, because an untracked account may now outrank it; an untracked account is taken in once it outranks the
+ * lowest tracked one. When fewer than size accounts remain, the set is refilled from
+ * {@link AccountDAO#getTopAccountsByBalance(int)} in the background, and it is refreshed that way every
+ * leaderboard.balance.refreshMs as well, which picks up changes made by other processes. Rows without a recorded
+ * balance (cross-shard transfers) trigger a lookup of the account.
+ */
+public class BalanceLeaderboard implements LedgerListener {
+
+    /**
+     * An account and its balance, as last seen by the leaderboard.
+     */
+    public static class Entry {
+        private final int accountId;
+        private final BigDecimal balance;
+
+        public Entry(int accountId, BigDecimal balance) {
+            this.accountId = accountId;
+            this.balance = balance;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        @Override
+        public String toString() {
+            return accountId + "=" + balance;
+        }
+    }
+
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparing(Entry::getBalance).reversed().thenComparingInt(Entry::getAccountId);
+
+    private final AccountDAO accountDAO;
+    private final int size;
+    private final int capacity;
+    private final ScheduledExecutorService refresher =
+            Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("balance-leaderboard"));
+    private final AtomicBoolean refillQueued = new AtomicBoolean();
+
+    // All guarded by this
+    private final TreeSet<Entry> ranked = new TreeSet<>(RANKING);
+    private final Map<Integer, Entry> tracked = new HashMap<>();
+    // True when every account is tracked, so any account may enter
+    private boolean complete;
+    // Changes seen while a refill queries, applied on top of its result; null when no refill runs
+    private Map<Integer, BigDecimal> pending;
+
+    /**
+     * Configured from leaderboard.* keys in config.properties.
+     */
+    public BalanceLeaderboard(AccountDAO accountDAO) {
+        this(accountDAO,
+                AppConfig.getInt("leaderboard.size", 100),
+                AppConfig.getInt("leaderboard.balance.slack", 100),
+                AppConfig.getLong("leaderboard.balance.refreshMs", 60_000));
+    }
+
+    /**
+     * @param size      entries {@link #top(int)} can return
+     * @param slack     extra accounts tracked so that balance drops rarely force a refill
+     * @param refreshMs interval between full refreshes, 0 for refills only
+     */
+    public BalanceLeaderboard(AccountDAO accountDAO, int size, int slack, long refreshMs) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if (slack < 0) throw new IllegalArgumentException("slack must not be negative");
+        this.accountDAO = accountDAO;
+        this.size = size;
+        this.capacity = size + slack;
+        if (refreshMs > 0) {
+            refresher.scheduleWithFixedDelay(this::refillQuietly, 0, refreshMs, TimeUnit.MILLISECONDS);
+        } else {
+            queueRefill();
+        }
+    }
+
+    /**
+     * The k (at most size) accounts with the largest balances, largest first. Shorter than k while a refill is
+     * catching up or when there are fewer accounts.
+     */
+    public synchronized List<Entry> top(int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive");
+        List<Entry> result = new ArrayList<>(Math.min(k, size));
+        for (Entry e : ranked) {
+            if (result.size() == Math.min(k, size)) break;
+            result.add(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void committed(List<? extends Transaction> transactions) {
+        for (Transaction t : transactions) {
+            update(t.getAccountId(), t.getBalanceAfter());
+            if (t instanceof TransferTransaction tr) {
+                update(tr.getDestinationAccountId(), tr.getDestinationBalanceAfter());
+            }
+        }
+    }
+
+    /**
+     * Record an account's new balance; null when it changed by an unknown amount, which looks the account up.
+     */
+    public void update(int accountId, BigDecimal balance) {
+        boolean refill;
+        synchronized (this) {
+            if (pending != null) pending.put(accountId, balance);
+            apply(accountId, balance);
+            refill = !complete && ranked.size() < size;
+        }
+        if (refill) queueRefill();
+        if (balance == null) {
+            refresher.execute(() -> {
+                try {
+                    Account account = accountDAO.getAccountById(accountId);
+                    if (account != null) update(accountId, account.getBalance());
+                } catch (SQLException e) {
+                    System.err.println("Warning: could not read balance of account " + accountId + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Forget a closed account.
+     */
+    public void remove(int accountId) {
+        synchronized (this) {
+            if (pending != null) pending.put(accountId, null);
+            Entry old = tracked.remove(accountId);
+            if (old != null) ranked.remove(old);
+            if (complete || ranked.size() >= size) return;
+        }
+        queueRefill();
+    }
+
+    /**
+     * Reload the tracked set from the database.
+     */
+    public void refill() throws SQLException {
+        synchronized (this) {
+            pending = new HashMap<>();
+        }
+        List<Account> top;
+        try {
+            top = accountDAO.getTopAccountsByBalance(capacity);
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            ranked.clear();
+            tracked.clear();
+            for (Account a : top) {
+                Entry e = new Entry(a.getId(), a.getBalance());
+                ranked.add(e);
+                tracked.put(a.getId(), e);
+            }
+            complete = top.size() < capacity;
+            Map<Integer, BigDecimal> changes = pending;
+            pending = null;
+            changes.forEach(this::apply);
+        }
+    }
+
+    private void apply(int accountId, BigDecimal balance) {
+        Entry old = tracked.remove(accountId);
+        if (old != null) ranked.remove(old);
+        if (balance == null) {
+            // Balance unknown until the lookup: an untracked account could now outrank it
+            if (old != null) complete = false;
+            return;
+        }
+        Entry e = new Entry(accountId, balance);
+        if (complete || (!ranked.isEmpty() && RANKING.compare(e, ranked.last()) < 0)) {
+            ranked.add(e);
+            tracked.put(accountId, e);
+            if (ranked.size() > capacity) {
+                tracked.remove(ranked.pollLast().getAccountId());
+                complete = false;
+            }
+        } else if (old != null) {
+            complete = false;
+        }
+    }
+
+    private void queueRefill() {
+        if (!refillQueued.compareAndSet(false, true)) return;
+        refresher.execute(() -> {
+            refillQueued.set(false);
+            refillQuietly();
+        });
+    }
+
+    private void refillQuietly() {
+        try {
+            refill();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Warning: could not refill balance leaderboard: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.bankingapp.ledgerfile;
+
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.processor.SettlementResult;
+import com.bankingapp.processor.TransactionProcessor;
+import com.bankingapp.util.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Read side of a binary ledger file, memory-mapped so rows are decoded straight from the page cache without copying
+ * the file onto the heap. Layout (little-endian):
+ * <pre>
+ * header  64 bytes: magic, version, flags, rowSize, blockRows, blockCount, rowCount (long), indexOffset (long),
+ *         indexEntries, indexCrc, createdMicros (long), headerCrc (CRC32C of the preceding 56 bytes), reserved
+ * blocks  per block: rows, CRC32C of the row bytes, then the rows; every block but the last holds blockRows rows
+ * row     32 bytes: id, account_id, destination_account_id (int), type (byte), 3 padding bytes, amount (cents, long),
+ *         timestamp (epoch micros, long), encoded as in {@link TransactionBatch}
+ * index   optional, indexEntries x (accountId, firstRow, rows) sorted by account id
+ * </pre>
+ * Rows are fixed width, so row i is found by arithmetic rather than by scanning. A block's checksum is verified the
+ * first time any of its rows is read. One mapping is limited to 2 GB, i.e. about 66 million rows per file.
+ */
+public class LedgerFile {
+
+    static final int MAGIC = 0x4C444746; // "LDGF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int HEADER_CRC_OFFSET = 56;
+    static final int BLOCK_HEADER_SIZE = 8;
+    static final int ROW_SIZE = 32;
+    static final int INDEX_ENTRY_SIZE = 12;
+    static final int FLAG_ACCOUNT_INDEX = 1;
+    static final int FLAG_ORDERED_BY_ID = 2;
+    static final long MAX_ROWS = (Integer.MAX_VALUE - HEADER_SIZE) / (ROW_SIZE + BLOCK_HEADER_SIZE);
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final int flags;
+    private final int blockRows;
+    private final int blockCount;
+    private final int rowCount;
+    private final LocalDateTime created;
+    private final int[] indexAccountIds;
+    private final int[] indexFirstRows;
+    private final int[] indexRowCounts;
+    // Benign race: two readers may both verify a block before either marks it
+    private final boolean[] verified;
+
+    private LedgerFile(Path path, ByteBuffer data, int flags, int blockRows, int blockCount, int rowCount,
+                       LocalDateTime created, int[] indexAccountIds, int[] indexFirstRows, int[] indexRowCounts) {
+        this.path = path;
+        this.data = data;
+        this.flags = flags;
+        this.blockRows = blockRows;
+        this.blockCount = blockCount;
+        this.rowCount = rowCount;
+        this.created = created;
+        this.indexAccountIds = indexAccountIds;
+        this.indexFirstRows = indexFirstRows;
+        this.indexRowCounts = indexRowCounts;
+        this.verified = new boolean[blockCount];
+    }
+
+    public static LedgerFile open(Path path) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a ledger file: " + path);
+            if (size > Integer.MAX_VALUE) throw new IOException("Ledger file larger than 2 GB: " + path);
+            // The mapping stays valid after the channel is closed
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer data = map.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.getInt(0) != MAGIC) throw new IOException("Not a ledger file: " + path);
+        int version = data.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported ledger file version " + version + ": " + path);
+        if (crc(data, 0, HEADER_CRC_OFFSET) != data.getInt(HEADER_CRC_OFFSET)) {
+            throw new IOException("Corrupt ledger file header: " + path);
+        }
+        int flags = data.getInt(8);
+        int rowSize = data.getInt(12);
+        int blockRows = data.getInt(16);
+        int blockCount = data.getInt(20);
+        long rowCount = data.getLong(24);
+        long indexOffset = data.getLong(32);
+        int indexEntries = data.getInt(40);
+        if (rowSize != ROW_SIZE || blockRows <= 0 || rowCount < 0 || rowCount > MAX_ROWS
+                || blockCount != (rowCount + blockRows - 1) / blockRows) {
+            throw new IOException("Inconsistent ledger file header: " + path);
+        }
+        long rowsEnd = HEADER_SIZE + (long) blockCount * BLOCK_HEADER_SIZE + rowCount * ROW_SIZE;
+        long indexEnd = (flags & FLAG_ACCOUNT_INDEX) != 0 ? indexOffset + (long) indexEntries * INDEX_ENTRY_SIZE : rowsEnd;
+        if (data.capacity() < rowsEnd || data.capacity() < indexEnd) throw new IOException("Truncated ledger file: " + path);
+
+        int[] accountIds = new int[0];
+        int[] firstRows = new int[0];
+        int[] rowCounts = new int[0];
+        if ((flags & FLAG_ACCOUNT_INDEX) != 0) {
+            if (crc(data, (int) indexOffset, indexEntries * INDEX_ENTRY_SIZE) != data.getInt(44)) {
+                throw new IOException("Corrupt ledger file index: " + path);
+            }
+            accountIds = new int[indexEntries];
+            firstRows = new int[indexEntries];
+            rowCounts = new int[indexEntries];
+            for (int i = 0; i < indexEntries; i++) {
+                int at = (int) indexOffset + i * INDEX_ENTRY_SIZE;
+                accountIds[i] = data.getInt(at);
+                firstRows[i] = data.getInt(at + 4);
+                rowCounts[i] = data.getInt(at + 8);
+            }
+        }
+        return new LedgerFile(path, data, flags, blockRows, blockCount, (int) rowCount,
+                TransactionBatch.fromEpochMicros(data.getLong(48)), accountIds, firstRows, rowCounts);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public boolean hasAccountIndex() {
+        return (flags & FLAG_ACCOUNT_INDEX) != 0;
+    }
+
+    /**
+     * True if rows are stored in ascending id order, i.e. the file replays in ledger order.
+     */
+    public boolean isOrderedById() {
+        return (flags & FLAG_ORDERED_BY_ID) != 0;
+    }
+
+    // ---- zero-copy row access ----
+
+    public int id(int row) {
+        return data.getInt(offset(row));
+    }
+
+    public int accountId(int row) {
+        return data.getInt(offset(row) + 4);
+    }
+
+    public int destinationAccountId(int row) {
+        return data.getInt(offset(row) + 8);
+    }
+
+    public byte type(int row) {
+        return data.get(offset(row) + 12);
+    }
+
+    public long amountMinor(int row) {
+        return data.getLong(offset(row) + 16);
+    }
+
+    public long timestampMicros(int row) {
+        return data.getLong(offset(row) + 24);
+    }
+
+    public Transaction get(int row) {
+        TransactionBatch one = new TransactionBatch(1);
+        copyRows(row, 1, one);
+        return one.get(0);
+    }
+
+    /**
+     * Decode rows [from, from + count) into a batch.
+     */
+    public TransactionBatch readBatch(int from, int count) {
+        TransactionBatch batch = new TransactionBatch(count);
+        copyRows(from, count, batch);
+        return batch;
+    }
+
+    /**
+     * One account's rows via the account index, in file order.
+     */
+    public TransactionBatch readAccount(int accountId) {
+        if (!hasAccountIndex()) throw new IllegalStateException("Ledger file has no account index: " + path);
+        int pos = Arrays.binarySearch(indexAccountIds, accountId);
+        if (pos < 0) return new TransactionBatch(1);
+        return readBatch(indexFirstRows[pos], indexRowCounts[pos]);
+    }
+
+    /**
+     * Check every block's checksum, e.g. before accepting a file received from another bank.
+     */
+    public void verify() throws IOException {
+        for (int b = 0; b < blockCount; b++) {
+            verifyBlock(b);
+        }
+    }
+
+    /**
+     * Book every row, in file order, through {@link TransactionProcessor#settleTransactions(Connection, List)}: one
+     * DB transaction per block, each row booked once with its balance after. Rows settlement refuses (malformed,
+     * unknown account) are rejected and logged; if a block's net position would overdraw an account, that block is
+     * settled again row by row so only the offending rows are rejected. Blocks committed before a database error stay
+     * committed.
+     */
+    public LedgerReplayReport replay(TransactionProcessor processor, ConnectionProvider connections)
+            throws IOException, SQLException {
+        TransactionBatch batch = new TransactionBatch(Math.min(blockRows, Math.max(1, rowCount)));
+        long applied = 0;
+        long rejected = 0;
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int b = 0; b < blockCount; b++) {
+                    verifyBlock(b);
+                    batch.clear();
+                    int from = b * blockRows;
+                    copyRows(from, Math.min(blockRows, rowCount - from), batch);
+                    List<Transaction> rows = batch.toTransactions();
+                    SettlementResult result = processor.settleTransactions(conn, rows);
+                    if (result.isCommitted()) {
+                        conn.commit();
+                        processor.publishSettled(rows, result);
+                        applied += result.getSettledCount();
+                        rejected += result.getFailures().size();
+                        continue;
+                    }
+                    conn.rollback();
+                    for (Transaction t : rows) {
+                        List<Transaction> one = List.of(t);
+                        SettlementResult single = processor.settleTransactions(conn, one);
+                        if (single.isCommitted()) {
+                            conn.commit();
+                            processor.publishSettled(one, single);
+                        } else {
+                            conn.rollback();
+                        }
+                        if (single.isCommitted() && single.getSettledCount() == 1) applied++;
+                        else rejected++;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return new LedgerReplayReport(rowCount, applied, rejected);
+    }
+
+    static long blockOffset(int block, int blockRows) {
+        return HEADER_SIZE + (long) block * (BLOCK_HEADER_SIZE + (long) blockRows * ROW_SIZE);
+    }
+
+    private void copyRows(int from, int count, TransactionBatch into) {
+        if (from < 0 || count < 0 || from + count > rowCount) {
+            throw new IndexOutOfBoundsException("Rows " + from + ".." + (from + count) + " out of bounds for size " + rowCount);
+        }
+        for (int row = from; row < from + count; row++) {
+            int at = offset(row);
+            into.add(data.getInt(at), data.getInt(at + 4), data.getInt(at + 8), data.get(at + 12),
+                    data.getLong(at + 16), data.getLong(at + 24));
+        }
+    }
+
+    private int offset(int row) {
+        if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + rowCount);
+        int block = row / blockRows;
+        if (!verified[block]) {
+            try {
+                verifyBlock(block);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        return (int) (blockOffset(block, blockRows) + BLOCK_HEADER_SIZE) + (row - block * blockRows) * ROW_SIZE;
+    }
+
+    private void verifyBlock(int block) throws IOException {
+        if (verified[block]) return;
+        int at = (int) blockOffset(block, blockRows);
+        int rows = data.getInt(at);
+        int expected = Math.min(blockRows, rowCount - block * blockRows);
+        if (rows != expected || crc(data, at + BLOCK_HEADER_SIZE, rows * ROW_SIZE) != data.getInt(at + 4)) {
+            throw new IOException("Corrupt block " + block + " in ledger file " + path);
+        }
+        verified[block] = true;
+    }
+
+    private static int crc(ByteBuffer data, int from, int length) {
+        CRC32C crc = new CRC32C();
+        // A view over the mapping, so the checksum reads the pages in place
+        crc.update(data.slice(from, length));
+        return (int) crc.getValue();
+    }
+}
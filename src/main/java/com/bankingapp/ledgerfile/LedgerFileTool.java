@@ -0,0 +1,90 @@
+package com.bankingapp.ledgerfile;
+
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.AccountDAOImpl;
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.TransactionDAOImpl;
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.dao.sharding.ShardedAccountDAO;
+import com.bankingapp.dao.sharding.ShardedTransactionDAO;
+import com.bankingapp.manager.AccountManager;
+import com.bankingapp.processor.TransactionProcessor;
+import com.bankingapp.schema.SchemaManager;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.DBConnectionUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point for ledger files:
+ * <pre>
+ * export   &lt;file&gt;                 every transaction, in id order
+ * export   &lt;file&gt; &lt;accountId&gt;...   the given accounts, with an account index
+ * verify   &lt;file&gt;
+ * import   &lt;file&gt;                 settle every row through the TransactionProcessor (unsharded only)
+ * </pre>
+ */
+public class LedgerFileTool {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: LedgerFileTool export|verify|import <file> [accountId...]");
+            return;
+        }
+        SchemaManager.bootstrap();
+        ShardRouter shardRouter = AppConfig.getInt("shard.count", 0) > 0 ? ShardRouter.fromConfig() : null;
+        AccountDAO accountDAO = shardRouter != null ? new ShardedAccountDAO(shardRouter) : new AccountDAOImpl();
+        TransactionDAO transactionDAO = shardRouter != null ? new ShardedTransactionDAO(shardRouter) : new TransactionDAOImpl();
+        Path file = Path.of(args[1]);
+        long started = System.nanoTime();
+        try {
+            switch (args[0]) {
+                case "export" -> {
+                    long rows;
+                    if (args.length > 2) {
+                        List<Integer> accountIds = new ArrayList<>();
+                        for (int i = 2; i < args.length; i++) accountIds.add(Integer.parseInt(args[i]));
+                        rows = LedgerFileWriter.exportAccounts(transactionDAO, accountIds, file);
+                    } else {
+                        rows = LedgerFileWriter.exportAll(transactionDAO, file);
+                    }
+                    System.out.printf("Exported %d transactions to %s in %d ms%n", rows, file, elapsedMs(started));
+                }
+                case "verify" -> {
+                    LedgerFile ledger = LedgerFile.open(file);
+                    ledger.verify();
+                    System.out.printf("%s: %d transactions, created %s, account index: %s, ordered by id: %s%n",
+                            file, ledger.size(), ledger.getCreated(), ledger.hasAccountIndex(), ledger.isOrderedById());
+                }
+                case "import" -> {
+                    // Each block settles in one DB transaction, which cannot span shards
+                    if (shardRouter != null) {
+                        System.err.println("Ledger file import does not support sharding; unset shard.count to replay "
+                                + "into a single database.");
+                        return;
+                    }
+                    LedgerFile ledger = LedgerFile.open(file);
+                    if (!ledger.isOrderedById()) {
+                        System.err.println("Warning: " + file + " is not in ledger order; rows are replayed as stored.");
+                    }
+                    AccountManager accountManager = new AccountManager(accountDAO, transactionDAO);
+                    TransactionProcessor processor = new TransactionProcessor(accountManager, transactionDAO, accountDAO);
+                    LedgerReplayReport report = ledger.replay(processor, DBConnectionUtil::getConnection);
+                    System.out.printf("Replayed %s: %d of %d transactions applied, %d rejected (see transaction_errors), in %d ms%n",
+                            file, report.getApplied(), report.getRows(), report.getRejected(), elapsedMs(started));
+                }
+                default -> System.err.println("Unknown command: " + args[0]);
+            }
+        } catch (SQLException | IOException | NumberFormatException e) {
+            System.err.println("Ledger file " + args[0] + " failed: " + e.getMessage());
+        }
+    }
+
+    private static long elapsedMs(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
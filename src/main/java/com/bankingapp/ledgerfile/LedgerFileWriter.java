@@ -0,0 +1,230 @@
+package com.bankingapp.ledgerfile;
+
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.model.TransferTransaction;
+import com.bankingapp.util.AppConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams rows into a ledger file (see {@link LedgerFile} for the layout). Only the block being filled is held in
+ * memory; each full block is checksummed and written out. The file is built next to the target and moved into place by
+ * {@link #finish()}, so a reader never sees a partial file. With an account index, rows must be added grouped by
+ * ascending account id.
+ */
+public class LedgerFileWriter implements AutoCloseable {
+
+    private final Path target;
+    private final Path tmp;
+    private final FileChannel channel;
+    private final int blockRows;
+    private final boolean indexed;
+    private final ByteBuffer block;
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(LedgerFile.BLOCK_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+    private final List<int[]> index = new ArrayList<>();
+
+    private long rowCount;
+    private int blockCount;
+    private int lastAccountId = Integer.MIN_VALUE;
+    private int lastId = Integer.MIN_VALUE;
+    private boolean orderedById = true;
+    private boolean finished;
+
+    public LedgerFileWriter(Path target, boolean indexed) throws IOException {
+        this(target, AppConfig.getInt("ledgerfile.blockRows", 4096), indexed);
+    }
+
+    public LedgerFileWriter(Path target, int blockRows, boolean indexed) throws IOException {
+        if (blockRows <= 0) throw new IllegalArgumentException("blockRows must be positive");
+        this.target = target;
+        this.tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.blockRows = blockRows;
+        this.indexed = indexed;
+        this.block = ByteBuffer.allocateDirect(blockRows * LedgerFile.ROW_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // Header is rewritten with the final counts once every block is out
+        writeFully(ByteBuffer.allocate(LedgerFile.HEADER_SIZE), 0);
+    }
+
+    /**
+     * Every transaction the DAO can see, in id order, without an account index. The rows are gathered in columnar
+     * form first so they can be sorted by id; scans deliver them in parallel and out of order.
+     */
+    public static long exportAll(TransactionDAO transactionDAO, Path target) throws SQLException, IOException {
+        TransactionBatch rows = new TransactionBatch(1 << 16);
+        transactionDAO.scanAllTransactions(t -> {
+            synchronized (rows) {
+                rows.add(t);
+            }
+        });
+        try (LedgerFileWriter writer = new LedgerFileWriter(target, false)) {
+            writer.addSortedById(rows);
+            writer.finish();
+            return writer.rowCount;
+        }
+    }
+
+    /**
+     * The full history of the given accounts, grouped by account id with each account oldest first, plus an account
+     * index.
+     */
+    public static long exportAccounts(TransactionDAO transactionDAO, Collection<Integer> accountIds, Path target)
+            throws SQLException, IOException {
+        int[] sorted = accountIds.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+        try (LedgerFileWriter writer = new LedgerFileWriter(target, true)) {
+            for (int accountId : sorted) {
+                writer.addSortedById(transactionDAO.getTransactionBatchByAccountId(accountId));
+            }
+            writer.finish();
+            return writer.rowCount;
+        }
+    }
+
+    public void add(Transaction t) throws IOException {
+        int destination = t instanceof TransferTransaction ? ((TransferTransaction) t).getDestinationAccountId() : 0;
+        add(t.getId(), t.getAccountId(), destination, TransactionBatch.typeCode(t.getType()),
+                TransactionBatch.toMinorUnits(t.getAmount()), TransactionBatch.toEpochMicros(t.getTimestamp()));
+    }
+
+    public void add(TransactionBatch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            addRow(batch, i);
+        }
+    }
+
+    public void add(int id, int accountId, int destinationId, byte type, long amountMinor, long timestampMicros)
+            throws IOException {
+        if (finished) throw new IllegalStateException("Ledger file already finished");
+        if (rowCount == LedgerFile.MAX_ROWS) throw new IllegalStateException("Ledger file is full");
+        if (indexed) {
+            if (accountId < lastAccountId) {
+                throw new IllegalArgumentException("Rows of an indexed ledger file must be grouped by ascending account id");
+            }
+            if (rowCount == 0 || accountId != lastAccountId) index.add(new int[] {accountId, (int) rowCount, 0});
+            index.get(index.size() - 1)[2]++;
+        }
+        if (rowCount > 0 && id <= lastId) orderedById = false;
+        lastAccountId = accountId;
+        lastId = id;
+
+        block.putInt(id).putInt(accountId).putInt(destinationId)
+                .put(type).put((byte) 0).put((byte) 0).put((byte) 0)
+                .putLong(amountMinor).putLong(timestampMicros);
+        rowCount++;
+        if (!block.hasRemaining()) flushBlock();
+    }
+
+    /**
+     * Write the index and header, force the file to disk and move it into place, replacing any older file.
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        if (block.position() > 0) flushBlock();
+        long position = LedgerFile.HEADER_SIZE + (long) blockCount * LedgerFile.BLOCK_HEADER_SIZE + rowCount * LedgerFile.ROW_SIZE;
+        long indexOffset = 0;
+        int indexCrc = 0;
+        if (indexed) {
+            ByteBuffer buf = ByteBuffer.allocate(index.size() * LedgerFile.INDEX_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int[] entry : index) {
+                buf.putInt(entry[0]).putInt(entry[1]).putInt(entry[2]);
+            }
+            buf.flip();
+            crc.reset();
+            crc.update(buf.duplicate());
+            indexCrc = (int) crc.getValue();
+            indexOffset = position;
+            writeFully(buf, position);
+        }
+        int flags = (indexed ? LedgerFile.FLAG_ACCOUNT_INDEX : 0) | (orderedById ? LedgerFile.FLAG_ORDERED_BY_ID : 0);
+        ByteBuffer header = ByteBuffer.allocate(LedgerFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LedgerFile.MAGIC)
+                .putInt(LedgerFile.VERSION)
+                .putInt(flags)
+                .putInt(LedgerFile.ROW_SIZE)
+                .putInt(blockRows)
+                .putInt(blockCount)
+                .putLong(rowCount)
+                .putLong(indexOffset)
+                .putInt(index.size())
+                .putInt(indexCrc)
+                .putLong(TransactionBatch.toEpochMicros(LocalDateTime.now()));
+        crc.reset();
+        crc.update(header.array(), 0, LedgerFile.HEADER_CRC_OFFSET);
+        header.putInt((int) crc.getValue()).putInt(0);
+        header.flip();
+        writeFully(header, 0);
+        channel.force(true);
+        channel.close();
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Abandons an unfinished file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) return;
+        channel.close();
+        Files.deleteIfExists(tmp);
+    }
+
+    private void addSortedById(TransactionBatch rows) throws IOException {
+        // (id, row) packed into one long, so a primitive sort orders the rows without boxing
+        long[] order = new long[rows.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (long) rows.id(i) << 32 | i;
+        }
+        Arrays.sort(order);
+        for (long key : order) {
+            addRow(rows, (int) key);
+        }
+    }
+
+    private void addRow(TransactionBatch batch, int i) throws IOException {
+        add(batch.id(i), batch.accountId(i), batch.destinationAccountId(i), batch.type(i), batch.amountMinor(i),
+                batch.timestampMicros(i));
+    }
+
+    private void flushBlock() throws IOException {
+        block.flip();
+        crc.reset();
+        crc.update(block.duplicate());
+        blockHeader.clear();
+        blockHeader.putInt(block.remaining() / LedgerFile.ROW_SIZE).putInt((int) crc.getValue()).flip();
+        long position = LedgerFile.blockOffset(blockCount, blockRows);
+        writeFully(blockHeader, position);
+        writeFully(block, position + LedgerFile.BLOCK_HEADER_SIZE);
+        block.clear();
+        blockCount++;
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        long at = position;
+        while (buf.hasRemaining()) {
+            at += channel.write(buf, at);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bankingapp.ledgerfile;
+
+/**
+ * Summary of one {@link LedgerFile#replay} run.
+ */
+public class LedgerReplayReport {
+    private final int rows;
+    private final long applied;
+    private final long rejected;
+
+    public LedgerReplayReport(int rows, long applied, long rejected) {
+        this.rows = rows;
+        this.applied = applied;
+        this.rejected = rejected;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    /**
+     * Rows left out; each one is logged to transaction_errors with the reason.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LedgerReplayReport{rows=%d, applied=%d, rejected=%d}", rows, applied, rejected);
+    }
+}
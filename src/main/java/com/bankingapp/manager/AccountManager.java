@@ -1,24 +1,113 @@
 package com.bankingapp.manager;
 
+import com.bankingapp.admission.AdmissionController;
 import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.ForwardingAccountDAO;
+import com.bankingapp.dao.OutboxDAO;
 import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.dao.sharding.ShardedAccountDAO;
 import com.bankingapp.exceptions.AccountNotFoundException;
 import com.bankingapp.exceptions.InsufficientFundsException;
+import com.bankingapp.exceptions.TransferPendingException;
+import com.bankingapp.fraud.VelocityChecker;
 import com.bankingapp.model.*;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Account operations. Each one runs in a single DB transaction: the touched account rows are locked, balances and
+ * the ledger row are written, and (when an OutboxDAO is configured) a ledger event is appended to the outbox, so the
+ * event exists if and only if the change committed.
+ */
 public class AccountManager {
 
     private final AccountDAO accountDAO;
     private final TransactionDAO transactionDAO;
+    private final OutboxDAO outboxDAO;
+    private AdmissionController admissionController;
+    private VelocityChecker velocityChecker;
+    private final List<LedgerListener> ledgerListeners = new CopyOnWriteArrayList<>();
 
     public AccountManager(AccountDAO accountDAO, TransactionDAO transactionDAO) {
+        this(accountDAO, transactionDAO, null);
+    }
+
+    /**
+     * @param outboxDAO receives a ledger event per operation; null disables events
+     */
+    public AccountManager(AccountDAO accountDAO, TransactionDAO transactionDAO, OutboxDAO outboxDAO) {
         this.accountDAO = accountDAO;
         this.transactionDAO = transactionDAO;
+        this.outboxDAO = outboxDAO;
+    }
+
+    public OutboxDAO getOutboxDAO() {
+        return outboxDAO;
+    }
+
+    /**
+     * Put every operation behind admission control; null disables it.
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Evaluate velocity rules on withdrawals and transfers before they reach the database; null disables them.
+     */
+    public void setVelocityChecker(VelocityChecker velocityChecker) {
+        this.velocityChecker = velocityChecker;
+    }
+
+    public void addLedgerListener(LedgerListener listener) {
+        ledgerListeners.add(listener);
+    }
+
+    /**
+     * Hand committed rows to every LedgerListener. Called after each operation here, and by writers that commit ledger
+     * rows on their own connection (e.g. TransactionProcessor settlement).
+     */
+    public void publishCommitted(List<? extends Transaction> transactions) {
+        if (transactions.isEmpty()) return;
+        for (LedgerListener listener : ledgerListeners) {
+            try {
+                listener.committed(transactions);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: ledger listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private VelocityChecker.Attempt checkVelocity(int accountId, String operation, BigDecimal amount) {
+        VelocityChecker vc = velocityChecker;
+        return vc == null ? VelocityChecker.Attempt.NONE : vc.check(accountId, operation, amount);
+    }
+
+    private AdmissionController.Permit admit() {
+        AdmissionController ac = admissionController;
+        return ac == null ? AdmissionController.NO_OP_PERMIT : ac.acquire();
+    }
+
+    /**
+     * Charge the account's own bucket before any connection is opened, so a flood on one account is shed without
+     * reaching its row lock. Only an account without a bucket yet costs a read, for the type that sizes it; a missing
+     * account is left for the operation to report.
+     */
+    private void admitAccount(int accountId) throws SQLException {
+        AdmissionController ac = admissionController;
+        if (ac == null || ac.checkKnownAccount(accountId)) return;
+        Account account = accountDAO.getAccountById(accountId);
+        if (account != null) ac.checkAccount(accountId, account.getAccountType());
     }
 
     public Account createAccount(String ownerName, AccountType type) throws SQLException {
@@ -29,46 +118,98 @@ public class AccountManager {
             throw new IllegalArgumentException("Account type must not be null");
         }
         Account account = new Account(ownerName.trim(), type);
-        return accountDAO.createAccount(account);
+        AdmissionController.Permit permit = admit();
+        try (permit; Connection connection = accountDAO.getConnection(0)) {
+            connection.setAutoCommit(false);
+            try {
+                accountDAO.createAccount(connection, account);
+                appendEvent(connection, new LedgerEvent(LedgerEvent.ACCOUNT_OPENED, account.getId(), 0, 0,
+                        BigDecimal.ZERO, account.getBalance(), null, LocalDateTime.now()));
+                connection.commit();
+                return account;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
     }
 
     public void deposit(int accountId, BigDecimal amount) throws SQLException, AccountNotFoundException {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        Account account = accountDAO.getAccountById(accountId);
-        if (account == null) {
-            throw new AccountNotFoundException("Account with ID " + accountId + " not found.");
-        }
-        BigDecimal newBalance = account.getBalance().add(amount);
-        account.setBalance(newBalance);
-        boolean updated = accountDAO.updateAccount(account);
-        if (!updated) {
-            throw new SQLException("Failed to update account balance for deposit.");
+        admitAccount(accountId);
+        AdmissionController.Permit permit = admit();
+        try (permit; Connection connection = accountDAO.getConnection(accountId)) {
+            connection.setAutoCommit(false);
+            try {
+                Account account = accountDAO.getAccountsForUpdate(connection, List.of(accountId)).get(accountId);
+                if (account == null) {
+                    throw new AccountNotFoundException("Account with ID " + accountId + " not found.");
+                }
+                BigDecimal newBalance = account.getBalance().add(amount);
+                accountDAO.applyBalanceDeltas(connection, Map.of(accountId, amount));
+                DepositTransaction depositTransaction = new DepositTransaction(accountId, amount, LocalDateTime.now());
+                depositTransaction.setBalanceAfter(newBalance);
+                transactionDAO.createTransactions(connection, List.of(depositTransaction));
+                appendEvent(connection, new LedgerEvent(depositTransaction.getType(), accountId, 0,
+                        depositTransaction.getId(), amount, newBalance, null, depositTransaction.getTimestamp()));
+                connection.commit();
+                publishCommitted(List.of(depositTransaction));
+            } catch (SQLException | AccountNotFoundException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         }
-        DepositTransaction depositTransaction = new DepositTransaction(accountId, amount, LocalDateTime.now());
-        transactionDAO.createTransaction(depositTransaction);
     }
 
     public void withdraw(int accountId, BigDecimal amount) throws SQLException, AccountNotFoundException, InsufficientFundsException {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        Account account = accountDAO.getAccountById(accountId);
-        if (account == null) {
-            throw new AccountNotFoundException("Account with ID " + accountId + " not found.");
-        }
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds in account ID " + accountId);
+        VelocityChecker.Attempt attempt = checkVelocity(accountId, "WITHDRAWAL", amount);
+        try {
+            withdrawChecked(accountId, amount);
+        } catch (SQLException | AccountNotFoundException | InsufficientFundsException | RuntimeException e) {
+            // Only operations that went through count against the velocity limits
+            attempt.release();
+            throw e;
         }
-        BigDecimal newBalance = account.getBalance().subtract(amount);
-        account.setBalance(newBalance);
-        boolean updated = accountDAO.updateAccount(account);
-        if (!updated) {
-            throw new SQLException("Failed to update account balance for withdrawal.");
+    }
+
+    private void withdrawChecked(int accountId, BigDecimal amount) throws SQLException, AccountNotFoundException, InsufficientFundsException {
+        admitAccount(accountId);
+        AdmissionController.Permit permit = admit();
+        try (permit; Connection connection = accountDAO.getConnection(accountId)) {
+            connection.setAutoCommit(false);
+            try {
+                Account account = accountDAO.getAccountsForUpdate(connection, List.of(accountId)).get(accountId);
+                if (account == null) {
+                    throw new AccountNotFoundException("Account with ID " + accountId + " not found.");
+                }
+                if (account.getBalance().compareTo(amount) < 0) {
+                    throw new InsufficientFundsException("Insufficient funds in account ID " + accountId);
+                }
+                BigDecimal newBalance = account.getBalance().subtract(amount);
+                accountDAO.applyBalanceDeltas(connection, Map.of(accountId, amount.negate()));
+                WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(accountId, amount, LocalDateTime.now());
+                withdrawalTransaction.setBalanceAfter(newBalance);
+                transactionDAO.createTransactions(connection, List.of(withdrawalTransaction));
+                appendEvent(connection, new LedgerEvent(withdrawalTransaction.getType(), accountId, 0,
+                        withdrawalTransaction.getId(), amount, newBalance, null, withdrawalTransaction.getTimestamp()));
+                connection.commit();
+                publishCommitted(List.of(withdrawalTransaction));
+            } catch (SQLException | AccountNotFoundException | InsufficientFundsException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         }
-        WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(accountId, amount, LocalDateTime.now());
-        transactionDAO.createTransaction(withdrawalTransaction);
     }
 
     public void transfer(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException, AccountNotFoundException, InsufficientFundsException {
@@ -78,48 +219,78 @@ public class AccountManager {
         if (fromAccountId == toAccountId) {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
-        Account fromAccount = accountDAO.getAccountById(fromAccountId);
-        if (fromAccount == null) {
-            throw new AccountNotFoundException("Source account with ID " + fromAccountId + " not found.");
-        }
-        Account toAccount = accountDAO.getAccountById(toAccountId);
-        if (toAccount == null) {
-            throw new AccountNotFoundException("Destination account with ID " + toAccountId + " not found.");
-        }
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds in account ID " + fromAccountId);
+        VelocityChecker.Attempt attempt = checkVelocity(fromAccountId, "TRANSFER", amount);
+        try {
+            transferChecked(fromAccountId, toAccountId, amount);
+        } catch (TransferPendingException e) {
+            // The money has moved, so it counts
+            throw e;
+        } catch (SQLException | AccountNotFoundException | InsufficientFundsException | RuntimeException e) {
+            attempt.release();
+            throw e;
         }
+    }
 
-        // Begin transaction block
-        try (var connection = accountDAO instanceof com.bankingapp.dao.AccountDAOImpl ?
-                com.bankingapp.util.DBConnectionUtil.getConnection() : null) {
-            if (connection != null) {
-                connection.setAutoCommit(false);
-            }
-            // Withdraw from source
-            fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-            boolean updatedFrom = accountDAO.updateAccount(fromAccount);
-            if (!updatedFrom) {
-                if (connection != null) connection.rollback();
-                throw new SQLException("Failed to update source account during transfer.");
+    private void transferChecked(int fromAccountId, int toAccountId, BigDecimal amount)
+            throws SQLException, AccountNotFoundException, InsufficientFundsException {
+        admitAccount(fromAccountId);
+        AdmissionController.Permit permit = admit();
+        try (permit) {
+            if (ForwardingAccountDAO.unwrap(accountDAO) instanceof ShardedAccountDAO sharded && !sharded.isSameShard(fromAccountId, toAccountId)) {
+                // The two balances live in different databases: run the durable cross-shard saga instead
+                Account fromAccount = accountDAO.getAccountById(fromAccountId);
+                if (fromAccount == null) {
+                    throw new AccountNotFoundException("Source account with ID " + fromAccountId + " not found.");
+                }
+                if (accountDAO.getAccountById(toAccountId) == null) {
+                    throw new AccountNotFoundException("Destination account with ID " + toAccountId + " not found.");
+                }
+                try {
+                    publishCommitted(sharded.getTransferCoordinator().transfer(fromAccountId, toAccountId, amount));
+                } catch (TransferPendingException e) {
+                    publishCommitted(e.getCommitted());
+                    throw e;
+                }
+                return;
             }
-            // Deposit to destination
-            toAccount.setBalance(toAccount.getBalance().add(amount));
-            boolean updatedTo = accountDAO.updateAccount(toAccount);
-            if (!updatedTo) {
-                if (connection != null) connection.rollback();
-                throw new SQLException("Failed to update destination account during transfer.");
+            try (Connection connection = accountDAO.getConnection(fromAccountId)) {
+                connection.setAutoCommit(false);
+                try {
+                    Map<Integer, Account> locked = accountDAO.getAccountsForUpdate(connection, List.of(fromAccountId, toAccountId));
+                    Account fromAccount = locked.get(fromAccountId);
+                    if (fromAccount == null) {
+                        throw new AccountNotFoundException("Source account with ID " + fromAccountId + " not found.");
+                    }
+                    Account toAccount = locked.get(toAccountId);
+                    if (toAccount == null) {
+                        throw new AccountNotFoundException("Destination account with ID " + toAccountId + " not found.");
+                    }
+                    if (fromAccount.getBalance().compareTo(amount) < 0) {
+                        throw new InsufficientFundsException("Insufficient funds in account ID " + fromAccountId);
+                    }
+                    accountDAO.applyBalanceDeltas(connection, Map.of(fromAccountId, amount.negate(), toAccountId, amount));
+                    TransferTransaction transferTransaction = new TransferTransaction(fromAccountId, toAccountId, amount, LocalDateTime.now());
+                    transferTransaction.setBalanceAfter(fromAccount.getBalance().subtract(amount));
+                    transferTransaction.setDestinationBalanceAfter(toAccount.getBalance().add(amount));
+                    transactionDAO.createTransactions(connection, List.of(transferTransaction));
+                    appendEvent(connection, new LedgerEvent(transferTransaction.getType(), fromAccountId, toAccountId,
+                            transferTransaction.getId(), amount, transferTransaction.getBalanceAfter(),
+                            transferTransaction.getDestinationBalanceAfter(), transferTransaction.getTimestamp()));
+                    connection.commit();
+                    publishCommitted(List.of(transferTransaction));
+                } catch (SQLException | AccountNotFoundException | InsufficientFundsException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
             }
-            // Create transaction record
-            TransferTransaction transferTransaction = new TransferTransaction(fromAccountId, toAccountId, amount, LocalDateTime.now());
-            transactionDAO.createTransaction(transferTransaction);
+        }
+    }
 
-            if (connection != null) {
-                connection.commit();
-                connection.setAutoCommit(true);
-            }
-        } catch (SQLException e) {
-            throw e;
+    private void appendEvent(Connection connection, LedgerEvent event) throws SQLException {
+        if (outboxDAO != null) {
+            outboxDAO.append(connection, List.of(event));
         }
     }
 
@@ -0,0 +1,165 @@
+package com.bankingapp.manager;
+
+import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.model.Account;
+import com.bankingapp.model.AccountType;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking facade over {@link AccountManager} and the DAOs. Every call runs on its own task (a virtual thread on
+ * Java 21+, a configurable platform pool on 17) and returns a {@link CompletableFuture}. A semaphore bounds how many
+ * operations touch the database at once, so thousands of in-flight calls queue cheaply instead of exhausting
+ * connections.
+ * <p>
+ * The timeout bounds the wait for a permit: an operation that gets none in time fails with {@link TimeoutException}
+ * without having touched the database. Once the JDBC call has started it is never interrupted and its future reports
+ * how it really ended, since a write abandoned mid-call can still commit. Cancelling a future likewise only stops an
+ * operation that is still waiting; cancelling one that has started leaves it running to its own outcome.
+ */
+public class AsyncAccountManager implements AutoCloseable {
+
+    @FunctionalInterface
+    private interface DbCall<T> {
+        T call() throws Exception;
+    }
+
+    private final AccountManager accountManager;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    /**
+     * Configured from async.* keys in config.properties.
+     */
+    public AsyncAccountManager(AccountManager accountManager, AccountDAO accountDAO, TransactionDAO transactionDAO) {
+        this(accountManager, accountDAO, transactionDAO,
+                VirtualThreads.newExecutor("async-account",
+                        AppConfig.getInt("async.platformThreads", 64),
+                        !"platform".equalsIgnoreCase(AppConfig.get("async.executor", "virtual"))),
+                AppConfig.getInt("async.maxConcurrency", 10),
+                AppConfig.getLong("async.timeoutMs", 30_000));
+    }
+
+    public AsyncAccountManager(AccountManager accountManager, AccountDAO accountDAO, TransactionDAO transactionDAO,
+                               ExecutorService executor, int maxConcurrency, long timeoutMillis) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency must be positive");
+        this.accountManager = accountManager;
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public CompletableFuture<Account> createAccount(String ownerName, AccountType type) {
+        return submit(() -> accountManager.createAccount(ownerName, type));
+    }
+
+    public CompletableFuture<Void> deposit(int accountId, BigDecimal amount) {
+        return submit(() -> {
+            accountManager.deposit(accountId, amount);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> withdraw(int accountId, BigDecimal amount) {
+        return submit(() -> {
+            accountManager.withdraw(accountId, amount);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
+        return submit(() -> {
+            accountManager.transfer(fromAccountId, toAccountId, amount);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Account> getAccount(int accountId) {
+        return submit(() -> accountDAO.getAccountById(accountId));
+    }
+
+    public CompletableFuture<List<Account>> getAllAccounts() {
+        return submit(accountManager::getAllAccounts);
+    }
+
+    public CompletableFuture<List<Transaction>> getTransactions(int accountId) {
+        return submit(() -> transactionDAO.getTransactionsByAccountId(accountId));
+    }
+
+    /**
+     * Number of operations currently waiting for a database permit.
+     */
+    public int getQueuedOperations() {
+        return permits.getQueueLength();
+    }
+
+    private <T> CompletableFuture<T> submit(DbCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // Claimed by whichever comes first: the task starting the call, or a cancellation interrupting the wait
+        AtomicBoolean started = new AtomicBoolean();
+        // The caller's session, so its reads after its own writes stay on the primary whichever pool thread runs them
+        Object session = DBConnectionUtil.currentSession();
+        Future<?> task = executor.submit(() -> {
+            if (result.isDone()) return;
+            boolean acquired = false;
+            try {
+                if (timeoutMillis > 0) {
+                    acquired = permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (!acquired) {
+                        result.completeExceptionally(new TimeoutException("Timed out waiting for a database permit"));
+                        return;
+                    }
+                } else {
+                    permits.acquire();
+                    acquired = true;
+                }
+                if (result.isDone() || !started.compareAndSet(false, true)) return;
+                DBConnectionUtil.SessionBinding binding = DBConnectionUtil.bindSession(session);
+                try (binding) {
+                    result.complete(call.call());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(new CancellationException("Operation interrupted"));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                if (acquired) permits.release();
+            }
+        });
+        result.whenComplete((value, error) -> {
+            // Only interrupt a task still waiting for its permit; a running JDBC call is left to finish
+            if (error instanceof CancellationException && started.compareAndSet(false, true)) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis > 0 ? timeoutMillis : 30_000, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
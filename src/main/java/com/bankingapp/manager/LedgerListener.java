@@ -0,0 +1,14 @@
+package com.bankingapp.manager;
+
+import com.bankingapp.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Told about ledger rows once the DB transaction that wrote them has committed, on the committing thread. Rows carry
+ * the balances recorded on them, or none when the writer could not know them (cross-shard transfers). Implementations
+ * must be quick and thread-safe.
+ */
+public interface LedgerListener {
+    void committed(List<? extends Transaction> transactions);
+}
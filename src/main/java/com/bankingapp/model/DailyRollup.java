@@ -0,0 +1,161 @@
+package com.bankingapp.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * One account's ledger activity on one day, as kept in account_daily_rollups: row count and amount total per kind of
+ * movement. Transfers count as TRANSFER_OUT on the source account and TRANSFER_IN on the destination.
+ */
+public class DailyRollup {
+
+    public enum Kind {
+        DEPOSIT(true),
+        WITHDRAWAL(false),
+        TRANSFER_OUT(false),
+        TRANSFER_IN(true),
+        INTEREST(true);
+
+        private final boolean credit;
+
+        Kind(boolean credit) {
+            this.credit = credit;
+        }
+
+        public boolean isCredit() {
+            return credit;
+        }
+
+        /**
+         * Column prefix in account_daily_rollups, e.g. transfer_out for transfer_out_count and transfer_out_total.
+         */
+        public String column() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * Kind of a ledger row's effect on its own account_id.
+         */
+        public static Kind ofOwnRow(String transactionType) {
+            switch (transactionType) {
+                case "DEPOSIT":
+                    return DEPOSIT;
+                case "WITHDRAWAL":
+                    return WITHDRAWAL;
+                case "TRANSFER":
+                case "TRANSFER_OUT":
+                    return TRANSFER_OUT;
+                case "TRANSFER_IN":
+                    return TRANSFER_IN;
+                case "INTEREST":
+                    return INTEREST;
+                default:
+                    throw new IllegalArgumentException("Unknown transaction type: " + transactionType);
+            }
+        }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int accountId;
+    private final LocalDate day;
+    private final long[] counts = new long[KINDS.length];
+    private final BigDecimal[] totals = new BigDecimal[KINDS.length];
+
+    public DailyRollup(int accountId, LocalDate day) {
+        this.accountId = accountId;
+        this.day = day;
+        Arrays.fill(totals, BigDecimal.ZERO);
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public long getCount(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    public BigDecimal getTotal(Kind kind) {
+        return totals[kind.ordinal()];
+    }
+
+    public void add(Kind kind, long count, BigDecimal total) {
+        counts[kind.ordinal()] += count;
+        totals[kind.ordinal()] = totals[kind.ordinal()].add(total);
+    }
+
+    /**
+     * Fold another rollup of the same account and day into this one (e.g. partial rows from several shards).
+     */
+    public void merge(DailyRollup other) {
+        for (Kind kind : KINDS) {
+            add(kind, other.getCount(kind), other.getTotal(kind));
+        }
+    }
+
+    /**
+     * Per-account, per-day rollups of the given ledger rows, ordered by account id then day.
+     */
+    public static List<DailyRollup> summarize(Collection<? extends Transaction> transactions) {
+        TreeMap<Integer, TreeMap<LocalDate, DailyRollup>> byAccount = new TreeMap<>();
+        for (Transaction t : transactions) {
+            LocalDate day = t.getTimestamp().toLocalDate();
+            rollupFor(byAccount, t.getAccountId(), day).add(Kind.ofOwnRow(t.getType()), 1, t.getAmount());
+            if (t instanceof TransferTransaction) {
+                int destination = ((TransferTransaction) t).getDestinationAccountId();
+                rollupFor(byAccount, destination, day).add(Kind.TRANSFER_IN, 1, t.getAmount());
+            }
+        }
+        List<DailyRollup> rollups = new ArrayList<>();
+        byAccount.values().forEach(days -> rollups.addAll(days.values()));
+        return rollups;
+    }
+
+    private static DailyRollup rollupFor(TreeMap<Integer, TreeMap<LocalDate, DailyRollup>> byAccount, int accountId, LocalDate day) {
+        return byAccount.computeIfAbsent(accountId, id -> new TreeMap<>())
+                .computeIfAbsent(day, d -> new DailyRollup(accountId, d));
+    }
+
+    public long getCount() {
+        long n = 0;
+        for (long c : counts) n += c;
+        return n;
+    }
+
+    public BigDecimal getCredits() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Kind kind : KINDS) {
+            if (kind.isCredit()) sum = sum.add(getTotal(kind));
+        }
+        return sum;
+    }
+
+    public BigDecimal getDebits() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Kind kind : KINDS) {
+            if (!kind.isCredit()) sum = sum.add(getTotal(kind));
+        }
+        return sum;
+    }
+
+    public BigDecimal getNet() {
+        return getCredits().subtract(getDebits());
+    }
+
+    @Override
+    public String toString() {
+        return "DailyRollup{" +
+                "accountId=" + accountId +
+                ", day=" + day +
+                ", count=" + getCount() +
+                ", credits=" + getCredits() +
+                ", debits=" + getDebits() +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package com.bankingapp.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class InterestTransaction extends Transaction {
+
+    public InterestTransaction(int id, int accountId, BigDecimal amount, LocalDateTime timestamp) {
+        super(id, accountId, amount, timestamp);
+    }
+
+    public InterestTransaction(int accountId, BigDecimal amount, LocalDateTime timestamp) {
+        super(accountId, amount, timestamp);
+    }
+
+    @Override
+    public String getType() {
+        return "INTEREST";
+    }
+}
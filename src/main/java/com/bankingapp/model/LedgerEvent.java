@@ -0,0 +1,97 @@
+package com.bankingapp.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A committed change to the ledger, as written to the outbox and delivered on the event bus.
+ * For transfers the account is the source and the counterparty the destination.
+ */
+public class LedgerEvent {
+    public static final String ACCOUNT_OPENED = "ACCOUNT_OPENED";
+
+    private long id;
+    private final String eventType;
+    private final int accountId;
+    private final int counterpartyAccountId;
+    private final int transactionId;
+    private final BigDecimal amount;
+    private final BigDecimal balanceAfter;
+    private final BigDecimal counterpartyBalanceAfter;
+    private final LocalDateTime occurredAt;
+
+    public LedgerEvent(long id, String eventType, int accountId, int counterpartyAccountId, int transactionId,
+                       BigDecimal amount, BigDecimal balanceAfter, BigDecimal counterpartyBalanceAfter,
+                       LocalDateTime occurredAt) {
+        this.id = id;
+        this.eventType = eventType;
+        this.accountId = accountId;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.transactionId = transactionId;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.counterpartyBalanceAfter = counterpartyBalanceAfter;
+        this.occurredAt = occurredAt;
+    }
+
+    public LedgerEvent(String eventType, int accountId, int counterpartyAccountId, int transactionId,
+                       BigDecimal amount, BigDecimal balanceAfter, BigDecimal counterpartyBalanceAfter,
+                       LocalDateTime occurredAt) {
+        this(0, eventType, accountId, counterpartyAccountId, transactionId, amount, balanceAfter,
+                counterpartyBalanceAfter, occurredAt);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public int getCounterpartyAccountId() {
+        return counterpartyAccountId;
+    }
+
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public BigDecimal getCounterpartyBalanceAfter() {
+        return counterpartyBalanceAfter;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEvent{" +
+                "id=" + id +
+                ", eventType='" + eventType + '\'' +
+                ", accountId=" + accountId +
+                ", counterpartyAccountId=" + counterpartyAccountId +
+                ", transactionId=" + transactionId +
+                ", amount=" + amount +
+                ", balanceAfter=" + balanceAfter +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.bankingapp.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A recurring deposit into, or transfer out of, an account, as kept in standing_orders. Runs fall on the first run
+ * plus a whole number of days, weeks or months; monthly runs keep the first run's day of month, falling back to the
+ * last day of shorter months. Times are kept to the second. A cancelled order has no next run.
+ */
+public class StandingOrder {
+
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS),
+        WEEKLY(ChronoUnit.WEEKS),
+        MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * The first run strictly after {@code after} of a schedule starting at {@code firstRun}.
+         */
+        public LocalDateTime nextRun(LocalDateTime firstRun, LocalDateTime after) {
+            if (after.isBefore(firstRun)) return firstRun;
+            // Counted from the first run rather than the previous one, so month-end clamping does not drift
+            long n = Math.max(0, unit.between(firstRun, after));
+            LocalDateTime run = firstRun.plus(n, unit);
+            while (!run.isAfter(after)) run = firstRun.plus(++n, unit);
+            return run;
+        }
+    }
+
+    private int id;
+    private final int accountId;
+    private final int destinationAccountId;
+    private final BigDecimal amount;
+    private final Frequency frequency;
+    private final LocalDateTime firstRunAt;
+    private final LocalDateTime nextRunAt;
+
+    /**
+     * @param destinationAccountId 0 for a deposit into accountId, otherwise a transfer from accountId
+     */
+    public StandingOrder(int id, int accountId, int destinationAccountId, BigDecimal amount, Frequency frequency,
+                         LocalDateTime firstRunAt, LocalDateTime nextRunAt) {
+        this.id = id;
+        this.accountId = accountId;
+        this.destinationAccountId = destinationAccountId;
+        this.amount = amount;
+        this.frequency = frequency;
+        // Stored as DATETIME, which keeps whole seconds
+        this.firstRunAt = firstRunAt.truncatedTo(ChronoUnit.SECONDS);
+        this.nextRunAt = nextRunAt == null ? null : nextRunAt.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    public StandingOrder(int accountId, int destinationAccountId, BigDecimal amount, Frequency frequency,
+                         LocalDateTime firstRunAt) {
+        this(0, accountId, destinationAccountId, amount, frequency, firstRunAt, firstRunAt);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public int getDestinationAccountId() {
+        return destinationAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public LocalDateTime getFirstRunAt() {
+        return firstRunAt;
+    }
+
+    /**
+     * The run due next, null once cancelled.
+     */
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public String getType() {
+        return destinationAccountId > 0 ? "TRANSFER" : "DEPOSIT";
+    }
+
+    /**
+     * This order with its next run moved past the current one.
+     */
+    public StandingOrder advanced() {
+        return new StandingOrder(id, accountId, destinationAccountId, amount, frequency, firstRunAt,
+                frequency.nextRun(firstRunAt, nextRunAt));
+    }
+
+    /**
+     * The ledger row one run of this order books.
+     */
+    public Transaction toTransaction(LocalDateTime timestamp) {
+        return destinationAccountId > 0
+                ? new TransferTransaction(accountId, destinationAccountId, amount, timestamp)
+                : new DepositTransaction(accountId, amount, timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "StandingOrder{" +
+                "id=" + id +
+                ", type=" + getType() +
+                ", accountId=" + accountId +
+                ", destinationAccountId=" + destinationAccountId +
+                ", amount=" + amount +
+                ", frequency=" + frequency +
+                ", nextRunAt=" + nextRunAt +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.bankingapp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one scheduled run of a standing order, as kept in standing_order_runs.
+ */
+public class StandingOrderRun {
+
+    public static final String SETTLED = "SETTLED";
+    public static final String REJECTED = "REJECTED";
+
+    private final int orderId;
+    private final LocalDateTime scheduledAt;
+    private final String status;
+    private final int transactionId;
+    private final String detail;
+
+    public StandingOrderRun(int orderId, LocalDateTime scheduledAt, String status, int transactionId, String detail) {
+        this.orderId = orderId;
+        this.scheduledAt = scheduledAt;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.detail = detail;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getScheduledAt() {
+        return scheduledAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Id of the ledger row booked, 0 when rejected.
+     */
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Why the run was rejected, null when settled.
+     */
+    public String getDetail() {
+        return detail;
+    }
+}
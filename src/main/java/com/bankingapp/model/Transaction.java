@@ -8,6 +8,8 @@ public abstract class Transaction {
     protected int accountId;
     protected BigDecimal amount;
     protected LocalDateTime timestamp;
+    // Balance of account_id right after this row; null when not recorded
+    protected BigDecimal balanceAfter;
 
     public Transaction(int id, int accountId, BigDecimal amount, LocalDateTime timestamp) {
         this.id = id;
@@ -38,6 +40,21 @@ public abstract class Transaction {
 
     public abstract String getType();
 
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    /**
+     * Balance of the given account right after this row, for an account the row moves money in or out of.
+     */
+    public BigDecimal getBalanceAfter(int accountId) {
+        return accountId == this.accountId ? balanceAfter : null;
+    }
+
     public void setId(int id) {
         this.id = id;
     }
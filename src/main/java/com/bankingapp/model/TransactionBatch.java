@@ -0,0 +1,295 @@
+package com.bankingapp.model;
+
+import com.bankingapp.util.IntLongHashMap;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar form of a set of ledger rows: one primitive array per column instead of one {@link Transaction} object
+ * (with its BigDecimal and LocalDateTime) per row. Amounts are minor units (cents) and timestamps epoch microseconds
+ * of the LocalDateTime read as UTC. Aggregates are straight loops over the arrays, which the JIT can unroll and
+ * vectorize. Row objects are only created on demand by {@link #get(int)}. Not thread-safe while being filled.
+ */
+public final class TransactionBatch {
+
+    public static final byte DEPOSIT = 0;
+    public static final byte WITHDRAWAL = 1;
+    public static final byte TRANSFER = 2;
+    public static final byte INTEREST = 3;
+    public static final byte TRANSFER_OUT = 4;
+    public static final byte TRANSFER_IN = 5;
+
+    private static final String[] TYPE_NAMES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "INTEREST", "TRANSFER_OUT", "TRANSFER_IN"};
+    // Effect of a row on its own account_id, indexed by type code
+    private static final long[] SIGN = {1, -1, -1, 1, -1, 1};
+
+    private int size;
+    private int[] ids;
+    private int[] accountIds;
+    private int[] destinationIds;
+    private byte[] types;
+    private long[] amounts;
+    private long[] timestamps;
+
+    public TransactionBatch() {
+        this(64);
+    }
+
+    public TransactionBatch(int capacity) {
+        int c = Math.max(1, capacity);
+        ids = new int[c];
+        accountIds = new int[c];
+        destinationIds = new int[c];
+        types = new byte[c];
+        amounts = new long[c];
+        timestamps = new long[c];
+    }
+
+    public static TransactionBatch of(List<? extends Transaction> transactions) {
+        TransactionBatch batch = new TransactionBatch(transactions.size());
+        for (Transaction t : transactions) {
+            batch.add(t);
+        }
+        return batch;
+    }
+
+    /**
+     * Read every remaining row of a transactions result set straight into the columns. Column positions are resolved
+     * once; destination_account_id is optional.
+     */
+    public static TransactionBatch fromResultSet(ResultSet rs) throws SQLException {
+        int idCol = rs.findColumn("id");
+        int accountCol = rs.findColumn("account_id");
+        int typeCol = rs.findColumn("type");
+        int amountCol = rs.findColumn("amount");
+        int timestampCol = rs.findColumn("timestamp");
+        int destinationCol = 0;
+        ResultSetMetaData md = rs.getMetaData();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            if ("destination_account_id".equalsIgnoreCase(md.getColumnLabel(i))) destinationCol = i;
+        }
+        TransactionBatch batch = new TransactionBatch();
+        while (rs.next()) {
+            Timestamp ts = rs.getTimestamp(timestampCol);
+            batch.add(rs.getInt(idCol),
+                    rs.getInt(accountCol),
+                    destinationCol > 0 ? rs.getInt(destinationCol) : 0,
+                    typeCode(rs.getString(typeCol)),
+                    toMinorUnits(rs.getBigDecimal(amountCol)),
+                    toEpochMicros(ts != null ? ts.toLocalDateTime() : LocalDateTime.now()));
+        }
+        return batch;
+    }
+
+    public void add(Transaction t) {
+        int destination = t instanceof TransferTransaction ? ((TransferTransaction) t).getDestinationAccountId() : 0;
+        add(t.getId(), t.getAccountId(), destination, typeCode(t.getType()), toMinorUnits(t.getAmount()),
+                toEpochMicros(t.getTimestamp()));
+    }
+
+    public void add(int id, int accountId, int destinationId, byte type, long amountMinor, long timestampMicros) {
+        if (size == ids.length) grow();
+        ids[size] = id;
+        accountIds[size] = accountId;
+        destinationIds[size] = destinationId;
+        types[size] = type;
+        amounts[size] = amountMinor;
+        timestamps[size] = timestampMicros;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drop every row but keep the arrays, so one batch can be refilled block after block.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int id(int i) {
+        return ids[check(i)];
+    }
+
+    public int accountId(int i) {
+        return accountIds[check(i)];
+    }
+
+    public int destinationAccountId(int i) {
+        return destinationIds[check(i)];
+    }
+
+    public byte type(int i) {
+        return types[check(i)];
+    }
+
+    public String typeName(int i) {
+        return TYPE_NAMES[types[check(i)]];
+    }
+
+    public long amountMinor(int i) {
+        return amounts[check(i)];
+    }
+
+    public BigDecimal amount(int i) {
+        return BigDecimal.valueOf(amounts[check(i)], 2);
+    }
+
+    public long timestampMicros(int i) {
+        return timestamps[check(i)];
+    }
+
+    public LocalDateTime timestamp(int i) {
+        return fromEpochMicros(timestamps[check(i)]);
+    }
+
+    /**
+     * Materialise row i as a model object.
+     */
+    public Transaction get(int i) {
+        check(i);
+        BigDecimal amount = BigDecimal.valueOf(amounts[i], 2);
+        LocalDateTime timestamp = fromEpochMicros(timestamps[i]);
+        switch (types[i]) {
+            case DEPOSIT:
+                return new DepositTransaction(ids[i], accountIds[i], amount, timestamp);
+            case WITHDRAWAL:
+                return new WithdrawalTransaction(ids[i], accountIds[i], amount, timestamp);
+            case TRANSFER:
+                return new TransferTransaction(ids[i], accountIds[i], destinationIds[i], amount, timestamp);
+            case TRANSFER_OUT:
+                return new TransferOutTransaction(ids[i], accountIds[i], amount, timestamp);
+            case TRANSFER_IN:
+                return new TransferInTransaction(ids[i], accountIds[i], amount, timestamp);
+            default:
+                return new InterestTransaction(ids[i], accountIds[i], amount, timestamp);
+        }
+    }
+
+    public List<Transaction> toTransactions() {
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(get(i));
+        }
+        return transactions;
+    }
+
+    // ---- aggregates ----
+
+    /**
+     * Sum of amounts of rows with the given type code, in minor units.
+     */
+    public long sumAmounts(byte type) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += types[i] == type ? amounts[i] : 0;
+        }
+        return sum;
+    }
+
+    public int count(byte type) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n += types[i] == type ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Net effect of every row on its own account_id (credits minus debits, outgoing transfers as debits), in minor units.
+     */
+    /**
+     * Effect of a row of the given type on its own account_id: 1 for a credit, -1 for a debit.
+     */
+    public static long sign(byte type) {
+        return SIGN[type];
+    }
+
+    public long signedTotal() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += SIGN[types[i]] * amounts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Net position per account in minor units, crediting transfer destinations as well as debiting sources.
+     */
+    public IntLongHashMap netPositions() {
+        IntLongHashMap net = new IntLongHashMap(size);
+        for (int i = 0; i < size; i++) {
+            net.addTo(accountIds[i], SIGN[types[i]] * amounts[i]);
+            if (types[i] == TRANSFER && destinationIds[i] > 0) net.addTo(destinationIds[i], amounts[i]);
+        }
+        return net;
+    }
+
+    public long minTimestampMicros() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, timestamps[i]);
+        }
+        return min;
+    }
+
+    public long maxTimestampMicros() {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, timestamps[i]);
+        }
+        return max;
+    }
+
+    // ---- encodings shared with the archive ----
+
+    public static byte typeCode(String type) {
+        for (byte i = 0; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equalsIgnoreCase(type)) return i;
+        }
+        throw new IllegalArgumentException("Unknown transaction type: " + type);
+    }
+
+    public static String typeName(byte code) {
+        return TYPE_NAMES[code];
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    public static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        return i;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        accountIds = Arrays.copyOf(accountIds, capacity);
+        destinationIds = Arrays.copyOf(destinationIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+}
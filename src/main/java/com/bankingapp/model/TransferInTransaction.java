@@ -0,0 +1,24 @@
+package com.bankingapp.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a transfer between accounts on different shards, booked on the shard of its own account_id. The other
+ * leg and the saga linking them live in another database, so the row names no counterparty.
+ */
+public class TransferInTransaction extends Transaction {
+
+    public TransferInTransaction(int id, int accountId, BigDecimal amount, LocalDateTime timestamp) {
+        super(id, accountId, amount, timestamp);
+    }
+
+    public TransferInTransaction(int accountId, BigDecimal amount, LocalDateTime timestamp) {
+        super(accountId, amount, timestamp);
+    }
+
+    @Override
+    public String getType() {
+        return "TRANSFER_IN";
+    }
+}
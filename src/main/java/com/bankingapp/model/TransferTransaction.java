@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 public class TransferTransaction extends Transaction {
     private int destinationAccountId;
+    private BigDecimal destinationBalanceAfter;
 
     public TransferTransaction(int id, int accountId, int destinationAccountId, BigDecimal amount, LocalDateTime timestamp) {
         super(id, accountId, amount, timestamp);
@@ -20,6 +21,19 @@ public class TransferTransaction extends Transaction {
         return destinationAccountId;
     }
 
+    public BigDecimal getDestinationBalanceAfter() {
+        return destinationBalanceAfter;
+    }
+
+    public void setDestinationBalanceAfter(BigDecimal destinationBalanceAfter) {
+        this.destinationBalanceAfter = destinationBalanceAfter;
+    }
+
+    @Override
+    public BigDecimal getBalanceAfter(int accountId) {
+        return accountId == destinationAccountId ? destinationBalanceAfter : super.getBalanceAfter(accountId);
+    }
+
     @Override
     public String getType() {
         return "TRANSFER";
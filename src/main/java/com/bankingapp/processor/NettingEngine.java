@@ -0,0 +1,56 @@
+package com.bankingapp.processor;
+
+import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransferTransaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Row-level rules of settlement netting. The netting itself runs over the columnar form, in
+ * {@link com.bankingapp.model.TransactionBatch#netPositions()}, where A->B and B->A transfers cancel out so each touched
+ * account needs at most one balance write.
+ */
+public final class NettingEngine {
+
+    private NettingEngine() {
+    }
+
+    /**
+     * Validate a single transaction before it is netted. Returns an error message, or null if it is well formed.
+     */
+    static String validate(Transaction t) {
+        if (t.getAmount() == null || t.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be positive";
+        }
+        if (t.getAmount().stripTrailingZeros().scale() > 2) {
+            return "Amount has more than two decimal places";
+        }
+        switch (t.getType()) {
+            case "DEPOSIT", "WITHDRAWAL", "INTEREST", "TRANSFER_OUT", "TRANSFER_IN" -> {
+                return null;
+            }
+            case "TRANSFER" -> {
+                if (!(t instanceof TransferTransaction tr)) {
+                    return "Malformed transfer transaction object";
+                }
+                if (tr.getAccountId() == tr.getDestinationAccountId()) {
+                    return "Cannot transfer to the same account";
+                }
+                return null;
+            }
+            default -> {
+                return "Unknown transaction type: " + t.getType();
+            }
+        }
+    }
+
+    /**
+     * Ids of every account a transaction touches (source, and destination for transfers).
+     */
+    static int[] touchedAccounts(Transaction t) {
+        if (t instanceof TransferTransaction tr) {
+            return new int[] {tr.getAccountId(), tr.getDestinationAccountId()};
+        }
+        return new int[] {t.getAccountId()};
+    }
+}
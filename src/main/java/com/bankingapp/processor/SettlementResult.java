@@ -0,0 +1,79 @@
+package com.bankingapp.processor;
+
+import com.bankingapp.model.Transaction;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of a netted settlement run.
+ */
+public class SettlementResult {
+    private final boolean committed;
+    private final int settledCount;
+    private final int rejectedCount;
+    private final int rolledBackCount;
+    private final int balanceUpdates;
+    private final Map<Transaction, String> failures;
+
+    public SettlementResult(boolean committed, int settledCount, int rejectedCount, int balanceUpdates) {
+        this(committed, settledCount, rejectedCount, balanceUpdates, Collections.emptyMap());
+    }
+
+    public SettlementResult(boolean committed, int settledCount, int rejectedCount, int balanceUpdates,
+                            Map<Transaction, String> failures) {
+        this(committed, settledCount, rejectedCount, 0, balanceUpdates, failures);
+    }
+
+    public SettlementResult(boolean committed, int settledCount, int rejectedCount, int rolledBackCount,
+                            int balanceUpdates, Map<Transaction, String> failures) {
+        this.committed = committed;
+        this.settledCount = settledCount;
+        this.rejectedCount = rejectedCount;
+        this.rolledBackCount = rolledBackCount;
+        this.balanceUpdates = balanceUpdates;
+        this.failures = failures;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Rows that would have settled but were not written because the batch was rejected as a whole; they are not in
+     * {@link #getFailures()} and can be settled again without the rejected rows.
+     */
+    public int getRolledBackCount() {
+        return rolledBackCount;
+    }
+
+    public int getBalanceUpdates() {
+        return balanceUpdates;
+    }
+
+    /**
+     * Rows left out of the settlement and why, in batch order.
+     */
+    public Map<Transaction, String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementResult{" +
+                "committed=" + committed +
+                ", settledCount=" + settledCount +
+                ", rejectedCount=" + rejectedCount +
+                ", rolledBackCount=" + rolledBackCount +
+                ", balanceUpdates=" + balanceUpdates +
+                '}';
+    }
+}
@@ -1,17 +1,19 @@
 package com.bankingapp.processor;
 
 import com.bankingapp.dao.AccountDAO;
+import com.bankingapp.dao.OutboxDAO;
 import com.bankingapp.dao.TransactionDAO;
 import com.bankingapp.manager.AccountManager;
 import com.bankingapp.model.*;
 import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.IntLongHashMap;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 
 /**
  * Processes transactions (replays them through AccountManager) and logs failures to a transaction_errors table.
@@ -21,55 +23,223 @@ public class TransactionProcessor {
     private final TransactionDAO transactionDAO;
     private final AccountDAO accountDAO;
 
-    private static final String CREATE_ERRORS_TABLE = "CREATE TABLE IF NOT EXISTS transaction_errors (" +
-            "id INT AUTO_INCREMENT PRIMARY KEY, " +
-            "transaction_type VARCHAR(50), " +
-            "details TEXT, " +
-            "error_message TEXT, " +
-            "timestamp DATETIME" +
-            ")";
-
     private static final String INSERT_ERROR_SQL = "INSERT INTO transaction_errors (transaction_type, details, error_message, timestamp) VALUES (?, ?, ?, ?)";
 
     public TransactionProcessor(AccountManager accountManager, TransactionDAO transactionDAO, AccountDAO accountDAO) {
         this.accountManager = accountManager;
         this.transactionDAO = transactionDAO;
         this.accountDAO = accountDAO;
-        try (Connection conn = DBConnectionUtil.getConnection(); Statement st = conn.createStatement()) {
-            st.executeUpdate(CREATE_ERRORS_TABLE);
-        } catch (SQLException e) {
-            System.err.println("Warning: could not create transaction_errors table: " + e.getMessage());
-        }
     }
 
     public void processTransactions(List<Transaction> transactions) {
         for (Transaction t : transactions) {
-            try {
-                // route by type
-                switch (t.getType()) {
-                    case "DEPOSIT" -> {
-                        accountManager.deposit(t.getAccountId(), t.getAmount());
-                        transactionDAO.createTransaction(t);
-                    }
-                    case "WITHDRAWAL" -> {
-                        accountManager.withdraw(t.getAccountId(), t.getAmount());
-                        transactionDAO.createTransaction(t);
+            process(t);
+        }
+    }
+
+    /**
+     * Replay a columnar batch; each row is materialised only while it is being processed.
+     */
+    public void processTransactions(TransactionBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            process(batch.get(i));
+        }
+    }
+
+    private void process(Transaction t) {
+        try {
+            // route by type
+            switch (t.getType()) {
+                case "DEPOSIT" -> {
+                    accountManager.deposit(t.getAccountId(), t.getAmount());
+                    transactionDAO.createTransaction(t);
+                }
+                case "WITHDRAWAL" -> {
+                    accountManager.withdraw(t.getAccountId(), t.getAmount());
+                    transactionDAO.createTransaction(t);
+                }
+                case "TRANSFER" -> {
+                    if (t instanceof TransferTransaction) {
+                        TransferTransaction tr = (TransferTransaction) t;
+                        accountManager.transfer(tr.getAccountId(), tr.getDestinationAccountId(), tr.getAmount());
+                        transactionDAO.createTransaction(tr);
+                    } else {
+                        throw new SQLException("Malformed transfer transaction object");
                     }
-                    case "TRANSFER" -> {
-                        if (t instanceof TransferTransaction) {
-                            TransferTransaction tr = (TransferTransaction) t;
-                            accountManager.transfer(tr.getAccountId(), tr.getDestinationAccountId(), tr.getAmount());
-                            transactionDAO.createTransaction(tr);
-                        } else {
-                            throw new SQLException("Malformed transfer transaction object");
-                        }
+                }
+                default -> throw new SQLException("Unknown transaction type: " + t.getType());
+            }
+        } catch (Exception e) {
+            logError(t, e);
+        }
+    }
+
+    /**
+     * Settlement mode: nets the whole batch per account, checks overdraft against each account's net position,
+     * then applies one balance update per touched account and writes every ledger row, all in a single DB transaction.
+     * Malformed transactions and transactions touching unknown accounts are logged and left out; if any net position
+     * would overdraw its account the whole batch is rolled back, and the valid rows that went with it are reported as
+     * rolled back rather than rejected.
+     */
+    public SettlementResult settleTransactions(TransactionBatch batch) {
+        return settleTransactions(batch.toTransactions());
+    }
+
+    public SettlementResult settleTransactions(List<Transaction> transactions) {
+        try (Connection conn = DBConnectionUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                SettlementResult result = settleTransactions(conn, transactions);
+                if (result.isCommitted()) {
+                    conn.commit();
+                    publishSettled(transactions, result);
+                } else {
+                    conn.rollback();
+                    System.err.println("Warning: settlement batch rolled back; " + result.getRolledBackCount()
+                            + " valid transaction(s) were not settled because of " + result.getRejectedCount() + " rejected");
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // Malformed rows are rejected whatever happened; every valid row went back with the failed transaction
+            Map<Transaction, String> failures = new LinkedHashMap<>();
+            for (Transaction t : transactions) {
+                String error = NettingEngine.validate(t);
+                if (error != null) failures.put(t, error);
+                else logError(t, e);
+            }
+            System.err.println("Warning: settlement batch rolled back after a database error; " + (transactions.size()
+                    - failures.size()) + " valid transaction(s) were not settled: " + e.getMessage());
+            return new SettlementResult(false, 0, failures.size(), transactions.size() - failures.size(), 0, failures);
+        }
+    }
+
+    /**
+     * Settlement inside the caller's transaction, so the caller can commit other writes (e.g. an import checkpoint)
+     * atomically with the batch. Nothing is committed or rolled back here: when the result is not committed (a net
+     * position would overdraw) nothing was written, and the caller should roll back to release the row locks.
+     */
+    public SettlementResult settleTransactions(Connection conn, List<Transaction> transactions) throws SQLException {
+        Map<Transaction, String> failures = new LinkedHashMap<>();
+        List<Transaction> valid = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            String error = NettingEngine.validate(t);
+            if (error != null) {
+                logError(t, new IllegalArgumentException(error));
+                failures.put(t, error);
+            } else {
+                valid.add(t);
+            }
+        }
+        if (valid.isEmpty()) {
+            return new SettlementResult(true, 0, failures.size(), 0, failures);
+        }
+
+        Set<Integer> touched = new HashSet<>();
+        for (Transaction t : valid) {
+            for (int id : NettingEngine.touchedAccounts(t)) touched.add(id);
+        }
+
+        Map<Transaction, String> unsettled = new LinkedHashMap<>();
+        SettlementResult result;
+        Map<Integer, Account> locked = accountDAO.getAccountsForUpdate(conn, touched);
+        List<Transaction> settleable = new ArrayList<>(valid.size());
+        for (Transaction t : valid) {
+            String missing = null;
+            for (int id : NettingEngine.touchedAccounts(t)) {
+                if (!locked.containsKey(id)) missing = "Account with ID " + id + " not found.";
+            }
+            if (missing != null) unsettled.put(t, missing);
+            else settleable.add(t);
+        }
+
+        // Netting runs over the columnar form, in cents, without a BigDecimal per row
+        IntLongHashMap net = TransactionBatch.of(settleable).netPositions();
+        Set<Integer> overdrawn = new HashSet<>();
+        net.forEach((id, delta) -> {
+            if (TransactionBatch.toMinorUnits(locked.get(id).getBalance()) + delta < 0) overdrawn.add(id);
+        });
+        if (!overdrawn.isEmpty()) {
+            for (Transaction t : settleable) {
+                for (int id : NettingEngine.touchedAccounts(t)) {
+                    if (overdrawn.contains(id)) {
+                        unsettled.put(t, "Net settlement position overdraws account ID " + id);
                     }
-                    default -> throw new SQLException("Unknown transaction type: " + t.getType());
                 }
-            } catch (Exception e) {
-                logError(t, e);
+            }
+            failures.putAll(unsettled);
+            // Rows not named above were fine; they are rolled back with the batch, not rejected
+            result = new SettlementResult(false, 0, failures.size(), transactions.size() - failures.size(), 0, failures);
+        } else {
+            Map<Integer, BigDecimal> deltas = new TreeMap<>();
+            net.forEach((id, delta) -> {
+                if (delta != 0) deltas.put(id, BigDecimal.valueOf(delta, 2));
+            });
+            accountDAO.applyBalanceDeltas(conn, deltas);
+            recordBalances(settleable, locked);
+            transactionDAO.createTransactions(conn, settleable);
+            OutboxDAO outboxDAO = accountManager.getOutboxDAO();
+            if (outboxDAO != null) {
+                outboxDAO.append(conn, settlementEvents(settleable));
+            }
+            failures.putAll(unsettled);
+            result = new SettlementResult(true, settleable.size(), failures.size(), deltas.size(), failures);
+        }
+        unsettled.forEach((t, message) -> logError(t, new SQLException(message)));
+        return result;
+    }
+
+    /**
+     * After the caller has committed a {@link #settleTransactions(Connection, List)} result, publish the rows it settled.
+     */
+    public void publishSettled(List<Transaction> transactions, SettlementResult result) {
+        if (!result.isCommitted()) return;
+        List<Transaction> settled = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            if (!result.getFailures().containsKey(t)) settled.add(t);
+        }
+        accountManager.publishCommitted(settled);
+    }
+
+    /**
+     * Set each settled row's balance(s) after, replaying every account in batch order from its locked balance.
+     */
+    private static void recordBalances(List<Transaction> settled, Map<Integer, Account> locked) {
+        Map<Integer, BigDecimal> running = new HashMap<>();
+        locked.forEach((id, account) -> running.put(id, account.getBalance()));
+        for (Transaction t : settled) {
+            BigDecimal amount = t.getAmount();
+            if (t instanceof TransferTransaction tr) {
+                tr.setBalanceAfter(running.merge(tr.getAccountId(), amount.negate(), BigDecimal::add));
+                tr.setDestinationBalanceAfter(running.merge(tr.getDestinationAccountId(), amount, BigDecimal::add));
+            } else {
+                byte type = TransactionBatch.typeCode(t.getType());
+                BigDecimal signed = TransactionBatch.sign(type) < 0 ? amount.negate() : amount;
+                t.setBalanceAfter(running.merge(t.getAccountId(), signed, BigDecimal::add));
+            }
+        }
+    }
+
+    /**
+     * One ledger event per settled row, carrying the balances recorded on it.
+     */
+    private static List<LedgerEvent> settlementEvents(List<Transaction> settled) {
+        List<LedgerEvent> events = new ArrayList<>(settled.size());
+        for (Transaction t : settled) {
+            if (t instanceof TransferTransaction tr) {
+                events.add(new LedgerEvent(t.getType(), tr.getAccountId(), tr.getDestinationAccountId(), t.getId(),
+                        t.getAmount(), tr.getBalanceAfter(), tr.getDestinationBalanceAfter(), t.getTimestamp()));
+            } else {
+                events.add(new LedgerEvent(t.getType(), t.getAccountId(), 0, t.getId(), t.getAmount(),
+                        t.getBalanceAfter(), null, t.getTimestamp()));
             }
         }
+        return events;
     }
 
     private void logError(Transaction t, Exception e) {
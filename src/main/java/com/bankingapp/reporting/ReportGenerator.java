@@ -1,34 +1,322 @@
 package com.bankingapp.reporting;
 
 import com.bankingapp.dao.TransactionDAO;
+import com.bankingapp.model.DailyRollup;
 import com.bankingapp.model.Transaction;
+import com.bankingapp.model.TransactionBatch;
+import com.bankingapp.util.AppConfig;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Account statements are built incrementally: the formatted rows of each recently used account are cached together
+ * with a high-water mark (the latest row timestamp), so a repeat request only fetches and formats the rows stamped
+ * since. Rows are not guaranteed to commit in id or timestamp order (a row is stamped before its insert commits, and
+ * some writers insert outside the account's row lock), so each refresh re-reads the last
+ * reports.statementCache.graceMs before the mark and skips the ids it already holds; a late row stamped before the
+ * mark rebuilds the statement. A row that commits more than the grace period after its timestamp is only picked up
+ * once the statement is rebuilt or evicted.
+ * <p>
+ * A cached statement keeps its formatted rows as a list of chunks of a few KB, so a refresh formats only the new rows
+ * and touches at most the newest chunk; the full text is assembled when a statement is requested. The cache holds at
+ * most reports.statementCache.maxAccounts statements and reports.statementCache.maxBytes of row text, dropping the
+ * least recently used first.
+ */
 public class ReportGenerator {
+    private static final String HEADER = "id,type,amount,timestamp\n";
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // New rows join the newest chunk while it is shorter than this; a rebuild cuts chunks of CHUNK_ROWS rows
+    private static final int CHUNK_CHARS = 8192;
+    private static final int CHUNK_ROWS = 256;
+
     private final TransactionDAO transactionDAO;
+    private final long graceMillis;
+    private final long maxCachedChars;
+    // Guarded by statements, like each statement's charged size
+    private final Map<Integer, CachedStatement> statements;
+    private long cachedChars;
 
     public ReportGenerator(TransactionDAO transactionDAO) {
+        this(transactionDAO, AppConfig.getInt("reports.statementCache.maxAccounts", 10_000),
+                AppConfig.getLong("reports.statementCache.maxBytes", 64L << 20),
+                AppConfig.getLong("reports.statementCache.graceMs", 60_000));
+    }
+
+    /**
+     * @param maxCachedStatements number of accounts whose statements are kept; least recently used are dropped
+     * @param maxCachedBytes      formatted row text kept over all statements (ASCII, so one byte per character)
+     * @param graceMillis         how far before the mark each refresh re-reads, for rows that commit late
+     */
+    public ReportGenerator(TransactionDAO transactionDAO, int maxCachedStatements, long maxCachedBytes, long graceMillis) {
         this.transactionDAO = transactionDAO;
+        this.graceMillis = graceMillis;
+        this.maxCachedChars = maxCachedBytes;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedStatement> eldest) {
+                if (size() <= maxCachedStatements) return false;
+                cachedChars -= eldest.getValue().charged;
+                return true;
+            }
+        };
     }
 
     /**
-     * Generate a simple CSV-like account statement for the given account id.
+     * Generate a simple CSV-like account statement for the given account id, newest row first, followed by the
+     * opening and closing balance. Transfers into the account are listed as TRANSFER_IN. Balances come from the
+     * running balances recorded on the ledger rows, as in {@link TransactionDAO#balanceAsOf}, and read "unknown" when
+     * the rows carry none.
      */
     public String generateAccountStatement(int accountId) throws SQLException {
-        List<Transaction> txs = transactionDAO.getTransactionsByAccountId(accountId);
-        StringBuilder sb = new StringBuilder();
-        sb.append("id,type,amount,timestamp\n");
-        DateTimeFormatter fmt = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-    for (Transaction t : txs) {
+        CachedStatement statement;
+        synchronized (statements) {
+            statement = statements.computeIfAbsent(accountId, CachedStatement::new);
+        }
+        synchronized (statement) {
+            if (statement.lastTimestamp == null || !statement.extend(transactionDAO.getTransactionsInvolving(accountId,
+                    statement.lastTimestamp.minusNanos(graceMillis * 1_000_000)))) {
+                // First use, or a late row is dated before the mark and belongs somewhere inside the cached rows
+                List<Transaction> history = transactionDAO.getTransactionsInvolving(accountId, null);
+                statement.rebuild(history, history.isEmpty() ? BigDecimal.ZERO : openingBalance(accountId, history.get(0)));
+            }
+            if (statement.lastTimestamp != null) statement.prune(statement.lastTimestamp.minusNanos(graceMillis * 1_000_000));
+            charge(accountId, statement);
+            return statement.render();
+        }
+    }
+
+    /**
+     * Bring the cache's size up to date with a statement's, then drop least recently used statements while it is over
+     * budget, possibly including this one.
+     */
+    private void charge(int accountId, CachedStatement statement) {
+        synchronized (statements) {
+            // Evicted while it was being refreshed: it is no longer counted
+            if (statements.get(accountId) != statement) return;
+            cachedChars += statement.chars - statement.charged;
+            statement.charged = statement.chars;
+            Iterator<CachedStatement> eldest = statements.values().iterator();
+            while (cachedChars > maxCachedChars && eldest.hasNext()) {
+                cachedChars -= eldest.next().charged;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Balance before the first row: derived from the balance recorded on it, or looked up when it has none.
+     */
+    private BigDecimal openingBalance(int accountId, Transaction first) throws SQLException {
+        BigDecimal after = first.getBalanceAfter(accountId);
+        if (after != null) return after.subtract(signedAmount(first, accountId));
+        // DATETIME(6) resolution: one microsecond earlier is strictly before the row
+        return transactionDAO.balanceAsOf(accountId, first.getTimestamp().minusNanos(1000));
+    }
+
+    /**
+     * Per-type row counts and totals plus the net ledger effect for one account, computed over the columnar history.
+     */
+    public String generateAccountSummary(int accountId) throws SQLException {
+        TransactionBatch batch = transactionDAO.getTransactionBatchByAccountId(accountId);
+        StringBuilder sb = new StringBuilder("type,count,total\n");
+        for (byte type = TransactionBatch.DEPOSIT; type <= TransactionBatch.INTEREST; type++) {
+            sb.append(TransactionBatch.typeName(type)).append(',')
+                .append(batch.count(type)).append(',')
+                .append(BigDecimal.valueOf(batch.sumAmounts(type), 2))
+                .append('\n');
+        }
+        sb.append("net,").append(batch.size()).append(',').append(BigDecimal.valueOf(batch.signedTotal(), 2)).append('\n');
+        if (batch.size() > 0) {
+            sb.append("first,").append(TransactionBatch.fromEpochMicros(batch.minTimestampMicros()).format(FMT)).append('\n')
+                .append("last,").append(TransactionBatch.fromEpochMicros(batch.maxTimestampMicros()).format(FMT)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Day-by-day activity of one account between two dates (inclusive) from the daily rollups, followed by a total
+     * row and the opening and closing balance. Reads one row per active day plus two index seeks for the balances,
+     * however many ledger rows the period holds.
+     */
+    public String generatePeriodSummary(int accountId, LocalDate from, LocalDate to) throws SQLException {
+        if (to.isBefore(from)) throw new IllegalArgumentException("Period end is before its start");
+        DailyRollup total = new DailyRollup(accountId, from);
+        StringBuilder sb = new StringBuilder("day,deposits,withdrawals,transfers_out,transfers_in,interest,net,count\n");
+        for (DailyRollup day : transactionDAO.getDailyRollups(accountId, from, to)) {
+            appendRollup(sb, day.getDay().toString(), day);
+            total.merge(day);
+        }
+        appendRollup(sb, "total", total);
+        // DATETIME(6) resolution: one microsecond before midnight is the end of the previous day
+        appendBalance(sb, "opening_balance", transactionDAO.balanceAsOf(accountId, from.atStartOfDay().minusNanos(1000)));
+        appendBalance(sb, "closing_balance", transactionDAO.balanceAsOf(accountId, to.plusDays(1).atStartOfDay().minusNanos(1000)));
+        return sb.toString();
+    }
+
+    private static void appendBalance(StringBuilder sb, String label, BigDecimal balance) {
+        sb.append(label).append(',').append(balance == null ? "unknown" : balance.setScale(2, RoundingMode.HALF_UP)).append('\n');
+    }
+
+    private static void appendRollup(StringBuilder sb, String label, DailyRollup r) {
+        sb.append(label);
+        for (DailyRollup.Kind kind : DailyRollup.Kind.values()) {
+            sb.append(',').append(r.getTotal(kind).setScale(2, RoundingMode.HALF_UP));
+        }
+        sb.append(',').append(r.getNet().setScale(2, RoundingMode.HALF_UP))
+            .append(',').append(r.getCount())
+            .append('\n');
+    }
+
+    /**
+     * Drop the cached statement of an account, e.g. after its history was rewritten outside the DAO.
+     */
+    public void invalidate(int accountId) {
+        synchronized (statements) {
+            CachedStatement removed = statements.remove(accountId);
+            if (removed != null) cachedChars -= removed.charged;
+        }
+    }
+
+    /**
+     * Effect of a row on the account's balance; a transfer is a debit of its source and a credit of its destination.
+     */
+    private static BigDecimal signedAmount(Transaction t, int accountId) {
+        if (t.getAccountId() != accountId) return t.getAmount();
+        switch (t.getType()) {
+            case "WITHDRAWAL":
+            case "TRANSFER":
+            case "TRANSFER_OUT":
+                return t.getAmount().negate();
+            default:
+                return t.getAmount();
+        }
+    }
+
+    private static void appendRow(StringBuilder sb, Transaction t, int accountId) {
         sb.append(t.getId()).append(',')
-            .append(t.getType()).append(',')
-            .append(t.getAmount().setScale(2, java.math.RoundingMode.HALF_UP)).append(',')
-            .append(t.getTimestamp().format(fmt))
+            .append(t.getAccountId() == accountId ? t.getType() : "TRANSFER_IN").append(',')
+            .append(t.getAmount().setScale(2, RoundingMode.HALF_UP)).append(',')
+            .append(t.getTimestamp().format(FMT))
             .append('\n');
     }
-        return sb.toString();
+
+    private static final class CachedStatement {
+        private final int accountId;
+        private LocalDateTime lastTimestamp;
+        // Ids of the rows stamped within the grace period before the mark, which a refresh reads again
+        private final Map<Integer, LocalDateTime> recent = new HashMap<>();
+        // Formatted rows: chunks oldest first, the rows within a chunk newest first
+        private final List<String> chunks = new ArrayList<>();
+        private long chars;
+        // Size last counted against the cache budget
+        private long charged;
+        // Null when the ledger rows do not tell
+        private BigDecimal openingBalance;
+        private BigDecimal closingBalance;
+
+        CachedStatement(int accountId) {
+            this.accountId = accountId;
+        }
+
+        /**
+         * Add the rows (oldest first) not yet held; false if one of them is dated before the mark.
+         */
+        boolean extend(List<Transaction> fetched) {
+            List<Transaction> newer = new ArrayList<>();
+            for (Transaction t : fetched) {
+                if (recent.containsKey(t.getId())) continue;
+                if (t.getTimestamp().isBefore(lastTimestamp)) return false;
+                newer.add(t);
+            }
+            if (newer.isEmpty()) return true;
+            StringBuilder sb = new StringBuilder(newer.size() * 48);
+            for (int i = newer.size() - 1; i >= 0; i--) {
+                appendRow(sb, newer.get(i), accountId);
+            }
+            int last = chunks.size() - 1;
+            if (last >= 0 && chunks.get(last).length() < CHUNK_CHARS) {
+                chars -= chunks.get(last).length();
+                chunks.set(last, sb.append(chunks.get(last)).toString());
+            } else {
+                chunks.add(sb.toString());
+            }
+            chars += chunks.get(chunks.size() - 1).length();
+            closingBalance = closingAfter(closingBalance, newer);
+            remember(newer, fetched.get(fetched.size() - 1).getTimestamp());
+            return true;
+        }
+
+        /**
+         * Replace the cache with the full history (oldest first).
+         */
+        void rebuild(List<Transaction> history, BigDecimal opening) {
+            chunks.clear();
+            chars = 0;
+            for (int from = 0; from < history.size(); from += CHUNK_ROWS) {
+                int to = Math.min(history.size(), from + CHUNK_ROWS);
+                StringBuilder sb = new StringBuilder((to - from) * 48);
+                for (int i = to - 1; i >= from; i--) {
+                    appendRow(sb, history.get(i), accountId);
+                }
+                chunks.add(sb.toString());
+                chars += sb.length();
+            }
+            openingBalance = opening;
+            closingBalance = closingAfter(opening, history);
+            recent.clear();
+            lastTimestamp = null;
+            if (!history.isEmpty()) remember(history, history.get(history.size() - 1).getTimestamp());
+        }
+
+        private BigDecimal closingAfter(BigDecimal before, List<Transaction> rows) {
+            if (rows.isEmpty()) return before;
+            BigDecimal recorded = rows.get(rows.size() - 1).getBalanceAfter(accountId);
+            if (recorded != null || before == null) return recorded;
+            BigDecimal balance = before;
+            for (Transaction t : rows) {
+                balance = balance.add(signedAmount(t, accountId));
+            }
+            return balance;
+        }
+
+        private void remember(List<Transaction> rows, LocalDateTime mark) {
+            lastTimestamp = mark;
+            for (Transaction t : rows) {
+                recent.put(t.getId(), t.getTimestamp());
+            }
+        }
+
+        /**
+         * Forget ids that have fallen out of the re-read window.
+         */
+        void prune(LocalDateTime windowStart) {
+            recent.values().removeIf(timestamp -> timestamp.isBefore(windowStart));
+        }
+
+        String render() {
+            StringBuilder sb = new StringBuilder(HEADER.length() + (int) Math.min(Integer.MAX_VALUE - 256, chars) + 96);
+            sb.append(HEADER);
+            for (int i = chunks.size() - 1; i >= 0; i--) {
+                sb.append(chunks.get(i));
+            }
+            return sb.append("opening_balance,").append(format(openingBalance)).append('\n')
+                    .append("closing_balance,").append(format(closingBalance)).append('\n')
+                    .toString();
+        }
+
+        private static String format(BigDecimal balance) {
+            return balance == null ? "unknown" : balance.setScale(2, RoundingMode.HALF_UP).toString();
+        }
     }
 }
@@ -0,0 +1,235 @@
+package com.bankingapp.scheduling;
+
+import com.bankingapp.dao.StandingOrderDAO;
+import com.bankingapp.manager.AccountManager;
+import com.bankingapp.model.StandingOrder;
+import com.bankingapp.model.StandingOrderRun;
+import com.bankingapp.model.Transaction;
+import com.bankingapp.processor.SettlementResult;
+import com.bankingapp.processor.TransactionProcessor;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.DBConnectionUtil;
+import com.bankingapp.util.TimingWheel;
+import com.bankingapp.util.VirtualThreads;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs standing orders at their scheduled instants. standing_orders is the schedule; every
+ * standing.loadIntervalMs the orders due within the next standing.loadAheadMs (including any missed while the
+ * service was down) are loaded into a {@link TimingWheel}, so a tick costs only the orders due at it, not a query or
+ * a pass over every order. The orders due at a tick are settled in batches of standing.batchSize through
+ * {@link TransactionProcessor#settleTransactions(Connection, List)}, one DB transaction per batch.
+ * <p>
+ * Each run executes once per scheduled instant, also with several instances running: claiming a run moves the
+ * order's next run on only if it is still the instant being run and inserts a standing_order_runs row keyed by order
+ * and instant, in the same DB transaction as the ledger rows. A run that would overdraw, or whose accounts no longer
+ * exist, is recorded as REJECTED and not retried; the order moves on to its next instant. Missed instants are caught
+ * up one at a time, each as its own run.
+ */
+public class StandingOrderScheduler {
+
+    private static final int WHEEL_LEVELS = 4;
+
+    private final StandingOrderDAO orderDAO;
+    private final TransactionProcessor processor;
+    private final AccountManager accountManager;
+    private final long tickMillis;
+    private final long loadAheadMillis;
+    private final long loadIntervalMillis;
+    private final int batchSize;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("standing-orders"));
+
+    // Both guarded by this; scheduled holds the instant each order is in the wheel for
+    private final TimingWheel<StandingOrder> wheel;
+    private final Map<Integer, LocalDateTime> scheduled = new HashMap<>();
+
+    /**
+     * Configured from standing.* keys in config.properties.
+     */
+    public StandingOrderScheduler(StandingOrderDAO orderDAO, TransactionProcessor processor, AccountManager accountManager) {
+        this(orderDAO, processor, accountManager,
+                AppConfig.getLong("standing.tickMs", 1000),
+                AppConfig.getLong("standing.loadAheadMs", 900_000),
+                AppConfig.getLong("standing.loadIntervalMs", 300_000),
+                AppConfig.getInt("standing.batchSize", 500));
+    }
+
+    public StandingOrderScheduler(StandingOrderDAO orderDAO, TransactionProcessor processor, AccountManager accountManager,
+                                  long tickMillis, long loadAheadMillis, long loadIntervalMillis, int batchSize) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        if (loadIntervalMillis <= 0 || loadAheadMillis < loadIntervalMillis) {
+            throw new IllegalArgumentException("loadAheadMillis must be at least loadIntervalMillis, which must be positive");
+        }
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        this.orderDAO = orderDAO;
+        this.processor = processor;
+        this.accountManager = accountManager;
+        this.tickMillis = tickMillis;
+        this.loadAheadMillis = loadAheadMillis;
+        this.loadIntervalMillis = loadIntervalMillis;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    /**
+     * Load due orders, catching up on missed runs, and start ticking.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                load();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Warning: could not load standing orders: " + e.getMessage());
+            }
+        }, 0, loadIntervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                System.err.println("Warning: standing order tick failed: " + e.getMessage());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdown();
+    }
+
+    public StandingOrder createOrder(StandingOrder order) throws SQLException {
+        if (order.getAmount() == null || order.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive.");
+        }
+        // Settlement rejects these, so every run of the order would fail
+        if (order.getAmount().stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Amount cannot have more than two decimal places.");
+        }
+        if (order.getAccountId() == order.getDestinationAccountId()) {
+            throw new IllegalArgumentException("Cannot transfer to the same account.");
+        }
+        orderDAO.createOrder(order);
+        if (millis(order.getNextRunAt()) < System.currentTimeMillis() + loadAheadMillis) schedule(order);
+        return order;
+    }
+
+    /**
+     * Stop an order's future runs. A run already in the wheel fails to claim and is dropped.
+     */
+    public boolean cancelOrder(int id) throws SQLException {
+        return orderDAO.cancelOrder(id);
+    }
+
+    public List<StandingOrder> getOrdersByAccountId(int accountId) throws SQLException {
+        return orderDAO.getOrdersByAccountId(accountId);
+    }
+
+    /**
+     * Put every order due within the look-ahead into the wheel. Orders already there for the same instant are left.
+     */
+    void load() throws SQLException {
+        LocalDateTime until = LocalDateTime.ofInstant(Instant.ofEpochMilli(System.currentTimeMillis() + loadAheadMillis), zone);
+        orderDAO.scanDueBefore(until, this::schedule);
+    }
+
+    /**
+     * Run the orders whose instant the clock has passed.
+     */
+    void tick() {
+        List<StandingOrder> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+            for (StandingOrder order : due) scheduled.remove(order.getId(), order.getNextRunAt());
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<StandingOrder> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                run(batch);
+            } catch (SQLException | RuntimeException e) {
+                // Nothing was claimed; the next load finds these orders due again
+                System.err.println("Warning: could not run " + batch.size() + " standing order(s): " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void schedule(StandingOrder order) {
+        LocalDateTime at = order.getNextRunAt();
+        if (at == null || at.equals(scheduled.get(order.getId()))) return;
+        scheduled.put(order.getId(), at);
+        wheel.add(millis(at), order);
+    }
+
+    private void run(List<StandingOrder> due) throws SQLException {
+        List<StandingOrder> claimed;
+        List<Transaction> settled = new ArrayList<>(due.size());
+        try (Connection conn = DBConnectionUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                claimed = orderDAO.claimRuns(conn, due);
+                LocalDateTime now = LocalDateTime.now();
+                Map<Transaction, StandingOrder> rows = new LinkedHashMap<>();
+                for (StandingOrder order : claimed) rows.put(order.toTransaction(now), order);
+                Map<Transaction, String> rejected = settle(conn, new ArrayList<>(rows.keySet()));
+                List<StandingOrderRun> runs = new ArrayList<>(rows.size());
+                rows.forEach((t, order) -> {
+                    String reason = rejected.get(t);
+                    if (reason != null) {
+                        runs.add(new StandingOrderRun(order.getId(), order.getNextRunAt(), StandingOrderRun.REJECTED, 0, reason));
+                    } else {
+                        runs.add(new StandingOrderRun(order.getId(), order.getNextRunAt(), StandingOrderRun.SETTLED, t.getId(), null));
+                        settled.add(t);
+                    }
+                });
+                orderDAO.completeRuns(conn, runs);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        accountManager.publishCommitted(settled);
+        long horizon = System.currentTimeMillis() + loadAheadMillis;
+        for (StandingOrder order : claimed) {
+            // A missed instant's successor may be due already; it runs on the next tick
+            StandingOrder next = order.advanced();
+            if (millis(next.getNextRunAt()) < horizon) schedule(next);
+        }
+    }
+
+    /**
+     * Settle the rows, leaving out those that fail; returns them with the reason. Settlement rejects a whole batch
+     * when a net position would overdraw, so the batch is rolled back to before the attempt and settled again
+     * without the rows it named, until what remains settles.
+     */
+    private Map<Transaction, String> settle(Connection conn, List<Transaction> pending) throws SQLException {
+        Map<Transaction, String> rejected = new HashMap<>();
+        if (pending.isEmpty()) return rejected;
+        Savepoint beforeSettlement = conn.setSavepoint();
+        while (!pending.isEmpty()) {
+            SettlementResult result = processor.settleTransactions(conn, pending);
+            rejected.putAll(result.getFailures());
+            if (result.isCommitted()) break;
+            if (result.getFailures().isEmpty()) throw new SQLException("Settlement failed without naming a transaction");
+            conn.rollback(beforeSettlement);
+            pending.removeIf(result.getFailures()::containsKey);
+        }
+        return rejected;
+    }
+
+    private long millis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+}
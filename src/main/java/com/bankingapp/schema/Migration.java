@@ -0,0 +1,92 @@
+package com.bankingapp.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * One numbered schema change. MySQL commits DDL implicitly, so a migration cannot be rolled back as a whole; instead
+ * every step is idempotent (CREATE ... IF NOT EXISTS, or a catalog check before ALTER) and a migration interrupted
+ * half way is simply applied again.
+ */
+final class Migration {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    final int version;
+    final String description;
+    final List<Step> steps;
+
+    private Migration(int version, String description, List<Step> steps) {
+        this.version = version;
+        this.description = description;
+        this.steps = steps;
+    }
+
+    static Migration of(int version, String description, Step... steps) {
+        return new Migration(version, description, List.of(steps));
+    }
+
+    static Step sql(String ddl) {
+        return conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate(ddl);
+            }
+        };
+    }
+
+    static Step addColumn(String table, String column, String definition) {
+        return conn -> {
+            DatabaseMetaData md = conn.getMetaData();
+            try (ResultSet rs = md.getColumns(conn.getCatalog(), null, table, column)) {
+                if (rs.next()) return;
+            }
+            sql("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition).apply(conn);
+        };
+    }
+
+    static Step dropColumn(String table, String column) {
+        return conn -> {
+            DatabaseMetaData md = conn.getMetaData();
+            try (ResultSet rs = md.getColumns(conn.getCatalog(), null, table, column)) {
+                if (!rs.next()) return;
+            }
+            sql("ALTER TABLE " + table + " DROP COLUMN " + column).apply(conn);
+        };
+    }
+
+    /**
+     * Builds the index online (in place, without blocking writes) when it does not exist yet.
+     */
+    static Step addIndex(String table, String name, String columns) {
+        return conn -> {
+            DatabaseMetaData md = conn.getMetaData();
+            try (ResultSet rs = md.getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+                while (rs.next()) {
+                    if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return;
+                }
+            }
+            sql("ALTER TABLE " + table + " ADD INDEX " + name + " (" + columns + "), ALGORITHM=INPLACE, LOCK=NONE").apply(conn);
+        };
+    }
+
+    static Step dropIndex(String table, String name) {
+        return conn -> {
+            DatabaseMetaData md = conn.getMetaData();
+            try (ResultSet rs = md.getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+                while (rs.next()) {
+                    if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        sql("ALTER TABLE " + table + " DROP INDEX " + name + ", ALGORITHM=INPLACE, LOCK=NONE").apply(conn);
+                        return;
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package com.bankingapp.schema;
+
+import com.bankingapp.dao.sharding.ShardRouter;
+import com.bankingapp.util.AppConfig;
+import com.bankingapp.util.ConnectionProvider;
+import com.bankingapp.util.DBConnectionUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bankingapp.schema.Migration.addColumn;
+import static com.bankingapp.schema.Migration.addIndex;
+import static com.bankingapp.schema.Migration.dropColumn;
+import static com.bankingapp.schema.Migration.dropIndex;
+import static com.bankingapp.schema.Migration.sql;
+
+/**
+ * Owns every table and index the application uses. Entry points call {@link #bootstrap()} once at startup; it brings
+ * the primary and, when sharding is configured, every shard up to the latest migration and records each applied
+ * version in schema_version. DAOs and jobs no longer run DDL when they are constructed. Concurrent starters serialize
+ * on a MySQL named lock, so a migration is applied by one process only. Set schema.autoMigrate=false where the schema
+ * is managed outside the application.
+ */
+public final class SchemaManager {
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "applied_at DATETIME NOT NULL" +
+            ")";
+    private static final String SELECT_VERSIONS_SQL = "SELECT version FROM schema_version";
+    private static final String INSERT_VERSION_SQL = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, NOW())";
+    private static final String LOCK_SQL = "SELECT GET_LOCK('bankingapp.schema', ?)";
+    private static final String UNLOCK_SQL = "SELECT RELEASE_LOCK('bankingapp.schema')";
+
+    static final List<Migration> MIGRATIONS = List.of(
+            Migration.of(1, "Core tables",
+                    sql("CREATE TABLE IF NOT EXISTS users (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "username VARCHAR(100) NOT NULL UNIQUE, " +
+                            "password_hash VARCHAR(256) NOT NULL, " +
+                            "full_name VARCHAR(200)" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS accounts (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "owner_name VARCHAR(200) NOT NULL, " +
+                            "account_type VARCHAR(20) NOT NULL, " +
+                            "balance DECIMAL(15,2) NOT NULL DEFAULT 0" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS transactions (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "account_id INT NOT NULL, " +
+                            "type VARCHAR(20) NOT NULL, " +
+                            "amount DECIMAL(15,2) NOT NULL, " +
+                            "timestamp DATETIME(6) NOT NULL" +
+                            ")")),
+            Migration.of(2, "Record transfer destinations",
+                    addColumn("transactions", "destination_account_id", "INT NULL")),
+            Migration.of(3, "History and batch indexes",
+                    // Per-account history, newest first, and the statement high-water mark scan
+                    addIndex("transactions", "idx_transactions_account_ts", "account_id, timestamp, id"),
+                    // Incoming transfers per account range (reconciliation)
+                    addIndex("transactions", "idx_transactions_destination", "destination_account_id"),
+                    // Interest accrual walks one account type in id ranges
+                    addIndex("accounts", "idx_accounts_type", "account_type, id")),
+            Migration.of(4, "Operational tables",
+                    sql("CREATE TABLE IF NOT EXISTS transaction_errors (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "transaction_type VARCHAR(50), " +
+                            "details TEXT, " +
+                            "error_message TEXT, " +
+                            "timestamp DATETIME" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS ledger_outbox (" +
+                            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "event_type VARCHAR(32) NOT NULL, " +
+                            "account_id INT NOT NULL, " +
+                            "counterparty_account_id INT, " +
+                            "transaction_id INT, " +
+                            "amount DECIMAL(15,2), " +
+                            "balance_after DECIMAL(15,2), " +
+                            "counterparty_balance_after DECIMAL(15,2), " +
+                            "occurred_at DATETIME(6) NOT NULL, " +
+                            "published TINYINT NOT NULL DEFAULT 0, " +
+                            "INDEX idx_ledger_outbox_published (published, id)" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS transfer_saga (" +
+                            "saga_id CHAR(36) PRIMARY KEY, " +
+                            "from_account_id INT NOT NULL, " +
+                            "to_account_id INT NOT NULL, " +
+                            "amount DECIMAL(15,2) NOT NULL, " +
+                            "state VARCHAR(16) NOT NULL, " +
+                            "created_at DATETIME NOT NULL, " +
+                            "updated_at DATETIME NOT NULL, " +
+                            "INDEX idx_transfer_saga_state (state, created_at)" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS transfer_saga_credits (" +
+                            "saga_id CHAR(36) PRIMARY KEY, " +
+                            "to_account_id INT NOT NULL, " +
+                            "amount DECIMAL(15,2) NOT NULL, " +
+                            "applied_at DATETIME NOT NULL" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS interest_accrual_checkpoints (" +
+                            "period VARCHAR(20) NOT NULL, " +
+                            "chunk_start INT NOT NULL, " +
+                            "chunk_end INT NOT NULL, " +
+                            "chunk_size INT NOT NULL, " +
+                            "accounts INT NOT NULL, " +
+                            "completed_at DATETIME, " +
+                            "PRIMARY KEY (period, chunk_start)" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS reconciliation_ranges (" +
+                            "range_size INT NOT NULL, " +
+                            "range_start INT NOT NULL, " +
+                            "range_end INT NOT NULL, " +
+                            "fingerprint BIGINT NOT NULL, " +
+                            "accounts INT NOT NULL, " +
+                            "discrepancies INT NOT NULL, " +
+                            "checked_at DATETIME NOT NULL, " +
+                            "PRIMARY KEY (range_size, range_start)" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS transaction_import_checkpoints (" +
+                            "file_name VARCHAR(255) NOT NULL PRIMARY KEY, " +
+                            "file_size BIGINT NOT NULL, " +
+                            "byte_offset BIGINT NOT NULL, " +
+                            "line_number BIGINT NOT NULL, " +
+                            "rows_applied BIGINT NOT NULL, " +
+                            "rows_rejected BIGINT NOT NULL, " +
+                            "updated_at DATETIME" +
+                            ")")),
+            Migration.of(5, "Daily account rollups",
+                    sql("CREATE TABLE IF NOT EXISTS account_daily_rollups (" +
+                            "account_id INT NOT NULL, " +
+                            "day DATE NOT NULL, " +
+                            "deposit_count INT NOT NULL DEFAULT 0, " +
+                            "deposit_total DECIMAL(17,2) NOT NULL DEFAULT 0, " +
+                            "withdrawal_count INT NOT NULL DEFAULT 0, " +
+                            "withdrawal_total DECIMAL(17,2) NOT NULL DEFAULT 0, " +
+                            "transfer_out_count INT NOT NULL DEFAULT 0, " +
+                            "transfer_out_total DECIMAL(17,2) NOT NULL DEFAULT 0, " +
+                            "transfer_in_count INT NOT NULL DEFAULT 0, " +
+                            "transfer_in_total DECIMAL(17,2) NOT NULL DEFAULT 0, " +
+                            "interest_count INT NOT NULL DEFAULT 0, " +
+                            "interest_total DECIMAL(17,2) NOT NULL DEFAULT 0, " +
+                            "PRIMARY KEY (account_id, day)" +
+                            ")")),
+            Migration.of(6, "Running balances on ledger rows",
+                    // Filled for new rows by every writer and for existing rows by batch.BalanceBackfillJob
+                    addColumn("transactions", "balance_after", "DECIMAL(15,2) NULL"),
+                    addColumn("transactions", "destination_balance_after", "DECIMAL(15,2) NULL"),
+                    // Point-in-time seek for incoming transfers; replaces the destination-only index it extends
+                    addIndex("transactions", "idx_transactions_destination_ts", "destination_account_id, timestamp, id"),
+                    dropIndex("transactions", "idx_transactions_destination")),
+            Migration.of(7, "Leaderboard indexes",
+                    // Top accounts by balance (leaderboard.BalanceLeaderboard refills)
+                    addIndex("accounts", "idx_accounts_balance", "balance, id"),
+                    // Recent activity across all accounts (leaderboard.ActivityLeaderboard warm-up)
+                    addIndex("transactions", "idx_transactions_ts", "timestamp, id")),
+            Migration.of(8, "Standing orders",
+                    sql("CREATE TABLE IF NOT EXISTS standing_orders (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "account_id INT NOT NULL, " +
+                            "destination_account_id INT, " +
+                            "amount DECIMAL(15,2) NOT NULL, " +
+                            "frequency VARCHAR(10) NOT NULL, " +
+                            "first_run_at DATETIME NOT NULL, " +
+                            "next_run_at DATETIME, " +
+                            "created_at DATETIME NOT NULL, " +
+                            "INDEX idx_standing_orders_next_run (next_run_at, id), " +
+                            "INDEX idx_standing_orders_account (account_id)" +
+                            ")"),
+                    // One row per executed instant; the primary key makes a second execution of the same instant fail
+                    sql("CREATE TABLE IF NOT EXISTS standing_order_runs (" +
+                            "order_id INT NOT NULL, " +
+                            "scheduled_at DATETIME NOT NULL, " +
+                            "status VARCHAR(16) NOT NULL, " +
+                            "transaction_id INT, " +
+                            "detail VARCHAR(255), " +
+                            "executed_at DATETIME NOT NULL, " +
+                            "PRIMARY KEY (order_id, scheduled_at)" +
+                            ")")),
+            Migration.of(9, "Per-relay outbox positions",
+                    // Every relay process reads the whole outbox: its position is a low-water id (every event at or
+                    // below it delivered) plus the ids delivered above it, since ids can commit out of order
+                    sql("CREATE TABLE IF NOT EXISTS ledger_outbox_consumers (" +
+                            "consumer VARCHAR(64) PRIMARY KEY, " +
+                            "low_water BIGINT NOT NULL, " +
+                            "updated_at DATETIME NOT NULL" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS ledger_outbox_deliveries (" +
+                            "consumer VARCHAR(64) NOT NULL, " +
+                            "event_id BIGINT NOT NULL, " +
+                            "PRIMARY KEY (consumer, event_id)" +
+                            ")"),
+                    dropIndex("ledger_outbox", "idx_ledger_outbox_published"),
+                    dropColumn("ledger_outbox", "published"))
+    );
+
+    private static boolean bootstrapped;
+
+    private SchemaManager() {
+    }
+
+    /**
+     * Migrate the primary and every configured shard, once per process. Failures are reported, not thrown: with
+     * insufficient DDL privileges the application still starts against a schema provisioned by other means.
+     */
+    public static synchronized void bootstrap() {
+        if (bootstrapped || !AppConfig.getBoolean("schema.autoMigrate", true)) return;
+        bootstrapped = true;
+        List<ConnectionProvider> stores = new ArrayList<>();
+        stores.add(DBConnectionUtil::getConnection);
+        if (AppConfig.getInt("shard.count", 0) > 0) {
+            ShardRouter.fromConfig().getShards().forEach(shard -> stores.add(shard.getConnections()));
+        }
+        for (int i = 0; i < stores.size(); i++) {
+            try {
+                int applied = migrate(stores.get(i));
+                if (applied > 0) {
+                    System.out.println("Applied " + applied + " schema migration(s) to " + (i == 0 ? "primary" : "shard " + (i - 1)));
+                }
+            } catch (SQLException e) {
+                System.err.println("Warning: could not migrate schema of " + (i == 0 ? "primary" : "shard " + (i - 1))
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply every migration the store has not recorded yet, in version order. Returns the number applied.
+     */
+    public static int migrate(ConnectionProvider store) throws SQLException {
+        try (Connection conn = store.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(LOCK_SQL)) {
+                ps.setInt(1, AppConfig.getInt("schema.lockTimeoutSeconds", 60));
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) throw new SQLException("Timed out waiting for the schema lock");
+                }
+            }
+            try {
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate(CREATE_VERSION_TABLE);
+                }
+                List<Integer> applied = new ArrayList<>();
+                try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(SELECT_VERSIONS_SQL)) {
+                    while (rs.next()) applied.add(rs.getInt(1));
+                }
+                int count = 0;
+                for (Migration migration : MIGRATIONS) {
+                    if (applied.contains(migration.version)) continue;
+                    for (Migration.Step step : migration.steps) {
+                        step.apply(conn);
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(INSERT_VERSION_SQL)) {
+                        ps.setInt(1, migration.version);
+                        ps.setString(2, migration.description);
+                        ps.executeUpdate();
+                    }
+                    count++;
+                }
+                return count;
+            } finally {
+                try (Statement st = conn.createStatement()) {
+                    st.executeQuery(UNLOCK_SQL).close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bankingapp.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive prefix index from account owner names to account ids. Entries are kept in a skip list ordered by
+ * normalized name then id, so a lookup is one O(log n) seek plus a walk over the page it returns, whatever the number
+ * of accounts. Names are normalized by trimming, collapsing runs of whitespace and lower-casing (Locale.ROOT).
+ * Thread-safe; a search that runs alongside updates sees each entry either before or after its change.
+ */
+public class OwnerNameIndex {
+
+    // Separates name and id in a key; sorts below every character, so "ann" comes before "anna"
+    private static final char SEPARATOR = '\u0000';
+    private static final int ID_DIGITS = 10;
+
+    private final ConcurrentSkipListMap<String, OwnerSearchPage.Match> byName = new ConcurrentSkipListMap<>();
+    private final Map<Integer, String> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Index the account under its owner name, replacing any previous name.
+     */
+    public void put(int accountId, String ownerName) {
+        if (ownerName == null) {
+            remove(accountId);
+            return;
+        }
+        String key = key(normalize(ownerName), accountId);
+        OwnerSearchPage.Match match = new OwnerSearchPage.Match(accountId, ownerName);
+        keys.compute(accountId, (id, old) -> {
+            if (old != null && !old.equals(key)) byName.remove(old);
+            byName.put(key, match);
+            return key;
+        });
+    }
+
+    public void remove(int accountId) {
+        keys.computeIfPresent(accountId, (id, old) -> {
+            byName.remove(old);
+            return null;
+        });
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Up to limit accounts whose normalized owner name starts with the normalized prefix, after the cursor of a
+     * previous page (null for the first page). An empty prefix matches every account.
+     */
+    public OwnerSearchPage search(String prefix, String cursor, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        String from = normalize(prefix == null ? "" : prefix);
+        String to = from + Character.MAX_VALUE;
+        NavigableMap<String, OwnerSearchPage.Match> range;
+        if (cursor == null) {
+            range = byName.subMap(from, true, to, false);
+        } else {
+            String after = decodeCursor(cursor);
+            if (!after.startsWith(from)) throw new IllegalArgumentException("Cursor does not belong to this search");
+            range = byName.subMap(after, false, to, false);
+        }
+        List<OwnerSearchPage.Match> matches = new ArrayList<>(Math.min(limit, 64));
+        String lastKey = null;
+        Iterator<Map.Entry<String, OwnerSearchPage.Match>> it = range.entrySet().iterator();
+        while (matches.size() < limit && it.hasNext()) {
+            Map.Entry<String, OwnerSearchPage.Match> entry = it.next();
+            matches.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new OwnerSearchPage(matches, it.hasNext() ? encodeCursor(lastKey) : null);
+    }
+
+    static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String normalizedName, int accountId) {
+        String id = Integer.toString(accountId);
+        StringBuilder sb = new StringBuilder(normalizedName.length() + 1 + ID_DIGITS).append(normalizedName).append(SEPARATOR);
+        for (int i = id.length(); i < ID_DIGITS; i++) sb.append('0');
+        return sb.append(id).toString();
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bankingapp.search;
+
+import java.util.List;
+
+/**
+ * One page of an owner-name prefix search, in owner name then account id order. Pass {@link #getNextCursor()} to the
+ * next search to continue after the last match; it is null on the last page.
+ */
+public class OwnerSearchPage {
+
+    /**
+     * An account whose owner name matched, with the name as stored.
+     */
+    public static class Match {
+        private final int accountId;
+        private final String ownerName;
+
+        public Match(int accountId, String ownerName) {
+            this.accountId = accountId;
+            this.ownerName = ownerName;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public String getOwnerName() {
+            return ownerName;
+        }
+
+        @Override
+        public String toString() {
+            return accountId + " " + ownerName;
+        }
+    }
+
+    private final List<Match> matches;
+    private final String nextCursor;
+
+    public OwnerSearchPage(List<Match> matches, String nextCursor) {
+        this.matches = matches;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankingapp.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for a DAO, so the same DAO code can run against the primary, a replica or a shard.
+ */
+@FunctionalInterface
+public interface ConnectionProvider {
+    Connection getConnection() throws SQLException;
+}
@@ -0,0 +1,109 @@
+package com.bankingapp.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over 64-bit keys: 4-bit counters packed sixteen to a long, so keys can be removed as well as
+ * added. {@link #mightContain(long)} never returns false for a key that was added and not removed; it returns true
+ * for an absent key with about the false-positive rate the filter was sized for. A counter that reaches 15 sticks
+ * there, which costs precision but never a false negative. Lock-free and safe for concurrent use.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long MAX_COUNT = 15;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    /**
+     * @param expectedKeys      keys the filter should hold at the target rate
+     * @param falsePositiveRate target probability that an absent key is reported present, e.g. 0.01
+     */
+    public CountingBloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0) throw new IllegalArgumentException("expectedKeys must be positive");
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+        // Optimal sizing: m = -n ln p / (ln 2)^2 counters and k = m/n ln 2 hash functions
+        long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = (Math.max(m, COUNTERS_PER_WORD) + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD;
+        if (wordCount > Integer.MAX_VALUE) throw new IllegalArgumentException("Filter too large: " + expectedKeys + " keys");
+        this.words = new AtomicLongArray((int) wordCount);
+        this.counters = wordCount * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / expectedKeys * Math.log(2)));
+    }
+
+    public void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            update(Long.remainderUnsigned(h1 + i * h2, counters), 1);
+        }
+    }
+
+    /**
+     * Remove a key that was added before; removing a key that was never added can cause false negatives.
+     */
+    public void remove(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            update(Long.remainderUnsigned(h1 + i * h2, counters), -1);
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long c = Long.remainderUnsigned(h1 + i * h2, counters);
+            if (count(words.get((int) (c / COUNTERS_PER_WORD)), c) == 0) return false;
+        }
+        return true;
+    }
+
+    public long getCounterCount() {
+        return counters;
+    }
+
+    public int getHashCount() {
+        return hashes;
+    }
+
+    /**
+     * 64-bit key of a string: FNV-1a over its chars.
+     */
+    public static long key(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private void update(long counter, int delta) {
+        int w = (int) (counter / COUNTERS_PER_WORD);
+        int shift = (int) (counter % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long word = words.get(w);
+            long count = (word >>> shift) & MAX_COUNT;
+            // Saturated counters are left alone: their true count is unknown
+            if (count == MAX_COUNT || (delta < 0 && count == 0)) return;
+            long next = word + ((long) delta << shift);
+            if (words.compareAndSet(w, word, next)) return;
+        }
+    }
+
+    private static long count(long word, long counter) {
+        return (word >>> ((int) (counter % COUNTERS_PER_WORD) * 4)) & MAX_COUNT;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads sequential ids over all 64 bits.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,39 +1,180 @@
 package com.bankingapp.util;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Hands out JDBC connections. {@link #getConnection()} always goes to the primary (jdbc.url); {@link #getReadConnection()}
+ * is for query-heavy reads and round-robins over the healthy read replicas in jdbc.replica.urls, falling back to the
+ * primary when none is configured or healthy. After a write, the same session keeps reading from the primary for
+ * jdbc.readYourWritesMs so it never sees a replica that has not caught up with its own change. A session is whatever
+ * the caller binds with {@link #bindSession(Object)} (the HTTP server binds the client's bearer token, so its requests
+ * share a session whichever thread serves them), or else the calling thread.
+ */
 public class DBConnectionUtil {
-    private static final String PROPERTIES_FILE = "/config.properties";
     private static String jdbcUrl;
     private static String jdbcUsername;
     private static String jdbcPassword;
 
-    static {
-        try (InputStream input = DBConnectionUtil.class.getResourceAsStream(PROPERTIES_FILE)) {
-            if (input == null) {
-                throw new RuntimeException("Unable to find " + PROPERTIES_FILE);
-            }
-            Properties prop = new Properties();
-            prop.load(input);
-
-            jdbcUrl = prop.getProperty("jdbc.url");
-            jdbcUsername = prop.getProperty("jdbc.username");
-            jdbcPassword = prop.getProperty("jdbc.password");
+    private static final List<Replica> replicas = new ArrayList<>();
+    private static final AtomicInteger nextReplica = new AtomicInteger();
+    private static final ThreadLocal<Object> boundSession = new ThreadLocal<>();
+    // Session key to nanoTime of its last write; only kept while replicas are configured, swept once stale
+    private static final Map<Object, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private static long readYourWritesNanos;
+    private static long replicaRetryNanos;
 
+    static {
+        jdbcUrl = AppConfig.get("jdbc.url");
+        jdbcUsername = AppConfig.get("jdbc.username");
+        jdbcPassword = AppConfig.get("jdbc.password");
+        try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (IOException e) {
-            throw new ExceptionInInitializerError("Error loading DB config: " + e.getMessage());
         } catch (ClassNotFoundException e) {
             throw new ExceptionInInitializerError("MySQL JDBC Driver not found: " + e.getMessage());
         }
+
+        readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("jdbc.readYourWritesMs", 2000));
+        replicaRetryNanos = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("jdbc.replica.retryMs", 5000));
+        String replicaUrls = AppConfig.get("jdbc.replica.urls", "");
+        String replicaUser = AppConfig.get("jdbc.replica.username", jdbcUsername);
+        String replicaPassword = AppConfig.get("jdbc.replica.password", jdbcPassword);
+        for (String url : replicaUrls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(new Replica(url.trim(), replicaUser, replicaPassword));
+            }
+        }
+        long healthCheckMs = AppConfig.getLong("jdbc.replica.healthCheckMs", 10_000);
+        if (!replicas.isEmpty()) {
+            ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonFactory("replica-health"));
+            if (healthCheckMs > 0) {
+                checker.scheduleWithFixedDelay(DBConnectionUtil::checkReplicas, healthCheckMs, healthCheckMs, TimeUnit.MILLISECONDS);
+            }
+            long sweepNanos = Math.max(readYourWritesNanos, TimeUnit.SECONDS.toNanos(1));
+            checker.scheduleWithFixedDelay(DBConnectionUtil::sweepWrites, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+        }
     }
 
     public static Connection getConnection() throws SQLException {
         return DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword);
     }
+
+    /**
+     * Connection for a read that tolerates replication lag.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (replicas.isEmpty() || wroteRecently()) {
+            return getConnection();
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isAvailable()) continue;
+            try {
+                return replica.connect();
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+        return getConnection();
+    }
+
+    /**
+     * Record that the calling session just wrote to the primary, pinning its reads there for a short while.
+     */
+    public static void markWrite() {
+        if (replicas.isEmpty()) return;
+        lastWriteNanos.put(currentSession(), System.nanoTime());
+    }
+
+    /**
+     * Make {@code sessionKey} the calling thread's session until the returned binding is closed, e.g. for the duration
+     * of one request. Bindings nest; a null key falls back to the thread.
+     */
+    public static SessionBinding bindSession(Object sessionKey) {
+        Object previous = boundSession.get();
+        boundSession.set(sessionKey);
+        return () -> {
+            if (previous == null) boundSession.remove();
+            else boundSession.set(previous);
+        };
+    }
+
+    /**
+     * The calling thread's session key, to carry work for the same session over to another thread.
+     */
+    public static Object currentSession() {
+        Object bound = boundSession.get();
+        return bound != null ? bound : Thread.currentThread();
+    }
+
+    public interface SessionBinding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static boolean wroteRecently() {
+        // A session that never wrote has no entry; nanoTime has no fixed origin, so no default value is "long ago"
+        Long lastWrite = lastWriteNanos.get(currentSession());
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    private static void sweepWrites() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+    }
+
+    private static void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection conn = replica.connect()) {
+                if (conn.isValid(2)) replica.markUp();
+                else replica.markDown(new SQLException("connection not valid"));
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String url;
+        private final String username;
+        private final String password;
+        private volatile long downUntilNanos;
+        private volatile boolean down;
+
+        Replica(String url, String username, String password) {
+            this.url = url;
+            this.username = username;
+            this.password = password;
+        }
+
+        Connection connect() throws SQLException {
+            return DriverManager.getConnection(url, username, password);
+        }
+
+        boolean isAvailable() {
+            return !down || System.nanoTime() - downUntilNanos >= 0;
+        }
+
+        void markDown(SQLException cause) {
+            if (!down) {
+                System.err.println("Warning: read replica " + url + " marked unhealthy: " + cause.getMessage());
+            }
+            downUntilNanos = System.nanoTime() + replicaRetryNanos;
+            down = true;
+        }
+
+        void markUp() {
+            down = false;
+        }
+    }
 }
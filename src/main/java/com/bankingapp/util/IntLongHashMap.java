@@ -0,0 +1,106 @@
+package com.bankingapp.util;
+
+/**
+ * Open-addressing int-to-long map for per-account aggregation over millions of rows without boxing. Keys must be
+ * positive (0 marks an empty slot), which holds for every id in the schema. Not thread-safe.
+ */
+public class IntLongHashMap {
+
+    /**
+     * Receives each entry from {@link #forEach(Visitor)}.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int key, long value);
+    }
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int shift;
+
+    public IntLongHashMap() {
+        this(16);
+    }
+
+    public IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * Add {@code delta} to the value of {@code key}, starting from 0 if absent.
+     */
+    public void addTo(int key, long delta) {
+        int slot = slotOf(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) grow();
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    public void put(int key, long value) {
+        int slot = slotOf(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) grow();
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    public long get(int key, long defaultValue) {
+        int slot = slotOf(key);
+        return keys[slot] == 0 ? defaultValue : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slotOf(key)] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    private int slotOf(int key) {
+        if (key <= 0) throw new IllegalArgumentException("Keys must be positive: " + key);
+        // Fibonacci hashing spreads sequential ids across the table
+        int slot = (key * 0x9E3779B9) >>> shift;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IntLongHashMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+}
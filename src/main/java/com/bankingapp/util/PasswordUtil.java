@@ -4,19 +4,31 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+/**
+ * The original unsalted SHA-256 password format. New hashes come from auth.PasswordHasher; this is kept to verify
+ * hashes stored before it, which are upgraded on the next successful sign-in.
+ */
 public class PasswordUtil {
-    public static String hash(String password) {
-        if (password == null) return null;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashed = md.digest(password.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashed) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 not available", e);
         }
+    });
+
+    public static String hash(String password) {
+        if (password == null) return null;
+        return Hex.encode(digest(password));
+    }
+
+    /**
+     * Raw SHA-256 of the password's UTF-8 bytes, computed with this thread's reusable digest.
+     */
+    public static byte[] digest(String password) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return md.digest(password.getBytes(StandardCharsets.UTF_8));
     }
 }
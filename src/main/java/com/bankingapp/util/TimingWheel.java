@@ -0,0 +1,115 @@
+package com.bankingapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: levels of 64 slots, where a level-0 slot spans one tick and a level-n slot spans 64^n
+ * ticks. An entry sits in the lowest level whose range reaches its deadline and moves down a level each time the
+ * clock enters its slot, so adding is O(1) and advancing by one tick touches only the entries due or cascading at
+ * that tick, however many are waiting. Deadlines beyond the top level's range wait in the top level and are placed
+ * again each time their slot comes round. Not thread-safe.
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private static final class Entry<T> {
+        final long tick;
+        final T value;
+
+        Entry(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<?>[][] levels;
+    private final List<T> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param levels number of levels; with 1-second ticks, 4 levels reach about 194 days
+     */
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        if (levels <= 0 || levels * BITS > 60) throw new IllegalArgumentException("levels must be between 1 and 10");
+        this.tickMillis = tickMillis;
+        this.levels = new List<?>[levels][SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a value for the first tick at or after the deadline; a deadline already passed fires on the next
+     * {@link #advance(long)}.
+     */
+    public void add(long deadlineMillis, T value) {
+        size++;
+        place(new Entry<>(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), value));
+    }
+
+    /**
+     * Move the clock to {@code nowMillis} and return every value whose deadline it passed, in deadline order tick by
+     * tick.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>(overdue);
+        overdue.clear();
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Cascade higher levels first, so entries landing in this tick's level-0 slot fire below
+            for (int level = levels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    List<Entry<T>> slot = take(level, (int) (currentTick >>> (BITS * level)) & MASK);
+                    if (slot != null) {
+                        for (Entry<T> e : slot) place(e);
+                    }
+                }
+            }
+            List<Entry<T>> slot = take(0, (int) currentTick & MASK);
+            if (slot != null) {
+                for (Entry<T> e : slot) due.add(e.value);
+            }
+            due.addAll(overdue);
+            overdue.clear();
+        }
+        size -= due.size();
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Entry<T> e) {
+        if (e.tick <= currentTick) {
+            overdue.add(e.value);
+            return;
+        }
+        int level = 0;
+        while (level < levels.length - 1 && (e.tick >>> (BITS * level)) - (currentTick >>> (BITS * level)) >= SLOTS) {
+            level++;
+        }
+        int index = (int) (e.tick >>> (BITS * level)) & MASK;
+        List<Entry<T>> slot = slot(level, index);
+        if (slot == null) levels[level][index] = slot = new ArrayList<>();
+        slot.add(e);
+    }
+
+    private List<Entry<T>> take(int level, int index) {
+        List<Entry<T>> slot = slot(level, index);
+        levels[level][index] = null;
+        return slot;
+    }
+
+    // Slots are only ever filled by place() with lists of Entry<T>
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>> slot(int level, int index) {
+        return (List<Entry<T>>) levels[level][index];
+    }
+}
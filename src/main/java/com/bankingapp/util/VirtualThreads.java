@@ -0,0 +1,53 @@
+package com.bankingapp.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates a thread-per-task executor on virtual threads when running on Java 21+, and a bounded platform
+ * thread pool otherwise. The project still compiles for Java 17, so the virtual thread API is looked up reflectively.
+ */
+public class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_EXECUTOR = lookupVirtualExecutorFactory();
+
+    public static boolean isAvailable() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * @param name            thread name prefix used for the platform fallback pool
+     * @param fallbackThreads size of the platform pool when virtual threads are unavailable or disabled
+     * @param preferVirtual   false forces the platform pool even on Java 21+
+     */
+    public static ExecutorService newExecutor(String name, int fallbackThreads, boolean preferVirtual) {
+        if (preferVirtual && NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Warning: could not create virtual thread executor: " + e.getMessage());
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads, daemonFactory(name));
+    }
+
+    public static ThreadFactory daemonFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static Method lookupVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}